@@ -0,0 +1,139 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_RETRY_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.EXPORTED_PERCENTILES;
+
+import com.findinpath.github.api.StubRestClient.StubRestClientException;
+import com.findinpath.micrometer.core.aop.MethodTimerCache;
+import com.findinpath.micrometer.core.aop.TimedMethodInterceptor;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Compares the cost of the Github API calls advised by the chain of three interceptors previously
+ * declared in {@code github-api-aop-config.xml} (timing including the retries, retries, timing of
+ * each attempt) against the single {@link MethodInvocationRetryOperationsInterceptor} composing
+ * the same stages, which is what the {@link com.findinpath.retry.annotation.MeteredRetryable}
+ * methods are advised with.
+ * <p>
+ * Both variants publish the same meters. The retries are done without backoff, so that the
+ * benchmark measures the overhead of the interceptors and not the sleeping time.
+ * <p>
+ * Run with {@code -prof gc} in order to see the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FusedRetryInterceptorBenchmark {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String REPOSITORY_NAME = "spring-retry-metrics";
+  private static final String METRIC_DESCRIPTION = "Benchmark timer";
+  private static final int MAX_ATTEMPTS = 3;
+
+  /**
+   * The amount of failed attempts of each call ({@code 3} exhausts the retries).
+   */
+  @Param({"0", "1", "2", "3"})
+  public int failuresPerCall;
+
+  private GithubApi threeInterceptorsGithubApi;
+  private GithubApi fusedInterceptorGithubApi;
+
+  @Setup
+  public void setup() throws MalformedURLException {
+    var repository = new GithubRepository(REPOSITORY_NAME,
+        new URL("https://github.com/findinpath/spring-retry-metrics"),
+        false);
+    var target = new GithubApi(new StubRestClient(repository, failuresPerCall, MAX_ATTEMPTS));
+
+    MeterRegistry threeInterceptorsRegistry = new SimpleMeterRegistry();
+    threeInterceptorsGithubApi = createProxy(target,
+        new TimedMethodInterceptor(API_RETRY_METRIC_NAME, METRIC_DESCRIPTION,
+            EXPORTED_PERCENTILES, threeInterceptorsRegistry),
+        createRetryInterceptor(threeInterceptorsRegistry),
+        new TimedMethodInterceptor(API_METRIC_NAME, METRIC_DESCRIPTION, EXPORTED_PERCENTILES,
+            threeInterceptorsRegistry));
+
+    MeterRegistry fusedRegistry = new SimpleMeterRegistry();
+    var fusedInterceptor = createRetryInterceptor(fusedRegistry);
+    fusedInterceptor.setCallTimers(createMethodTimers(API_RETRY_METRIC_NAME, fusedRegistry));
+    fusedInterceptor.setAttemptTimers(createMethodTimers(API_METRIC_NAME, fusedRegistry));
+    fusedInterceptorGithubApi = createProxy(target, fusedInterceptor);
+  }
+
+  @Benchmark
+  public Object threeInterceptors() {
+    return getOrganisationRepository(threeInterceptorsGithubApi);
+  }
+
+  @Benchmark
+  public Object fusedInterceptor() {
+    return getOrganisationRepository(fusedInterceptorGithubApi);
+  }
+
+  private static Object getOrganisationRepository(GithubApi githubApi) {
+    try {
+      return githubApi.getOrganisationRepository(ORGANISATION_NAME, REPOSITORY_NAME);
+    } catch (StubRestClientException e) {
+      return e;
+    }
+  }
+
+  private static MethodInvocationRetryOperationsInterceptor createRetryInterceptor(
+      MeterRegistry registry) {
+    var retryTemplate = new RetryTemplate();
+    retryTemplate.setBackOffPolicy(new NoBackOffPolicy());
+    retryTemplate.setRetryPolicy(new SimpleRetryPolicy(MAX_ATTEMPTS));
+    retryTemplate.setListeners(new RetryListener[]{
+        new MicrometerRetryListenerSupport(registry, API_METRIC_NAME)});
+
+    var interceptor = new MethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryOperations(retryTemplate);
+    interceptor.setClock(registry.config().clock());
+    return interceptor;
+  }
+
+  private static MethodTimerCache createMethodTimers(String metricName, MeterRegistry registry) {
+    var methodTimers = new MethodTimerCache(metricName, METRIC_DESCRIPTION, EXPORTED_PERCENTILES,
+        registry);
+    methodTimers.registerUntaggedTimer();
+    return methodTimers;
+  }
+
+  private static GithubApi createProxy(GithubApi target, MethodInterceptor... interceptors) {
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.setProxyTargetClass(true);
+    for (MethodInterceptor interceptor : interceptors) {
+      proxyFactory.addAdvice(interceptor);
+    }
+    return (GithubApi) proxyFactory.getProxy();
+  }
+}
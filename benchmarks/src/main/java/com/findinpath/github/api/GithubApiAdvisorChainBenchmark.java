@@ -0,0 +1,142 @@
+package com.findinpath.github.api;
+
+import com.findinpath.github.api.StubRestClient.StubRestClientException;
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+/**
+ * Measures the per call overhead of the Spring AOP advice of the {@link GithubApi} methods: the
+ * interceptor created at startup for each {@link com.findinpath.retry.annotation.MeteredRetryable}
+ * method, which times the call including the retries, retries it and times each of its attempts.
+ * The {@link GithubApi} is driven through the real {@link GithubApiRetryConfiguration} context
+ * backed by a {@link StubRestClient}. The backoff policy of the retry template is replaced with a
+ * {@link NoBackOffPolicy} so that the benchmark measures the proxy overhead and not the sleeping
+ * time.
+ * <p>
+ * Run with {@code -prof gc} in order to see the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GithubApiAdvisorChainBenchmark {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String REPOSITORY_NAME = "spring-retry-metrics";
+  private static final int MAX_ATTEMPTS = 3;
+
+  public enum Scenario {
+    NO_FAILURE(0),
+    ONE_TRANSIENT_FAILURE(1),
+    TWO_TRANSIENT_FAILURES(2),
+    EXHAUSTED_RETRIES(MAX_ATTEMPTS);
+
+    private final int failuresPerCall;
+
+    Scenario(int failuresPerCall) {
+      this.failuresPerCall = failuresPerCall;
+    }
+  }
+
+  @Param
+  public Scenario scenario;
+
+  private AnnotationConfigApplicationContext context;
+  private GithubApi githubApi;
+
+  @Setup
+  public void setup() throws MalformedURLException {
+    var repository = new GithubRepository(REPOSITORY_NAME,
+        new URL("https://github.com/findinpath/spring-retry-metrics"),
+        false);
+
+    context = new AnnotationConfigApplicationContext();
+    context.registerBean(RestClient.class,
+        () -> new StubRestClient(repository, scenario.failuresPerCall, MAX_ATTEMPTS));
+    context.register(BenchmarkConfiguration.class);
+    context.refresh();
+
+    context.getBean("githubApiRetryTemplate", RetryTemplate.class)
+        .setBackOffPolicy(new NoBackOffPolicy());
+    githubApi = context.getBean(GithubApi.class);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object singleThread() {
+    return getOrganisationRepository();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public Object highThreadCount() {
+    return getOrganisationRepository();
+  }
+
+  private Object getOrganisationRepository() {
+    try {
+      return githubApi.getOrganisationRepository(ORGANISATION_NAME, REPOSITORY_NAME);
+    } catch (StubRestClientException e) {
+      return e;
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  static class BenchmarkConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", Integer.toString(MAX_ATTEMPTS));
+      properties.setProperty("github.api.retry.initialBackoffTime", "1");
+      // the retries of the benchmarked scenarios must not be denied by the retry budget
+      properties.setProperty("github.api.retry.budget.ratio", Integer.toString(MAX_ATTEMPTS));
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+  }
+}
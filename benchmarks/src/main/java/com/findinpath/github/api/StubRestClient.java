@@ -0,0 +1,50 @@
+package com.findinpath.github.api;
+
+/**
+ * {@link RestClient} stub used in the benchmarks for simulating transient failures of the API
+ * calls without any network interaction.
+ * <p>
+ * Every logical API call made from a thread fails with a pre-allocated exception for the
+ * configured amount of attempts before succeeding. When the amount of failures per call is greater
+ * or equal to the maximum number of attempts of the retry policy, the calls never succeed.
+ */
+public class StubRestClient implements RestClient {
+
+  // pre-allocated and without stack trace for measuring only the cost of the advisor chain
+  private static final StubRestClientException FAILURE = new StubRestClientException();
+
+  private final Object response;
+  private final int failuresPerCall;
+  private final boolean alwaysFailing;
+  private final ThreadLocal<int[]> attempts = ThreadLocal.withInitial(() -> new int[1]);
+
+  public StubRestClient(Object response, int failuresPerCall, int maxAttempts) {
+    this.response = response;
+    this.failuresPerCall = failuresPerCall;
+    this.alwaysFailing = failuresPerCall >= maxAttempts;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getForEntity(String url, Class<T> responseType) {
+    if (alwaysFailing) {
+      throw FAILURE;
+    }
+    if (failuresPerCall > 0) {
+      var attempt = attempts.get();
+      var current = attempt[0];
+      attempt[0] = current == failuresPerCall ? 0 : current + 1;
+      if (current < failuresPerCall) {
+        throw FAILURE;
+      }
+    }
+    return (T) response;
+  }
+
+  public static class StubRestClientException extends RuntimeException {
+
+    StubRestClientException() {
+      super("Internal server error", null, false, false);
+    }
+  }
+}
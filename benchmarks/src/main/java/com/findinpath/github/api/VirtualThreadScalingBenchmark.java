@@ -0,0 +1,152 @@
+package com.findinpath.github.api;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import com.findinpath.retry.interceptor.VirtualThreads;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+/**
+ * Measures the time needed for completing {@value #CONCURRENT_CALLS} simultaneous slow Github API
+ * calls (each one taking {@value #CALL_LATENCY_MILLIS} ms) through the advisor chain:
+ * <ul>
+ *   <li>{@code PLATFORM_THREADS}: the calls are made from a fixed pool of platform threads
+ *   (e.g. : the request threads of a servlet container), as it is done currently</li>
+ *   <li>{@code VIRTUAL_THREADS}: the calls are made from virtual threads with the virtual thread
+ *   mode of the {@link GithubApiRetryConfiguration} enabled, which runs them on the calling
+ *   virtual threads</li>
+ * </ul>
+ * The virtual threads are available only when running the benchmark on JDK 21 or newer. On older
+ * JDKs the {@code VIRTUAL_THREADS} model falls back to one platform thread per call.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VirtualThreadScalingBenchmark {
+
+  private static final int CONCURRENT_CALLS = 10_000;
+  private static final long CALL_LATENCY_MILLIS = 50;
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String REPOSITORY_NAME = "spring-retry-metrics";
+
+  public enum ExecutionModel {
+    PLATFORM_THREADS,
+    VIRTUAL_THREADS
+  }
+
+  @Param
+  public ExecutionModel executionModel;
+
+  /**
+   * The size of the platform thread pool making the calls in the {@code PLATFORM_THREADS} model.
+   */
+  @Param({"200"})
+  public int platformThreads;
+
+  private AnnotationConfigApplicationContext context;
+  private GithubApi githubApi;
+  private ExecutorService callers;
+
+  @Setup
+  public void setup() throws MalformedURLException {
+    var repository = new GithubRepository(REPOSITORY_NAME,
+        new URL("https://github.com/findinpath/spring-retry-metrics"),
+        false);
+    var virtualThreads = executionModel != ExecutionModel.PLATFORM_THREADS;
+
+    var properties = new Properties();
+    properties.setProperty("github.api.retry.maxAttempts", "3");
+    properties.setProperty("github.api.retry.initialBackoffTime", "1");
+    properties.setProperty("github.api.retry.virtualThreads.enabled",
+        Boolean.toString(virtualThreads));
+    properties.setProperty("github.api.retry.virtualThreads.maxConcurrency",
+        Integer.toString(CONCURRENT_CALLS));
+    var pspc = new PropertySourcesPlaceholderConfigurer();
+    pspc.setProperties(properties);
+
+    context = new AnnotationConfigApplicationContext();
+    context.registerBean(PropertySourcesPlaceholderConfigurer.class, () -> pspc);
+    context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+    context.registerBean(RestClient.class, () -> new SlowRestClient(repository,
+        CALL_LATENCY_MILLIS));
+    context.registerBean(GithubApi.class);
+    context.register(GithubApiRetryConfiguration.class);
+    context.refresh();
+    githubApi = context.getBean(GithubApi.class);
+
+    callers = executionModel == ExecutionModel.VIRTUAL_THREADS
+        ? VirtualThreads.newThreadPerTaskExecutor("caller-")
+        : Executors.newFixedThreadPool(platformThreads);
+  }
+
+  @TearDown
+  public void tearDown() {
+    callers.shutdownNow();
+    context.close();
+  }
+
+  @Benchmark
+  public int concurrentSlowCalls() throws Exception {
+    var calls = new ArrayList<Future<GithubRepository>>(CONCURRENT_CALLS);
+    for (int i = 0; i < CONCURRENT_CALLS; i++) {
+      calls.add(callers.submit(
+          () -> githubApi.getOrganisationRepository(ORGANISATION_NAME, REPOSITORY_NAME)));
+    }
+    int completed = 0;
+    for (Future<GithubRepository> call : calls) {
+      call.get();
+      completed++;
+    }
+    return completed;
+  }
+
+  /**
+   * {@link RestClient} stub which simulates a slow API by sleeping before every response.
+   */
+  static class SlowRestClient implements RestClient {
+
+    private final Object response;
+    private final long latencyMillis;
+
+    SlowRestClient(Object response, long latencyMillis) {
+      this.response = response;
+      this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T getForEntity(String url, Class<T> responseType) {
+      try {
+        Thread.sleep(latencyMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+      return (T) response;
+    }
+  }
+}
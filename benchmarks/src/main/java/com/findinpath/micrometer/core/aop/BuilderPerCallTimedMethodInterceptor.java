@@ -0,0 +1,57 @@
+package com.findinpath.micrometer.core.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+
+/**
+ * Baseline used in the benchmarks: this is the initial implementation of the {@link
+ * TimedMethodInterceptor} which builds and registers the {@link Timer} on every method call.
+ */
+public class BuilderPerCallTimedMethodInterceptor implements MethodInterceptor {
+
+  private static final String EXCEPTION_TAG = "exception";
+
+  private final MeterRegistry registry;
+  private final String metricName;
+  private final String metricDescription;
+  private final double[] exportedPercentiles;
+
+  public BuilderPerCallTimedMethodInterceptor(String metricName,
+      String metricDescription,
+      double[] exportedPercentiles,
+      MeterRegistry registry) {
+    this.metricName = metricName;
+    this.metricDescription = metricDescription;
+    this.exportedPercentiles = exportedPercentiles;
+    this.registry = registry;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    Method method = invocation.getMethod();
+
+    Timer.Sample sample = Timer.start(registry);
+    String exceptionClass = "none";
+    try {
+      return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+    } catch (Exception ex) {
+      exceptionClass = ex.getClass().getSimpleName();
+      throw ex;
+    } finally {
+      var methodName = method.getName();
+      var className = method.getDeclaringClass().getSimpleName();
+
+      sample.stop(Timer.builder(metricName)
+          .description(metricDescription)
+          .tags(EXCEPTION_TAG, exceptionClass)
+          .tag("class", className)
+          .tag("method", methodName)
+          .publishPercentiles(exportedPercentiles)
+          .register(registry));
+    }
+  }
+}
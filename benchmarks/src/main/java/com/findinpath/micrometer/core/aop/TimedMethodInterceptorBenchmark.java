@@ -0,0 +1,120 @@
+package com.findinpath.micrometer.core.aop;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Compares the cost of timing a proxied method call through the {@link TimedMethodInterceptor}
+ * (timers resolved once per method and exception class) against the initial builder-per-call
+ * implementation.
+ * <p>
+ * Run with {@code -prof gc} in order to see the bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimedMethodInterceptorBenchmark {
+
+  private static final String METRIC_NAME = "benchmark";
+  private static final String METRIC_DESCRIPTION = "Benchmark timer";
+  private static final double[] EXPORTED_PERCENTILES = {0.5, 0.75, 0.8, 0.9, 0.95, 0.99, 0.999};
+
+  /**
+   * Whether the timed method call fails or not.
+   */
+  @Param({"false", "true"})
+  public boolean failing;
+
+  private TimedService cachedTimersService;
+  private TimedService builderPerCallService;
+
+  @Setup
+  public void setup() {
+    MeterRegistry registry = new SimpleMeterRegistry();
+    TimedService target = new DefaultTimedService(failing);
+
+    cachedTimersService = createProxy(target,
+        new TimedMethodInterceptor(METRIC_NAME, METRIC_DESCRIPTION, EXPORTED_PERCENTILES,
+            registry));
+    builderPerCallService = createProxy(target,
+        new BuilderPerCallTimedMethodInterceptor(METRIC_NAME, METRIC_DESCRIPTION,
+            EXPORTED_PERCENTILES, registry));
+  }
+
+  @Benchmark
+  public Object cachedTimers() {
+    return call(cachedTimersService);
+  }
+
+  @Benchmark
+  public Object builderPerCall() {
+    return call(builderPerCallService);
+  }
+
+  private static Object call(TimedService service) {
+    try {
+      return service.call();
+    } catch (ServiceException e) {
+      return e;
+    }
+  }
+
+  private static TimedService createProxy(TimedService target, MethodInterceptor interceptor) {
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(TimedService.class);
+    proxyFactory.addAdvice(interceptor);
+    return (TimedService) proxyFactory.getProxy();
+  }
+
+  public interface TimedService {
+
+    Object call();
+  }
+
+  static class DefaultTimedService implements TimedService {
+
+    // pre-allocated and without stack trace for measuring only the cost of the interceptor
+    private static final ServiceException FAILURE = new ServiceException();
+
+    private static final Object RESULT = new Object();
+
+    private final boolean failing;
+
+    DefaultTimedService(boolean failing) {
+      this.failing = failing;
+    }
+
+    @Override
+    public Object call() {
+      if (failing) {
+        throw FAILURE;
+      }
+      return RESULT;
+    }
+  }
+
+  static class ServiceException extends RuntimeException {
+
+    ServiceException() {
+      super("Internal server error", null, false, false);
+    }
+  }
+}
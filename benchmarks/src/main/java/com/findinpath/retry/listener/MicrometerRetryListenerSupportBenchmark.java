@@ -0,0 +1,118 @@
+package com.findinpath.retry.listener;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.context.RetryContextSupport;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+
+/**
+ * Measures the cost of closing a retry context in the {@link MicrometerRetryListenerSupport} for
+ * calls that succeed at first, succeed after a retry and fail.
+ * <p>
+ * Run with {@code -prof gc}: the steady state {@code gc.alloc.rate.norm} is expected to be 0 B/op.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MicrometerRetryListenerSupportBenchmark {
+
+  private static final IllegalStateException FAILURE =
+      new IllegalStateException("Internal server error");
+
+  private MicrometerRetryListenerSupport listener;
+  private RetryContext successfulContext;
+  private RetryContext retriedContext;
+  private RetryContext failedContext;
+
+  @Setup
+  public void setup() throws NoSuchMethodException {
+    listener = new MicrometerRetryListenerSupport(new SimpleMeterRegistry(), "benchmark");
+    var method = Service.class.getDeclaredMethod("call");
+
+    successfulContext = createRetryContext(method);
+    retriedContext = createRetryContext(method, FAILURE);
+    failedContext = createRetryContext(method, FAILURE, FAILURE, FAILURE);
+  }
+
+  @Benchmark
+  public void closeSuccessful() {
+    listener.close(successfulContext, null, null);
+  }
+
+  @Benchmark
+  public void closeRetried() {
+    listener.close(retriedContext, null, null);
+  }
+
+  @Benchmark
+  public void closeFailed() {
+    listener.close(failedContext, null, FAILURE);
+  }
+
+  private static RetryContext createRetryContext(Method method, Throwable... throwables) {
+    var context = new RetryContextSupport(null);
+    context.setAttribute(RetryContext.NAME, method.toGenericString());
+    context.setAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION,
+        new StaticMethodInvocation(method));
+    for (Throwable throwable : throwables) {
+      context.registerThrowable(throwable);
+    }
+    return context;
+  }
+
+  interface Service {
+
+    void call();
+  }
+
+  private static class StaticMethodInvocation implements MethodInvocation {
+
+    private final Method method;
+
+    StaticMethodInvocation(Method method) {
+      this.method = method;
+    }
+
+    @Override
+    public Method getMethod() {
+      return method;
+    }
+
+    @Override
+    public Object[] getArguments() {
+      return new Object[0];
+    }
+
+    @Override
+    public Object proceed() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Object getThis() {
+      return null;
+    }
+
+    @Override
+    public AccessibleObject getStaticPart() {
+      return method;
+    }
+  }
+}
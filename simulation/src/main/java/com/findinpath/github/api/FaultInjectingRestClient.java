@@ -0,0 +1,237 @@
+package com.findinpath.github.api;
+
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Programmable {@link RestClient} simulating the Github API for the load simulations: the attempts
+ * take a latency sampled from a {@link LatencyDistribution}, fail with server errors (or client
+ * errors) at the configured rates, fail altogether during the outages of the {@link FaultPhase
+ * fault schedule} and are rejected with a {@link RateLimitExceededException} when they exceed the
+ * rate limit of the API.
+ * <p>
+ * The outcome of an attempt is drawn from a random generator seeded with the seed of the simulation,
+ * the URL of the call and the number of the attempt on the URL. Provided that each call of the
+ * simulation has its own URL, the latency and the outcome of every attempt are reproducible from
+ * one run to the other, independently of the scheduling of the threads. Only the fault phases and
+ * the rate limit depend on the time elapsed since {@link #start()}.
+ */
+public class FaultInjectingRestClient implements RestClient {
+
+  private static final long RATE_LIMIT_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final GithubRepository repository;
+  private final GithubRepository[] repositories;
+  private final LatencyDistribution latencyDistribution;
+  private final long seed;
+  private final Clock clock;
+  private final List<FaultPhase> faultPhases = new ArrayList<>();
+  private final ConcurrentMap<String, AtomicInteger> urlAttempts = new ConcurrentHashMap<>();
+  private double errorRate;
+  private double clientErrorRate;
+  private int rateLimitPerSecond;
+
+  private volatile long startTime;
+  private long rateLimitWindow = -1;
+  private int rateLimitWindowAttempts;
+
+  private final LongAdder attempts = new LongAdder();
+  private final LongAdder serverErrors = new LongAdder();
+  private final LongAdder clientErrors = new LongAdder();
+  private final LongAdder rateLimitedAttempts = new LongAdder();
+
+  /**
+   * The constructor for the class.
+   *
+   * @param repository          the repository returned by the successful attempts
+   * @param latencyDistribution the latency of the attempts
+   * @param seed                the seed of the random generators of the attempts
+   * @param clock               the clock measuring the time elapsed since the start of the
+   *                            simulation
+   */
+  public FaultInjectingRestClient(GithubRepository repository,
+      LatencyDistribution latencyDistribution, long seed, Clock clock) {
+    this.repository = repository;
+    this.repositories = new GithubRepository[]{repository};
+    this.latencyDistribution = latencyDistribution;
+    this.seed = seed;
+    this.clock = clock;
+    this.startTime = clock.monotonicTime();
+  }
+
+  /**
+   * Sets the ratio of the attempts failing with a server error outside of the fault phases.
+   */
+  public void setErrorRate(double errorRate) {
+    this.errorRate = errorRate;
+  }
+
+  /**
+   * Sets the ratio of the attempts rejected with a {@link ClientErrorException} (e.g. : because
+   * the requested repository doesn't exist).
+   */
+  public void setClientErrorRate(double clientErrorRate) {
+    this.clientErrorRate = clientErrorRate;
+  }
+
+  /**
+   * Sets the maximum amount of attempts per second accepted by the API, {@code 0} for no limit.
+   */
+  public void setRateLimitPerSecond(int rateLimitPerSecond) {
+    this.rateLimitPerSecond = rateLimitPerSecond;
+  }
+
+  /**
+   * Adds a phase to the fault schedule. The phases are expected to be added before the start of
+   * the simulation. When several phases overlap, the first one added applies.
+   */
+  public void addFaultPhase(FaultPhase faultPhase) {
+    this.faultPhases.add(faultPhase);
+  }
+
+  /**
+   * Marks the start of the simulation, from which the fault phases are scheduled.
+   */
+  public void start() {
+    startTime = clock.monotonicTime();
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> T getForEntity(String url, Class<T> responseType) {
+    attempts.increment();
+    var attempt = urlAttempts.computeIfAbsent(url, key -> new AtomicInteger()).getAndIncrement();
+    var random = new SplittableRandom(mix(seed, url.hashCode(), attempt));
+    var elapsedNanos = clock.monotonicTime() - startTime;
+
+    var retryAfterNanos = acquireRateLimit(elapsedNanos);
+    if (retryAfterNanos > 0) {
+      rateLimitedAttempts.increment();
+      throw new RateLimitExceededException("API rate limit exceeded",
+          Duration.ofNanos(retryAfterNanos));
+    }
+
+    var faultPhase = getFaultPhase(elapsedNanos);
+    var latencyMicros = latencyDistribution.sampleMicros(random);
+    sleep(faultPhase == null ? latencyMicros
+        : Math.round(latencyMicros * faultPhase.getLatencyFactor()));
+
+    if (faultPhase != null && faultPhase.isOutage()) {
+      serverErrors.increment();
+      throw new ServerErrorException("Service unavailable", 503);
+    }
+    var outcome = random.nextDouble();
+    if (outcome < clientErrorRate) {
+      clientErrors.increment();
+      throw new ClientErrorException("Not found", 404);
+    }
+    if (outcome < clientErrorRate + (faultPhase == null ? errorRate : faultPhase.getErrorRate())) {
+      serverErrors.increment();
+      throw new ServerErrorException("Internal server error", 500);
+    }
+    return responseType == GithubRepository[].class ? (T) repositories : (T) repository;
+  }
+
+  /**
+   * @return the amount of attempts made on the API
+   */
+  public long getAttempts() {
+    return attempts.sum();
+  }
+
+  /**
+   * @return the amount of attempts which failed with a server error (including the outages)
+   */
+  public long getServerErrors() {
+    return serverErrors.sum();
+  }
+
+  /**
+   * @return the amount of attempts rejected with a client error
+   */
+  public long getClientErrors() {
+    return clientErrors.sum();
+  }
+
+  /**
+   * @return the amount of attempts rejected because of the rate limit
+   */
+  public long getRateLimitedAttempts() {
+    return rateLimitedAttempts.sum();
+  }
+
+  /**
+   * Counts the attempt in the rate limit window of the specified time.
+   *
+   * @return the time until the next window when the attempt exceeds the rate limit, otherwise 0
+   */
+  private synchronized long acquireRateLimit(long elapsedNanos) {
+    if (rateLimitPerSecond <= 0) {
+      return 0;
+    }
+    var window = Math.floorDiv(elapsedNanos, RATE_LIMIT_WINDOW_NANOS);
+    if (window != rateLimitWindow) {
+      rateLimitWindow = window;
+      rateLimitWindowAttempts = 0;
+    }
+    if (++rateLimitWindowAttempts <= rateLimitPerSecond) {
+      return 0;
+    }
+    return (window + 1) * RATE_LIMIT_WINDOW_NANOS - elapsedNanos;
+  }
+
+  private FaultPhase getFaultPhase(long elapsedNanos) {
+    for (FaultPhase faultPhase : faultPhases) {
+      if (faultPhase.isActive(elapsedNanos)) {
+        return faultPhase;
+      }
+    }
+    return null;
+  }
+
+  private static long mix(long seed, int urlHash, int attempt) {
+    // SplitMix64 finalizer spreading the bits of the combined values
+    var z = seed + 0x9E3779B97F4A7C15L * (((long) urlHash << 32) ^ attempt);
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static void sleep(long micros) {
+    if (micros <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.MICROSECONDS.sleep(micros);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Exception thrown by the simulated API when an attempt fails with a server error ({@code 5xx}
+   * status), which is worth retrying.
+   */
+  public static class ServerErrorException extends RuntimeException {
+
+    private final int statusCode;
+
+    ServerErrorException(String message, int statusCode) {
+      super(message);
+      this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+      return statusCode;
+    }
+  }
+}
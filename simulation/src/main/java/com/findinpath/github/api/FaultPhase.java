@@ -0,0 +1,65 @@
+package com.findinpath.github.api;
+
+import java.time.Duration;
+
+/**
+ * A period of the simulation during which the simulated API misbehaves: the attempts fail with a
+ * higher error rate, are slower or fail altogether (outage).
+ */
+public final class FaultPhase {
+
+  private final Duration start;
+  private final Duration end;
+  private final double errorRate;
+  private final boolean outage;
+  private final double latencyFactor;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param start         the start of the phase, relative to the start of the simulation
+   * @param end           the end (exclusive) of the phase, relative to the start of the simulation
+   * @param errorRate     the ratio of the attempts failing with a server error during the phase
+   * @param outage        whether all the attempts fail during the phase
+   * @param latencyFactor the factor applied on the latency of the attempts during the phase
+   */
+  public FaultPhase(Duration start, Duration end, double errorRate, boolean outage,
+      double latencyFactor) {
+    if (end.compareTo(start) <= 0) {
+      throw new IllegalArgumentException("The end of the phase must be after its start");
+    }
+    if (errorRate < 0 || errorRate > 1) {
+      throw new IllegalArgumentException("The error rate must be in the [0, 1] range");
+    }
+    if (latencyFactor <= 0) {
+      throw new IllegalArgumentException("The latency factor must be positive");
+    }
+    this.start = start;
+    this.end = end;
+    this.errorRate = errorRate;
+    this.outage = outage;
+    this.latencyFactor = latencyFactor;
+  }
+
+  boolean isActive(long elapsedNanos) {
+    return elapsedNanos >= start.toNanos() && elapsedNanos < end.toNanos();
+  }
+
+  double getErrorRate() {
+    return errorRate;
+  }
+
+  boolean isOutage() {
+    return outage;
+  }
+
+  double getLatencyFactor() {
+    return latencyFactor;
+  }
+
+  @Override
+  public String toString() {
+    return start.toSeconds() + "s-" + end.toSeconds() + "s "
+        + (outage ? "outage" : "errorRate=" + errorRate) + " latencyFactor=" + latencyFactor;
+  }
+}
@@ -0,0 +1,74 @@
+package com.findinpath.github.api;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of the latency of the simulated API calls. The latency of an attempt is sampled out
+ * of the random generator of the attempt, so that the same attempt always gets the same latency.
+ */
+public interface LatencyDistribution {
+
+  /**
+   * The z-score of the 99th percentile of the standard normal distribution.
+   */
+  double P99_Z_SCORE = 2.3263;
+
+  /**
+   * Samples the latency of an attempt.
+   *
+   * @param random the random generator of the attempt
+   * @return the latency in microseconds
+   */
+  long sampleMicros(SplittableRandom random);
+
+  /**
+   * @param latency the latency of all the attempts
+   * @return a distribution without any variation of the latency
+   */
+  static LatencyDistribution fixed(Duration latency) {
+    var latencyMicros = toMicros(latency);
+    return random -> latencyMicros;
+  }
+
+  /**
+   * @param min the minimum latency
+   * @param max the maximum latency
+   * @return a distribution in which all the latencies between the bounds are equally likely
+   */
+  static LatencyDistribution uniform(Duration min, Duration max) {
+    var minMicros = toMicros(min);
+    var maxMicros = toMicros(max);
+    if (maxMicros < minMicros) {
+      throw new IllegalArgumentException("The latency bounds must be in ascending order");
+    }
+    return random -> minMicros + (long) (random.nextDouble() * (maxMicros - minMicros));
+  }
+
+  /**
+   * Creates a long tailed distribution, which is how the latency of remote calls is usually
+   * distributed.
+   *
+   * @param median the median latency
+   * @param p99    the 99th percentile of the latency
+   * @return a log-normal distribution of the latency
+   */
+  static LatencyDistribution logNormal(Duration median, Duration p99) {
+    var medianMicros = toMicros(median);
+    if (p99.compareTo(median) < 0) {
+      throw new IllegalArgumentException("The 99th percentile can't be lower than the median");
+    }
+    var sigma = medianMicros == 0 ? 0
+        : Math.log((double) toMicros(p99) / medianMicros) / P99_Z_SCORE;
+    return random -> {
+      // Box-Muller transform of two uniform samples into a standard normal sample
+      var u = 1 - random.nextDouble();
+      var z = Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * random.nextDouble());
+      return Math.round(medianMicros * Math.exp(sigma * z));
+    };
+  }
+
+  private static long toMicros(Duration duration) {
+    return duration.toNanos() / 1000;
+  }
+}
@@ -0,0 +1,239 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.EXPORTED_PERCENTILES;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntConsumer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Open-loop load generator : the calls are started at the target rate, following a schedule which
+ * doesn't depend on the completion of the previous calls (the way independent users call a
+ * service), and each call runs on its own caller thread. When the calls slow down (e.g. : because
+ * they are retried), the amount of concurrent calls and caller threads grows instead of the load
+ * decreasing.
+ * <p>
+ * The response time of each call is measured from its scheduled start, so that the delays of the
+ * generator itself are not hidden from the {@value #RESPONSE_TIME_METRIC_NAME} timer. The schedule
+ * of the arrivals is derived from the seed and is the same from one run to the other.
+ */
+public class LoadGenerator {
+
+  public static final String RESPONSE_TIME_METRIC_NAME = "simulation_response_time";
+
+  private static final long THREAD_SAMPLING_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  /**
+   * The distribution of the time between two consecutive calls.
+   */
+  public enum Arrivals {
+    /**
+     * The calls are evenly spaced.
+     */
+    CONSTANT,
+    /**
+     * The time between the calls is exponentially distributed, the way the calls of many
+     * independent users arrive.
+     */
+    POISSON
+  }
+
+  private final double callsPerSecond;
+  private final Duration duration;
+  private final Arrivals arrivals;
+  private final long seed;
+  private final MeterRegistry registry;
+  private final Clock clock;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param callsPerSecond the target rate of the calls
+   * @param duration       the time during which calls are started
+   * @param arrivals       the distribution of the time between two consecutive calls
+   * @param seed           the seed of the schedule of the arrivals
+   * @param registry       the monitoring registry in which the response time of the calls is
+   *                       recorded
+   */
+  public LoadGenerator(double callsPerSecond, Duration duration, Arrivals arrivals, long seed,
+      MeterRegistry registry) {
+    if (callsPerSecond <= 0) {
+      throw new IllegalArgumentException("The rate of the calls must be positive");
+    }
+    this.callsPerSecond = callsPerSecond;
+    this.duration = duration;
+    this.arrivals = arrivals;
+    this.seed = seed;
+    this.registry = registry;
+    this.clock = registry.config().clock();
+  }
+
+  /**
+   * Runs the load : starts the calls during the configured duration and waits for the completion
+   * of the calls in progress at the end of the duration for at most the {@code drainTimeout}.
+   *
+   * @param call         the call, receiving the index of the call (starting from {@code 0})
+   * @param drainTimeout the maximum time to wait for the calls in progress
+   * @return the outcome of the calls
+   * @throws InterruptedException when the thread is interrupted while waiting for the calls
+   */
+  public LoadResult run(IntConsumer call, Duration drainTimeout) throws InterruptedException {
+    var responseTimer = Timer.builder(RESPONSE_TIME_METRIC_NAME)
+        .description("The time taken for completing the simulated calls from their scheduled start")
+        .publishPercentiles(EXPORTED_PERCENTILES)
+        .register(registry);
+    var threadFactory = new CustomizableThreadFactory("simulation-caller-");
+    threadFactory.setDaemon(true);
+    var callers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 10, TimeUnit.SECONDS,
+        new SynchronousQueue<>(), threadFactory);
+    var threadBean = ManagementFactory.getThreadMXBean();
+    threadBean.resetPeakThreadCount();
+
+    var succeeded = new LongAdder();
+    var failed = new LongAdder();
+    var random = new SplittableRandom(seed);
+    var durationNanos = duration.toNanos();
+    var meanIntervalNanos = TimeUnit.SECONDS.toNanos(1) / callsPerSecond;
+    long threadSamples = 0;
+    long threadCountSum = 0;
+    long maxLagNanos = 0;
+    int calls = 0;
+
+    var startTime = clock.monotonicTime();
+    var nextThreadSample = startTime;
+    var nextArrival = 0.0;
+    while (nextArrival < durationNanos) {
+      var scheduledStart = startTime + (long) nextArrival;
+      long now;
+      while ((now = clock.monotonicTime()) < scheduledStart) {
+        LockSupport.parkNanos(scheduledStart - now);
+      }
+      maxLagNanos = Math.max(maxLagNanos, now - scheduledStart);
+      if (now >= nextThreadSample) {
+        threadSamples++;
+        threadCountSum += threadBean.getThreadCount();
+        nextThreadSample = now + THREAD_SAMPLING_PERIOD_NANOS;
+      }
+
+      var index = calls++;
+      callers.execute(() -> {
+        try {
+          call.accept(index);
+          succeeded.increment();
+        } catch (RuntimeException e) {
+          failed.increment();
+        } finally {
+          responseTimer.record(clock.monotonicTime() - scheduledStart, TimeUnit.NANOSECONDS);
+        }
+      });
+      nextArrival += arrivals == Arrivals.CONSTANT ? meanIntervalNanos
+          : -Math.log(1 - random.nextDouble()) * meanIntervalNanos;
+    }
+
+    callers.shutdown();
+    callers.awaitTermination(drainTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    var elapsed = Duration.ofNanos(clock.monotonicTime() - startTime);
+    callers.shutdownNow();
+
+    return new LoadResult(calls, succeeded.sum(), failed.sum(), elapsed,
+        threadBean.getPeakThreadCount(),
+        threadSamples == 0 ? 0 : (double) threadCountSum / threadSamples,
+        callers.getLargestPoolSize(), Duration.ofNanos(maxLagNanos));
+  }
+
+  /**
+   * The outcome of the calls started by a {@link LoadGenerator}.
+   */
+  public static final class LoadResult {
+
+    private final int calls;
+    private final long succeeded;
+    private final long failed;
+    private final Duration elapsed;
+    private final int peakThreads;
+    private final double averageThreads;
+    private final int peakCallerThreads;
+    private final Duration maxLag;
+
+    LoadResult(int calls, long succeeded, long failed, Duration elapsed, int peakThreads,
+        double averageThreads, int peakCallerThreads, Duration maxLag) {
+      this.calls = calls;
+      this.succeeded = succeeded;
+      this.failed = failed;
+      this.elapsed = elapsed;
+      this.peakThreads = peakThreads;
+      this.averageThreads = averageThreads;
+      this.peakCallerThreads = peakCallerThreads;
+      this.maxLag = maxLag;
+    }
+
+    /**
+     * @return the amount of calls started
+     */
+    public int getCalls() {
+      return calls;
+    }
+
+    public long getSucceeded() {
+      return succeeded;
+    }
+
+    public long getFailed() {
+      return failed;
+    }
+
+    /**
+     * @return the amount of calls which didn't complete within the drain timeout
+     */
+    public long getIncomplete() {
+      return calls - succeeded - failed;
+    }
+
+    /**
+     * @return the time from the start of the first call until the completion of the last one
+     * (or until the drain timeout)
+     */
+    public Duration getElapsed() {
+      return elapsed;
+    }
+
+    /**
+     * @return the maximum amount of live platform threads of the JVM during the run
+     */
+    public int getPeakThreads() {
+      return peakThreads;
+    }
+
+    /**
+     * @return the average amount of live platform threads of the JVM while starting the calls
+     */
+    public double getAverageThreads() {
+      return averageThreads;
+    }
+
+    /**
+     * @return the maximum amount of threads making the calls concurrently
+     */
+    public int getPeakCallerThreads() {
+      return peakCallerThreads;
+    }
+
+    /**
+     * @return the maximum delay of the start of a call from its schedule (a large lag means that
+     * the generator couldn't sustain the target rate)
+     */
+    public Duration getMaxLag() {
+      return maxLag;
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.findinpath.github.api;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+/**
+ * Runs load simulations of the Github API calls : for each scenario file passed as argument, the
+ * real {@link GithubApiRetryConfiguration} context (configured with the {@code github.api.*}
+ * properties of the scenario) is created on top of a {@link FaultInjectingRestClient}, loaded by
+ * a {@link LoadGenerator} and reported on. When several scenarios are simulated, a comparison of
+ * their outcome is printed at the end.
+ * <p>
+ * The project needs to be installed beforehand in the local repository:
+ * <pre>
+ *   mvn install -DskipTests
+ *   mvn -f simulation/pom.xml package
+ *   java -jar simulation/target/simulation.jar simulation/scenarios/baseline.properties \
+ *       simulation/scenarios/adaptive-backoff.properties
+ * </pre>
+ */
+public final class Simulation {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String REPOSITORY_NAME_PREFIX = "repository-";
+  private static final String CALLED_METHOD_NAME = "getOrganisationRepository";
+
+  private Simulation() {
+  }
+
+  public static void main(String[] args) throws Exception {
+    if (args.length == 0) {
+      System.err.println("Usage: java -jar simulation.jar <scenario.properties>...");
+      System.exit(1);
+    }
+    var reports = new ArrayList<SimulationReport>();
+    for (String arg : args) {
+      var report = run(SimulationScenario.load(Path.of(arg)));
+      report.print(System.out);
+      reports.add(report);
+    }
+    if (reports.size() > 1) {
+      SimulationReport.printComparison(reports, System.out);
+    }
+  }
+
+  /**
+   * Simulates a scenario in its own application context.
+   *
+   * @param scenario the scenario
+   * @return the report of the simulation
+   * @throws Exception when the simulation can't be completed
+   */
+  public static SimulationReport run(SimulationScenario scenario) throws Exception {
+    var meterRegistry = createMeterRegistry();
+    var restClient = scenario.createRestClient(new GithubRepository("spring-retry-metrics",
+            new URL("https://github.com/findinpath/spring-retry-metrics"), false),
+        meterRegistry.config().clock());
+
+    var pspc = new PropertySourcesPlaceholderConfigurer();
+    pspc.setProperties(scenario.getRetryProperties());
+    try (var context = new AnnotationConfigApplicationContext()) {
+      context.registerBean(PropertySourcesPlaceholderConfigurer.class, () -> pspc);
+      context.registerBean(MeterRegistry.class, () -> meterRegistry);
+      context.registerBean(RestClient.class, () -> restClient);
+      context.registerBean(GithubApi.class);
+      context.register(GithubApiRetryConfiguration.class);
+      context.refresh();
+      var githubApi = context.getBean(GithubApi.class);
+
+      var loadGenerator = scenario.createLoadGenerator(meterRegistry);
+      restClient.start();
+      // every call has its own URL, for the outcome of its attempts to be reproducible
+      var loadResult = loadGenerator.run(index -> githubApi.getOrganisationRepository(
+          ORGANISATION_NAME, REPOSITORY_NAME_PREFIX + index), scenario.getDrainTimeout());
+      return SimulationReport.create(scenario, loadResult, restClient, meterRegistry,
+          CALLED_METHOD_NAME);
+    }
+  }
+
+  /**
+   * Creates a registry whose percentiles cover the whole simulation instead of the last couple of
+   * minutes, as they would by default.
+   */
+  private static MeterRegistry createMeterRegistry() {
+    var meterRegistry = new SimpleMeterRegistry();
+    meterRegistry.config().meterFilter(new MeterFilter() {
+      @Override
+      public DistributionStatisticConfig configure(Meter.Id id,
+          DistributionStatisticConfig config) {
+        return DistributionStatisticConfig.builder()
+            .expiry(Duration.ofDays(1))
+            .bufferLength(1)
+            .build()
+            .merge(config);
+      }
+    });
+    return meterRegistry;
+  }
+}
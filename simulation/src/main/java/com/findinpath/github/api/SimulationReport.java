@@ -0,0 +1,178 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_RETRY_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.EXPORTED_PERCENTILES;
+
+import com.findinpath.github.api.LoadGenerator.LoadResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of a load simulation : the throughput of the successful calls, the latency
+ * percentiles ({@link com.findinpath.retry.config.GithubApiRetryConfiguration#EXPORTED_PERCENTILES})
+ * of the calls and of their attempts, the amplification of the load on the API caused by the
+ * retries and the usage of the threads.
+ */
+public final class SimulationReport {
+
+  private static final String EXCEPTION_TAG = "exception";
+  private static final String METHOD_TAG = "method";
+  private static final String NONE = "none";
+
+  private final String scenarioName;
+  private final String scenarioDescription;
+  private final LoadResult loadResult;
+  private final long attempts;
+  private final long serverErrors;
+  private final long clientErrors;
+  private final long rateLimitedAttempts;
+  private final double[] responseTimePercentiles;
+  private final double[] callPercentiles;
+  private final double[] attemptPercentiles;
+
+  private SimulationReport(SimulationScenario scenario, LoadResult loadResult,
+      FaultInjectingRestClient restClient, double[] responseTimePercentiles,
+      double[] callPercentiles, double[] attemptPercentiles) {
+    this.scenarioName = scenario.getName();
+    this.scenarioDescription = scenario.describe();
+    this.loadResult = loadResult;
+    this.attempts = restClient.getAttempts();
+    this.serverErrors = restClient.getServerErrors();
+    this.clientErrors = restClient.getClientErrors();
+    this.rateLimitedAttempts = restClient.getRateLimitedAttempts();
+    this.responseTimePercentiles = responseTimePercentiles;
+    this.callPercentiles = callPercentiles;
+    this.attemptPercentiles = attemptPercentiles;
+  }
+
+  /**
+   * Creates the report of a simulation out of the outcome of the load, of the attempts counted by
+   * the simulated API and of the timers of the Github API calls.
+   *
+   * @param scenario   the simulated scenario
+   * @param loadResult the outcome of the calls started by the load generator
+   * @param restClient the simulated API
+   * @param registry   the monitoring registry of the simulation
+   * @param methodName the name of the Github API method called by the simulation
+   * @return the report
+   */
+  public static SimulationReport create(SimulationScenario scenario, LoadResult loadResult,
+      FaultInjectingRestClient restClient, MeterRegistry registry, String methodName) {
+    return new SimulationReport(scenario, loadResult, restClient,
+        getPercentiles(registry.find(LoadGenerator.RESPONSE_TIME_METRIC_NAME).timer()),
+        getPercentiles(getSuccessTimer(registry, API_RETRY_METRIC_NAME, methodName)),
+        getPercentiles(getSuccessTimer(registry, API_METRIC_NAME, methodName)));
+  }
+
+  /**
+   * @return the successful calls per second
+   */
+  public double getThroughput() {
+    var elapsedSeconds = loadResult.getElapsed().toNanos() / 1e9;
+    return elapsedSeconds == 0 ? 0 : loadResult.getSucceeded() / elapsedSeconds;
+  }
+
+  /**
+   * @return the average amount of attempts made on the API per call
+   */
+  public double getRetryAmplification() {
+    return loadResult.getCalls() == 0 ? 0 : (double) attempts / loadResult.getCalls();
+  }
+
+  /**
+   * Prints the detailed report of the simulation.
+   */
+  public void print(PrintStream out) {
+    out.printf("== %s : %s%n", scenarioName, scenarioDescription);
+    out.printf("calls          %d (succeeded %d, failed %d, incomplete %d)%n",
+        loadResult.getCalls(), loadResult.getSucceeded(), loadResult.getFailed(),
+        loadResult.getIncomplete());
+    out.printf("throughput     %.1f successful calls/s over %.1fs%n", getThroughput(),
+        loadResult.getElapsed().toMillis() / 1000.0);
+    out.printf("attempts       %d (amplification %.2f, server errors %d, rate limited %d, "
+            + "client errors %d)%n", attempts, getRetryAmplification(), serverErrors,
+        rateLimitedAttempts, clientErrors);
+    out.printf("threads        peak %d, average %.1f, peak callers %d (max generator lag %dms)%n",
+        loadResult.getPeakThreads(), loadResult.getAverageThreads(),
+        loadResult.getPeakCallerThreads(), loadResult.getMaxLag().toMillis());
+    out.printf("%-30s", "latency (ms)");
+    for (double percentile : EXPORTED_PERCENTILES) {
+      out.printf("%10s", "p" + formatPercentile(percentile));
+    }
+    out.println();
+    printPercentiles(out, "response time (all calls)", responseTimePercentiles);
+    printPercentiles(out, API_RETRY_METRIC_NAME + " (successful)", callPercentiles);
+    printPercentiles(out, API_METRIC_NAME + " (successful)", attemptPercentiles);
+    out.println();
+  }
+
+  /**
+   * Prints one line per simulation, for comparing the retry configurations of the scenarios.
+   */
+  public static void printComparison(List<SimulationReport> reports, PrintStream out) {
+    out.printf("%-24s%12s%10s%10s%14s%12s%12s%12s%10s%n", "scenario", "calls/s", "failed",
+        "incomplete", "amplification", "p50 (ms)", "p99 (ms)", "p99.9 (ms)", "threads");
+    for (SimulationReport report : reports) {
+      var percentiles = report.responseTimePercentiles;
+      out.printf("%-24s%12.1f%10d%10d%14.2f%12.1f%12.1f%12.1f%10d%n", report.scenarioName,
+          report.getThroughput(), report.loadResult.getFailed(),
+          report.loadResult.getIncomplete(), report.getRetryAmplification(),
+          getPercentile(percentiles, 0.5), getPercentile(percentiles, 0.99),
+          getPercentile(percentiles, 0.999), report.loadResult.getPeakThreads());
+    }
+  }
+
+  private static void printPercentiles(PrintStream out, String label, double[] percentiles) {
+    out.printf("%-30s", label);
+    for (double value : percentiles) {
+      out.printf("%10.1f", value);
+    }
+    out.println();
+  }
+
+  private static Timer getSuccessTimer(MeterRegistry registry, String metricName,
+      String methodName) {
+    return registry.find(metricName).tags(EXCEPTION_TAG, NONE, METHOD_TAG, methodName).timer();
+  }
+
+  /**
+   * @return the values in milliseconds of the {@link
+   * com.findinpath.retry.config.GithubApiRetryConfiguration#EXPORTED_PERCENTILES}, {@code NaN}
+   * when the timer didn't record anything
+   */
+  private static double[] getPercentiles(Timer timer) {
+    var values = new double[EXPORTED_PERCENTILES.length];
+    Arrays.fill(values, Double.NaN);
+    if (timer == null) {
+      return values;
+    }
+    for (ValueAtPercentile valueAtPercentile : timer.takeSnapshot().percentileValues()) {
+      for (int i = 0; i < EXPORTED_PERCENTILES.length; i++) {
+        if (EXPORTED_PERCENTILES[i] == valueAtPercentile.percentile()) {
+          values[i] = valueAtPercentile.value(TimeUnit.MILLISECONDS);
+        }
+      }
+    }
+    return values;
+  }
+
+  private static double getPercentile(double[] values, double percentile) {
+    for (int i = 0; i < EXPORTED_PERCENTILES.length; i++) {
+      if (EXPORTED_PERCENTILES[i] == percentile) {
+        return values[i];
+      }
+    }
+    return Double.NaN;
+  }
+
+  private static String formatPercentile(double percentile) {
+    return BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros().toPlainString();
+  }
+}
@@ -0,0 +1,183 @@
+package com.findinpath.github.api;
+
+import com.findinpath.github.api.LoadGenerator.Arrivals;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * A load simulation scenario, read from a properties file holding:
+ * <ul>
+ *   <li>the {@code simulation.*} properties describing the load and the behaviour of the
+ *   simulated API (see the {@code simulation/scenarios} directory)</li>
+ *   <li>the {@code github.api.*} properties of the retry configuration under test</li>
+ * </ul>
+ * Running the same simulation with different retry properties allows comparing retry
+ * configurations before rolling them out.
+ */
+public final class SimulationScenario {
+
+  private static final String SIMULATION_PREFIX = "simulation.";
+  private static final String RETRY_PREFIX = "github.api.";
+
+  private final String name;
+  private final Properties properties;
+
+  private SimulationScenario(String name, Properties properties) {
+    this.name = name;
+    this.properties = properties;
+  }
+
+  /**
+   * Loads the scenario from a properties file. The name of the scenario is the {@code
+   * simulation.name} property or, by default, the name of the file.
+   *
+   * @param path the path of the properties file
+   * @return the scenario
+   * @throws IOException when the file can't be read
+   */
+  public static SimulationScenario load(Path path) throws IOException {
+    var properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(path)) {
+      properties.load(reader);
+    }
+    var fileName = path.getFileName().toString();
+    var extension = fileName.lastIndexOf('.');
+    return new SimulationScenario(
+        properties.getProperty(SIMULATION_PREFIX + "name",
+            extension > 0 ? fileName.substring(0, extension) : fileName),
+        properties);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return the {@code github.api.*} properties of the retry configuration under test
+   */
+  public Properties getRetryProperties() {
+    var retryProperties = new Properties();
+    properties.stringPropertyNames().stream()
+        .filter(key -> key.startsWith(RETRY_PREFIX))
+        .forEach(key -> retryProperties.setProperty(key, properties.getProperty(key)));
+    return retryProperties;
+  }
+
+  /**
+   * @return the maximum time to wait for the calls in progress at the end of the load
+   */
+  public Duration getDrainTimeout() {
+    return Duration.ofSeconds(getLong("drainSeconds", 60));
+  }
+
+  /**
+   * Creates the simulated API of the scenario.
+   *
+   * @param repository the repository returned by the successful calls
+   * @param clock      the clock measuring the time elapsed since the start of the simulation
+   * @return the simulated API
+   */
+  public FaultInjectingRestClient createRestClient(GithubRepository repository, Clock clock) {
+    var restClient = new FaultInjectingRestClient(repository, createLatencyDistribution(),
+        getSeed(), clock);
+    restClient.setErrorRate(getDouble("errorRate", 0));
+    restClient.setClientErrorRate(getDouble("clientErrorRate", 0));
+    restClient.setRateLimitPerSecond((int) getLong("rateLimitPerSecond", 0));
+    getFaultPhases().forEach(restClient::addFaultPhase);
+    return restClient;
+  }
+
+  /**
+   * Creates the generator of the load of the scenario.
+   *
+   * @param registry the monitoring registry in which the response time of the calls is recorded
+   * @return the load generator
+   */
+  public LoadGenerator createLoadGenerator(MeterRegistry registry) {
+    return new LoadGenerator(getDouble("callsPerSecond", 100),
+        Duration.ofSeconds(getLong("durationSeconds", 30)),
+        Arrivals.valueOf(getString("arrivals", Arrivals.POISSON.name()).toUpperCase(Locale.ROOT)),
+        getSeed(), registry);
+  }
+
+  /**
+   * @return the description of the load and of the simulated API of the scenario
+   */
+  public String describe() {
+    var description = new StringBuilder()
+        .append(getDouble("callsPerSecond", 100)).append(" calls/s during ")
+        .append(getLong("durationSeconds", 30)).append("s, ")
+        .append(getString("latency.distribution", "LOG_NORMAL").toLowerCase(Locale.ROOT))
+        .append(" latency, error rate ").append(getDouble("errorRate", 0));
+    var rateLimitPerSecond = getLong("rateLimitPerSecond", 0);
+    if (rateLimitPerSecond > 0) {
+      description.append(", rate limit ").append(rateLimitPerSecond).append("/s");
+    }
+    getFaultPhases().forEach(faultPhase -> description.append(", ").append(faultPhase));
+    return description.toString();
+  }
+
+  private LatencyDistribution createLatencyDistribution() {
+    var distribution = getString("latency.distribution", "LOG_NORMAL").toUpperCase(Locale.ROOT);
+    var median = Duration.ofMillis(getLong("latency.medianMillis", 50));
+    switch (distribution) {
+      case "FIXED":
+        return LatencyDistribution.fixed(median);
+      case "UNIFORM":
+        return LatencyDistribution.uniform(Duration.ofMillis(getLong("latency.minMillis", 0)),
+            Duration.ofMillis(getLong("latency.maxMillis", 2 * median.toMillis())));
+      case "LOG_NORMAL":
+        return LatencyDistribution.logNormal(median,
+            Duration.ofMillis(getLong("latency.p99Millis", 5 * median.toMillis())));
+      default:
+        throw new IllegalArgumentException("Unknown latency distribution " + distribution);
+    }
+  }
+
+  /**
+   * Reads the fault phases, numbered from {@code 0} : {@code simulation.phases.0.startSecond},
+   * {@code simulation.phases.0.endSecond}, {@code simulation.phases.0.errorRate}, {@code
+   * simulation.phases.0.outage} and {@code simulation.phases.0.latencyFactor}.
+   */
+  private List<FaultPhase> getFaultPhases() {
+    var faultPhases = new ArrayList<FaultPhase>();
+    for (int i = 0; getString("phases." + i + ".startSecond", null) != null; i++) {
+      var prefix = "phases." + i + ".";
+      faultPhases.add(new FaultPhase(
+          Duration.ofSeconds(getLong(prefix + "startSecond", 0)),
+          Duration.ofSeconds(getLong(prefix + "endSecond", 0)),
+          getDouble(prefix + "errorRate", 0),
+          Boolean.parseBoolean(getString(prefix + "outage", "false")),
+          getDouble(prefix + "latencyFactor", 1)));
+    }
+    return faultPhases;
+  }
+
+  private long getSeed() {
+    return getLong("seed", 42);
+  }
+
+  private String getString(String key, String defaultValue) {
+    var value = properties.getProperty(SIMULATION_PREFIX + key);
+    return value == null || value.isBlank() ? defaultValue : value.trim();
+  }
+
+  private long getLong(String key, long defaultValue) {
+    var value = getString(key, null);
+    return value == null ? defaultValue : Long.parseLong(value);
+  }
+
+  private double getDouble(String key, double defaultValue) {
+    var value = getString(key, null);
+    return value == null ? defaultValue : Double.parseDouble(value);
+  }
+}
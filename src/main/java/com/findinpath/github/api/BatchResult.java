@@ -0,0 +1,42 @@
+package com.findinpath.github.api;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The outcome of a batch of API calls : the results of the successful items and the errors of the
+ * failed items, both indexed by the item key.
+ *
+ * @param <T> the type of the item results
+ */
+public final class BatchResult<T> {
+
+  private final Map<String, T> results;
+  private final Map<String, Throwable> errors;
+
+  BatchResult(Map<String, T> results, Map<String, Throwable> errors) {
+    this.results = Collections.unmodifiableMap(results);
+    this.errors = Collections.unmodifiableMap(errors);
+  }
+
+  /**
+   * @return the results of the successful items
+   */
+  public Map<String, T> getResults() {
+    return results;
+  }
+
+  /**
+   * @return the errors (after the retries) of the failed items
+   */
+  public Map<String, Throwable> getErrors() {
+    return errors;
+  }
+
+  /**
+   * @return whether all the items of the batch completed successfully
+   */
+  public boolean isComplete() {
+    return errors.isEmpty();
+  }
+}
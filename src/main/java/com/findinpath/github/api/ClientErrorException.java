@@ -0,0 +1,20 @@
+package com.findinpath.github.api;
+
+/**
+ * Exception thrown by the {@link RestClient} when the API rejects a call because of the request
+ * itself (a {@code 4xx} status, e.g. : the requested repository doesn't exist). Such calls would
+ * be rejected again if they were retried.
+ */
+public class ClientErrorException extends RuntimeException {
+
+  private final int statusCode;
+
+  public ClientErrorException(String message, int statusCode) {
+    super(message);
+    this.statusCode = statusCode;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+}
@@ -1,5 +1,7 @@
 package com.findinpath.github.api;
 
+import com.findinpath.retry.annotation.MeteredRetryable;
+import com.findinpath.retry.annotation.MeteredTimed;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -8,7 +10,11 @@ import java.util.List;
  * Slimmed version of the Github API used only for test purposes for simulating the interaction with
  * an external API.
  * <p>
+ * All the API calls are retried and timed (both including the retries and for each attempt),
+ * except for the calls rejected because of the request itself.
  */
+@MeteredRetryable(noRetryFor = ClientErrorException.class)
+@MeteredTimed
 public class GithubApi {
 
   public static final String API_URL = "https://api.github.com/";
@@ -30,6 +36,21 @@ public class GithubApi {
     return result == null ? Collections.emptyList() : Arrays.asList(result);
   }
 
+  /**
+   * Lists a page of the repositories for the specified organisation name.
+   *
+   * @param organisationName the organisation name
+   * @param page             the page number (starting from 1)
+   * @param pageSize         the maximum amount of repositories of the page
+   * @return the repositories of the page (fewer than the page size on the last page)
+   */
+  GithubRepository[] listOrganisationRepositoriesPage(String organisationName, int page,
+      int pageSize) {
+    var result = client.getForEntity(API_URL + "orgs/" + organisationName + "/repos?page=" + page
+        + "&per_page=" + pageSize, GithubRepository[].class);
+    return result == null ? new GithubRepository[0] : result;
+  }
+
   /**
    * Retrieves the information about the specified repository that belongs to the specified
    * organisation.
@@ -0,0 +1,153 @@
+package com.findinpath.github.api;
+
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Batch operations on top of the {@link GithubApi}.
+ * <p>
+ * The items of a batch are fanned out on a bounded executor as individual calls through the
+ * (proxied) {@link GithubApi}, so that each of them goes through the advisors of the API calls :
+ * only the failed items get retried, each within its own retry context. The batch waits for all
+ * the items and returns the results of the successful items along with the errors of the failed
+ * ones.
+ * <p>
+ * The time budget set by the caller (see {@link RetryDeadline#callWithTimeBudget(Duration,
+ * RetryDeadline.TimeBudgetedCall)}) applies to the whole batch : each item gets the time remaining
+ * from the budget of the batch when it starts, and the items starting after the budget is spent
+ * fail with a {@link RetryDeadlineExceededException} without being called.
+ * <p>
+ * The batches are monitored through the following metrics, tagged with the batch method:
+ * <pre>
+ *     <ul>
+ *         <li>metricName_batch : times the batches</li>
+ *         <li>metricName_batch_size : the distribution of the amount of items of the batches</li>
+ *         <li>metricName_batch_failed_items : counts the items failed (after the retries)</li>
+ *     </ul>
+ * </pre>
+ */
+public class GithubBatchApi {
+
+  private static final String METHOD_TAG_NAME = "method";
+
+  private final GithubApi githubApi;
+  private final Executor executor;
+  private final Clock clock;
+  private final BatchMeters organisationRepositoriesMeters;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param githubApi           the proxied Github API
+   * @param executor            the bounded executor on which the items of the batches are called
+   * @param meterRegistry       the monitoring registry
+   * @param metricName          the name prefix for the metrics
+   * @param exportedPercentiles the percentiles published by the batch timer
+   */
+  public GithubBatchApi(GithubApi githubApi, Executor executor, MeterRegistry meterRegistry,
+      String metricName, double[] exportedPercentiles) {
+    this.githubApi = githubApi;
+    this.executor = executor;
+    this.clock = meterRegistry.config().clock();
+    this.organisationRepositoriesMeters = new BatchMeters("getOrganisationRepositories",
+        meterRegistry, metricName, exportedPercentiles);
+  }
+
+  /**
+   * Retrieves the information about the specified repositories that belong to the specified
+   * organisation.
+   *
+   * @param organisationName the organisation name
+   * @param repositoryNames  the repository names
+   * @return the information about the repositories, indexed by the repository name
+   */
+  public BatchResult<GithubRepository> getOrganisationRepositories(String organisationName,
+      Collection<String> repositoryNames) {
+    return callBatch(organisationRepositoriesMeters, repositoryNames,
+        repositoryName -> githubApi.getOrganisationRepository(organisationName, repositoryName));
+  }
+
+  private <T> BatchResult<T> callBatch(BatchMeters batchMeters, Collection<String> keys,
+      Function<String, T> call) {
+    var distinctKeys = new LinkedHashSet<>(keys);
+    batchMeters.size.record(distinctKeys.size());
+    return batchMeters.timer.record(() -> {
+      // the time budget set by the caller applies to the whole batch
+      var batchTimeBudget = RetryDeadline.getCallTimeBudget();
+      var batchDeadline = batchTimeBudget == null ? null
+          : new RetryDeadline(clock, batchTimeBudget);
+      var futures = new LinkedHashMap<String, CompletableFuture<T>>();
+      for (String key : distinctKeys) {
+        futures.put(key, CompletableFuture.supplyAsync(
+            () -> callItem(call, key, batchTimeBudget, batchDeadline), executor));
+      }
+
+      Map<String, T> results = new LinkedHashMap<>();
+      Map<String, Throwable> errors = new LinkedHashMap<>();
+      futures.forEach((key, future) -> {
+        try {
+          results.put(key, future.join());
+        } catch (CompletionException e) {
+          errors.put(key, e.getCause() == null ? e : e.getCause());
+        }
+      });
+      batchMeters.failedItems.increment(errors.size());
+      return new BatchResult<>(results, errors);
+    });
+  }
+
+  private static <T> T callItem(Function<String, T> call, String key, Duration batchTimeBudget,
+      RetryDeadline batchDeadline) {
+    if (batchDeadline == null) {
+      return call.apply(key);
+    }
+    long remainingNanos = batchDeadline.getRemainingNanos();
+    if (remainingNanos <= 0) {
+      throw new RetryDeadlineExceededException("The time budget of "
+          + batchTimeBudget.toMillis() + " ms of the batch is spent before calling " + key, null);
+    }
+    return RetryDeadline.callWithTimeBudget(Duration.ofNanos(remainingNanos),
+        () -> call.apply(key));
+  }
+
+  /**
+   * The meters of a batch method.
+   */
+  private static class BatchMeters {
+
+    private final Timer timer;
+    private final DistributionSummary size;
+    private final Counter failedItems;
+
+    BatchMeters(String methodName, MeterRegistry meterRegistry, String metricName,
+        double[] exportedPercentiles) {
+      this.timer = Timer.builder(metricName + "_batch")
+          .description("The time taken for completing the batches of API calls")
+          .tag(METHOD_TAG_NAME, methodName)
+          .publishPercentiles(exportedPercentiles)
+          .register(meterRegistry);
+      this.size = DistributionSummary.builder(metricName + "_batch_size")
+          .description("The amount of items of the batches of API calls")
+          .tag(METHOD_TAG_NAME, methodName)
+          .register(meterRegistry);
+      this.failedItems = Counter.builder(metricName + "_batch_failed_items")
+          .description("The amount of items of the batches failed after the retries")
+          .tag(METHOD_TAG_NAME, methodName)
+          .register(meterRegistry);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.findinpath.github.api;
+
+import com.findinpath.retry.deadline.RetryDeadline;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming operations on top of the paginated resources of the {@link GithubApi}.
+ * <p>
+ * The pages are fetched on demand as individual calls through the (proxied) {@link GithubApi}, so
+ * that each page goes through the advisors of the API calls : a failed page is retried on its own
+ * (without fetching again the previous pages) and the fetching of each page is timed under the
+ * page method (e.g. : {@code listOrganisationRepositoriesPage}).
+ * <p>
+ * Unlike {@link GithubApi#listOrganisationRepositories(String)}, the repositories are not
+ * materialized all at once : only the current page and the prefetched page are held in memory.
+ */
+public class GithubPagedApi {
+
+  private final GithubApi githubApi;
+  private final int pageSize;
+  private final Executor prefetchExecutor;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param githubApi        the proxied Github API
+   * @param pageSize         the amount of items requested per page
+   * @param prefetchExecutor the executor on which the next page is prefetched or {@code null} for
+   *                         fetching the pages only when they are needed
+   */
+  public GithubPagedApi(GithubApi githubApi, int pageSize, Executor prefetchExecutor) {
+    this.githubApi = githubApi;
+    this.pageSize = pageSize;
+    this.prefetchExecutor = prefetchExecutor;
+  }
+
+  /**
+   * Streams all the repositories for the specified organisation name. The stream should be closed
+   * when it is not consumed until the end.
+   *
+   * @param organisationName the organisation name
+   * @return the lazily paged stream of repositories
+   */
+  public Stream<GithubRepository> streamOrganisationRepositories(String organisationName) {
+    var iterator = iterateOrganisationRepositories(organisationName);
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+        Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .onClose(iterator::close);
+  }
+
+  /**
+   * Iterates over all the repositories for the specified organisation name.
+   *
+   * @param organisationName the organisation name
+   * @return the lazily paged iterator of repositories
+   */
+  public PageIterator<GithubRepository> iterateOrganisationRepositories(String organisationName) {
+    // the time budget set by the caller applies to each of the pages, including the prefetched ones
+    var callTimeBudget = RetryDeadline.getCallTimeBudget();
+    return new PageIterator<>(page -> RetryDeadline.callWithTimeBudget(callTimeBudget,
+        () -> githubApi.listOrganisationRepositoriesPage(organisationName, page, pageSize)),
+        pageSize, prefetchExecutor);
+  }
+}
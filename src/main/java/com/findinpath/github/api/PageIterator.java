@@ -0,0 +1,116 @@
+package com.findinpath.github.api;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * Iterator over the items of a paginated API resource, fetching the pages on demand.
+ * <p>
+ * Only the current page (and, when prefetching, the next page) is held in memory. The last page is
+ * the first page having fewer items than the page size. When a prefetch executor is given, the
+ * next page is fetched in the background while the items of the current page are being consumed.
+ * <p>
+ * The exception thrown when fetching a page is rethrown by {@link #hasNext()}, after which the
+ * iteration may be resumed : the failed page is fetched again by the next call. The iterator should
+ * be closed when it is not consumed until the end, in order to cancel the pending prefetch.
+ *
+ * @param <T> the type of the items
+ */
+public final class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+  private final IntFunction<T[]> pageFetcher;
+  private final int pageSize;
+  private final Executor prefetchExecutor;
+  private T[] currentPage;
+  private int index;
+  private int nextPageNumber = 1;
+  private boolean lastPage;
+  private CompletableFuture<T[]> prefetchedPage;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param pageFetcher      fetches the page with the specified number (starting from 1)
+   * @param pageSize         the maximum amount of items of a page
+   * @param prefetchExecutor the executor on which the next page is prefetched or {@code null} for
+   *                         fetching the pages only when they are needed
+   */
+  public PageIterator(IntFunction<T[]> pageFetcher, int pageSize, Executor prefetchExecutor) {
+    if (pageSize < 1) {
+      throw new IllegalArgumentException("The page size must be positive");
+    }
+    this.pageFetcher = pageFetcher;
+    this.pageSize = pageSize;
+    this.prefetchExecutor = prefetchExecutor;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (currentPage == null || index >= currentPage.length) {
+      if (lastPage) {
+        return false;
+      }
+      currentPage = fetchNextPage();
+      index = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    return currentPage[index++];
+  }
+
+  @Override
+  public void close() {
+    lastPage = true;
+    currentPage = null;
+    if (prefetchedPage != null) {
+      prefetchedPage.cancel(false);
+      prefetchedPage = null;
+    }
+  }
+
+  private T[] fetchNextPage() {
+    T[] page;
+    if (prefetchedPage != null) {
+      var prefetched = prefetchedPage;
+      // a failed prefetch is not rethrown again, the page is fetched anew by the next call
+      prefetchedPage = null;
+      page = join(prefetched);
+    } else {
+      page = pageFetcher.apply(nextPageNumber);
+    }
+    nextPageNumber++;
+
+    lastPage = page.length < pageSize;
+    if (!lastPage && prefetchExecutor != null) {
+      int prefetchedPageNumber = nextPageNumber;
+      prefetchedPage = CompletableFuture
+          .supplyAsync(() -> pageFetcher.apply(prefetchedPageNumber), prefetchExecutor);
+    }
+    return page;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      var cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+}
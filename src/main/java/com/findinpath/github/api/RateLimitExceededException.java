@@ -0,0 +1,42 @@
+package com.findinpath.github.api;
+
+import com.findinpath.retry.backoff.RetryAfterAware;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Exception thrown by the {@link RestClient} when the API rejects a call because the rate limit
+ * has been exceeded, carrying the delay (e.g. : from the {@code Retry-After} header) after which
+ * the call may be retried.
+ */
+public class RateLimitExceededException extends RuntimeException implements RetryAfterAware {
+
+  private final Duration retryAfter;
+
+  public RateLimitExceededException(String message, Duration retryAfter) {
+    super(message);
+    this.retryAfter = retryAfter;
+  }
+
+  /**
+   * Creates an exception out of the time at which the rate limit gets reset (e.g. : from the
+   * {@code X-RateLimit-Reset} header).
+   *
+   * @param message        the detail message
+   * @param rateLimitReset the time at which the rate limit gets reset
+   * @param clock          the clock used for computing the delay until the rate limit reset
+   * @return the exception
+   */
+  public static RateLimitExceededException withRateLimitReset(String message,
+      Instant rateLimitReset, Clock clock) {
+    var retryAfter = Duration.between(clock.instant(), rateLimitReset);
+    return new RateLimitExceededException(message,
+        retryAfter.isNegative() ? Duration.ZERO : retryAfter);
+  }
+
+  @Override
+  public Duration getRetryAfter() {
+    return retryAfter;
+  }
+}
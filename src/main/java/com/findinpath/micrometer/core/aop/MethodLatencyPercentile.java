@@ -0,0 +1,115 @@
+package com.findinpath.micrometer.core.aop;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads a percentile of the latency of the successful method calls from the timers registered by
+ * a {@link MethodTimerCache} (e.g. : the p95 of the {@code github_api} timer of a method).
+ * <p>
+ * The percentile has to be one of the percentiles published by the timers. Taking a snapshot of a
+ * timer is comparatively expensive, which is why the percentile value is refreshed at most once
+ * per second for each method.
+ */
+public class MethodLatencyPercentile {
+
+  /**
+   * The value returned while the latency of the method calls is unknown.
+   */
+  public static final long UNKNOWN = -1;
+
+  private static final String EXCEPTION_TAG = "exception";
+  private static final String CLASS_TAG = "class";
+  private static final String METHOD_TAG = "method";
+  private static final String NONE = "none";
+  private static final long REFRESH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final MeterRegistry registry;
+  private final Clock clock;
+  private final String timerName;
+  private final double percentile;
+  private final ConcurrentMap<Method, MethodLatency> methodLatencies = new ConcurrentHashMap<>();
+
+  /**
+   * The constructor for the class.
+   *
+   * @param registry   the registry of the timers, whose clock is used for refreshing the values
+   * @param timerName  the name of the timers of the method calls
+   * @param percentile the percentile (e.g. : 0.95) published by the timers
+   */
+  public MethodLatencyPercentile(MeterRegistry registry, String timerName, double percentile) {
+    this.registry = registry;
+    this.clock = registry.config().clock();
+    this.timerName = timerName;
+    this.percentile = percentile;
+  }
+
+  /**
+   * Retrieves the latency percentile of the successful calls of the specified method.
+   *
+   * @param method the method
+   * @return the latency in nanoseconds or {@link #UNKNOWN} when the timer of the method has no
+   * samples
+   */
+  public long getNanos(Method method) {
+    var methodLatency = methodLatencies.get(method);
+    if (methodLatency == null) {
+      methodLatency = methodLatencies.computeIfAbsent(method, MethodLatency::new);
+    }
+    return methodLatency.getNanos();
+  }
+
+  /**
+   * The latency percentile of a method.
+   */
+  private class MethodLatency {
+
+    private final Method method;
+    private volatile Timer timer;
+    private volatile long nanos = UNKNOWN;
+    private volatile long nextRefreshTime;
+
+    MethodLatency(Method method) {
+      this.method = method;
+      this.nextRefreshTime = clock.monotonicTime();
+    }
+
+    long getNanos() {
+      long now = clock.monotonicTime();
+      if (now - nextRefreshTime >= 0) {
+        nextRefreshTime = now + REFRESH_INTERVAL_NANOS;
+        nanos = readPercentile();
+      }
+      return nanos;
+    }
+
+    private long readPercentile() {
+      var currentTimer = timer;
+      if (currentTimer == null) {
+        currentTimer = registry.find(timerName)
+            .tag(CLASS_TAG, method.getDeclaringClass().getSimpleName())
+            .tag(METHOD_TAG, method.getName())
+            .tag(EXCEPTION_TAG, NONE)
+            .timer();
+        if (currentTimer == null) {
+          return UNKNOWN;
+        }
+        timer = currentTimer;
+      }
+
+      for (ValueAtPercentile valueAtPercentile : currentTimer.takeSnapshot().percentileValues()) {
+        if (valueAtPercentile.percentile() == percentile) {
+          long value = (long) valueAtPercentile.value(TimeUnit.NANOSECONDS);
+          return value > 0 ? value : UNKNOWN;
+        }
+      }
+      return UNKNOWN;
+    }
+  }
+}
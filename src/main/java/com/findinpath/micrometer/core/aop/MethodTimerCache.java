@@ -0,0 +1,150 @@
+package com.findinpath.micrometer.core.aop;
+
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of the {@link Timer} meters which are used for timing the method calls under a given
+ * metric name.
+ * <p>
+ * The timers are resolved only once for each {@code (Method, exception class)} pair. This way the
+ * timing of a method call doesn't need to build a new {@link Timer.Builder} (with its tag list and
+ * meter id) and look up the timer in the {@link MeterRegistry} on every invocation.
+ * <p>
+ * The exception class names used as tag values are limited by a {@link TagCardinalityLimiter}:
+ * the exception classes exceeding the limit share the timer tagged with the
+ * {@link TagCardinalityLimiter#OTHER} exception, which is cached for each of them as well.
+ */
+public class MethodTimerCache {
+
+  private static final String EXCEPTION_TAG = "exception";
+  private static final String CLASS_TAG = "class";
+  private static final String METHOD_TAG = "method";
+  private static final String NONE = "none";
+
+  private final MeterRegistry registry;
+  private final String metricName;
+  private final String metricDescription;
+  private final double[] exportedPercentiles;
+  private final TagCardinalityLimiter cardinalityLimiter;
+
+  private final ConcurrentMap<Method, MethodTimers> methodTimersMap = new ConcurrentHashMap<>();
+
+  public MethodTimerCache(String metricName,
+      String metricDescription,
+      double[] exportedPercentiles,
+      MeterRegistry registry) {
+    this(metricName, metricDescription, exportedPercentiles, registry,
+        new TagCardinalityLimiter(TagCardinalityLimiter.DEFAULT_MAX_TAG_VALUES, registry,
+            metricName + TagCardinalityLimiter.DROPPED_TAG_VALUES_METRIC_SUFFIX));
+  }
+
+  public MethodTimerCache(String metricName,
+      String metricDescription,
+      double[] exportedPercentiles,
+      MeterRegistry registry,
+      TagCardinalityLimiter cardinalityLimiter) {
+    this.metricName = metricName;
+    this.metricDescription = metricDescription;
+    this.exportedPercentiles = exportedPercentiles;
+    this.registry = registry;
+    this.cardinalityLimiter = cardinalityLimiter;
+  }
+
+  /**
+   * Registers the timer without tags under the metric name of this cache, the way the {@link
+   * TimedMethodInterceptor} does when it is created.
+   */
+  public void registerUntaggedTimer() {
+    Timer.builder(metricName)
+        .description(metricDescription)
+        .publishPercentiles(exportedPercentiles)
+        .register(registry);
+  }
+
+  /**
+   * Retrieves the timer corresponding to the outcome of a call to the specified method.
+   *
+   * @param method         the method being timed
+   * @param exceptionClass the class of the exception thrown by the method call or {@code null} if
+   *                       the call completed successfully
+   * @return the timer for the method call outcome
+   */
+  public Timer getTimer(Method method, Class<? extends Throwable> exceptionClass) {
+    var methodTimers = getMethodTimers(method);
+    return exceptionClass == null
+        ? methodTimers.getSuccessTimer()
+        : methodTimers.getExceptionTimer(exceptionClass);
+  }
+
+  private MethodTimers getMethodTimers(Method method) {
+    var methodTimers = methodTimersMap.get(method);
+    if (methodTimers == null) {
+      methodTimers = methodTimersMap.computeIfAbsent(method, MethodTimers::new);
+    }
+    return methodTimers;
+  }
+
+  private Timer registerTimer(String className, String methodName, String exceptionClass) {
+    return Timer.builder(metricName)
+        .description(metricDescription)
+        .tags(EXCEPTION_TAG, exceptionClass)
+        .tag(CLASS_TAG, className)
+        .tag(METHOD_TAG, methodName)
+        .publishPercentiles(exportedPercentiles)
+        .register(registry);
+  }
+
+  /**
+   * The timers resolved for a single method.
+   */
+  private class MethodTimers {
+
+    private final String className;
+    private final String methodName;
+    private final ConcurrentMap<Class<?>, Timer> exceptionTimers = new ConcurrentHashMap<>();
+    private volatile Timer successTimer;
+    private volatile Timer otherExceptionTimer;
+
+    MethodTimers(Method method) {
+      this.className = method.getDeclaringClass().getSimpleName();
+      this.methodName = method.getName();
+    }
+
+    Timer getSuccessTimer() {
+      var timer = successTimer;
+      if (timer == null) {
+        // registering the same timer concurrently is harmless: the registry returns the same meter
+        timer = registerTimer(className, methodName, NONE);
+        successTimer = timer;
+      }
+      return timer;
+    }
+
+    Timer getExceptionTimer(Class<?> exceptionClass) {
+      var timer = exceptionTimers.get(exceptionClass);
+      if (timer == null) {
+        var exceptionTag = cardinalityLimiter
+            .limit(metricName, EXCEPTION_TAG, exceptionClass.getSimpleName());
+        timer = exceptionTimers.computeIfAbsent(exceptionClass,
+            key -> TagCardinalityLimiter.OTHER.equals(exceptionTag)
+                ? getOtherExceptionTimer()
+                : registerTimer(className, methodName, exceptionTag));
+      }
+      return timer;
+    }
+
+    private Timer getOtherExceptionTimer() {
+      var timer = otherExceptionTimer;
+      if (timer == null) {
+        timer = registerTimer(className, methodName, TagCardinalityLimiter.OTHER);
+        otherExceptionTimer = timer;
+      }
+      return timer;
+    }
+  }
+}
@@ -1,17 +1,40 @@
 package com.findinpath.micrometer.core.aop;
 
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import java.lang.reflect.Method;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
 /**
  * This utility class duplicates largely the code defined in {@link io.micrometer.core.aop.TimedAspect}
  * and adapts it in order to be able to work with AOP's method interceptors.
+ * <p>
+ * The timers are resolved once per method and exception class through a {@link MethodTimerCache}
+ * so that the steady-state timing of a call allocates nothing else than the {@link Timer.Sample}.
+ * <p>
+ * When Reactor is on the classpath, the methods returning a {@code Mono}, a {@code Flux} or a
+ * {@link org.reactivestreams.Publisher} are timed from the subscription to the returned publisher
+ * until its termination (or cancellation), instead of the (non-blocking) invocation of the method.
+ * The methods returning other publisher types are not timed.
+ * <p>
+ * The methods returning a {@link CompletionStage} are timed until the completion of the returned
+ * stage. Whenever the return type of the method allows it (e.g. : a {@link
+ * java.util.concurrent.CompletableFuture}), the caller is given a stage which completes only once
+ * the timer is stopped. Cancelling this stage cancels the stage returned by the method as well.
  *
  * @see io.micrometer.core.aop.TimedAspect
  */
@@ -19,26 +42,32 @@ public class TimedMethodInterceptor implements MethodInterceptor {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TimedMethodInterceptor.class);
 
-  private static final String EXCEPTION_TAG = "exception";
+  private static final boolean REACTOR_PRESENT = ClassUtils.isPresent(
+      "reactor.core.publisher.Flux", TimedMethodInterceptor.class.getClassLoader());
 
   private final MeterRegistry registry;
-  private final String metricName;
-  private final String metricDescription;
-  private final double[] exportedPercentiles;
+  private final MethodTimerCache timers;
+  private final PublisherTimer publisherTimer;
 
   public TimedMethodInterceptor(String metricName,
       String metricDescription,
       double[] exportedPercentiles,
       MeterRegistry registry) {
-    this.metricName = metricName;
-    this.metricDescription = metricDescription;
-    this.exportedPercentiles = exportedPercentiles;
-    this.registry = registry;
+    this(metricName, metricDescription, exportedPercentiles, registry,
+        new TagCardinalityLimiter(TagCardinalityLimiter.DEFAULT_MAX_TAG_VALUES, registry,
+            metricName + TagCardinalityLimiter.DROPPED_TAG_VALUES_METRIC_SUFFIX));
+  }
 
-    Timer.builder(metricName)
-        .description(metricDescription)
-        .publishPercentiles(exportedPercentiles)
-        .register(registry);
+  public TimedMethodInterceptor(String metricName,
+      String metricDescription,
+      double[] exportedPercentiles,
+      MeterRegistry registry,
+      TagCardinalityLimiter cardinalityLimiter) {
+    this.registry = registry;
+    this.timers = new MethodTimerCache(metricName, metricDescription, exportedPercentiles,
+        registry, cardinalityLimiter);
+    this.timers.registerUntaggedTimer();
+    this.publisherTimer = REACTOR_PRESENT ? new PublisherTimer() : null;
   }
 
   @Override
@@ -46,32 +75,23 @@ public class TimedMethodInterceptor implements MethodInterceptor {
 
     if (invocation instanceof ProxyMethodInvocation) {
       Method method = invocation.getMethod();
+      if (publisherTimer != null && publisherTimer.isPublisher(method)) {
+        return publisherTimer.time((ProxyMethodInvocation) invocation, method);
+      }
+
+      if (CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+        return timeStage((ProxyMethodInvocation) invocation, method);
+      }
 
       Timer.Sample sample = Timer.start(registry);
-      String exceptionClass = "none";
+      Class<? extends Exception> exceptionClass = null;
       try {
         return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
       } catch (Exception ex) {
-        exceptionClass = ex.getClass().getSimpleName();
+        exceptionClass = ex.getClass();
         throw ex;
       } finally {
-        try {
-
-          var methodName = method.getName();
-          var className = method.getDeclaringClass().getSimpleName();
-
-          sample.stop(Timer.builder(metricName)
-              .description(metricDescription)
-              .tags(EXCEPTION_TAG, exceptionClass)
-              .tag("class", className)
-              .tag("method", methodName)
-              .publishPercentiles(exportedPercentiles)
-              .register(registry));
-        } catch (Exception e) {
-          // ignoring on purpose
-          LOGGER.error("Exception occurred while creating timer for the method "
-              + method.toGenericString(), e);
-        }
+        stopTimer(sample, method, exceptionClass);
       }
     } else {
       throw new IllegalStateException(
@@ -80,4 +100,117 @@ public class TimedMethodInterceptor implements MethodInterceptor {
     }
 
   }
+
+  private Object timeStage(ProxyMethodInvocation invocation, Method method) throws Throwable {
+    Timer.Sample sample = Timer.start(registry);
+    CompletionStage<?> stage;
+    try {
+      stage = (CompletionStage<?>) invocation.invocableClone().proceed();
+    } catch (Exception ex) {
+      stopTimer(sample, method, ex.getClass());
+      throw ex;
+    }
+    if (stage == null) {
+      stopTimer(sample, method, null);
+      return null;
+    }
+
+    var timedStage = stage.whenComplete((value, throwable) -> {
+      if (throwable instanceof CompletionException && throwable.getCause() != null) {
+        throwable = throwable.getCause();
+      }
+      stopTimer(sample, method,
+          throwable instanceof Exception ? ((Exception) throwable).getClass() : null);
+    });
+    // the caller observes the completion only once the timer is stopped, whenever possible
+    if (!method.getReturnType().isAssignableFrom(timedStage.getClass())) {
+      return stage;
+    }
+    if (stage instanceof Future) {
+      timedStage.whenComplete((value, throwable) -> {
+        if (throwable instanceof CancellationException) {
+          ((Future<?>) stage).cancel(false);
+        }
+      });
+    }
+    return timedStage;
+  }
+
+  private void stopTimer(Timer.Sample sample, Method method,
+      Class<? extends Exception> exceptionClass) {
+    try {
+      sample.stop(timers.getTimer(method, exceptionClass));
+    } catch (Exception e) {
+      // ignoring on purpose
+      LOGGER.error("Exception occurred while creating timer for the method "
+          + method.toGenericString(), e);
+    }
+  }
+
+  /**
+   * The timing of the methods returning a publisher, kept apart for Reactor to be loaded only when
+   * it is on the classpath.
+   */
+  private class PublisherTimer {
+
+    boolean isPublisher(Method method) {
+      return Publisher.class.isAssignableFrom(method.getReturnType());
+    }
+
+    Object time(ProxyMethodInvocation invocation, Method method) throws Throwable {
+      var returnType = method.getReturnType();
+      if (returnType != Mono.class && !returnType.isAssignableFrom(Flux.class)) {
+        // other publisher types can't be substituted by a timed Mono or Flux
+        return invocation.invocableClone().proceed();
+      }
+
+      Publisher<?> publisher;
+      try {
+        publisher = (Publisher<?>) invocation.invocableClone().proceed();
+      } catch (Exception ex) {
+        stopTimer(Timer.start(registry), method, ex.getClass());
+        throw ex;
+      }
+      if (publisher instanceof Mono) {
+        return Mono.defer(() -> {
+          var timing = new PublisherTiming(method);
+          return ((Mono<?>) publisher)
+              .doOnError(timing::onError)
+              .doFinally(timing::onTermination);
+        });
+      } else if (publisher != null) {
+        return Flux.defer(() -> {
+          var timing = new PublisherTiming(method);
+          return Flux.from(publisher)
+              .doOnError(timing::onError)
+              .doFinally(timing::onTermination);
+        });
+      }
+      return null;
+    }
+  }
+
+  /**
+   * The timing of a subscription to the publisher returned by a timed method.
+   */
+  private class PublisherTiming {
+
+    private final Method method;
+    private final Timer.Sample sample = Timer.start(registry);
+    private Class<? extends Exception> exceptionClass;
+
+    PublisherTiming(Method method) {
+      this.method = method;
+    }
+
+    void onError(Throwable throwable) {
+      if (throwable instanceof Exception) {
+        exceptionClass = ((Exception) throwable).getClass();
+      }
+    }
+
+    void onTermination(SignalType signalType) {
+      stopTimer(sample, method, exceptionClass);
+    }
+  }
 }
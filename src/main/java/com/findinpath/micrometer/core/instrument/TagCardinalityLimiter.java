@@ -0,0 +1,169 @@
+package com.findinpath.micrometer.core.instrument;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caps the amount of distinct values of the dynamic tags (e.g. : the exception class name, the
+ * retry count) used for the meters with a given name.
+ * <p>
+ * The first {@code maxTagValues} distinct values of a tag are admitted for each meter name, while
+ * the subsequent values are folded into the {@link #OTHER} value. This bounds the amount of series
+ * exported for a meter name (and the memory retained by the registry) regardless of how many
+ * distinct tag values show up at runtime.
+ * <p>
+ * The distinct tag values folded into the {@link #OTHER} value are counted by the {@code
+ * <metricName>} counter tagged with the meter name and the tag key. The folded values aren't
+ * retained : they are counted approximately through a fixed size bitmap of their hashes, so that a
+ * folded value whose hash collides with the one of a value counted before isn't counted. The
+ * callers are expected to cache the outcome of {@link #limit(String, String, String)} for their tag
+ * values instead of limiting them on every use.
+ */
+public class TagCardinalityLimiter {
+
+  /**
+   * The tag value replacing the values which exceed the maximum amount of distinct tag values.
+   */
+  public static final String OTHER = "other";
+  /**
+   * The default maximum amount of distinct values of a tag for a meter name.
+   */
+  public static final int DEFAULT_MAX_TAG_VALUES = 100;
+  /**
+   * The default suffix of the name of the counter of the tag values folded into the {@link #OTHER}
+   * value.
+   */
+  public static final String DROPPED_TAG_VALUES_METRIC_SUFFIX = "_dropped_tag_values";
+
+  private static final String METER_TAG_NAME = "meter";
+  private static final String TAG_TAG_NAME = "tag";
+  /**
+   * The size (a power of two) of the bitmap of the hashes of the dropped values of a tag.
+   */
+  private static final int DROPPED_VALUES_BITS = 4096;
+
+  private final int maxTagValues;
+  private final MeterRegistry meterRegistry;
+  private final String metricName;
+  private final ConcurrentMap<String, ConcurrentMap<String, TagValues>> meterTagValues =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The constructor for the class.
+   *
+   * @param maxTagValues  the maximum amount of distinct values of a tag for a meter name
+   * @param meterRegistry the monitoring registry
+   * @param metricName    the name of the counter of the tag values folded into the {@link #OTHER}
+   *                      value
+   */
+  public TagCardinalityLimiter(int maxTagValues, MeterRegistry meterRegistry, String metricName) {
+    if (maxTagValues < 1) {
+      throw new IllegalArgumentException("The maximum amount of tag values must be positive");
+    }
+    this.maxTagValues = maxTagValues;
+    this.meterRegistry = meterRegistry;
+    this.metricName = metricName;
+  }
+
+  /**
+   * Limits the value of a tag for the meters with the specified name.
+   *
+   * @param meterName the meter name
+   * @param tagKey    the tag key
+   * @param tagValue  the tag value
+   * @return the tag value when it is admitted, {@link #OTHER} otherwise
+   */
+  public String limit(String meterName, String tagKey, String tagValue) {
+    return getTagValues(meterName, tagKey).limit(tagValue);
+  }
+
+  private TagValues getTagValues(String meterName, String tagKey) {
+    var tagValuesMap = meterTagValues.get(meterName);
+    if (tagValuesMap == null) {
+      tagValuesMap = meterTagValues.computeIfAbsent(meterName, key -> new ConcurrentHashMap<>());
+    }
+    var tagValues = tagValuesMap.get(tagKey);
+    if (tagValues == null) {
+      tagValues = tagValuesMap.computeIfAbsent(tagKey, key -> new TagValues(meterName, key));
+    }
+    return tagValues;
+  }
+
+  /**
+   * The admitted values of a tag for a meter name.
+   */
+  private class TagValues {
+
+    private final String meterName;
+    private final String tagKey;
+    private final ConcurrentMap<String, Boolean> admittedValues = new ConcurrentHashMap<>();
+    private final AtomicInteger admittedCount = new AtomicInteger();
+    private final AtomicLongArray droppedValues =
+        new AtomicLongArray(DROPPED_VALUES_BITS / Long.SIZE);
+    private volatile Counter droppedCounter;
+
+    TagValues(String meterName, String tagKey) {
+      this.meterName = meterName;
+      this.tagKey = tagKey;
+    }
+
+    String limit(String tagValue) {
+      if (admittedValues.containsKey(tagValue)) {
+        return tagValue;
+      }
+
+      int count;
+      do {
+        count = admittedCount.get();
+        if (count >= maxTagValues) {
+          if (markDropped(tagValue)) {
+            getDroppedCounter().increment();
+          }
+          return OTHER;
+        }
+      } while (!admittedCount.compareAndSet(count, count + 1));
+
+      if (admittedValues.putIfAbsent(tagValue, Boolean.TRUE) != null) {
+        // the value has been admitted concurrently
+        admittedCount.decrementAndGet();
+      }
+      return tagValue;
+    }
+
+    /**
+     * @return whether the hash of the dropped value was not marked yet
+     */
+    private boolean markDropped(String tagValue) {
+      int hash = tagValue.hashCode();
+      int bit = (hash ^ (hash >>> 16)) & (DROPPED_VALUES_BITS - 1);
+      int index = bit >>> 6;
+      long mask = 1L << bit;
+      long bits;
+      do {
+        bits = droppedValues.get(index);
+        if ((bits & mask) != 0) {
+          return false;
+        }
+      } while (!droppedValues.compareAndSet(index, bits, bits | mask));
+      return true;
+    }
+
+    private Counter getDroppedCounter() {
+      var counter = droppedCounter;
+      if (counter == null) {
+        // registering the same counter concurrently is harmless: the registry returns the same meter
+        counter = Counter.builder(metricName)
+            .description("Counts the tag values folded into the '" + OTHER + "' tag value")
+            .tag(METER_TAG_NAME, meterName)
+            .tag(TAG_TAG_NAME, tagKey)
+            .register(meterRegistry);
+        droppedCounter = counter;
+      }
+      return counter;
+    }
+  }
+}
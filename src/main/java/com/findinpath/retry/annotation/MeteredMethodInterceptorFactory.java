@@ -0,0 +1,32 @@
+package com.findinpath.retry.annotation;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import org.aopalliance.intercept.MethodInterceptor;
+
+/**
+ * Factory of the interceptors of a {@link MeteredRetryable} and/or {@link MeteredTimed} method.
+ * <p>
+ * Whenever possible, a single interceptor is expected to compose all the stages configured by the
+ * annotations (the timing of the call including the retries, the retries and the timing of each
+ * attempt) instead of delegating them to separate interceptors. When other advisors have to run
+ * between the stages (e.g. : an advisor collapsing the calls before the retries), the stages are
+ * split into several interceptors, each of them implementing {@link
+ * org.springframework.core.Ordered} (see {@link OrderedMethodInterceptor}) in order to be placed
+ * among the other advisors.
+ */
+@FunctionalInterface
+public interface MeteredMethodInterceptorFactory {
+
+  /**
+   * Creates the interceptors of the specified method.
+   *
+   * @param method    the annotated method
+   * @param retryable the retry configuration of the method or {@code null} if the method is not
+   *                  retried
+   * @param timed     the timing configuration of the method or {@code null} if the calls (or the
+   *                  attempts) of the method are not timed individually
+   * @return the interceptors of the method, from the outermost to the innermost one
+   */
+  List<MethodInterceptor> create(Method method, MeteredRetryable retryable, MeteredTimed timed);
+}
@@ -0,0 +1,62 @@
+package com.findinpath.retry.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the methods (or all the methods of a class) whose calls are retried and timed including
+ * their retries.
+ * <p>
+ * The annotated methods are advised by the {@link MeteredRetryableBeanPostProcessor}. The
+ * attributes left to their default value fall back on the defaults of the {@link
+ * MeteredMethodInterceptorFactory}. An annotation placed on a method takes precedence over the one
+ * placed on its class.
+ *
+ * @see MeteredTimed
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MeteredRetryable {
+
+  /**
+   * @return the maximum amount of attempts (including the first one) or {@code 0} for the default
+   */
+  int maxAttempts() default 0;
+
+  /**
+   * @return the initial backoff between the attempts in milliseconds or {@code 0} for the default
+   */
+  long initialBackoffMillis() default 0;
+
+  /**
+   * @return the exceptions (and their subclasses) which are retried, overriding the default
+   * classification of the exceptions
+   */
+  Class<? extends Throwable>[] retryFor() default {};
+
+  /**
+   * @return the exceptions (and their subclasses) which are not retried
+   */
+  Class<? extends Throwable>[] noRetryFor() default {};
+
+  /**
+   * @return the exceptions (and their subclasses) which are retried with a longer backoff
+   */
+  Class<? extends Throwable>[] longBackoffFor() default {};
+
+  /**
+   * @return the name of the timer of the calls including the retries or an empty string for the
+   * default
+   */
+  String metricName() default "";
+
+  /**
+   * @return the percentiles published by the timer of the calls including the retries or an empty
+   * array for the default
+   */
+  double[] percentiles() default {};
+}
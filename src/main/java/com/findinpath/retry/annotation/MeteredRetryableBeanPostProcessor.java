@@ -0,0 +1,156 @@
+package com.findinpath.retry.annotation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Supplier;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.AopInfrastructureBean;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.framework.ProxyProcessorSupport;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Advises the {@link MeteredRetryable} and {@link MeteredTimed} methods of the beans with the
+ * interceptors created by a {@link MeteredMethodInterceptorFactory}.
+ * <p>
+ * The annotations are resolved and the interceptors are created once per method when the bean is
+ * initialized: each annotated method gets its own advisor holding a single interceptor which
+ * composes all the stages configured for the method, instead of going through a chain of advisors
+ * matched by a pointcut expression on each call. When the factory splits the stages of a method
+ * into several interceptors, each of them gets its own advisor, ordered by the {@link Ordered}
+ * interceptors themselves (the other ones get the advisor order of this post-processor).
+ * <p>
+ * When the bean has already been proxied (e.g. : by an auto-proxy creator applying other advisors
+ * on the same methods), the advisors are inserted in the existing proxy according to the advisor
+ * order. Otherwise a new proxy is created for the bean.
+ */
+public class MeteredRetryableBeanPostProcessor extends ProxyProcessorSupport
+    implements BeanPostProcessor {
+
+  private final Supplier<MeteredMethodInterceptorFactory> interceptorFactorySupplier;
+  private volatile MeteredMethodInterceptorFactory interceptorFactory;
+  private int advisorOrder = Ordered.LOWEST_PRECEDENCE;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param interceptorFactorySupplier supplier of the interceptor factory, called only when the
+   *                                   first annotated bean is post-processed
+   */
+  public MeteredRetryableBeanPostProcessor(
+      Supplier<MeteredMethodInterceptorFactory> interceptorFactorySupplier) {
+    this.interceptorFactorySupplier = interceptorFactorySupplier;
+  }
+
+  /**
+   * Sets the order of the advisors of the annotated methods relative to the other advisors of the
+   * already proxied beans, for the interceptors which are not {@link Ordered}.
+   */
+  public void setAdvisorOrder(int advisorOrder) {
+    this.advisorOrder = advisorOrder;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(Object bean, String beanName) {
+    if (bean instanceof AopInfrastructureBean) {
+      return bean;
+    }
+    var advisors = createAdvisors(AopUtils.getTargetClass(bean));
+    if (advisors.isEmpty()) {
+      return bean;
+    }
+
+    if (bean instanceof Advised && !((Advised) bean).isFrozen()) {
+      var advised = (Advised) bean;
+      for (var advisor : advisors) {
+        advised.addAdvisor(getAdvisorPosition(advised, getOrder(advisor)), advisor);
+      }
+      return bean;
+    }
+
+    var proxyFactory = new ProxyFactory();
+    proxyFactory.copyFrom(this);
+    proxyFactory.setTarget(bean);
+    evaluateProxyInterfaces(bean.getClass(), proxyFactory);
+    advisors.forEach(proxyFactory::addAdvisor);
+    return proxyFactory.getProxy(getProxyClassLoader());
+  }
+
+  private List<Advisor> createAdvisors(Class<?> targetClass) {
+    var advisors = new ArrayList<Advisor>();
+    ReflectionUtils.doWithMethods(targetClass, method -> {
+      var retryable = MeteredRetryablePointcut.findAnnotation(method, MeteredRetryable.class);
+      var timed = MeteredRetryablePointcut.findAnnotation(method, MeteredTimed.class);
+      if (retryable == null && timed == null) {
+        return;
+      }
+      var pointcut = new SingleMethodPointcut(method);
+      for (var interceptor : getInterceptorFactory().create(method, retryable, timed)) {
+        var advisor = new DefaultPointcutAdvisor(pointcut, interceptor);
+        advisor.setOrder(interceptor instanceof Ordered ? ((Ordered) interceptor).getOrder()
+            : advisorOrder);
+        advisors.add(advisor);
+      }
+    }, method -> MeteredRetryablePointcut.isCandidate(method) && !isOverridden(method,
+        targetClass));
+    // stable sort: the interceptors of a method sharing the same order keep their nesting
+    advisors.sort(Comparator.comparingInt(MeteredRetryableBeanPostProcessor::getOrder));
+    return advisors;
+  }
+
+  /**
+   * Tells whether the method is overridden in the target class (the overriding method is the one
+   * being advised).
+   */
+  private static boolean isOverridden(Method method, Class<?> targetClass) {
+    return !AopUtils.getMostSpecificMethod(method, targetClass).equals(method);
+  }
+
+  private static int getAdvisorPosition(Advised advised, int order) {
+    var existingAdvisors = advised.getAdvisors();
+    int position = 0;
+    while (position < existingAdvisors.length
+        && getOrder(existingAdvisors[position]) <= order) {
+      position++;
+    }
+    return position;
+  }
+
+  private static int getOrder(Advisor advisor) {
+    return advisor instanceof Ordered ? ((Ordered) advisor).getOrder() : Ordered.LOWEST_PRECEDENCE;
+  }
+
+  private MeteredMethodInterceptorFactory getInterceptorFactory() {
+    var factory = interceptorFactory;
+    if (factory == null) {
+      factory = interceptorFactorySupplier.get();
+      interceptorFactory = factory;
+    }
+    return factory;
+  }
+
+  /**
+   * Pointcut matching a single method of the target class.
+   */
+  private static class SingleMethodPointcut extends StaticMethodMatcherPointcut {
+
+    private final Method method;
+
+    SingleMethodPointcut(Method method) {
+      this.method = method;
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+      return this.method.equals(AopUtils.getMostSpecificMethod(method, targetClass));
+    }
+  }
+}
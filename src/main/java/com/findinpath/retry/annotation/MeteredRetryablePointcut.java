@@ -0,0 +1,51 @@
+package com.findinpath.retry.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+/**
+ * Pointcut matching the {@link MeteredRetryable} methods, be it through an annotation placed on the
+ * method or on its declaring class.
+ * <p>
+ * The methods inherited from {@link Object}, the static and the private methods are never matched,
+ * which makes this pointcut match exactly the methods advised by the {@link
+ * MeteredRetryableBeanPostProcessor} with a retry interceptor.
+ */
+public class MeteredRetryablePointcut extends StaticMethodMatcherPointcut {
+
+  @Override
+  public boolean matches(Method method, Class<?> targetClass) {
+    var specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+    return isCandidate(specificMethod)
+        && findAnnotation(specificMethod, MeteredRetryable.class) != null;
+  }
+
+  /**
+   * Tells whether the annotations of the specified method (or of its declaring class) are taken
+   * into account.
+   */
+  static boolean isCandidate(Method method) {
+    int modifiers = method.getModifiers();
+    return method.getDeclaringClass() != Object.class
+        && !Modifier.isStatic(modifiers)
+        && !Modifier.isPrivate(modifiers)
+        && !method.isBridge()
+        && !method.isSynthetic();
+  }
+
+  /**
+   * Finds the annotation of the specified method, falling back on the annotation of its declaring
+   * class.
+   *
+   * @return the annotation or {@code null} if neither the method nor its class are annotated
+   */
+  static <A extends Annotation> A findAnnotation(Method method, Class<A> annotationType) {
+    var annotation = AnnotatedElementUtils.findMergedAnnotation(method, annotationType);
+    return annotation != null ? annotation
+        : AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), annotationType);
+  }
+}
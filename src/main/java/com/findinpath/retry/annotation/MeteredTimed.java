@@ -0,0 +1,32 @@
+package com.findinpath.retry.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks the methods (or all the methods of a class) whose calls are timed. When the method is
+ * {@link MeteredRetryable} as well, each attempt is timed individually.
+ * <p>
+ * The annotated methods are advised by the {@link MeteredRetryableBeanPostProcessor}. The
+ * attributes left to their default value fall back on the defaults of the {@link
+ * MeteredMethodInterceptorFactory}. An annotation placed on a method takes precedence over the one
+ * placed on its class.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface MeteredTimed {
+
+  /**
+   * @return the name of the timer or an empty string for the default
+   */
+  String metricName() default "";
+
+  /**
+   * @return the percentiles published by the timer or an empty array for the default
+   */
+  double[] percentiles() default {};
+}
@@ -0,0 +1,36 @@
+package com.findinpath.retry.annotation;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.core.Ordered;
+
+/**
+ * Interceptor delegating to another interceptor, carrying the order of the advisor created for it
+ * by the {@link MeteredRetryableBeanPostProcessor}.
+ */
+public final class OrderedMethodInterceptor implements MethodInterceptor, Ordered {
+
+  private final MethodInterceptor delegate;
+  private final int order;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param delegate the interceptor
+   * @param order    the order of the advisor of the interceptor relative to the other advisors
+   */
+  public OrderedMethodInterceptor(MethodInterceptor delegate, int order) {
+    this.delegate = delegate;
+    this.order = order;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    return delegate.invoke(invocation);
+  }
+
+  @Override
+  public int getOrder() {
+    return order;
+  }
+}
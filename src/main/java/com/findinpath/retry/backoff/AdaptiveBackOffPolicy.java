@@ -0,0 +1,419 @@
+package com.findinpath.retry.backoff;
+
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import com.findinpath.retry.policy.ExceptionClassification;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.listener.RetryListenerSupport;
+
+/**
+ * Exponential random backoff policy whose initial interval and multiplier are learnt for each
+ * retried method out of the calls which recovered after being retried.
+ * <p>
+ * The policy is a retry listener as well and has to be registered as such along with the other
+ * retry listeners. For each retried method, the exponentially weighted moving averages of the
+ * retry count at which the calls succeed (the {@code retry} tag of the retries counter) and of the
+ * recovery time (from the first failed attempt until the success of the call) are kept. The more
+ * retries the calls usually need, the faster the backoff grows : the multiplier follows the average
+ * retry count. The initial interval is chosen so that the usual retries, jitter included, span the
+ * usual recovery time. Both parameters are bounded by the configured minimum and maximum values.
+ * <p>
+ * A call only tells that the service recovered within the window between its last failed attempt
+ * and its successful attempt, a window shaped by the backoff of the call. In order not to learn its
+ * own backoffs, the policy doesn't learn from the calls whose window contains the learnt recovery
+ * time : they are consistent with it. The other calls move the learnt recovery time towards the
+ * closest edge of their window. The calls backed off for a delay requested by the called service
+ * ({@link RetryAfterAware}) or for an exception classified as {@link
+ * ExceptionClassification#LONG_BACKOFF} are not learnt from, because their backoff isn't the one of
+ * this policy.
+ * <p>
+ * Until a method recovers for the first time, its calls are backed off with the configured default
+ * initial interval and multiplier. The current parameters of each method can be published as
+ * gauges through {@link #bindTo(MeterRegistry, String)}.
+ */
+public class AdaptiveBackOffPolicy extends RetryListenerSupport implements
+    SleepingBackOffPolicy<AdaptiveBackOffPolicy> {
+
+  /**
+   * The retry context attribute holding the time of the first failed attempt of the call.
+   */
+  private static final String FIRST_FAILURE_TIME = "context.retry.adaptive.backoff.failure";
+  /**
+   * The retry context attribute holding the time of the last failed attempt of the call.
+   */
+  private static final String LAST_FAILURE_TIME = "context.retry.adaptive.backoff.lastfailure";
+  /**
+   * The retry context attribute marking the calls which aren't learnt from.
+   */
+  private static final String NOT_LEARNT = "context.retry.adaptive.backoff.notlearnt";
+
+  private static final String UNKNOWN_NAME = "unknown";
+  private static final String NONE = "none";
+  private static final String NAME_TAG_NAME = "name";
+  private static final String CLASS_TAG_NAME = "class";
+  private static final String METHOD_TAG_NAME = "method";
+
+  private final AdaptiveBackOffConfig config;
+  private final Clock clock;
+  private final ConcurrentMap<Method, MethodBackOffParameters> methodParametersMap;
+  private final ConcurrentMap<String, MethodBackOffParameters> namedParametersMap;
+  private final Function<RetryMethodMetadata, MethodBackOffParameters> methodParametersFactory;
+  private final Sleeper sleeper;
+  /**
+   * The policy registered as retry listener, which this policy was derived from (or itself).
+   */
+  private final AdaptiveBackOffPolicy origin;
+
+  private volatile MeterRegistry registry;
+  private volatile String metricName;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param config the bounds and the default values of the backoff parameters
+   * @param clock  the clock used for measuring the recovery time of the calls
+   */
+  public AdaptiveBackOffPolicy(AdaptiveBackOffConfig config, Clock clock) {
+    this(config, clock, new ConcurrentHashMap<>(), new ConcurrentHashMap<>(),
+        new ThreadWaitSleeper(), null);
+  }
+
+  private AdaptiveBackOffPolicy(AdaptiveBackOffConfig config, Clock clock,
+      ConcurrentMap<Method, MethodBackOffParameters> methodParametersMap,
+      ConcurrentMap<String, MethodBackOffParameters> namedParametersMap, Sleeper sleeper,
+      AdaptiveBackOffPolicy origin) {
+    this.config = config;
+    this.clock = clock;
+    this.methodParametersMap = methodParametersMap;
+    this.namedParametersMap = namedParametersMap;
+    this.methodParametersFactory = metadata -> getParameters(metadata.getLabel(),
+        metadata.getMethod());
+    this.sleeper = sleeper;
+    this.origin = origin == null ? this : origin;
+  }
+
+  /**
+   * Creates a backoff policy sharing the learnt parameters of this policy, but sleeping with the
+   * specified sleeper. The returned policy doesn't need to be registered as a retry listener.
+   */
+  @Override
+  public AdaptiveBackOffPolicy withSleeper(Sleeper sleeper) {
+    return new AdaptiveBackOffPolicy(config, clock, methodParametersMap, namedParametersMap,
+        sleeper, origin);
+  }
+
+  @Override
+  public BackOffContext start(RetryContext context) {
+    return new AdaptiveBackOffContext(context);
+  }
+
+  @Override
+  public void backOff(BackOffContext backOffContext) throws BackOffInterruptedException {
+    var context = (AdaptiveBackOffContext) backOffContext;
+    long backOffPeriod = context.nextBackOffPeriod();
+    try {
+      sleeper.sleep(backOffPeriod);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BackOffInterruptedException("Thread interrupted while sleeping", e);
+    }
+  }
+
+  @Override
+  public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+      Throwable throwable) {
+    long now = clock.monotonicTime();
+    if (context.getAttribute(FIRST_FAILURE_TIME) == null) {
+      context.setAttribute(FIRST_FAILURE_TIME, now);
+    }
+    context.setAttribute(LAST_FAILURE_TIME, now);
+    if (ExceptionClassification.get(context) == ExceptionClassification.LONG_BACKOFF
+        || RetryAfterBackOffPolicy.getRetryAfter(throwable) != null) {
+      context.setAttribute(NOT_LEARNT, Boolean.TRUE);
+    }
+  }
+
+  @Override
+  public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+      Throwable throwable) {
+    var firstFailureTime = context.getAttribute(FIRST_FAILURE_TIME);
+    var lastFailureTime = context.getAttribute(LAST_FAILURE_TIME);
+    if (throwable != null || context.getRetryCount() == 0 || !(firstFailureTime instanceof Long)
+        || !(lastFailureTime instanceof Long) || context.hasAttribute(NOT_LEARNT)) {
+      return;
+    }
+    long firstFailure = (Long) firstFailureTime;
+    getParameters(context).onRecovery(context.getRetryCount(),
+        (Long) lastFailureTime - firstFailure, clock.monotonicTime() - firstFailure);
+  }
+
+  /**
+   * Retrieves the current initial interval of the backoff of the specified method.
+   *
+   * @param method the retried method
+   * @return the initial interval in milliseconds
+   */
+  public long getInitialInterval(Method method) {
+    var parameters = methodParametersMap.get(method);
+    return parameters == null ? config.defaultInitialInterval : parameters.initialInterval;
+  }
+
+  /**
+   * Retrieves the current multiplier of the backoff of the specified method.
+   *
+   * @param method the retried method
+   * @return the multiplier applied on the interval after each backoff
+   */
+  public double getMultiplier(Method method) {
+    var parameters = methodParametersMap.get(method);
+    return parameters == null ? config.defaultMultiplier : parameters.multiplier;
+  }
+
+  /**
+   * Publishes the current backoff parameters of each method (including the ones retried after
+   * this call) as the following gauges, tagged with the name, the class and the method of the
+   * retried call:
+   * <pre>
+   *     <ul>
+   *         <li>metricName_backoff_initial_interval : the initial interval in milliseconds</li>
+   *         <li>metricName_backoff_multiplier : the multiplier applied after each backoff</li>
+   *     </ul>
+   * </pre>
+   *
+   * @param registry   the monitoring registry
+   * @param metricName the name prefix for the metrics
+   */
+  public void bindTo(MeterRegistry registry, String metricName) {
+    if (origin != this) {
+      origin.bindTo(registry, metricName);
+      return;
+    }
+    this.metricName = metricName;
+    this.registry = registry;
+    methodParametersMap.values().forEach(this::registerGauges);
+    namedParametersMap.values().forEach(this::registerGauges);
+  }
+
+  private MethodBackOffParameters getParameters(RetryContext context) {
+    var methodMetadata = RetryMethodMetadata.get(context);
+    if (methodMetadata != null) {
+      return methodMetadata.getAttachment(methodParametersMap, methodParametersFactory);
+    }
+
+    var nameAttribute = context.getAttribute(RetryContext.NAME);
+    var name = nameAttribute == null ? UNKNOWN_NAME : nameAttribute.toString();
+    var methodInvocation = context
+        .getAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION);
+    return getParameters(name,
+        methodInvocation == null ? null : ((MethodInvocation) methodInvocation).getMethod());
+  }
+
+  private MethodBackOffParameters getParameters(String name, Method method) {
+    if (method == null) {
+      var parameters = namedParametersMap.get(name);
+      if (parameters == null) {
+        parameters = namedParametersMap.computeIfAbsent(name,
+            key -> createParameters(key, null));
+      }
+      return parameters;
+    }
+
+    // the method keeps the name under which it was retried first
+    var parameters = methodParametersMap.get(method);
+    if (parameters == null) {
+      parameters = methodParametersMap.computeIfAbsent(method,
+          key -> createParameters(name, key));
+    }
+    return parameters;
+  }
+
+  private MethodBackOffParameters createParameters(String name, Method method) {
+    var parameters = new MethodBackOffParameters(name, method);
+    origin.registerGauges(parameters);
+    return parameters;
+  }
+
+  private void registerGauges(MethodBackOffParameters parameters) {
+    var currentRegistry = registry;
+    if (currentRegistry == null) {
+      return;
+    }
+    // registering the same gauges concurrently is harmless: the registry returns the same meter
+    Gauge.builder(metricName + "_backoff_initial_interval", parameters,
+        p -> p.initialInterval)
+        .description("The current initial interval of the backoff between the retries")
+        .baseUnit("milliseconds")
+        .tag(NAME_TAG_NAME, parameters.name)
+        .tag(CLASS_TAG_NAME, parameters.className)
+        .tag(METHOD_TAG_NAME, parameters.methodName)
+        .register(currentRegistry);
+    Gauge.builder(metricName + "_backoff_multiplier", parameters, p -> p.multiplier)
+        .description("The current multiplier of the backoff between the retries")
+        .tag(NAME_TAG_NAME, parameters.name)
+        .tag(CLASS_TAG_NAME, parameters.className)
+        .tag(METHOD_TAG_NAME, parameters.methodName)
+        .register(currentRegistry);
+  }
+
+  /**
+   * The bounds and the default values of the parameters of an {@link AdaptiveBackOffPolicy}.
+   */
+  public static final class AdaptiveBackOffConfig {
+
+    private final long defaultInitialInterval;
+    private final long minInitialInterval;
+    private final long maxInitialInterval;
+    private final double defaultMultiplier;
+    private final double minMultiplier;
+    private final double maxMultiplier;
+    private final long maxInterval;
+    private final double smoothingFactor;
+
+    /**
+     * The constructor for the class.
+     *
+     * @param defaultInitialInterval the initial interval until the method recovers for the first
+     *                               time
+     * @param minInitialInterval     the minimum initial interval
+     * @param maxInitialInterval     the maximum initial interval
+     * @param defaultMultiplier      the multiplier until the method recovers for the first time
+     * @param minMultiplier          the minimum multiplier (at least {@code 1})
+     * @param maxMultiplier          the maximum multiplier
+     * @param maxInterval            the maximum interval of a backoff
+     * @param smoothingFactor        the weight (between {@code 0} exclusive and {@code 1}) of the
+     *                               latest recovered call in the moving averages
+     */
+    public AdaptiveBackOffConfig(Duration defaultInitialInterval, Duration minInitialInterval,
+        Duration maxInitialInterval, double defaultMultiplier, double minMultiplier,
+        double maxMultiplier, Duration maxInterval, double smoothingFactor) {
+      if (minMultiplier < 1 || maxMultiplier < minMultiplier) {
+        throw new IllegalArgumentException(
+            "The multiplier bounds must be at least 1 and in ascending order");
+      }
+      if (minInitialInterval.compareTo(maxInitialInterval) > 0) {
+        throw new IllegalArgumentException("The initial interval bounds must be in ascending order");
+      }
+      if (smoothingFactor <= 0 || smoothingFactor > 1) {
+        throw new IllegalArgumentException("The smoothing factor must be in the (0, 1] range");
+      }
+      this.minInitialInterval = minInitialInterval.toMillis();
+      this.maxInitialInterval = maxInitialInterval.toMillis();
+      this.defaultInitialInterval = clamp(defaultInitialInterval.toMillis(),
+          this.minInitialInterval, this.maxInitialInterval);
+      this.minMultiplier = minMultiplier;
+      this.maxMultiplier = maxMultiplier;
+      this.defaultMultiplier = Math.min(maxMultiplier, Math.max(minMultiplier, defaultMultiplier));
+      this.maxInterval = maxInterval.toMillis();
+      this.smoothingFactor = smoothingFactor;
+    }
+  }
+
+  private static long clamp(long value, long min, long max) {
+    return Math.min(max, Math.max(min, value));
+  }
+
+  /**
+   * The learnt backoff parameters of a retried method (or of a retry context name when the retry
+   * context doesn't carry any method invocation).
+   */
+  private class MethodBackOffParameters {
+
+    private final String name;
+    private final String className;
+    private final String methodName;
+    private double averageRetries;
+    private double averageRecoveryMillis;
+    private boolean recovered;
+    private volatile long initialInterval = config.defaultInitialInterval;
+    private volatile double multiplier = config.defaultMultiplier;
+
+    MethodBackOffParameters(String name, Method method) {
+      this.name = name;
+      this.className = method == null ? NONE : method.getDeclaringClass().getSimpleName();
+      this.methodName = method == null ? NONE : method.getName();
+    }
+
+    /**
+     * Learns from a recovered call.
+     *
+     * @param retries       the retry count at which the call succeeded
+     * @param failingNanos  the time from the first until the last failed attempt of the call
+     * @param recoveryNanos the time from the first failed attempt until the success of the call
+     */
+    synchronized void onRecovery(int retries, long failingNanos, long recoveryNanos) {
+      double recoveryMillis = (double) TimeUnit.NANOSECONDS.toMillis(recoveryNanos);
+      if (recovered) {
+        double failingMillis = (double) TimeUnit.NANOSECONDS.toMillis(failingNanos);
+        if (averageRecoveryMillis > failingMillis && averageRecoveryMillis <= recoveryMillis) {
+          // the service recovered within the window of the call, as expected
+          return;
+        }
+        double windowEdge = averageRecoveryMillis > recoveryMillis ? recoveryMillis
+            : failingMillis;
+        averageRetries += config.smoothingFactor * (retries - averageRetries);
+        averageRecoveryMillis += config.smoothingFactor * (windowEdge - averageRecoveryMillis);
+      } else {
+        averageRetries = retries;
+        averageRecoveryMillis = recoveryMillis;
+        recovered = true;
+      }
+
+      double newMultiplier = Math.min(config.maxMultiplier,
+          Math.max(config.minMultiplier, averageRetries));
+      // the first k backoffs of the initial interval i last i * (m^k - 1) / (m - 1)
+      double backOffs = Math.max(1, averageRetries);
+      double intervalsSum = newMultiplier == 1 ? backOffs
+          : (Math.pow(newMultiplier, backOffs) - 1) / (newMultiplier - 1);
+      // the jitter stretches each backoff by (m - 1) / 2 of its interval on average
+      double averageJitter = (1 + newMultiplier) / 2;
+      multiplier = newMultiplier;
+      initialInterval = clamp(Math.round(averageRecoveryMillis / (intervalsSum * averageJitter)),
+          config.minInitialInterval, config.maxInitialInterval);
+    }
+  }
+
+  /**
+   * Backoff context which resolves the parameters of the retried method on the first backoff,
+   * when the retry context carries the retried method.
+   */
+  private class AdaptiveBackOffContext implements BackOffContext {
+
+    private final RetryContext retryContext;
+    private double multiplier;
+    private long interval = -1;
+
+    AdaptiveBackOffContext(RetryContext retryContext) {
+      this.retryContext = retryContext;
+    }
+
+    long nextBackOffPeriod() {
+      if (interval < 0) {
+        var parameters = getParameters(retryContext);
+        interval = parameters.initialInterval;
+        multiplier = parameters.multiplier;
+      }
+      // random jitter so that not all the clients back off the same way
+      long backOffPeriod = Math.min(config.maxInterval, (long) (interval
+          * (1 + ThreadLocalRandom.current().nextDouble() * (multiplier - 1))));
+      interval = Math.min(config.maxInterval, (long) (interval * multiplier));
+      return backOffPeriod;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.findinpath.retry.backoff;
+
+import com.findinpath.micrometer.core.aop.MethodLatencyPercentile;
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+
+/**
+ * Backoff policy which stops the retries of the calls having a {@link RetryDeadline} when the next
+ * attempt would not complete before the deadline : the backoff period computed by the delegate
+ * policy plus the expected latency of the attempt must fit in the time remaining until the
+ * deadline.
+ * <p>
+ * The expected latency of an attempt is a percentile of the latency of the successful calls of the
+ * retried method. While this latency is unknown, only the backoff period is taken into account.
+ * <p>
+ * When the next attempt would not complete in time, the deadline is marked as exceeded and the
+ * retry context is marked as exhausted instead of sleeping. The calls without deadline are backed
+ * off by the delegate policy.
+ */
+public class DeadlineAwareBackOffPolicy implements
+    SleepingBackOffPolicy<DeadlineAwareBackOffPolicy> {
+
+  private final SleepingBackOffPolicy<?> delegate;
+  private final MethodLatencyPercentile expectedLatency;
+  private final Sleeper sleeper;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param delegate        the backoff policy computing the backoff periods
+   * @param expectedLatency the expected latency of the attempts or {@code null} for taking into
+   *                        account only the backoff periods
+   */
+  public DeadlineAwareBackOffPolicy(SleepingBackOffPolicy<?> delegate,
+      MethodLatencyPercentile expectedLatency) {
+    this(delegate, expectedLatency, new ThreadWaitSleeper());
+  }
+
+  private DeadlineAwareBackOffPolicy(SleepingBackOffPolicy<?> delegate,
+      MethodLatencyPercentile expectedLatency, Sleeper sleeper) {
+    this.delegate = delegate;
+    this.expectedLatency = expectedLatency;
+    this.sleeper = sleeper;
+  }
+
+  @Override
+  public DeadlineAwareBackOffPolicy withSleeper(Sleeper sleeper) {
+    return new DeadlineAwareBackOffPolicy(delegate, expectedLatency, sleeper);
+  }
+
+  @Override
+  public BackOffContext start(RetryContext context) {
+    return new DeadlineAwareBackOffContext(context);
+  }
+
+  @Override
+  public void backOff(BackOffContext backOffContext) throws BackOffInterruptedException {
+    var context = (DeadlineAwareBackOffContext) backOffContext;
+    long backOffPeriod = context.delegateBackOff();
+    if (backOffPeriod < 0) {
+      // the delegate policy didn't back off (e.g. : it marked the retry context as exhausted)
+      return;
+    }
+
+    var deadline = RetryDeadline.get(context.retryContext);
+    if (deadline != null) {
+      long nextAttemptNanos = TimeUnit.MILLISECONDS.toNanos(backOffPeriod)
+          + getExpectedLatency(context.retryContext);
+      if (nextAttemptNanos > deadline.getRemainingNanos()) {
+        deadline.markExceeded();
+        context.retryContext.setExhaustedOnly();
+        return;
+      }
+    }
+
+    try {
+      sleeper.sleep(backOffPeriod);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BackOffInterruptedException("Thread interrupted while sleeping", e);
+    }
+  }
+
+  private long getExpectedLatency(RetryContext retryContext) {
+    if (expectedLatency == null) {
+      return 0;
+    }
+    var method = getMethod(retryContext);
+    if (method == null) {
+      return 0;
+    }
+    long latency = expectedLatency.getNanos(method);
+    return latency == MethodLatencyPercentile.UNKNOWN ? 0 : latency;
+  }
+
+  private static Method getMethod(RetryContext retryContext) {
+    var methodMetadata = RetryMethodMetadata.get(retryContext);
+    if (methodMetadata != null) {
+      return methodMetadata.getMethod();
+    }
+    var methodInvocation = retryContext
+        .getAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION);
+    return methodInvocation == null ? null : ((MethodInvocation) methodInvocation).getMethod();
+  }
+
+  /**
+   * Backoff context capturing (instead of sleeping) the backoff periods computed by the delegate
+   * backoff policy.
+   */
+  private class DeadlineAwareBackOffContext implements BackOffContext, Sleeper {
+
+    private final RetryContext retryContext;
+    private final SleepingBackOffPolicy<?> delegatePolicy;
+    private final BackOffContext delegateContext;
+    private long delegateBackOffPeriod;
+
+    DeadlineAwareBackOffContext(RetryContext retryContext) {
+      this.retryContext = retryContext;
+      this.delegatePolicy = delegate.withSleeper(this);
+      this.delegateContext = delegatePolicy.start(retryContext);
+    }
+
+    /**
+     * @return the backoff period computed (but not slept) by the delegate backoff policy or a
+     * negative value when the delegate policy didn't back off
+     */
+    long delegateBackOff() {
+      delegateBackOffPeriod = -1;
+      delegatePolicy.backOff(delegateContext);
+      return delegateBackOffPeriod;
+    }
+
+    @Override
+    public void sleep(long backOffPeriod) {
+      this.delegateBackOffPeriod = backOffPeriod;
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.findinpath.retry.backoff;
+
+import com.findinpath.retry.policy.ExceptionClassification;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+
+/**
+ * Backoff policy which backs off with a long backoff policy when the last exception of the retry
+ * context is classified as {@link ExceptionClassification#LONG_BACKOFF}, otherwise with the
+ * regular backoff policy.
+ * <p>
+ * Each of the two delegate policies is started lazily on its first backoff for the retry context
+ * and keeps its own progression (e.g. : the growing interval of an exponential backoff policy).
+ */
+public class ExceptionClassificationBackOffPolicy implements
+    SleepingBackOffPolicy<ExceptionClassificationBackOffPolicy> {
+
+  private final SleepingBackOffPolicy<?> delegate;
+  private final SleepingBackOffPolicy<?> longBackOffDelegate;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param delegate            the backoff policy of the exceptions which are not classified as
+   *                            {@link ExceptionClassification#LONG_BACKOFF}
+   * @param longBackOffDelegate the backoff policy of the exceptions classified as {@link
+   *                            ExceptionClassification#LONG_BACKOFF}
+   */
+  public ExceptionClassificationBackOffPolicy(SleepingBackOffPolicy<?> delegate,
+      SleepingBackOffPolicy<?> longBackOffDelegate) {
+    this.delegate = delegate;
+    this.longBackOffDelegate = longBackOffDelegate;
+  }
+
+  @Override
+  public ExceptionClassificationBackOffPolicy withSleeper(Sleeper sleeper) {
+    return new ExceptionClassificationBackOffPolicy(delegate.withSleeper(sleeper),
+        longBackOffDelegate.withSleeper(sleeper));
+  }
+
+  @Override
+  public BackOffContext start(RetryContext context) {
+    return new ExceptionClassificationBackOffContext(context);
+  }
+
+  @Override
+  public void backOff(BackOffContext backOffContext) throws BackOffInterruptedException {
+    var context = (ExceptionClassificationBackOffContext) backOffContext;
+    if (ExceptionClassification.get(context.retryContext)
+        == ExceptionClassification.LONG_BACKOFF) {
+      if (context.longBackOffContext == null) {
+        context.longBackOffContext = longBackOffDelegate.start(context.retryContext);
+      }
+      longBackOffDelegate.backOff(context.longBackOffContext);
+    } else {
+      if (context.delegateContext == null) {
+        context.delegateContext = delegate.start(context.retryContext);
+      }
+      delegate.backOff(context.delegateContext);
+    }
+  }
+
+  /**
+   * Backoff context holding the contexts of the delegate backoff policies started so far.
+   */
+  private static class ExceptionClassificationBackOffContext implements BackOffContext {
+
+    private final RetryContext retryContext;
+    private BackOffContext delegateContext;
+    private BackOffContext longBackOffContext;
+
+    ExceptionClassificationBackOffContext(RetryContext retryContext) {
+      this.retryContext = retryContext;
+    }
+  }
+}
@@ -0,0 +1,18 @@
+package com.findinpath.retry.backoff;
+
+import java.time.Duration;
+
+/**
+ * Implemented by the exceptions which carry the delay after which the failed call may be retried,
+ * as requested by the called service (e.g. : through the {@code Retry-After} or the rate limit
+ * reset HTTP headers).
+ *
+ * @see RetryAfterBackOffPolicy
+ */
+public interface RetryAfterAware {
+
+  /**
+   * @return the delay after which the failed call may be retried
+   */
+  Duration getRetryAfter();
+}
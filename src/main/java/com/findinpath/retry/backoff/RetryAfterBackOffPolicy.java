@@ -0,0 +1,361 @@
+package com.findinpath.retry.backoff;
+
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import com.findinpath.retry.policy.ExceptionClassifier;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffInterruptedException;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+import org.springframework.retry.backoff.ThreadWaitSleeper;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+
+/**
+ * Backoff policy which honours the retry delay requested by the called service. When the last
+ * exception of the retry context (or one of its causes) is {@link RetryAfterAware}, the backoff
+ * lasts the requested delay plus a random jitter (so that not all the clients retry at the same
+ * time), otherwise the backoff is delegated to another policy (e.g. : an exponential backoff
+ * policy).
+ * <p>
+ * When the requested delay exceeds the configured maximum delay, the retry context is marked as
+ * exhausted instead of blocking the caller for that long : the call fails with the last exception.
+ * <p>
+ * The backoff delays are recorded in the {@code <metricName>_backoff_delay} distribution summary
+ * tagged with the name, the class and the method of the retried call, the class of the last
+ * exception and the source of the delay ({@code retry_after} or {@code backoff_policy}). The values
+ * of the name and exception tags are limited by a {@link TagCardinalityLimiter}.
+ */
+public class RetryAfterBackOffPolicy implements SleepingBackOffPolicy<RetryAfterBackOffPolicy> {
+
+  private static final String UNKNOWN_NAME = "unknown";
+  private static final String NONE = "none";
+  private static final String NAME_TAG_NAME = "name";
+  private static final String CLASS_TAG_NAME = "class";
+  private static final String METHOD_TAG_NAME = "method";
+  private static final String EXCEPTION_TAG_NAME = "exception";
+  private static final String SOURCE_TAG_NAME = "source";
+  private static final String RETRY_AFTER_SOURCE = "retry_after";
+  private static final String BACKOFF_POLICY_SOURCE = "backoff_policy";
+
+  private final SleepingBackOffPolicy<?> delegate;
+  private final long maxRetryAfterMillis;
+  private final double jitterFactor;
+  private final BackOffDelaySummaries summaries;
+  private final Sleeper sleeper;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param delegate      the backoff policy used when no retry delay is requested by the service
+   * @param maxRetryAfter the maximum requested retry delay which is honoured
+   * @param jitterFactor  the maximum jitter added to the requested retry delay, as a ratio of the
+   *                      requested retry delay (e.g. : 0.1)
+   * @param meterRegistry the monitoring registry
+   * @param metricName    the name prefix for the metric
+   */
+  public RetryAfterBackOffPolicy(SleepingBackOffPolicy<?> delegate, Duration maxRetryAfter,
+      double jitterFactor, MeterRegistry meterRegistry, String metricName) {
+    this(delegate, maxRetryAfter, jitterFactor, meterRegistry, metricName,
+        new TagCardinalityLimiter(TagCardinalityLimiter.DEFAULT_MAX_TAG_VALUES, meterRegistry,
+            metricName + TagCardinalityLimiter.DROPPED_TAG_VALUES_METRIC_SUFFIX));
+  }
+
+  /**
+   * The constructor for the class.
+   *
+   * @param delegate           the backoff policy used when no retry delay is requested by the
+   *                           service
+   * @param maxRetryAfter      the maximum requested retry delay which is honoured
+   * @param jitterFactor       the maximum jitter added to the requested retry delay, as a ratio of
+   *                           the requested retry delay (e.g. : 0.1)
+   * @param meterRegistry      the monitoring registry
+   * @param metricName         the name prefix for the metric
+   * @param cardinalityLimiter the limiter of the distinct values of the tags
+   */
+  public RetryAfterBackOffPolicy(SleepingBackOffPolicy<?> delegate, Duration maxRetryAfter,
+      double jitterFactor, MeterRegistry meterRegistry, String metricName,
+      TagCardinalityLimiter cardinalityLimiter) {
+    this(delegate, maxRetryAfter.toMillis(), jitterFactor,
+        new BackOffDelaySummaries(meterRegistry, metricName + "_backoff_delay",
+            cardinalityLimiter),
+        new ThreadWaitSleeper());
+  }
+
+  private RetryAfterBackOffPolicy(SleepingBackOffPolicy<?> delegate, long maxRetryAfterMillis,
+      double jitterFactor, BackOffDelaySummaries summaries, Sleeper sleeper) {
+    if (jitterFactor < 0) {
+      throw new IllegalArgumentException("The jitter factor can't be negative");
+    }
+    this.delegate = delegate;
+    this.maxRetryAfterMillis = maxRetryAfterMillis;
+    this.jitterFactor = jitterFactor;
+    this.summaries = summaries;
+    this.sleeper = sleeper;
+  }
+
+  @Override
+  public RetryAfterBackOffPolicy withSleeper(Sleeper sleeper) {
+    return new RetryAfterBackOffPolicy(delegate, maxRetryAfterMillis, jitterFactor, summaries,
+        sleeper);
+  }
+
+  /**
+   * Creates a backoff policy sharing the configuration and the monitoring of this policy, but
+   * delegating to a different backoff policy when no retry delay is requested by the service.
+   *
+   * @param delegate the backoff policy used when no retry delay is requested by the service
+   * @return the new backoff policy
+   */
+  public RetryAfterBackOffPolicy withDelegate(SleepingBackOffPolicy<?> delegate) {
+    return new RetryAfterBackOffPolicy(delegate, maxRetryAfterMillis, jitterFactor, summaries,
+        sleeper);
+  }
+
+  @Override
+  public BackOffContext start(RetryContext context) {
+    return new RetryAfterBackOffContext(context);
+  }
+
+  @Override
+  public void backOff(BackOffContext backOffContext) throws BackOffInterruptedException {
+    var context = (RetryAfterBackOffContext) backOffContext;
+    var lastThrowable = context.retryContext.getLastThrowable();
+    var retryAfter = getRetryAfter(lastThrowable);
+
+    long backOffPeriod;
+    String source;
+    if (retryAfter == null) {
+      backOffPeriod = context.delegateBackOff();
+      source = BACKOFF_POLICY_SOURCE;
+    } else if (retryAfter.toMillis() > maxRetryAfterMillis) {
+      // don't retry rather than blocking the caller for longer than the maximum delay
+      context.retryContext.setExhaustedOnly();
+      return;
+    } else {
+      long retryAfterMillis = retryAfter.toMillis();
+      backOffPeriod = retryAfterMillis
+          + (long) (ThreadLocalRandom.current().nextDouble() * jitterFactor * retryAfterMillis);
+      source = RETRY_AFTER_SOURCE;
+    }
+
+    summaries.getSummary(context.retryContext, lastThrowable, source).record(backOffPeriod);
+    try {
+      sleeper.sleep(backOffPeriod);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BackOffInterruptedException("Thread interrupted while sleeping", e);
+    }
+  }
+
+  /**
+   * @return the retry delay requested through the exception (or one of its first {@link
+   * ExceptionClassifier#MAX_CAUSE_DEPTH} causes) or {@code null}
+   */
+  static Duration getRetryAfter(Throwable throwable) {
+    var cause = throwable;
+    for (int depth = 0; cause != null && depth < ExceptionClassifier.MAX_CAUSE_DEPTH; depth++) {
+      if (cause instanceof RetryAfterAware) {
+        return ((RetryAfterAware) cause).getRetryAfter();
+      }
+      cause = cause.getCause();
+    }
+    return null;
+  }
+
+  /**
+   * Backoff context which lazily starts the delegate backoff policy on the first backoff which is
+   * not determined by a requested retry delay.
+   */
+  private class RetryAfterBackOffContext implements BackOffContext, Sleeper {
+
+    private final RetryContext retryContext;
+    private SleepingBackOffPolicy<?> delegatePolicy;
+    private BackOffContext delegateContext;
+    private long delegateBackOffPeriod;
+
+    RetryAfterBackOffContext(RetryContext retryContext) {
+      this.retryContext = retryContext;
+    }
+
+    /**
+     * @return the backoff period computed (but not slept) by the delegate backoff policy
+     */
+    long delegateBackOff() {
+      if (delegatePolicy == null) {
+        delegatePolicy = delegate.withSleeper(this);
+        delegateContext = delegatePolicy.start(retryContext);
+      }
+      delegateBackOffPeriod = 0;
+      delegatePolicy.backOff(delegateContext);
+      return delegateBackOffPeriod;
+    }
+
+    @Override
+    public void sleep(long backOffPeriod) {
+      this.delegateBackOffPeriod = backOffPeriod;
+    }
+  }
+
+  /**
+   * The backoff delay distribution summaries of the retried methods. The summaries of a method are
+   * attached to its {@link RetryMethodMetadata} when the retry context carries it, so that a
+   * backoff resolves its summary without building a lookup key.
+   */
+  private static class BackOffDelaySummaries {
+
+    private final MeterRegistry meterRegistry;
+    private final String metricName;
+    private final TagCardinalityLimiter cardinalityLimiter;
+    private final Function<RetryMethodMetadata, MethodSummaries> methodSummariesFactory =
+        metadata -> new MethodSummaries(metadata.getLabel(), metadata.getMethod());
+    private final ConcurrentMap<MethodKey, MethodSummaries> methodSummariesMap =
+        new ConcurrentHashMap<>();
+
+    BackOffDelaySummaries(MeterRegistry meterRegistry, String metricName,
+        TagCardinalityLimiter cardinalityLimiter) {
+      this.meterRegistry = meterRegistry;
+      this.metricName = metricName;
+      this.cardinalityLimiter = cardinalityLimiter;
+    }
+
+    DistributionSummary getSummary(RetryContext retryContext, Throwable lastThrowable,
+        String source) {
+      var methodSummaries = getMethodSummaries(retryContext);
+      var sourceSummaries = RETRY_AFTER_SOURCE.equals(source)
+          ? methodSummaries.retryAfterSummaries : methodSummaries.backOffPolicySummaries;
+      return sourceSummaries.getSummary(lastThrowable == null ? null : lastThrowable.getClass());
+    }
+
+    private MethodSummaries getMethodSummaries(RetryContext retryContext) {
+      var methodMetadata = RetryMethodMetadata.get(retryContext);
+      if (methodMetadata != null) {
+        return methodMetadata.getAttachment(this, methodSummariesFactory);
+      }
+
+      var nameAttribute = retryContext.getAttribute(RetryContext.NAME);
+      var methodInvocation = (MethodInvocation) retryContext
+          .getAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION);
+      var key = new MethodKey(nameAttribute == null ? UNKNOWN_NAME : nameAttribute.toString(),
+          methodInvocation == null ? null : methodInvocation.getMethod());
+      var methodSummaries = methodSummariesMap.get(key);
+      if (methodSummaries == null) {
+        methodSummaries = methodSummariesMap.computeIfAbsent(key,
+            methodKey -> new MethodSummaries(methodKey.name, methodKey.method));
+      }
+      return methodSummaries;
+    }
+
+    /**
+     * The backoff delay summaries of a retried method.
+     */
+    private class MethodSummaries {
+
+      private final String nameTag;
+      private final String classTag;
+      private final String methodTag;
+      private final SourceSummaries retryAfterSummaries;
+      private final SourceSummaries backOffPolicySummaries;
+
+      MethodSummaries(String name, Method method) {
+        this.nameTag = cardinalityLimiter.limit(metricName, NAME_TAG_NAME, name);
+        this.classTag = method == null ? NONE : method.getDeclaringClass().getSimpleName();
+        this.methodTag = method == null ? NONE : method.getName();
+        this.retryAfterSummaries = new SourceSummaries(this, RETRY_AFTER_SOURCE);
+        this.backOffPolicySummaries = new SourceSummaries(this, BACKOFF_POLICY_SOURCE);
+      }
+    }
+
+    /**
+     * The backoff delay summaries of a retried method for a source of the delay, indexed by the
+     * class of the last exception.
+     */
+    private class SourceSummaries {
+
+      private final MethodSummaries methodSummaries;
+      private final String source;
+      private final ConcurrentMap<Class<?>, DistributionSummary> exceptionSummaries =
+          new ConcurrentHashMap<>();
+      private volatile DistributionSummary noExceptionSummary;
+
+      SourceSummaries(MethodSummaries methodSummaries, String source) {
+        this.methodSummaries = methodSummaries;
+        this.source = source;
+      }
+
+      DistributionSummary getSummary(Class<?> exceptionClass) {
+        if (exceptionClass == null) {
+          var summary = noExceptionSummary;
+          if (summary == null) {
+            // registering the same summary concurrently is harmless: the registry returns the same meter
+            summary = registerSummary(NONE);
+            noExceptionSummary = summary;
+          }
+          return summary;
+        }
+
+        var summary = exceptionSummaries.get(exceptionClass);
+        if (summary == null) {
+          summary = exceptionSummaries.computeIfAbsent(exceptionClass,
+              key -> registerSummary(cardinalityLimiter
+                  .limit(metricName, EXCEPTION_TAG_NAME, key.getSimpleName())));
+        }
+        return summary;
+      }
+
+      private DistributionSummary registerSummary(String exceptionTag) {
+        return DistributionSummary.builder(metricName)
+            .description("The backoff delays between the retries of a service method call")
+            .baseUnit("milliseconds")
+            .tag(NAME_TAG_NAME, methodSummaries.nameTag)
+            .tag(CLASS_TAG_NAME, methodSummaries.classTag)
+            .tag(METHOD_TAG_NAME, methodSummaries.methodTag)
+            .tag(EXCEPTION_TAG_NAME, exceptionTag)
+            .tag(SOURCE_TAG_NAME, source)
+            .register(meterRegistry);
+      }
+    }
+  }
+
+  /**
+   * The key of the summaries of the methods retried without {@link RetryMethodMetadata}.
+   */
+  private static class MethodKey {
+
+    private final String name;
+    private final Method method;
+
+    MethodKey(String name, Method method) {
+      this.name = name;
+      this.method = method;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      MethodKey that = (MethodKey) o;
+      return name.equals(that.name) &&
+          Objects.equals(method, that.method);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(name, method);
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.findinpath.retry.circuitbreaker;
+
+import com.findinpath.retry.stats.SlidingWindowCounter;
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker guarding the calls towards a service method.
+ * <p>
+ * The circuit breaker is implemented as a lock-free state machine:
+ * <ul>
+ *   <li>{@link State#CLOSED}: the calls are permitted and their outcome is recorded in a sliding
+ *   time window. When the failure rate of the window reaches the configured threshold (and the
+ *   window contains the minimum amount of calls) the circuit breaker opens.</li>
+ *   <li>{@link State#OPEN}: the calls are rejected until the configured open duration elapses.</li>
+ *   <li>{@link State#HALF_OPEN}: a limited amount of probing calls is permitted. When all of them
+ *   succeed the circuit breaker closes, otherwise it opens again.</li>
+ * </ul>
+ * Every transition replaces atomically an immutable snapshot of the state, so that the
+ * permission checks and the recording of the call outcomes don't need any lock.
+ */
+public class CircuitBreaker {
+
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  private static final int CALLS = 0;
+  private static final int FAILURES = 1;
+  private static final int WINDOW_BUCKETS = 10;
+
+  private final CircuitBreakerConfig config;
+  private final Clock clock;
+  private final CircuitBreakerListener listener;
+  private final AtomicReference<StateSnapshot> state;
+  private final LongAdder rejectedCalls = new LongAdder();
+
+  public CircuitBreaker(CircuitBreakerConfig config, Clock clock,
+      CircuitBreakerListener listener) {
+    this.config = config;
+    this.clock = clock;
+    this.listener = listener;
+    this.state = new AtomicReference<>(closedState());
+  }
+
+  public State getState() {
+    return state.get().state;
+  }
+
+  /**
+   * @return the total amount of calls rejected by the circuit breaker
+   */
+  public long getRejectedCalls() {
+    return rejectedCalls.sum();
+  }
+
+  /**
+   * Checks whether a call is permitted and, when the open duration has elapsed, moves an open
+   * circuit breaker to the half-open state.
+   *
+   * @return whether the call is permitted
+   */
+  public boolean tryAcquirePermission() {
+    while (true) {
+      var snapshot = state.get();
+      switch (snapshot.state) {
+        case CLOSED:
+          return true;
+        case OPEN:
+          if (clock.monotonicTime() - snapshot.sinceNanos < config.getOpenDuration().toNanos()) {
+            rejectedCalls.increment();
+            return false;
+          }
+          transition(snapshot, halfOpenState());
+          // check again the permission on the new state
+          break;
+        default:
+          if (snapshot.halfOpenPermits.getAndDecrement() > 0) {
+            return true;
+          }
+          rejectedCalls.increment();
+          return false;
+      }
+    }
+  }
+
+  public void onSuccess() {
+    var snapshot = state.get();
+    if (snapshot.state == State.CLOSED) {
+      snapshot.window.increment(CALLS);
+    } else if (snapshot.state == State.HALF_OPEN
+        && snapshot.halfOpenSuccesses.incrementAndGet() >= config.getHalfOpenCalls()) {
+      transition(snapshot, closedState());
+    }
+  }
+
+  public void onError() {
+    var snapshot = state.get();
+    if (snapshot.state == State.CLOSED) {
+      var window = snapshot.window;
+      window.increment(CALLS);
+      window.increment(FAILURES);
+      long calls = window.sum(CALLS);
+      if (calls >= config.getMinimumCalls()
+          && window.sum(FAILURES) >= config.getFailureRateThreshold() * calls) {
+        transition(snapshot, openState());
+      }
+    } else if (snapshot.state == State.HALF_OPEN) {
+      transition(snapshot, openState());
+    }
+  }
+
+  private void transition(StateSnapshot from, StateSnapshot to) {
+    if (state.compareAndSet(from, to)) {
+      listener.onStateTransition(from.state, to.state);
+    }
+  }
+
+  private StateSnapshot closedState() {
+    var window = new SlidingWindowCounter(2, WINDOW_BUCKETS, config.getWindowDuration(), clock);
+    return new StateSnapshot(State.CLOSED, clock.monotonicTime(), window, 0);
+  }
+
+  private StateSnapshot openState() {
+    return new StateSnapshot(State.OPEN, clock.monotonicTime(), null, 0);
+  }
+
+  private StateSnapshot halfOpenState() {
+    return new StateSnapshot(State.HALF_OPEN, clock.monotonicTime(), null,
+        config.getHalfOpenCalls());
+  }
+
+  /**
+   * Listener notified about the state transitions of a circuit breaker.
+   */
+  public interface CircuitBreakerListener {
+
+    void onStateTransition(State from, State to);
+  }
+
+  private static class StateSnapshot {
+
+    private final State state;
+    private final long sinceNanos;
+    private final SlidingWindowCounter window;
+    private final AtomicInteger halfOpenPermits;
+    private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+
+    StateSnapshot(State state, long sinceNanos, SlidingWindowCounter window,
+        int halfOpenPermits) {
+      this.state = state;
+      this.sinceNanos = sinceNanos;
+      this.window = window;
+      this.halfOpenPermits = new AtomicInteger(halfOpenPermits);
+    }
+  }
+
+  /**
+   * The configuration of the circuit breakers.
+   */
+  public static class CircuitBreakerConfig {
+
+    private final double failureRateThreshold;
+    private final int minimumCalls;
+    private final Duration windowDuration;
+    private final Duration openDuration;
+    private final int halfOpenCalls;
+
+    /**
+     * The constructor for the class.
+     *
+     * @param failureRateThreshold the failure rate (between 0 and 1) of the calls in the window
+     *                             which opens the circuit breaker
+     * @param minimumCalls         the minimum amount of calls in the window needed for computing
+     *                             the failure rate
+     * @param windowDuration       the duration of the sliding window of the closed state
+     * @param openDuration         the time spent in the open state before probing the service
+     * @param halfOpenCalls        the amount of probing calls permitted in the half-open state
+     */
+    public CircuitBreakerConfig(double failureRateThreshold, int minimumCalls,
+        Duration windowDuration, Duration openDuration, int halfOpenCalls) {
+      if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+        throw new IllegalArgumentException("The failure rate threshold must be in (0, 1]");
+      }
+      if (minimumCalls < 1 || halfOpenCalls < 1) {
+        throw new IllegalArgumentException(
+            "The minimum calls and the half-open calls must be positive");
+      }
+      this.failureRateThreshold = failureRateThreshold;
+      this.minimumCalls = minimumCalls;
+      this.windowDuration = windowDuration;
+      this.openDuration = openDuration;
+      this.halfOpenCalls = halfOpenCalls;
+    }
+
+    public double getFailureRateThreshold() {
+      return failureRateThreshold;
+    }
+
+    public int getMinimumCalls() {
+      return minimumCalls;
+    }
+
+    public Duration getWindowDuration() {
+      return windowDuration;
+    }
+
+    public Duration getOpenDuration() {
+      return openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+      return halfOpenCalls;
+    }
+  }
+}
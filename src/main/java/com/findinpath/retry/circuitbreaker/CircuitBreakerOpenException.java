@@ -0,0 +1,11 @@
+package com.findinpath.retry.circuitbreaker;
+
+/**
+ * Exception thrown when a call is not permitted because its circuit breaker is open.
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+  public CircuitBreakerOpenException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,110 @@
+package com.findinpath.retry.circuitbreaker;
+
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.CLASS_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.METHOD_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.NAME_TAG_NAME;
+
+import com.findinpath.retry.circuitbreaker.CircuitBreaker.CircuitBreakerConfig;
+import com.findinpath.retry.circuitbreaker.CircuitBreaker.State;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.lang.reflect.Method;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the {@link CircuitBreaker}s guarding the calls of each service method.
+ * <p>
+ * Every circuit breaker exports its metrics under the same {@code name}, {@code class} and
+ * {@code method} tags as the ones used by the {@link com.findinpath.retry.listener.MicrometerRetryListenerSupport}:
+ * <pre>
+ *     <ul>
+ *         <li>metricName_circuit_breaker_state : gauge set to 1 for the current state (tag state) of the circuit breaker</li>
+ *         <li>metricName_circuit_breaker_transitions : counts the state transitions (tags from, to) of the circuit breaker</li>
+ *         <li>metricName_circuit_breaker_rejected : counts the calls rejected by the circuit breaker</li>
+ *     </ul>
+ * </pre>
+ */
+public class CircuitBreakerRegistry {
+
+  private static final String STATE_TAG_NAME = "state";
+  private static final String FROM_TAG_NAME = "from";
+  private static final String TO_TAG_NAME = "to";
+
+  private final CircuitBreakerConfig config;
+  private final MeterRegistry meterRegistry;
+  private final String stateMetricName;
+  private final String transitionsMetricName;
+  private final String rejectedMetricName;
+
+  private final ConcurrentMap<Method, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+  /**
+   * The constructor for the class.
+   *
+   * @param config        the configuration of the circuit breakers
+   * @param meterRegistry the monitoring registry
+   * @param metricName    the name prefix for the metrics
+   */
+  public CircuitBreakerRegistry(CircuitBreakerConfig config, MeterRegistry meterRegistry,
+      String metricName) {
+    this.config = config;
+    this.meterRegistry = meterRegistry;
+    this.stateMetricName = metricName + "_circuit_breaker_state";
+    this.transitionsMetricName = metricName + "_circuit_breaker_transitions";
+    this.rejectedMetricName = metricName + "_circuit_breaker_rejected";
+  }
+
+  /**
+   * Retrieves the circuit breaker of the specified method.
+   *
+   * @param name   the name of the calls (e.g. : the retry label) used when creating the circuit
+   *               breaker
+   * @param method the method guarded by the circuit breaker
+   * @return the circuit breaker of the method
+   */
+  public CircuitBreaker getCircuitBreaker(String name, Method method) {
+    var circuitBreaker = circuitBreakers.get(method);
+    if (circuitBreaker == null) {
+      circuitBreaker = circuitBreakers.computeIfAbsent(method,
+          key -> createCircuitBreaker(name, key));
+    }
+    return circuitBreaker;
+  }
+
+  private CircuitBreaker createCircuitBreaker(String name, Method method) {
+    var tags = Tags.of(NAME_TAG_NAME, name,
+        CLASS_TAG_NAME, method.getDeclaringClass().getSimpleName(),
+        METHOD_TAG_NAME, method.getName());
+
+    var circuitBreaker = new CircuitBreaker(config, meterRegistry.config().clock(),
+        (from, to) -> Counter.builder(transitionsMetricName)
+            .description("Counts the state transitions of the circuit breaker")
+            .tags(tags)
+            .tag(FROM_TAG_NAME, tagValue(from))
+            .tag(TO_TAG_NAME, tagValue(to))
+            .register(meterRegistry)
+            .increment());
+
+    for (State state : State.values()) {
+      Gauge.builder(stateMetricName, circuitBreaker, cb -> cb.getState() == state ? 1 : 0)
+          .description("The state of the circuit breaker")
+          .tags(tags)
+          .tag(STATE_TAG_NAME, tagValue(state))
+          .register(meterRegistry);
+    }
+    FunctionCounter.builder(rejectedMetricName, circuitBreaker, CircuitBreaker::getRejectedCalls)
+        .description("Counts the calls rejected by the circuit breaker")
+        .tags(tags)
+        .register(meterRegistry);
+    return circuitBreaker;
+  }
+
+  private static String tagValue(State state) {
+    return state.name().toLowerCase(Locale.ROOT);
+  }
+}
@@ -0,0 +1,212 @@
+package com.findinpath.retry.concurrency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bound on the amount of concurrent calls towards a service, adjusted from the outcome of the
+ * calls with an additive increase / multiplicative decrease (AIMD) algorithm.
+ * <p>
+ * A call which fails or which lasts longer than the latency threshold is considered as a drop
+ * and decreases the limit by the backoff ratio. The limit is decreased at most once per round-trip
+ * : the drops of the calls which were already in flight when the limit got decreased are ignored,
+ * because they were admitted under the previous limit (a single outage would otherwise shrink the
+ * limit once per failing call). A successful call made while at least half of the limit is in use
+ * increases the limit by one. This way the limit shrinks when the service
+ * degrades (instead of letting the in-flight calls pile up) and grows back as the service
+ * recovers.
+ * <p>
+ * The acquire and release operations are lock-free. The callers which can't acquire a permit may
+ * wait for one until a deadline : they get parked in a queue and are unparked one by one as the
+ * permits are released.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+  /**
+   * The maximum time a waiting caller stays parked before checking again for a permit, which
+   * bounds the effect of a missed unpark.
+   */
+  private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final long latencyThresholdNanos;
+  private final AtomicInteger limit;
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong releases = new AtomicLong();
+  /**
+   * The sequence number of the last release of a call which was in flight at the time of the last
+   * decrease of the limit.
+   */
+  private final AtomicLong lastReleaseBeforeDecrease = new AtomicLong();
+  private final LongAdder rejections = new LongAdder();
+  private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The constructor for the class.
+   *
+   * @param initialLimit     the initial concurrency limit
+   * @param minLimit         the minimum concurrency limit
+   * @param maxLimit         the maximum concurrency limit
+   * @param backoffRatio     the ratio by which the limit is multiplied on a drop (e.g. : 0.9)
+   * @param latencyThreshold the latency above which a call is considered as a drop
+   */
+  public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+      double backoffRatio, Duration latencyThreshold) {
+    if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit
+        || initialLimit > maxLimit) {
+      throw new IllegalArgumentException(
+          "The concurrency limits must be positive and the initial limit within the bounds");
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("The backoff ratio must be between 0 and 1");
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyThresholdNanos = latencyThreshold.toNanos();
+    this.limit = new AtomicInteger(initialLimit);
+  }
+
+  /**
+   * Acquires a permit for a call without waiting.
+   *
+   * @return whether the permit has been acquired
+   */
+  public boolean tryAcquire() {
+    int current;
+    do {
+      current = inFlight.get();
+      if (current >= limit.get()) {
+        return false;
+      }
+    } while (!inFlight.compareAndSet(current, current + 1));
+    return true;
+  }
+
+  /**
+   * Acquires a permit for a call, waiting for at most the specified time for a permit to be
+   * released.
+   *
+   * @param maxWaitNanos the maximum waiting time in nanoseconds
+   * @return whether the permit has been acquired
+   * @throws InterruptedException when the caller is interrupted while waiting
+   */
+  public boolean acquire(long maxWaitNanos) throws InterruptedException {
+    if (tryAcquire()) {
+      return true;
+    }
+    if (maxWaitNanos <= 0) {
+      rejections.increment();
+      return false;
+    }
+
+    var currentThread = Thread.currentThread();
+    long deadline = System.nanoTime() + maxWaitNanos;
+    try {
+      while (true) {
+        waiters.offer(currentThread);
+        if (tryAcquire()) {
+          return true;
+        }
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          rejections.increment();
+          return false;
+        }
+        LockSupport.parkNanos(this, Math.min(remaining, MAX_PARK_NANOS));
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+    } finally {
+      // the caller may have been offered several times when woken up by the park timeout
+      while (waiters.remove(currentThread)) {
+        // keep on removing
+      }
+    }
+  }
+
+  /**
+   * Releases the permit of a call and adjusts the limit from the outcome of the call.
+   *
+   * @param latencyNanos the latency of the call in nanoseconds
+   * @param dropped      whether the call failed
+   */
+  public void release(long latencyNanos, boolean dropped) {
+    int previousInFlight = inFlight.getAndDecrement();
+    long release = releases.incrementAndGet();
+    if (dropped || latencyNanos > latencyThresholdNanos) {
+      long lastRelease = lastReleaseBeforeDecrease.get();
+      // the other calls in flight are released after this one
+      if (release > lastRelease && lastReleaseBeforeDecrease
+          .compareAndSet(lastRelease, release + previousInFlight - 1)) {
+        limit.updateAndGet(current -> Math.max(minLimit, (int) (current * backoffRatio)));
+      }
+    } else if (previousInFlight * 2 >= limit.get()) {
+      limit.updateAndGet(current -> Math.min(maxLimit, current + 1));
+    }
+
+    var waiter = waiters.poll();
+    if (waiter != null) {
+      LockSupport.unpark(waiter);
+    }
+  }
+
+  /**
+   * @return the current concurrency limit
+   */
+  public int getLimit() {
+    return limit.get();
+  }
+
+  /**
+   * @return the amount of calls currently holding a permit
+   */
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * @return the total amount of calls rejected because of the concurrency limit
+   */
+  public long getRejections() {
+    return rejections.sum();
+  }
+
+  /**
+   * Exports the concurrency limiter metrics:
+   * <pre>
+   *     <ul>
+   *         <li>metricName_concurrency_limit : the current concurrency limit</li>
+   *         <li>metricName_concurrency_in_flight : the amount of calls currently in flight</li>
+   *         <li>metricName_concurrency_rejected : counts the calls rejected because of the concurrency limit</li>
+   *     </ul>
+   * </pre>
+   *
+   * @param registry   the monitoring registry
+   * @param metricName the name prefix for the metrics
+   */
+  public void bindTo(MeterRegistry registry, String metricName) {
+    Gauge.builder(metricName + "_concurrency_limit", this, AdaptiveConcurrencyLimiter::getLimit)
+        .description("The current limit of the concurrent calls")
+        .register(registry);
+    Gauge.builder(metricName + "_concurrency_in_flight", this,
+        AdaptiveConcurrencyLimiter::getInFlight)
+        .description("The amount of calls currently in flight")
+        .register(registry);
+    FunctionCounter.builder(metricName + "_concurrency_rejected", this,
+        AdaptiveConcurrencyLimiter::getRejections)
+        .description("Counts the calls rejected because of the concurrency limit")
+        .register(registry);
+  }
+}
@@ -0,0 +1,11 @@
+package com.findinpath.retry.concurrency;
+
+/**
+ * Exception thrown when a call is rejected because the concurrency limit is reached.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+  public ConcurrencyLimitExceededException(String message) {
+    super(message);
+  }
+}
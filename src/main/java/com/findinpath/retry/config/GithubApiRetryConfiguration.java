@@ -1,19 +1,77 @@
 package com.findinpath.retry.config;
 
+import com.findinpath.micrometer.core.aop.MethodLatencyPercentile;
+import com.findinpath.micrometer.core.aop.MethodTimerCache;
 import com.findinpath.micrometer.core.aop.TimedMethodInterceptor;
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
+import com.findinpath.retry.annotation.MeteredMethodInterceptorFactory;
+import com.findinpath.retry.annotation.MeteredRetryable;
+import com.findinpath.retry.annotation.MeteredRetryableBeanPostProcessor;
+import com.findinpath.retry.annotation.MeteredRetryablePointcut;
+import com.findinpath.retry.annotation.MeteredTimed;
+import com.findinpath.retry.annotation.OrderedMethodInterceptor;
+import com.findinpath.retry.backoff.AdaptiveBackOffPolicy;
+import com.findinpath.retry.backoff.AdaptiveBackOffPolicy.AdaptiveBackOffConfig;
+import com.findinpath.retry.backoff.DeadlineAwareBackOffPolicy;
+import com.findinpath.retry.backoff.ExceptionClassificationBackOffPolicy;
+import com.findinpath.retry.backoff.RetryAfterBackOffPolicy;
+import com.findinpath.retry.circuitbreaker.CircuitBreaker.CircuitBreakerConfig;
+import com.findinpath.retry.circuitbreaker.CircuitBreakerRegistry;
+import com.findinpath.retry.concurrency.AdaptiveConcurrencyLimiter;
+import com.findinpath.retry.deadline.TimeBudgets;
+import com.findinpath.retry.interceptor.AsyncMethodInvocationRetryOperationsInterceptor;
+import com.findinpath.retry.interceptor.CachingMethodInterceptor;
+import com.findinpath.retry.interceptor.ConcurrencyLimitingMethodInterceptor;
+import com.findinpath.retry.interceptor.HedgingMethodInterceptor;
+import com.findinpath.retry.interceptor.ReactiveMethodInvocationRetryOperationsInterceptor;
+import com.findinpath.retry.interceptor.SingleFlightMethodInterceptor;
+import com.findinpath.retry.interceptor.VirtualThreadMethodInterceptor;
+import com.findinpath.retry.interceptor.VirtualThreads;
 import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import com.findinpath.retry.policy.ExceptionClassification;
+import com.findinpath.retry.policy.ExceptionClassifier;
+import com.findinpath.retry.policy.ExceptionClassifierRetryPolicy;
+import com.findinpath.retry.policy.RetryBudget;
+import com.findinpath.retry.policy.RetryBudgetRetryPolicy;
+import com.findinpath.retry.stats.RetryStatistics;
+import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import org.aopalliance.aop.Advice;
 import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.ImportResource;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.retry.RetryListener;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.backoff.BackOffPolicy;
 import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
 import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
 import org.springframework.retry.policy.SimpleRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
 
 /**
  * Configuration class used for declaring the retry policy for making Github API calls. This
@@ -21,39 +79,273 @@ import org.springframework.retry.support.RetryTemplate;
  * API as well as the combined duration (corresponding to the configured retry policy) of the API
  * calls including the retries.
  * <p>
- * The `github-api-aop-config.xml` resource is being referenced because in Java (at least at the
- * time of this writing) there's no support for method literals.
+ * The Github API calls are the {@link MeteredRetryable} methods. Each of them is advised at
+ * startup by the {@link MeteredRetryableBeanPostProcessor} with a single interceptor timing the
+ * call including the retries, retrying the call and timing each of the attempts. The optional
+ * advisors (enabled through configuration properties) are applied on the same methods by the
+ * auto-proxy creator.
  */
 @Configuration
-@ImportResource("classpath:/github-api-aop-config.xml")
+@EnableAspectJAutoProxy
 public class GithubApiRetryConfiguration {
 
   public static final String API_METRIC_NAME = "github_api";
   public static final String API_RETRY_METRIC_NAME = "github_api_retry";
   public final static double[] EXPORTED_PERCENTILES = {0.5, 0.75, 0.8, 0.9, 0.95, 0.99, 0.999};
 
+  /**
+   * The order of the caching advisor : before all the other advisors, in order to avoid going
+   * through them for the cached API calls.
+   */
+  public static final int CACHE_ADVISOR_ORDER = 2;
+  /**
+   * The order of the virtual thread advisor : before the advisors timing and retrying the API
+   * calls.
+   */
+  public static final int VIRTUAL_THREAD_ADVISOR_ORDER = 5;
+  /**
+   * The order of the advisors timing the API calls including the retries when the timing is not
+   * composed with the retries (see {@link #meteredMethodInterceptorFactory}) : before the
+   * single-flight and the concurrency limit advisors, so that the calls collapsed into another
+   * call, the time spent waiting for a permit and the rejected calls are timed as well.
+   */
+  public static final int METERED_CALL_TIMER_ADVISOR_ORDER = 10;
+  /**
+   * The order of the single-flight advisor : before the retry advisor, so that the collapsed calls
+   * share a single retry sequence.
+   */
+  public static final int SINGLE_FLIGHT_ADVISOR_ORDER = 15;
+  /**
+   * The order of the concurrency limit advisor : before the retry advisor, so that a call holds a
+   * single permit for all its attempts and the rejected calls are not retried.
+   */
+  public static final int CONCURRENCY_LIMIT_ADVISOR_ORDER = 17;
+  /**
+   * The order of the advisors of the {@link MeteredRetryable} methods, which retry the API calls
+   * (and time the calls including the retries and each of their attempts, unless the timing is
+   * split into the advisors ordered by {@link #METERED_CALL_TIMER_ADVISOR_ORDER} and {@link
+   * #METERED_ATTEMPT_TIMER_ADVISOR_ORDER}).
+   */
+  public static final int METERED_RETRY_ADVISOR_ORDER = 20;
+  /**
+   * The order of the hedging advisor : within the retry advisor (the hedged calls count as a single
+   * timed attempt).
+   */
+  public static final int HEDGING_ADVISOR_ORDER = 25;
+  /**
+   * The order of the advisors timing each attempt of the API calls when the timing is not
+   * composed with the retries : after the hedging advisor, so that each hedged call is timed on
+   * its own (the latency percentiles read by the hedging and the deadline out of the attempt
+   * timers are not biased towards the fastest of the hedged calls).
+   */
+  public static final int METERED_ATTEMPT_TIMER_ADVISOR_ORDER = 30;
+  private static final String API_CALLS_POINTCUT = "github-api-calls";
+
+  /**
+   * Pointcut used by the optional advisors when their functionality is disabled.
+   */
+  private static final Pointcut NO_METHODS_POINTCUT = new StaticMethodMatcherPointcut() {
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+      return false;
+    }
+  };
+
+
+  private static final boolean REACTOR_PRESENT = ClassUtils.isPresent(
+      "reactor.core.publisher.Flux", GithubApiRetryConfiguration.class.getClassLoader());
 
   private static final String TIMED_API_METRIC_DESCRIPTION =
       "The time taken for completing the API calls";
   private static final String TIMED_API_WITH_RETRIES_METRIC_DESCRIPTION =
       "The time taken for completing the API calls with the retry policy (retries, backoff time)";
 
-  private static RetryTemplate createRetryTemplateForRestTemplates(MeterRegistry meterRegistry,
-      int maxAttempts,
-      int initialBackoffTime,
-      String metricName) {
+  private static RetryTemplate createRetryTemplateForRestTemplates(RetryPolicy retryPolicy,
+      BackOffPolicy backOffPolicy,
+      RetryBudget retryBudget,
+      RetryListener... retryListeners) {
 
     RetryTemplate retryTemplate = new RetryTemplate();
 
+    retryTemplate.setBackOffPolicy(backOffPolicy);
+    retryTemplate.setRetryPolicy(createRetryPolicy(retryPolicy, retryBudget));
+    retryTemplate.setListeners(retryListeners);
+    return retryTemplate;
+  }
+
+  private static ExponentialRandomBackOffPolicy createExponentialBackOffPolicy(
+      long initialBackoffTime) {
     // random jitter is important for ensuring that not all clients back off the same way.
     ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
     backOffPolicy.setInitialInterval(initialBackoffTime);
-    retryTemplate.setBackOffPolicy(backOffPolicy);
-    retryTemplate.setRetryPolicy(createSimpleRetryPolicy(maxAttempts));
-    retryTemplate.setListeners(new RetryListener[]{
-        new MicrometerRetryListenerSupport(meterRegistry, metricName)
-    });
-    return retryTemplate;
+    return backOffPolicy;
+  }
+
+  private static Advisor createOptionalAdvisor(Pointcut pointcut, boolean enabled,
+      Advice advice, int order) {
+    var advisor = new DefaultPointcutAdvisor(enabled ? pointcut : NO_METHODS_POINTCUT, advice);
+    advisor.setOrder(order);
+    return advisor;
+  }
+
+  /**
+   * Parses a comma delimited list of {@code methodName=millis} entries.
+   */
+  private static Map<String, Duration> parseMethodMillis(String methodMillis) {
+    var methodDurations = new LinkedHashMap<String, Duration>();
+    var properties = StringUtils.splitArrayElementsIntoProperties(
+        StringUtils.commaDelimitedListToStringArray(methodMillis), "=");
+    if (properties != null) {
+      properties.forEach((methodName, millis) -> methodDurations.put(
+          ((String) methodName).trim(), Duration.ofMillis(Long.parseLong(((String) millis).trim()))));
+    }
+    return methodDurations;
+  }
+
+  private static String getMetricName(String metricName, String defaultMetricName) {
+    return StringUtils.hasText(metricName) ? metricName : defaultMetricName;
+  }
+
+  private static double[] getPercentiles(double[] percentiles) {
+    return percentiles.length == 0 ? EXPORTED_PERCENTILES : percentiles;
+  }
+
+  /**
+   * Creates the timers of the calls (or of the attempts) of a retried method, publishing the same
+   * meters as a {@link TimedMethodInterceptor} would.
+   */
+  private static MethodTimerCache createMethodTimers(String metricName, String metricDescription,
+      double[] percentiles, MeterRegistry meterRegistry, TagCardinalityLimiter cardinalityLimiter) {
+    var methodTimers = new MethodTimerCache(metricName, metricDescription, percentiles,
+        meterRegistry, cardinalityLimiter);
+    methodTimers.registerUntaggedTimer();
+    return methodTimers;
+  }
+
+  /**
+   * Splits the stages of a retried method into ordered interceptors : the call timer, the retries
+   * and the attempt timer (when the method is {@link MeteredTimed}).
+   */
+  private static List<MethodInterceptor> createStagedInterceptors(
+      MethodInterceptor retryInterceptor, MeteredRetryable retryable, MeteredTimed timed,
+      String attemptMetricName, MeterRegistry meterRegistry,
+      TagCardinalityLimiter cardinalityLimiter) {
+    var interceptors = new ArrayList<MethodInterceptor>();
+    interceptors.add(new OrderedMethodInterceptor(
+        new TimedMethodInterceptor(getMetricName(retryable.metricName(), API_RETRY_METRIC_NAME),
+            TIMED_API_WITH_RETRIES_METRIC_DESCRIPTION, getPercentiles(retryable.percentiles()),
+            meterRegistry, cardinalityLimiter),
+        METERED_CALL_TIMER_ADVISOR_ORDER));
+    interceptors.add(new OrderedMethodInterceptor(retryInterceptor, METERED_RETRY_ADVISOR_ORDER));
+    if (timed != null) {
+      interceptors.add(new OrderedMethodInterceptor(
+          new TimedMethodInterceptor(attemptMetricName, TIMED_API_METRIC_DESCRIPTION,
+              getPercentiles(timed.percentiles()), meterRegistry, cardinalityLimiter),
+          METERED_ATTEMPT_TIMER_ADVISOR_ORDER));
+    }
+    return interceptors;
+  }
+
+  private static MethodInterceptor createAsyncRetryInterceptor(RetryPolicy retryPolicy,
+      DeadlineAwareBackOffPolicy backOffPolicy, RetryBudget retryBudget, TimeBudgets timeBudgets,
+      Clock clock, ScheduledExecutorService retryScheduler, Executor retryExecutor,
+      RetryListener... retryListeners) {
+    var interceptor = new AsyncMethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryPolicy(createRetryPolicy(retryPolicy, retryBudget));
+    interceptor.setBackOffPolicy(backOffPolicy);
+    interceptor.setListeners(retryListeners);
+    interceptor.setTimeBudgets(timeBudgets);
+    interceptor.setClock(clock);
+    interceptor.setScheduler(retryScheduler);
+    interceptor.setExecutor(retryExecutor);
+    return interceptor;
+  }
+
+  private static MethodInterceptor createReactiveRetryInterceptor(RetryPolicy retryPolicy,
+      DeadlineAwareBackOffPolicy backOffPolicy, RetryBudget retryBudget, TimeBudgets timeBudgets,
+      Clock clock, RetryListener... retryListeners) {
+    var interceptor = new ReactiveMethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryPolicy(createRetryPolicy(retryPolicy, retryBudget));
+    interceptor.setBackOffPolicy(backOffPolicy);
+    interceptor.setListeners(retryListeners);
+    interceptor.setTimeBudgets(timeBudgets);
+    interceptor.setClock(clock);
+    return interceptor;
+  }
+
+  private static RetryPolicy createRetryPolicy(RetryPolicy retryPolicy, RetryBudget retryBudget) {
+    return new RetryBudgetRetryPolicy(retryPolicy, retryBudget);
+  }
+
+  /**
+   * Creates the backoff policy of the Github API calls which don't request a retry delay : the
+   * exceptions classified as {@link ExceptionClassification#LONG_BACKOFF} are backed off starting
+   * from the {@code longBackoffTime}.
+   */
+  private static ExceptionClassificationBackOffPolicy createClassifiedExponentialBackOffPolicy(
+      long initialBackoffTime, long longBackoffTime) {
+    return createClassifiedBackOffPolicy(createExponentialBackOffPolicy(initialBackoffTime),
+        longBackoffTime);
+  }
+
+  private static ExceptionClassificationBackOffPolicy createClassifiedBackOffPolicy(
+      SleepingBackOffPolicy<?> backOffPolicy, long longBackoffTime) {
+    return new ExceptionClassificationBackOffPolicy(backOffPolicy,
+        createExponentialBackOffPolicy(longBackoffTime));
+  }
+
+  /**
+   * Parses the classifications of the comma delimited lists of exception class names.
+   */
+  private static Map<Class<? extends Throwable>, ExceptionClassification> parseClassifications(
+      String retryable, String nonRetryable, String longBackoff) {
+    var classifications = new LinkedHashMap<Class<? extends Throwable>, ExceptionClassification>();
+    putClassifications(classifications, parseExceptionClasses(retryable),
+        ExceptionClassification.RETRYABLE);
+    putClassifications(classifications, parseExceptionClasses(nonRetryable),
+        ExceptionClassification.NON_RETRYABLE);
+    putClassifications(classifications, parseExceptionClasses(longBackoff),
+        ExceptionClassification.LONG_BACKOFF);
+    return classifications;
+  }
+
+  /**
+   * Retrieves the classifications of the exceptions configured on a {@link MeteredRetryable}
+   * method.
+   */
+  private static Map<Class<? extends Throwable>, ExceptionClassification> getClassifications(
+      MeteredRetryable retryable) {
+    var classifications = new LinkedHashMap<Class<? extends Throwable>, ExceptionClassification>();
+    putClassifications(classifications, retryable.retryFor(), ExceptionClassification.RETRYABLE);
+    putClassifications(classifications, retryable.noRetryFor(),
+        ExceptionClassification.NON_RETRYABLE);
+    putClassifications(classifications, retryable.longBackoffFor(),
+        ExceptionClassification.LONG_BACKOFF);
+    return classifications;
+  }
+
+  private static void putClassifications(
+      Map<Class<? extends Throwable>, ExceptionClassification> classifications,
+      Class<? extends Throwable>[] exceptionClasses, ExceptionClassification classification) {
+    for (var exceptionClass : exceptionClasses) {
+      classifications.put(exceptionClass, classification);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Class<? extends Throwable>[] parseExceptionClasses(String exceptionClassNames) {
+    return Arrays.stream(StringUtils.commaDelimitedListToStringArray(exceptionClassNames))
+        .map(String::trim)
+        .filter(StringUtils::hasText)
+        .map(exceptionClassName -> {
+          var exceptionClass = ClassUtils.resolveClassName(exceptionClassName,
+              GithubApiRetryConfiguration.class.getClassLoader());
+          if (!Throwable.class.isAssignableFrom(exceptionClass)) {
+            throw new IllegalArgumentException(exceptionClassName + " is not an exception class");
+          }
+          return exceptionClass;
+        })
+        .toArray(Class[]::new);
   }
 
   private static SimpleRetryPolicy createSimpleRetryPolicy(int maxAttempts) {
@@ -62,36 +354,568 @@ public class GithubApiRetryConfiguration {
     return retryPolicy;
   }
 
+  /**
+   * The retry budget shared by all the Github API calls: over the sliding window, the retries may
+   * amount to at most {@code ratio} of the first attempts plus {@code minRetriesPerSecond}.
+   */
+  @Bean(name = "githubApiRetryBudget")
+  public RetryBudget retryBudget(MeterRegistry meterRegistry,
+      @Value("${github.api.retry.budget.ratio:0.2}") double ratio,
+      @Value("${github.api.retry.budget.minRetriesPerSecond:10}") int minRetriesPerSecond,
+      @Value("${github.api.retry.budget.windowSeconds:10}") int windowSeconds) {
+    var retryBudget = new RetryBudget(ratio, minRetriesPerSecond,
+        Duration.ofSeconds(windowSeconds), meterRegistry.config().clock());
+    retryBudget.bindTo(meterRegistry, API_METRIC_NAME);
+    return retryBudget;
+  }
+
+  /**
+   * The backoff parameters learnt for each Github API method out of its calls which recovered
+   * after being retried. The parameters are learnt and published as gauges even when the adaptive
+   * backoff is not {@code enabled}, so that they can be compared with the configured backoff
+   * before enabling it.
+   */
+  @Bean(name = "githubApiAdaptiveBackOffPolicy")
+  public AdaptiveBackOffPolicy adaptiveBackOffPolicy(MeterRegistry meterRegistry,
+      @Value("${github.api.retry.initialBackoffTime}") int initialBackoffTime,
+      @Value("${github.api.retry.adaptiveBackoff.minInitialBackoffTime:10}") long minInitialBackoffTime,
+      @Value("${github.api.retry.adaptiveBackoff.maxInitialBackoffTime:5000}") long maxInitialBackoffTime,
+      @Value("${github.api.retry.adaptiveBackoff.defaultMultiplier:2}") double defaultMultiplier,
+      @Value("${github.api.retry.adaptiveBackoff.minMultiplier:1.5}") double minMultiplier,
+      @Value("${github.api.retry.adaptiveBackoff.maxMultiplier:4}") double maxMultiplier,
+      @Value("${github.api.retry.adaptiveBackoff.maxBackoffTime:30000}") long maxBackoffTime,
+      @Value("${github.api.retry.adaptiveBackoff.smoothingFactor:0.2}") double smoothingFactor) {
+    var adaptiveBackOffPolicy = new AdaptiveBackOffPolicy(new AdaptiveBackOffConfig(
+        Duration.ofMillis(initialBackoffTime), Duration.ofMillis(minInitialBackoffTime),
+        Duration.ofMillis(maxInitialBackoffTime), defaultMultiplier, minMultiplier, maxMultiplier,
+        Duration.ofMillis(maxBackoffTime), smoothingFactor), meterRegistry.config().clock());
+    adaptiveBackOffPolicy.bindTo(meterRegistry, API_METRIC_NAME);
+    return adaptiveBackOffPolicy;
+  }
+
+  /**
+   * The backoff policy shared by the Github API calls : the retry delay requested by the API
+   * (e.g. : when the rate limit is exceeded) is honoured, otherwise the backoff is exponential. The
+   * exceptions classified as {@link ExceptionClassification#LONG_BACKOFF} are backed off starting
+   * from the {@code longBackoffTime}. When the {@code adaptiveBackoff.enabled} property is set, the
+   * other exceptions are backed off with the parameters learnt by the {@code
+   * githubApiAdaptiveBackOffPolicy}.
+   */
+  @Bean(name = "githubApiBackOffPolicy")
+  public RetryAfterBackOffPolicy backOffPolicy(MeterRegistry meterRegistry,
+      @Qualifier("githubApiAdaptiveBackOffPolicy") AdaptiveBackOffPolicy adaptiveBackOffPolicy,
+      @Value("${github.api.retry.initialBackoffTime}") int initialBackoffTime,
+      @Value("${github.api.retry.adaptiveBackoff.enabled:false}") boolean adaptiveBackoffEnabled,
+      @Value("${github.api.retry.classification.longBackoffTime:5000}") long longBackoffTime,
+      @Value("${github.api.retry.retryAfter.maxDelayMillis:60000}") long maxRetryAfterMillis,
+      @Value("${github.api.retry.retryAfter.jitterFactor:0.1}") double jitterFactor,
+      @Qualifier("githubApiTagCardinalityLimiter") TagCardinalityLimiter cardinalityLimiter) {
+    return new RetryAfterBackOffPolicy(
+        adaptiveBackoffEnabled
+            ? createClassifiedBackOffPolicy(adaptiveBackOffPolicy, longBackoffTime)
+            : createClassifiedExponentialBackOffPolicy(initialBackoffTime, longBackoffTime),
+        Duration.ofMillis(maxRetryAfterMillis), jitterFactor, meterRegistry, API_METRIC_NAME,
+        cardinalityLimiter);
+  }
+
+  /**
+   * Limiter of the distinct values of the dynamically valued tags (e.g. : the exception class name)
+   * of the Github API meters.
+   */
+  @Bean(name = "githubApiTagCardinalityLimiter")
+  public TagCardinalityLimiter tagCardinalityLimiter(MeterRegistry meterRegistry,
+      @Value("${github.api.retry.maxTagValues:100}") int maxTagValues) {
+    return new TagCardinalityLimiter(maxTagValues, meterRegistry,
+        API_METRIC_NAME + TagCardinalityLimiter.DROPPED_TAG_VALUES_METRIC_SUFFIX);
+  }
+
+  /**
+   * The listener monitoring the retries of the Github API calls. The attempt and backoff timers
+   * publish the {@code slaBoundariesMillis} (e.g. : {@code 50,100,250,500,1000}) in addition to
+   * their percentile histogram.
+   */
+  @Bean(name = "githubApiRetryListener")
+  public MicrometerRetryListenerSupport retryListener(MeterRegistry meterRegistry,
+      @Qualifier("githubApiTagCardinalityLimiter") TagCardinalityLimiter cardinalityLimiter,
+      @Value("${github.api.retry.slaBoundariesMillis:}") String slaBoundariesMillis) {
+    var slaBoundaries = Arrays
+        .stream(StringUtils.commaDelimitedListToStringArray(slaBoundariesMillis))
+        .map(String::trim)
+        .filter(StringUtils::hasText)
+        .map(slaBoundary -> Duration.ofMillis(Long.parseLong(slaBoundary)))
+        .toArray(Duration[]::new);
+    return new MicrometerRetryListenerSupport(meterRegistry, API_METRIC_NAME, cardinalityLimiter,
+        slaBoundaries);
+  }
+
+  /**
+   * The in-process statistics (e.g. : the retry ratio and the error rate) of the Github API calls
+   * over a sliding window of {@code windowSeconds} split into {@code buckets}.
+   */
+  @Bean(name = "githubApiRetryStatistics")
+  public RetryStatistics retryStatistics(MeterRegistry meterRegistry,
+      @Value("${github.api.retry.statistics.windowSeconds:60}") int windowSeconds,
+      @Value("${github.api.retry.statistics.buckets:60}") int buckets) {
+    var retryStatistics = new RetryStatistics(buckets, Duration.ofSeconds(windowSeconds),
+        meterRegistry.config().clock());
+    retryStatistics.bindTo(meterRegistry, API_METRIC_NAME);
+    return retryStatistics;
+  }
+
+  /**
+   * The classification of the exceptions of the Github API calls. The {@code retryable}, {@code
+   * nonRetryable} and {@code longBackoff} properties list the exception classes (applying as well
+   * to their subclasses) of each classification, the other exceptions are retryable. The
+   * classifications configured on the {@link MeteredRetryable} methods override these ones.
+   */
+  @Bean(name = "githubApiExceptionClassifierRetryPolicy")
+  public ExceptionClassifierRetryPolicy exceptionClassifierRetryPolicy(
+      @Value("${github.api.retry.maxAttempts}") int maxAttempts,
+      @Value("${github.api.retry.classification.retryable:}") String retryable,
+      @Value("${github.api.retry.classification.nonRetryable:}") String nonRetryable,
+      @Value("${github.api.retry.classification.longBackoff:}") String longBackoff) {
+    var classifier = new ExceptionClassifier(
+        parseClassifications(retryable, nonRetryable, longBackoff),
+        ExceptionClassification.RETRYABLE);
+    return new ExceptionClassifierRetryPolicy(createSimpleRetryPolicy(maxAttempts), classifier);
+  }
+
+  /**
+   * The time budgets of the Github API calls : the {@code timeBudgetMillis} property sets the
+   * default time budget of the calls (including the retries) and the {@code methodTimeBudgetMillis}
+   * property overrides it for specific API methods (e.g. : {@code listOrganisationRepositories=2000}).
+   */
+  @Bean(name = "githubApiTimeBudgets")
+  public TimeBudgets timeBudgets(
+      @Value("${github.api.retry.deadline.timeBudgetMillis:0}") long timeBudgetMillis,
+      @Value("${github.api.retry.deadline.methodTimeBudgetMillis:}") String methodTimeBudgetMillis) {
+    return new TimeBudgets(timeBudgetMillis > 0 ? Duration.ofMillis(timeBudgetMillis) : null,
+        parseMethodMillis(methodTimeBudgetMillis));
+  }
+
+  /**
+   * The retry template of the Github API calls. The retries of the calls having a time budget stop
+   * when the next backoff plus the {@code expectedLatencyPercentile} of the latency of the API calls
+   * doesn't fit in the time remaining from the time budget.
+   */
   @Bean(name = "githubApiRetryTemplate")
   public RetryTemplate retryTemplate(MeterRegistry meterRegistry,
-      @Value("${github.api.retry.maxAttempts}") int maxAttempts,
-      @Value("${github.api.retry.initialBackoffTime}") int initialBackoffTime) {
+      @Qualifier("githubApiExceptionClassifierRetryPolicy") ExceptionClassifierRetryPolicy retryPolicy,
+      @Qualifier("githubApiRetryBudget") RetryBudget retryBudget,
+      @Qualifier("githubApiBackOffPolicy") RetryAfterBackOffPolicy backOffPolicy,
+      @Qualifier("githubApiRetryListener") MicrometerRetryListenerSupport retryListener,
+      @Qualifier("githubApiRetryStatistics") RetryStatistics retryStatistics,
+      @Qualifier("githubApiAdaptiveBackOffPolicy") AdaptiveBackOffPolicy adaptiveBackOffPolicy,
+      @Value("${github.api.retry.deadline.expectedLatencyPercentile:0.5}") double expectedLatencyPercentile) {
+    var deadlineAwareBackOffPolicy = new DeadlineAwareBackOffPolicy(backOffPolicy,
+        new MethodLatencyPercentile(meterRegistry, API_METRIC_NAME, expectedLatencyPercentile));
+    return createRetryTemplateForRestTemplates(retryPolicy, deadlineAwareBackOffPolicy,
+        retryBudget, retryListener, retryStatistics, adaptiveBackOffPolicy);
+  }
+
+  /**
+   * The circuit breakers of the Github API methods, guarding their attempts when the
+   * {@code circuitBreaker.enabled} property is set.
+   */
+  @Bean(name = "githubApiCircuitBreakerRegistry")
+  public CircuitBreakerRegistry circuitBreakerRegistry(MeterRegistry meterRegistry,
+      @Value("${github.api.retry.circuitBreaker.failureRateThreshold:0.5}") double failureRateThreshold,
+      @Value("${github.api.retry.circuitBreaker.minimumCalls:20}") int minimumCalls,
+      @Value("${github.api.retry.circuitBreaker.windowSeconds:10}") int windowSeconds,
+      @Value("${github.api.retry.circuitBreaker.openDurationMillis:5000}") long openDurationMillis,
+      @Value("${github.api.retry.circuitBreaker.halfOpenCalls:3}") int halfOpenCalls) {
+    var circuitBreakerConfig = new CircuitBreakerConfig(failureRateThreshold, minimumCalls,
+        Duration.ofSeconds(windowSeconds), Duration.ofMillis(openDurationMillis), halfOpenCalls);
+    return new CircuitBreakerRegistry(circuitBreakerConfig, meterRegistry, API_METRIC_NAME);
+  }
+
+  /**
+   * Factory of the interceptors of the Github API methods. The interceptor of a {@link
+   * MeteredRetryable} method times the call including the retries ({@code github_api_retry}),
+   * retries the call and times each of its attempts ({@code github_api}) when the method is {@link
+   * MeteredTimed} as well.
+   * <p>
+   * The methods which don't override the maximum attempts or the initial backoff share the
+   * {@code githubApiRetryTemplate}, the methods overriding the initial backoff keep their fixed
+   * exponential backoff even when the adaptive backoff is enabled. The {@code timeBudgetMillis}
+   * property sets the default time budget of the calls (including the retries) and the {@code
+   * methodTimeBudgetMillis} property overrides it for specific API methods (e.g. : {@code
+   * listOrganisationRepositories=2000}). The exceptions classified on a method override the
+   * classification of the {@code githubApiExceptionClassifierRetryPolicy} for the method.
+   * <p>
+   * A single interceptor times the call including the retries, retries it and times each of its
+   * attempts, unless the single-flight, the concurrency limit or the hedging advisors are enabled :
+   * these advisors run between the stages and the stages are split into a call timer ({@link
+   * #METERED_CALL_TIMER_ADVISOR_ORDER}), the retries ({@link #METERED_RETRY_ADVISOR_ORDER}) and an
+   * attempt timer ({@link #METERED_ATTEMPT_TIMER_ADVISOR_ORDER}), so that the timers measure the
+   * same whichever advisors are enabled.
+   * <p>
+   * The methods returning a {@link java.util.concurrent.CompletionStage} (or a {@link
+   * java.util.concurrent.CompletableFuture}) are retried by the {@code githubApiAsyncRetryAdvice}
+   * and the methods returning a {@link reactor.core.publisher.Mono} or a {@link
+   * reactor.core.publisher.Flux} by the {@code githubApiReactiveRetryAdvice} (or by an interceptor
+   * of their own when they override the maximum attempts or the initial backoff), always split from
+   * the timers which time them until their completion.
+   */
+  @Bean(name = "githubApiMeteredMethodInterceptorFactory")
+  public MeteredMethodInterceptorFactory meteredMethodInterceptorFactory(
+      MeterRegistry meterRegistry,
+      @Qualifier("githubApiTagCardinalityLimiter") TagCardinalityLimiter cardinalityLimiter,
+      @Qualifier("githubApiRetryTemplate") RetryTemplate retryTemplate,
+      @Qualifier("githubApiExceptionClassifierRetryPolicy") ExceptionClassifierRetryPolicy retryPolicy,
+      @Qualifier("githubApiRetryBudget") RetryBudget retryBudget,
+      @Qualifier("githubApiBackOffPolicy") RetryAfterBackOffPolicy backOffPolicy,
+      @Qualifier("githubApiRetryListener") MicrometerRetryListenerSupport retryListener,
+      @Qualifier("githubApiRetryStatistics") RetryStatistics retryStatistics,
+      @Qualifier("githubApiAdaptiveBackOffPolicy") AdaptiveBackOffPolicy adaptiveBackOffPolicy,
+      @Qualifier("githubApiCircuitBreakerRegistry") CircuitBreakerRegistry circuitBreakerRegistry,
+      @Qualifier("githubApiAsyncRetryAdvice") MethodInterceptor asyncRetryAdvice,
+      @Qualifier("githubApiRetryScheduler") ScheduledExecutorService retryScheduler,
+      @Qualifier("githubApiRetryExecutor") ExecutorService retryExecutor,
+      @Qualifier("githubApiReactiveRetryAdvice") ObjectProvider<MethodInterceptor> reactiveRetryAdvice,
+      @Value("${github.api.retry.classification.longBackoffTime:5000}") long longBackoffTime,
+      @Qualifier("githubApiTimeBudgets") TimeBudgets timeBudgets,
+      @Value("${github.api.retry.deadline.expectedLatencyPercentile:0.5}") double expectedLatencyPercentile,
+      @Value("${github.api.retry.circuitBreaker.enabled:false}") boolean circuitBreakerEnabled,
+      @Value("${github.api.retry.singleFlight.enabled:false}") boolean singleFlightEnabled,
+      @Value("${github.api.retry.concurrencyLimit.enabled:false}") boolean concurrencyLimitEnabled,
+      @Value("${github.api.retry.hedging.enabled:false}") boolean hedgingEnabled) {
+    var clock = meterRegistry.config().clock();
+    var splitStages = singleFlightEnabled || concurrencyLimitEnabled || hedgingEnabled;
+    return (method, retryable, timed) -> {
+      var attemptMetricName = timed == null ? API_METRIC_NAME
+          : getMetricName(timed.metricName(), API_METRIC_NAME);
+      if (retryable == null) {
+        return List.of(new OrderedMethodInterceptor(
+            new TimedMethodInterceptor(attemptMetricName, TIMED_API_METRIC_DESCRIPTION,
+                getPercentiles(timed.percentiles()), meterRegistry, cardinalityLimiter),
+            METERED_ATTEMPT_TIMER_ADVISOR_ORDER));
+      }
+
+      var classifications = getClassifications(retryable);
+      if (!classifications.isEmpty()) {
+        retryPolicy.setMethodClassifier(method,
+            retryPolicy.getDefaultClassifier().withClassifications(classifications));
+      }
+
+      var overridden = retryable.maxAttempts() > 0 || retryable.initialBackoffMillis() > 0;
+      var methodBackOffPolicy = retryable.initialBackoffMillis() > 0
+          ? backOffPolicy.withDelegate(
+          createClassifiedExponentialBackOffPolicy(retryable.initialBackoffMillis(),
+              longBackoffTime))
+          : backOffPolicy;
+      var methodRetryPolicy = retryable.maxAttempts() > 0
+          ? retryPolicy.withDelegate(createSimpleRetryPolicy(retryable.maxAttempts()))
+          : retryPolicy;
+      var deadlineAwareBackOffPolicy = new DeadlineAwareBackOffPolicy(methodBackOffPolicy,
+          new MethodLatencyPercentile(meterRegistry, attemptMetricName,
+              expectedLatencyPercentile));
+      if (AsyncMethodInvocationRetryOperationsInterceptor.supports(method)) {
+        // the futures are timed and retried until their completion, by separate interceptors
+        var asyncInterceptor = overridden
+            ? createAsyncRetryInterceptor(methodRetryPolicy, deadlineAwareBackOffPolicy,
+            retryBudget, timeBudgets, clock, retryScheduler, retryExecutor, retryListener,
+            retryStatistics, adaptiveBackOffPolicy)
+            : asyncRetryAdvice;
+        return createStagedInterceptors(asyncInterceptor, retryable, timed, attemptMetricName,
+            meterRegistry, cardinalityLimiter);
+      }
+      if (REACTOR_PRESENT && ReactiveMethodInvocationRetryOperationsInterceptor.supports(method)) {
+        // the publishers are timed and retried from their subscription, by separate interceptors
+        var reactiveInterceptor = overridden
+            ? createReactiveRetryInterceptor(methodRetryPolicy, deadlineAwareBackOffPolicy,
+            retryBudget, timeBudgets, clock, retryListener, retryStatistics, adaptiveBackOffPolicy)
+            : reactiveRetryAdvice.getObject();
+        return createStagedInterceptors(reactiveInterceptor, retryable, timed, attemptMetricName,
+            meterRegistry, cardinalityLimiter);
+      }
+
+      var interceptor = new MethodInvocationRetryOperationsInterceptor();
+      if (overridden) {
+        interceptor.setRetryOperations(createRetryTemplateForRestTemplates(methodRetryPolicy,
+            deadlineAwareBackOffPolicy, retryBudget, retryListener, retryStatistics,
+            adaptiveBackOffPolicy));
+      } else {
+        interceptor.setRetryOperations(retryTemplate);
+      }
+      interceptor.setClock(clock);
+      interceptor.setTimeBudgets(timeBudgets);
+      if (circuitBreakerEnabled) {
+        // fail fast (without going through the backoff schedule) when the API is down
+        interceptor.setCircuitBreakerRegistry(circuitBreakerRegistry);
+        interceptor.setExceptionClassifierRetryPolicy(retryPolicy);
+      }
+      if (!splitStages) {
+        interceptor.setCallTimers(createMethodTimers(
+            getMetricName(retryable.metricName(), API_RETRY_METRIC_NAME),
+            TIMED_API_WITH_RETRIES_METRIC_DESCRIPTION, getPercentiles(retryable.percentiles()),
+            meterRegistry, cardinalityLimiter));
+        if (timed != null) {
+          interceptor.setAttemptTimers(createMethodTimers(attemptMetricName,
+              TIMED_API_METRIC_DESCRIPTION, getPercentiles(timed.percentiles()), meterRegistry,
+              cardinalityLimiter));
+        }
+        return List.of(interceptor);
+      }
+      return createStagedInterceptors(interceptor, retryable, timed, attemptMetricName,
+          meterRegistry, cardinalityLimiter);
+    };
+  }
+
+  /**
+   * Advises the {@link MeteredRetryable} and {@link MeteredTimed} methods with the interceptors of
+   * the {@code githubApiMeteredMethodInterceptorFactory}. The factory is resolved only once the
+   * first annotated bean is created, because a bean post-processor is instantiated before the
+   * regular beans.
+   */
+  @Bean(name = "githubApiMeteredRetryableBeanPostProcessor")
+  public static MeteredRetryableBeanPostProcessor meteredRetryableBeanPostProcessor(
+      @Qualifier("githubApiMeteredMethodInterceptorFactory") ObjectProvider<MeteredMethodInterceptorFactory> interceptorFactory) {
+    var postProcessor = new MeteredRetryableBeanPostProcessor(interceptorFactory::getObject);
+    postProcessor.setAdvisorOrder(METERED_RETRY_ADVISOR_ORDER);
+    return postProcessor;
+  }
+
+  /**
+   * The Github API calls, on which the optional advisors are applied : the {@link
+   * MeteredRetryable} methods.
+   */
+  @Bean(name = API_CALLS_POINTCUT)
+  public static Pointcut apiCallsPointcut() {
+    return new MeteredRetryablePointcut();
+  }
+
+  /**
+   * The scheduler delaying the asynchronous retries, which are then run on the {@code
+   * githubApiRetryExecutor}.
+   */
+  @Bean(name = "githubApiRetryScheduler", destroyMethod = "shutdown")
+  public ScheduledExecutorService retryScheduler(
+      @Value("${github.api.retry.schedulerPoolSize:1}") int schedulerPoolSize) {
+    var threadFactory = new CustomizableThreadFactory("github-api-retry-");
+    threadFactory.setDaemon(true);
+    return Executors.newScheduledThreadPool(schedulerPoolSize, threadFactory);
+  }
+
+  @Bean(name = "githubApiRetryExecutor", destroyMethod = "shutdown")
+  public ExecutorService retryExecutor() {
+    return VirtualThreads.newThreadPerTaskExecutor("github-api-retry-attempt-");
+  }
 
-    return createRetryTemplateForRestTemplates(meterRegistry, maxAttempts, initialBackoffTime,
-        API_METRIC_NAME);
+  /**
+   * Retry advice for the API methods returning a {@link java.util.concurrent.CompletionStage}.
+   * The retries are delayed by the {@code githubApiRetryScheduler} and run on the {@code
+   * githubApiRetryExecutor} instead of blocking the calling thread during the backoff. The calls are
+   * bounded by the {@code githubApiTimeBudgets}, like the calls of the synchronous API methods.
+   */
+  @Bean(name = "githubApiAsyncRetryAdvice")
+  public MethodInterceptor asyncRetryOperationsInterceptor(MeterRegistry meterRegistry,
+      @Qualifier("githubApiRetryScheduler") ScheduledExecutorService retryScheduler,
+      @Qualifier("githubApiRetryExecutor") ExecutorService retryExecutor,
+      @Qualifier("githubApiRetryBudget") RetryBudget retryBudget,
+      @Qualifier("githubApiBackOffPolicy") RetryAfterBackOffPolicy backOffPolicy,
+      @Qualifier("githubApiRetryListener") MicrometerRetryListenerSupport retryListener,
+      @Qualifier("githubApiRetryStatistics") RetryStatistics retryStatistics,
+      @Qualifier("githubApiAdaptiveBackOffPolicy") AdaptiveBackOffPolicy adaptiveBackOffPolicy,
+      @Qualifier("githubApiExceptionClassifierRetryPolicy") ExceptionClassifierRetryPolicy retryPolicy,
+      @Qualifier("githubApiTimeBudgets") TimeBudgets timeBudgets,
+      @Value("${github.api.retry.deadline.expectedLatencyPercentile:0.5}") double expectedLatencyPercentile) {
+    var deadlineAwareBackOffPolicy = new DeadlineAwareBackOffPolicy(backOffPolicy,
+        new MethodLatencyPercentile(meterRegistry, API_METRIC_NAME, expectedLatencyPercentile));
+    return createAsyncRetryInterceptor(retryPolicy, deadlineAwareBackOffPolicy, retryBudget,
+        timeBudgets, meterRegistry.config().clock(), retryScheduler, retryExecutor,
+        retryListener, retryStatistics, adaptiveBackOffPolicy);
   }
 
-  @Bean(name = "githubApiRetryAdvice")
-  public MethodInterceptor retryOperationsInterceptor(
-      @Qualifier("githubApiRetryTemplate") RetryTemplate retryTemplate) {
-    var interceptor = new MethodInvocationRetryOperationsInterceptor();
-    interceptor.setRetryOperations(retryTemplate);
+  /**
+   * Retry advice for the API methods returning a {@link reactor.core.publisher.Mono} or a {@link
+   * reactor.core.publisher.Flux}. The retries are delayed on the Reactor parallel scheduler instead
+   * of blocking the subscribing thread during the backoff. The advice is created along with the
+   * interceptors of the first reactive API method (see {@link #meteredMethodInterceptorFactory}),
+   * Reactor being an optional dependency. The subscriptions are bounded by the {@code
+   * githubApiTimeBudgets}, like the calls of the synchronous API methods.
+   */
+  @Bean(name = "githubApiReactiveRetryAdvice")
+  @Lazy
+  public MethodInterceptor reactiveRetryOperationsInterceptor(MeterRegistry meterRegistry,
+      @Qualifier("githubApiRetryBudget") RetryBudget retryBudget,
+      @Qualifier("githubApiBackOffPolicy") RetryAfterBackOffPolicy backOffPolicy,
+      @Qualifier("githubApiRetryListener") MicrometerRetryListenerSupport retryListener,
+      @Qualifier("githubApiRetryStatistics") RetryStatistics retryStatistics,
+      @Qualifier("githubApiAdaptiveBackOffPolicy") AdaptiveBackOffPolicy adaptiveBackOffPolicy,
+      @Qualifier("githubApiExceptionClassifierRetryPolicy") ExceptionClassifierRetryPolicy retryPolicy,
+      @Qualifier("githubApiTimeBudgets") TimeBudgets timeBudgets,
+      @Value("${github.api.retry.deadline.expectedLatencyPercentile:0.5}") double expectedLatencyPercentile) {
+    var deadlineAwareBackOffPolicy = new DeadlineAwareBackOffPolicy(backOffPolicy,
+        new MethodLatencyPercentile(meterRegistry, API_METRIC_NAME, expectedLatencyPercentile));
+    return createReactiveRetryInterceptor(retryPolicy, deadlineAwareBackOffPolicy, retryBudget,
+        timeBudgets, meterRegistry.config().clock(), retryListener, retryStatistics,
+        adaptiveBackOffPolicy);
+  }
+
+  /**
+   * Opt-in advice running the Github API calls (including the retries and their
+   * backoff) on virtual threads, with a bound on the amount of concurrent calls. The calls
+   * exceeding the bound wait for at most {@code maxWaitMillis} before being rejected.
+   */
+  @Bean(name = "githubApiVirtualThreadAdvice")
+  public MethodInterceptor virtualThreadMethodInterceptor(
+      @Value("${github.api.retry.virtualThreads.enabled:false}") boolean enabled,
+      @Value("${github.api.retry.virtualThreads.maxConcurrency:1000}") int maxConcurrency,
+      @Value("${github.api.retry.virtualThreads.maxWaitMillis:1000}") long maxWaitMillis) {
+    if (!enabled) {
+      return MethodInvocation::proceed;
+    }
+    return new VirtualThreadMethodInterceptor(maxConcurrency, Duration.ofMillis(maxWaitMillis),
+        "github-api-");
+  }
+
+  @Bean(name = "githubApiVirtualThreadAdvisor")
+  public Advisor virtualThreadAdvisor(@Qualifier(API_CALLS_POINTCUT) Pointcut apiCallsPointcut,
+      @Qualifier("githubApiVirtualThreadAdvice") MethodInterceptor virtualThreadAdvice,
+      @Value("${github.api.retry.virtualThreads.enabled:false}") boolean enabled) {
+    return createOptionalAdvisor(apiCallsPointcut, enabled, virtualThreadAdvice,
+        VIRTUAL_THREAD_ADVISOR_ORDER);
+  }
+
+  /**
+   * Opt-in advice collapsing the concurrent identical Github API calls into a single call (and a
+   * single retry sequence) whose outcome is shared by all the callers.
+   */
+  @Bean(name = "githubApiSingleFlightAdvice")
+  public MethodInterceptor singleFlightMethodInterceptor(MeterRegistry meterRegistry) {
+    return new SingleFlightMethodInterceptor(meterRegistry, API_METRIC_NAME);
+  }
+
+  @Bean(name = "githubApiSingleFlightAdvisor")
+  public Advisor singleFlightAdvisor(@Qualifier(API_CALLS_POINTCUT) Pointcut apiCallsPointcut,
+      @Qualifier("githubApiSingleFlightAdvice") MethodInterceptor singleFlightAdvice,
+      @Value("${github.api.retry.singleFlight.enabled:false}") boolean enabled) {
+    return createOptionalAdvisor(apiCallsPointcut, enabled, singleFlightAdvice,
+        SINGLE_FLIGHT_ADVISOR_ORDER);
+  }
+
+  /**
+   * The adaptive limit of the concurrent Github API calls : the limit decreases by the
+   * {@code backoffRatio} (at most once per round-trip) on the failed calls or calls slower than the
+   * {@code latencyThresholdMillis} and increases by one on the successful calls.
+   */
+  @Bean(name = "githubApiConcurrencyLimiter")
+  public AdaptiveConcurrencyLimiter concurrencyLimiter(MeterRegistry meterRegistry,
+      @Value("${github.api.retry.concurrencyLimit.initialLimit:20}") int initialLimit,
+      @Value("${github.api.retry.concurrencyLimit.minLimit:1}") int minLimit,
+      @Value("${github.api.retry.concurrencyLimit.maxLimit:200}") int maxLimit,
+      @Value("${github.api.retry.concurrencyLimit.backoffRatio:0.9}") double backoffRatio,
+      @Value("${github.api.retry.concurrencyLimit.latencyThresholdMillis:5000}") long latencyThresholdMillis) {
+    var concurrencyLimiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit,
+        backoffRatio, Duration.ofMillis(latencyThresholdMillis));
+    concurrencyLimiter.bindTo(meterRegistry, API_METRIC_NAME);
+    return concurrencyLimiter;
+  }
+
+  /**
+   * Opt-in advice bounding the amount of concurrent Github API calls. The calls exceeding the
+   * limit wait for at most {@code maxWaitMillis} before being rejected. The calls failing with a
+   * non retryable exception don't decrease the limit.
+   */
+  @Bean(name = "githubApiConcurrencyLimitAdvice")
+  public MethodInterceptor concurrencyLimitingMethodInterceptor(MeterRegistry meterRegistry,
+      @Qualifier("githubApiConcurrencyLimiter") AdaptiveConcurrencyLimiter concurrencyLimiter,
+      @Qualifier("githubApiExceptionClassifierRetryPolicy") ExceptionClassifierRetryPolicy retryPolicy,
+      @Value("${github.api.retry.concurrencyLimit.maxWaitMillis:0}") long maxWaitMillis) {
+    return new ConcurrencyLimitingMethodInterceptor(concurrencyLimiter, retryPolicy,
+        Duration.ofMillis(maxWaitMillis), meterRegistry.config().clock());
+  }
+
+  @Bean(name = "githubApiConcurrencyLimitAdvisor")
+  public Advisor concurrencyLimitAdvisor(@Qualifier(API_CALLS_POINTCUT) Pointcut apiCallsPointcut,
+      @Qualifier("githubApiConcurrencyLimitAdvice") MethodInterceptor concurrencyLimitAdvice,
+      @Value("${github.api.retry.concurrencyLimit.enabled:false}") boolean enabled) {
+    return createOptionalAdvisor(apiCallsPointcut, enabled, concurrencyLimitAdvice,
+        CONCURRENCY_LIMIT_ADVISOR_ORDER);
+  }
+
+  @Bean(name = "githubApiHedgingExecutor", destroyMethod = "shutdown")
+  public ExecutorService hedgingExecutor() {
+    return VirtualThreads.newThreadPerTaskExecutor("github-api-hedging-");
+  }
+
+  /**
+   * Opt-in advice firing another Github API call when a call hasn't completed after the hedge
+   * delay. When the {@code latencyPercentile} property is set (e.g. : {@code 0.95}, one of the
+   * {@link #EXPORTED_PERCENTILES}), the hedge delay follows the latency of the successful API calls
+   * and the {@code delayMillis} property is used only until latency samples are available.
+   */
+  @Bean(name = "githubApiHedgingAdvice")
+  public MethodInterceptor hedgingMethodInterceptor(MeterRegistry meterRegistry,
+      @Qualifier("githubApiHedgingExecutor") ExecutorService hedgingExecutor,
+      @Value("${github.api.retry.hedging.maxAttempts:2}") int maxAttempts,
+      @Value("${github.api.retry.hedging.delayMillis:100}") long delayMillis,
+      @Value("${github.api.retry.hedging.latencyPercentile:0}") double latencyPercentile) {
+    var interceptor = new HedgingMethodInterceptor(maxAttempts, Duration.ofMillis(delayMillis),
+        hedgingExecutor, meterRegistry, API_METRIC_NAME);
+    if (latencyPercentile > 0) {
+      interceptor.setLatencyPercentile(
+          new MethodLatencyPercentile(meterRegistry, API_METRIC_NAME, latencyPercentile));
+    }
     return interceptor;
   }
 
-  @Bean(name = "githubApiTimedAdvice")
-  public MethodInterceptor timedMethodInterceptor(MeterRegistry meterRegistry) {
-    return new TimedMethodInterceptor(API_METRIC_NAME,
-        TIMED_API_METRIC_DESCRIPTION,
-        EXPORTED_PERCENTILES,
-        meterRegistry);
+  @Bean(name = "githubApiHedgingAdvisor")
+  public Advisor hedgingAdvisor(@Qualifier(API_CALLS_POINTCUT) Pointcut apiCallsPointcut,
+      @Qualifier("githubApiHedgingAdvice") MethodInterceptor hedgingAdvice,
+      @Value("${github.api.retry.hedging.enabled:false}") boolean enabled) {
+    return createOptionalAdvisor(apiCallsPointcut, enabled, hedgingAdvice,
+        HEDGING_ADVISOR_ORDER);
+  }
+
+  /**
+   * The bounded executor on which the items of the batches of Github API calls are called (see
+   * {@link com.findinpath.github.api.GithubBatchApi}).
+   */
+  @Bean(name = "githubApiBatchExecutor", destroyMethod = "shutdown")
+  public ExecutorService batchExecutor(
+      @Value("${github.api.retry.batch.parallelism:8}") int parallelism) {
+    var threadFactory = new CustomizableThreadFactory("github-api-batch-");
+    threadFactory.setDaemon(true);
+    return Executors.newFixedThreadPool(parallelism, threadFactory);
+  }
+
+  @Bean(name = "githubApiCacheRefreshExecutor", destroyMethod = "shutdown")
+  public ExecutorService cacheRefreshExecutor(
+      @Value("${github.api.retry.cache.refreshPoolSize:2}") int refreshPoolSize) {
+    var threadFactory = new CustomizableThreadFactory("github-api-cache-refresh-");
+    threadFactory.setDaemon(true);
+    return Executors.newFixedThreadPool(refreshPoolSize, threadFactory);
+  }
+
+  /**
+   * Opt-in advice caching the results of the Github API calls.
+   * <p>
+   * The {@code methodTimeToLiveMillis} property overrides the default time to live for specific
+   * API methods (e.g. : {@code listOrganisationRepositories=10000,getOrganisationRepository=0}).
+   */
+  @Bean(name = "githubApiCacheAdvice")
+  public MethodInterceptor cachingMethodInterceptor(MeterRegistry meterRegistry,
+      @Qualifier("githubApiCacheRefreshExecutor") ExecutorService refreshExecutor,
+      @Value("${github.api.retry.cache.maximumSize:1000}") int maximumSize,
+      @Value("${github.api.retry.cache.timeToLiveMillis:60000}") long timeToLiveMillis,
+      @Value("${github.api.retry.cache.methodTimeToLiveMillis:}") String methodTimeToLiveMillis,
+      @Value("${github.api.retry.cache.staleWhileRevalidateMillis:0}") long staleWhileRevalidateMillis) {
+    var interceptor = new CachingMethodInterceptor(maximumSize,
+        Duration.ofMillis(timeToLiveMillis), meterRegistry, API_METRIC_NAME);
+    parseMethodMillis(methodTimeToLiveMillis).forEach(interceptor::setMethodTimeToLive);
+    if (staleWhileRevalidateMillis > 0) {
+      interceptor.setStaleWhileRevalidate(Duration.ofMillis(staleWhileRevalidateMillis),
+          refreshExecutor);
+    }
+    return interceptor;
   }
 
-  @Bean(name = "githubApiRetriesIncludedTimedAdvice")
-  public MethodInterceptor retriesIncludedTimedMethodInterceptor(MeterRegistry meterRegistry) {
-    return new TimedMethodInterceptor(API_RETRY_METRIC_NAME,
-        TIMED_API_WITH_RETRIES_METRIC_DESCRIPTION,
-        EXPORTED_PERCENTILES,
-        meterRegistry);
+  @Bean(name = "githubApiCacheAdvisor")
+  public Advisor cacheAdvisor(@Qualifier(API_CALLS_POINTCUT) Pointcut apiCallsPointcut,
+      @Qualifier("githubApiCacheAdvice") MethodInterceptor cacheAdvice,
+      @Value("${github.api.retry.cache.enabled:false}") boolean enabled) {
+    return createOptionalAdvisor(apiCallsPointcut, enabled, cacheAdvice, CACHE_ADVISOR_ORDER);
   }
 }
\ No newline at end of file
@@ -0,0 +1,122 @@
+package com.findinpath.retry.deadline;
+
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import org.springframework.retry.RetryContext;
+
+/**
+ * The deadline of a call made with the retry policy, derived from the time budget of the call.
+ * <p>
+ * The deadline is placed in the {@link RetryContext} (under the {@link #RETRY_DEADLINE} attribute)
+ * by the retry operations, so that the backoff policy can stop the retries which would not
+ * complete in time and mark the deadline as exceeded.
+ * <p>
+ * The time budget of a call can be set by the caller through {@link #callWithTimeBudget(Duration,
+ * TimeBudgetedCall)}, in which case it overrides the time budget configured for the method. This
+ * time budget is bound to the calling thread.
+ */
+public final class RetryDeadline {
+
+  /**
+   * The retry context attribute holding the deadline of the call.
+   */
+  public static final String RETRY_DEADLINE = "context.retry.deadline";
+
+  private static final ThreadLocal<Duration> CALL_TIME_BUDGET = new ThreadLocal<>();
+
+  private final Clock clock;
+  private final long deadlineTime;
+  private volatile boolean exceeded;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param clock      the clock used for measuring the time
+   * @param timeBudget the time budget of the call, starting now
+   */
+  public RetryDeadline(Clock clock, Duration timeBudget) {
+    this.clock = clock;
+    this.deadlineTime = clock.monotonicTime() + timeBudget.toNanos();
+  }
+
+  /**
+   * Retrieves the deadline of the call from the retry context.
+   *
+   * @param context the retry context
+   * @return the deadline or {@code null} if the call has no time budget
+   */
+  public static RetryDeadline get(RetryContext context) {
+    var deadline = context.getAttribute(RETRY_DEADLINE);
+    return deadline instanceof RetryDeadline ? (RetryDeadline) deadline : null;
+  }
+
+  /**
+   * Makes the calls with the retry policy done by the specified code within the specified time
+   * budget.
+   *
+   * @param timeBudget the time budget of each of the calls or {@code null} for using the time
+   *                   budget configured for the called methods
+   * @param call       the code making the calls
+   * @param <T>        the type of the result
+   * @param <E>        the type of the exception thrown by the code
+   * @return the result of the code
+   * @throws E the exception thrown by the code
+   */
+  public static <T, E extends Throwable> T callWithTimeBudget(Duration timeBudget,
+      TimeBudgetedCall<T, E> call) throws E {
+    if (timeBudget == null) {
+      return call.call();
+    }
+    var previousTimeBudget = CALL_TIME_BUDGET.get();
+    CALL_TIME_BUDGET.set(timeBudget);
+    try {
+      return call.call();
+    } finally {
+      if (previousTimeBudget == null) {
+        CALL_TIME_BUDGET.remove();
+      } else {
+        CALL_TIME_BUDGET.set(previousTimeBudget);
+      }
+    }
+  }
+
+  /**
+   * @return the time budget set by the caller on the current thread or {@code null} if none is set
+   */
+  public static Duration getCallTimeBudget() {
+    return CALL_TIME_BUDGET.get();
+  }
+
+  /**
+   * @return the time remaining in nanoseconds until the deadline (negative once it passed)
+   */
+  public long getRemainingNanos() {
+    return deadlineTime - clock.monotonicTime();
+  }
+
+  /**
+   * Marks the deadline as exceeded : the call is not retried anymore.
+   */
+  public void markExceeded() {
+    this.exceeded = true;
+  }
+
+  /**
+   * @return whether the call has not been retried because of the deadline
+   */
+  public boolean isExceeded() {
+    return exceeded;
+  }
+
+  /**
+   * Code making calls within a time budget.
+   *
+   * @param <T> the type of the result
+   * @param <E> the type of the exception thrown by the code
+   */
+  @FunctionalInterface
+  public interface TimeBudgetedCall<T, E extends Throwable> {
+
+    T call() throws E;
+  }
+}
@@ -0,0 +1,12 @@
+package com.findinpath.retry.deadline;
+
+/**
+ * Exception thrown when a call is not retried anymore because the next attempt would not complete
+ * within the time budget of the call.
+ */
+public class RetryDeadlineExceededException extends RuntimeException {
+
+  public RetryDeadlineExceededException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
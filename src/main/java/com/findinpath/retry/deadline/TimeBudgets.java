@@ -0,0 +1,41 @@
+package com.findinpath.retry.deadline;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * The time budgets of the calls of the retried methods : the time budget set by the caller (see
+ * {@link RetryDeadline#callWithTimeBudget(Duration, RetryDeadline.TimeBudgetedCall)}) overrides the
+ * time budget of the called method, which overrides the default time budget.
+ */
+public final class TimeBudgets {
+
+  private final Duration defaultTimeBudget;
+  private final Map<String, Duration> methodTimeBudgets;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param defaultTimeBudget the default time budget of the calls or {@code null} when the calls
+   *                          have no time budget by default
+   * @param methodTimeBudgets the time budgets of the calls indexed by the name of the called method
+   */
+  public TimeBudgets(Duration defaultTimeBudget, Map<String, Duration> methodTimeBudgets) {
+    this.defaultTimeBudget = defaultTimeBudget;
+    this.methodTimeBudgets = Map.copyOf(methodTimeBudgets);
+  }
+
+  /**
+   * Resolves the time budget of a call made on the current thread.
+   *
+   * @param methodName the name of the called method
+   * @return the time budget of the call or {@code null} if the call has no time budget
+   */
+  public Duration get(String methodName) {
+    var callTimeBudget = RetryDeadline.getCallTimeBudget();
+    if (callTimeBudget == null) {
+      callTimeBudget = methodTimeBudgets.get(methodName);
+    }
+    return callTimeBudget == null ? defaultTimeBudget : callTimeBudget;
+  }
+}
@@ -0,0 +1,382 @@
+package com.findinpath.retry.interceptor;
+
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.deadline.TimeBudgets;
+import com.findinpath.retry.listener.RetryAttemptTimings;
+import io.micrometer.core.instrument.Clock;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.TerminatedRetryException;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+
+/**
+ * Non-blocking variant of the {@link MethodInvocationRetryOperationsInterceptor} for the methods
+ * returning a {@link CompletionStage} which can be substituted by a {@link CompletableFuture}
+ * (see {@link #supports(Method)}).
+ * <p>
+ * Instead of sleeping the caller thread during the backoff (as the {@link
+ * org.springframework.retry.support.RetryTemplate} does), the retries are delayed by a shared
+ * {@link ScheduledExecutorService} and then run on the {@link Executor} of the attempts, so that
+ * slow attempts don't hold up the delays of the other calls. The first attempt runs on the caller
+ * thread. The backoff delays are computed by the configured {@link SleepingBackOffPolicy} which is
+ * given a {@link Sleeper} that only records the delay instead of sleeping.
+ * <p>
+ * The retry context is populated with the {@link RetryContext#NAME}, the {@link
+ * MethodInvocationRetryOperationsInterceptor#METHOD_INVOCATION} and the {@link
+ * RetryMethodMetadata#RETRY_METHOD_METADATA} attributes and the {@link
+ * RetryListener}s are notified the same way as the {@link org.springframework.retry.support.RetryTemplate}
+ * does, so that listeners like the {@link com.findinpath.retry.listener.MicrometerRetryListenerSupport}
+ * produce the same metrics for the asynchronous method calls.
+ * <p>
+ * Optionally, the calls can be given {@link TimeBudgets}, resolved on the caller thread. The {@link
+ * RetryDeadline} of the call is added in the {@link RetryContext} for the backoff policy (see
+ * {@link com.findinpath.retry.backoff.DeadlineAwareBackOffPolicy}) and, when the call is not
+ * retried anymore because of its deadline, the returned stage completes with a {@link
+ * RetryDeadlineExceededException}.
+ * <p>
+ * Cancelling the returned future cancels the attempt in flight (when its stage is a {@link
+ * Future}) and no further attempts are made.
+ * <p>
+ * The retry context is not registered in the {@link org.springframework.retry.support.RetrySynchronizationManager}
+ * because the attempts are not bound to a single thread.
+ */
+public class AsyncMethodInvocationRetryOperationsInterceptor implements MethodInterceptor {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(AsyncMethodInvocationRetryOperationsInterceptor.class);
+
+  private RetryPolicy retryPolicy = new SimpleRetryPolicy();
+
+  private SleepingBackOffPolicy<?> backOffPolicy = new ExponentialBackOffPolicy();
+
+  private RetryListener[] listeners = new RetryListener[0];
+
+  private ScheduledExecutorService scheduler;
+
+  private Executor executor;
+
+  private Clock clock = Clock.SYSTEM;
+
+  private TimeBudgets timeBudgets;
+
+  private String label;
+
+  private final ConcurrentMap<Method, RetryMethodMetadata> methodMetadataMap =
+      new ConcurrentHashMap<>();
+
+  public void setLabel(String label) {
+    this.label = label;
+    this.methodMetadataMap.clear();
+  }
+
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    Assert.notNull(retryPolicy, "'retryPolicy' cannot be null.");
+    this.retryPolicy = retryPolicy;
+  }
+
+  public void setBackOffPolicy(SleepingBackOffPolicy<?> backOffPolicy) {
+    Assert.notNull(backOffPolicy, "'backOffPolicy' cannot be null.");
+    this.backOffPolicy = backOffPolicy;
+  }
+
+  public void setListeners(RetryListener[] listeners) {
+    Assert.notNull(listeners, "'listeners' cannot be null.");
+    this.listeners = listeners.clone();
+  }
+
+  public void setScheduler(ScheduledExecutorService scheduler) {
+    Assert.notNull(scheduler, "'scheduler' cannot be null.");
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * @param executor the executor of the retried attempts, the scheduler being used only for
+   *                 delaying them
+   */
+  public void setExecutor(Executor executor) {
+    Assert.notNull(executor, "'executor' cannot be null.");
+    this.executor = executor;
+  }
+
+  public void setClock(Clock clock) {
+    Assert.notNull(clock, "'clock' cannot be null.");
+    this.clock = clock;
+  }
+
+  public void setTimeBudgets(TimeBudgets timeBudgets) {
+    this.timeBudgets = timeBudgets;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!(invocation instanceof ProxyMethodInvocation)) {
+      throw new IllegalStateException(
+          "MethodInvocation of the wrong type detected - this should not happen with Spring AOP, " +
+              "so please raise an issue if you see this exception");
+    }
+    if (!supports(invocation.getMethod())) {
+      throw new IllegalStateException("The method " + invocation.getMethod().toGenericString()
+          + " can't be retried asynchronously because it doesn't return a CompletionStage"
+          + " which can be substituted by a CompletableFuture");
+    }
+    Assert.state(scheduler != null, "'scheduler' must be set.");
+    Assert.state(executor != null, "'executor' must be set.");
+
+    var methodMetadata = getMethodMetadata(invocation.getMethod());
+    var execution = new AsyncRetryExecution((ProxyMethodInvocation) invocation, methodMetadata,
+        timeBudgets == null ? null : timeBudgets.get(methodMetadata.getMethodName()));
+    execution.start();
+    return execution.result;
+  }
+
+  /**
+   * @param method the method
+   * @return whether the calls of the method can be retried by this interceptor : the method returns
+   * a {@link CompletionStage} or a {@link CompletableFuture}
+   */
+  public static boolean supports(Method method) {
+    var returnType = method.getReturnType();
+    return CompletionStage.class.isAssignableFrom(returnType)
+        && returnType.isAssignableFrom(CompletableFuture.class);
+  }
+
+  private RetryMethodMetadata getMethodMetadata(Method method) {
+    var methodMetadata = methodMetadataMap.get(method);
+    if (methodMetadata == null) {
+      methodMetadata = methodMetadataMap.computeIfAbsent(method,
+          key -> new RetryMethodMetadata(
+              StringUtils.hasText(label) ? label : key.toGenericString(), key));
+    }
+    return methodMetadata;
+  }
+
+  private static Throwable unwrap(Throwable throwable) {
+    if ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+        && throwable.getCause() != null) {
+      return throwable.getCause();
+    }
+    return throwable;
+  }
+
+  /**
+   * The state of the retries of an asynchronous method call.
+   * <p>
+   * The execution acts as the {@link Sleeper} of its own backoff policy for capturing the delay of
+   * the next attempt.
+   */
+  private class AsyncRetryExecution implements RetryCallback<Object, Throwable>, Sleeper {
+
+    private final ProxyMethodInvocation invocation;
+    private final RetryMethodMetadata methodMetadata;
+    private final Duration timeBudget;
+    private final RetryDeadline deadline;
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+    private RetryContext context;
+    private BackOffPolicy sleepingBackOffPolicy;
+    private BackOffContext backOffContext;
+    private long backOffPeriod;
+    private volatile CompletionStage<?> attemptStage;
+
+    AsyncRetryExecution(ProxyMethodInvocation invocation, RetryMethodMetadata methodMetadata,
+        Duration timeBudget) {
+      this.invocation = invocation;
+      this.methodMetadata = methodMetadata;
+      this.timeBudget = timeBudget;
+      this.deadline = timeBudget == null ? null : new RetryDeadline(clock, timeBudget);
+    }
+
+    void start() {
+      context = retryPolicy.open(null);
+      context.setAttribute(RetryContext.NAME, methodMetadata.getLabel());
+      context.setAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION,
+          invocation);
+      context.setAttribute(RetryMethodMetadata.RETRY_METHOD_METADATA, methodMetadata);
+      if (deadline != null) {
+        context.setAttribute(RetryDeadline.RETRY_DEADLINE, deadline);
+      }
+
+      boolean running = true;
+      for (RetryListener listener : listeners) {
+        running &= listener.open(context, this);
+      }
+      if (!running) {
+        complete(new TerminatedRetryException(
+            "Retry terminated abnormally by interceptor before first attempt"));
+        return;
+      }
+
+      sleepingBackOffPolicy = backOffPolicy.withSleeper(this);
+      backOffContext = sleepingBackOffPolicy.start(context);
+      result.whenComplete((value, throwable) -> {
+        if (result.isCancelled()) {
+          cancelAttempt();
+        }
+      });
+      attempt();
+    }
+
+    @Override
+    public Object doWithRetry(RetryContext context) throws Throwable {
+      RetryAttemptTimings.attemptStarted(context);
+      return invocation.invocableClone().proceed();
+    }
+
+    @Override
+    public void sleep(long backOffPeriod) {
+      this.backOffPeriod = backOffPeriod;
+    }
+
+    private void attempt() {
+      if (result.isCancelled() || !retryPolicy.canRetry(context) || context.isExhaustedOnly()) {
+        complete(context.getLastThrowable());
+        return;
+      }
+
+      CompletionStage<?> stage;
+      try {
+        stage = (CompletionStage<?>) doWithRetry(context);
+      } catch (Throwable e) {
+        onError(e);
+        return;
+      }
+
+      if (stage == null) {
+        complete(null, null);
+      } else {
+        attemptStage = stage;
+        if (result.isCancelled()) {
+          cancelAttempt();
+        }
+        stage.whenComplete((value, throwable) -> {
+          if (throwable == null) {
+            complete(value, null);
+          } else if (result.isCancelled()) {
+            // the failure of a cancelled call is not retried
+            complete(unwrap(throwable));
+          } else {
+            onError(unwrap(throwable));
+          }
+        });
+      }
+    }
+
+    private void cancelAttempt() {
+      var stage = attemptStage;
+      if (stage instanceof Future) {
+        ((Future<?>) stage).cancel(false);
+      }
+    }
+
+    private void onError(Throwable throwable) {
+      Exception registrationError = null;
+      try {
+        retryPolicy.registerThrowable(context, throwable);
+      } catch (Exception e) {
+        registrationError = e;
+      }
+      // the listeners are notified of the error before the retry context is closed
+      try {
+        for (int i = listeners.length; i-- > 0; ) {
+          listeners[i].onError(context, this, throwable);
+        }
+      } catch (RuntimeException e) {
+        complete(e);
+        return;
+      }
+      if (registrationError != null) {
+        complete(new TerminatedRetryException("Could not register throwable", registrationError));
+        return;
+      }
+
+      if (!result.isCancelled() && retryPolicy.canRetry(context) && !context.isExhaustedOnly()) {
+        try {
+          // computes the backoff period through the sleep(long) method of this execution
+          backOffPeriod = 0;
+          sleepingBackOffPolicy.backOff(backOffContext);
+          if (backOffPeriod > 0) {
+            scheduler.schedule(this::retry, backOffPeriod, TimeUnit.MILLISECONDS);
+          } else {
+            retry();
+          }
+          return;
+        } catch (RejectedExecutionException e) {
+          LOGGER.warn("The retry of the method " + invocation.getMethod().toGenericString()
+              + " could not be scheduled", e);
+        }
+      }
+      complete(throwable);
+    }
+
+    /**
+     * Hands over the next attempt to the executor, leaving the scheduler free for the delays of the
+     * other calls.
+     */
+    private void retry() {
+      try {
+        executor.execute(this::attempt);
+      } catch (RejectedExecutionException e) {
+        LOGGER.warn("The retry of the method " + invocation.getMethod().toGenericString()
+            + " could not be executed", e);
+        complete(context.getLastThrowable());
+      }
+    }
+
+    private void complete(Throwable throwable) {
+      complete(null, throwable);
+    }
+
+    private void complete(Object value, Throwable throwable) {
+      try {
+        retryPolicy.close(context);
+      } finally {
+        for (int i = listeners.length; i-- > 0; ) {
+          try {
+            listeners[i].close(context, this, throwable);
+          } catch (RuntimeException e) {
+            LOGGER.error("Exception occurred while closing the retry context for the method "
+                + invocation.getMethod().toGenericString(), e);
+          }
+        }
+      }
+      if (throwable == null) {
+        result.complete(value);
+      } else if (deadline != null && deadline.isExceeded()) {
+        result.completeExceptionally(new RetryDeadlineExceededException("The time budget of "
+            + timeBudget.toMillis() + " ms for " + methodMetadata.getLabel()
+            + " does not leave enough time for another attempt", throwable));
+      } else {
+        result.completeExceptionally(throwable);
+      }
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package com.findinpath.retry.interceptor;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+
+/**
+ * Method interceptor which caches the results of the method invocations (keyed by the method and
+ * its arguments) for a configurable time to live. A cache hit doesn't proceed with the rest of the
+ * advisor chain (e.g. : the retries and the timing of the API calls).
+ * <p>
+ * The cache is bounded : the entries are kept in several segments, each of them evicting its least
+ * recently used entry when it is full. The exceptions thrown by the invocations are not cached.
+ * <p>
+ * When a stale-while-revalidate duration is configured, an expired entry is still served during
+ * this duration while it is refreshed asynchronously by proceeding with a clone of the
+ * invocation. When the refresh fails, the stale entry keeps on being served (until the end of the
+ * stale-while-revalidate duration) instead of making the callers go through the retries.
+ * <p>
+ * The methods returning a {@link java.util.concurrent.CompletionStage} or a reactive {@code
+ * Publisher} are not cached : their pending outcome may still fail. The cached arrays are copied
+ * for each caller, but otherwise all the callers receive the same cached result instance, which is
+ * why this interceptor should be applied only on methods returning immutable results (or arrays of
+ * immutable elements).
+ * <p>
+ * The cache hits (including the stale ones), misses and evictions are exported as the
+ * {@code <metricName>_cache_hits}, {@code <metricName>_cache_misses} and
+ * {@code <metricName>_cache_evictions} counters.
+ */
+public class CachingMethodInterceptor implements MethodInterceptor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CachingMethodInterceptor.class);
+
+  private static final String CLASS_TAG_NAME = "class";
+  private static final String METHOD_TAG_NAME = "method";
+  private static final int MAX_SEGMENTS = 16;
+
+  private final Segment[] segments;
+  private final long timeToLiveNanos;
+  private final Map<String, Long> methodTimeToLiveNanos = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Method, MethodCache> methodCaches = new ConcurrentHashMap<>();
+  private final Clock clock;
+  private final MeterRegistry meterRegistry;
+  private final String metricName;
+  private long staleWhileRevalidateNanos;
+  private Executor refreshExecutor;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param maximumSize   the maximum amount of cached entries
+   * @param timeToLive    the default time to live of the cached entries
+   * @param meterRegistry the registry used for exporting the cache metrics and whose clock is used
+   *                      for expiring the entries
+   * @param metricName    the prefix of the cache metric names
+   */
+  public CachingMethodInterceptor(int maximumSize, Duration timeToLive,
+      MeterRegistry meterRegistry, String metricName) {
+    if (maximumSize < 1) {
+      throw new IllegalArgumentException("The maximum size of the cache must be positive");
+    }
+    int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maximumSize));
+    int segmentCapacity = (maximumSize + segmentCount - 1) / segmentCount;
+    this.segments = new Segment[segmentCount];
+    for (int i = 0; i < segmentCount; i++) {
+      segments[i] = new Segment(segmentCapacity);
+    }
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.meterRegistry = meterRegistry;
+    this.clock = meterRegistry.config().clock();
+    this.metricName = metricName;
+  }
+
+  /**
+   * Overrides the time to live of the entries cached for the methods with the specified name.
+   *
+   * @param methodName the method name
+   * @param timeToLive the time to live of the entries cached for the method
+   */
+  public void setMethodTimeToLive(String methodName, Duration timeToLive) {
+    methodTimeToLiveNanos.put(methodName, timeToLive.toNanos());
+  }
+
+  /**
+   * Enables serving the expired entries while they are being refreshed.
+   *
+   * @param staleWhileRevalidate the duration after the expiration during which an entry can be
+   *                             served
+   * @param refreshExecutor      the executor on which the expired entries are refreshed
+   */
+  public void setStaleWhileRevalidate(Duration staleWhileRevalidate, Executor refreshExecutor) {
+    this.staleWhileRevalidateNanos = staleWhileRevalidate.toNanos();
+    this.refreshExecutor = refreshExecutor;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!SharedResults.isShareable(invocation.getMethod())) {
+      return invocation.proceed();
+    }
+    var methodCache = getMethodCache(invocation.getMethod());
+    var key = new MethodInvocationKey(invocation.getMethod(), invocation.getArguments());
+    var segment = getSegment(key);
+
+    var entry = segment.get(key);
+    if (entry != null) {
+      long now = clock.monotonicTime();
+      if (now - entry.expirationTime < 0) {
+        methodCache.hits.increment();
+        return SharedResults.copy(entry.value);
+      }
+      if (now - entry.expirationTime < staleWhileRevalidateNanos
+          && invocation instanceof ProxyMethodInvocation) {
+        methodCache.hits.increment();
+        refresh((ProxyMethodInvocation) invocation, methodCache, segment, key, entry);
+        return SharedResults.copy(entry.value);
+      }
+    }
+
+    methodCache.misses.increment();
+    var result = invocation.proceed();
+    segment.put(key, methodCache.newEntry(SharedResults.copy(result)));
+    return result;
+  }
+
+  private void refresh(ProxyMethodInvocation invocation, MethodCache methodCache,
+      Segment segment, MethodInvocationKey key, CacheEntry staleEntry) {
+    if (!staleEntry.refreshing.compareAndSet(false, true)) {
+      // the entry is already being refreshed
+      return;
+    }
+
+    var clone = invocation.invocableClone();
+    try {
+      refreshExecutor.execute(() -> {
+        try {
+          var result = clone.proceed();
+          segment.put(key, methodCache.newEntry(SharedResults.copy(result)));
+        } catch (Throwable e) {
+          LOGGER.debug("The refresh of the cached result for the method {} failed",
+              key.getMethod(), e);
+          staleEntry.refreshing.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      staleEntry.refreshing.set(false);
+    }
+  }
+
+  private Segment getSegment(MethodInvocationKey key) {
+    int hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+  }
+
+  private MethodCache getMethodCache(Method method) {
+    var methodCache = methodCaches.get(method);
+    if (methodCache == null) {
+      methodCache = methodCaches.computeIfAbsent(method, MethodCache::new);
+    }
+    return methodCache;
+  }
+
+  private Counter registerCounter(Method method, String suffix, String description) {
+    return Counter.builder(metricName + suffix)
+        .description(description)
+        .tag(CLASS_TAG_NAME, method.getDeclaringClass().getSimpleName())
+        .tag(METHOD_TAG_NAME, method.getName())
+        .register(meterRegistry);
+  }
+
+  /**
+   * The time to live and the meters corresponding to a cached method.
+   */
+  private class MethodCache {
+
+    private final long timeToLiveNanos;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    MethodCache(Method method) {
+      this.timeToLiveNanos = methodTimeToLiveNanos
+          .getOrDefault(method.getName(), CachingMethodInterceptor.this.timeToLiveNanos);
+      this.hits = registerCounter(method, "_cache_hits",
+          "The amount of calls served from the cache");
+      this.misses = registerCounter(method, "_cache_misses",
+          "The amount of calls not found in the cache");
+      this.evictions = registerCounter(method, "_cache_evictions",
+          "The amount of cached entries evicted because the cache was full");
+    }
+
+    CacheEntry newEntry(Object value) {
+      return new CacheEntry(value, clock.monotonicTime() + timeToLiveNanos);
+    }
+  }
+
+  /**
+   * Least recently used cache segment.
+   */
+  private class Segment {
+
+    private final LinkedHashMap<MethodInvocationKey, CacheEntry> entries;
+
+    Segment(int capacity) {
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<MethodInvocationKey, CacheEntry> eldest) {
+          if (size() > capacity) {
+            getMethodCache(eldest.getKey().getMethod()).evictions.increment();
+            return true;
+          }
+          return false;
+        }
+      };
+    }
+
+    synchronized CacheEntry get(MethodInvocationKey key) {
+      return entries.get(key);
+    }
+
+    synchronized void put(MethodInvocationKey key, CacheEntry entry) {
+      entries.put(key, entry);
+    }
+  }
+
+  private static class CacheEntry {
+
+    private final Object value;
+    private final long expirationTime;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    CacheEntry(Object value, long expirationTime) {
+      this.value = value;
+      this.expirationTime = expirationTime;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.findinpath.retry.interceptor;
+
+import com.findinpath.retry.concurrency.AdaptiveConcurrencyLimiter;
+import com.findinpath.retry.concurrency.ConcurrencyLimitExceededException;
+import com.findinpath.retry.policy.ExceptionClassification;
+import com.findinpath.retry.policy.ExceptionClassifier;
+import com.findinpath.retry.policy.ExceptionClassifierRetryPolicy;
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Method interceptor which bounds the amount of concurrent invocations of the rest of the advisor
+ * chain through an {@link AdaptiveConcurrencyLimiter}. The latency and the outcome of each
+ * invocation are fed back into the limiter.
+ * <p>
+ * Only the failures of the called service are fed back as drops : the exceptions classified as
+ * {@link ExceptionClassification#NON_RETRYABLE} (e.g. : the calls rejected because of their
+ * arguments) say nothing about the load of the service.
+ * <p>
+ * The invocations of the methods returning a {@link CompletionStage} hold their permit until the
+ * returned stage completes.
+ * <p>
+ * The invocations exceeding the concurrency limit wait for a permit for at most the configured
+ * time and are then rejected with a {@link ConcurrencyLimitExceededException}.
+ */
+public class ConcurrencyLimitingMethodInterceptor implements MethodInterceptor {
+
+  private final AdaptiveConcurrencyLimiter limiter;
+  private final ExceptionClassifierRetryPolicy retryPolicy;
+  private final long maxWaitNanos;
+  private final Clock clock;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param limiter     the concurrency limiter
+   * @param retryPolicy the retry policy holding the exception classifiers of the methods
+   * @param maxWait     the maximum time an invocation waits for a permit
+   * @param clock       the clock used for measuring the latency of the invocations
+   */
+  public ConcurrencyLimitingMethodInterceptor(AdaptiveConcurrencyLimiter limiter,
+      ExceptionClassifierRetryPolicy retryPolicy, Duration maxWait, Clock clock) {
+    this.limiter = limiter;
+    this.retryPolicy = retryPolicy;
+    this.maxWaitNanos = maxWait.toNanos();
+    this.clock = clock;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!limiter.acquire(maxWaitNanos)) {
+      throw new ConcurrencyLimitExceededException("The concurrency limit of "
+          + limiter.getLimit() + " calls is reached for the method "
+          + invocation.getMethod().toGenericString());
+    }
+
+    var classifier = retryPolicy.getClassifier(invocation.getMethod());
+    long startTime = clock.monotonicTime();
+    Object result;
+    try {
+      result = invocation.proceed();
+    } catch (Throwable e) {
+      release(startTime, classifier, e);
+      throw e;
+    }
+    if (result instanceof CompletionStage) {
+      // the permit is held until the outcome of the invocation is known
+      ((CompletionStage<?>) result).whenComplete((value, throwable) -> release(startTime,
+          classifier, throwable instanceof CompletionException && throwable.getCause() != null
+              ? throwable.getCause() : throwable));
+      return result;
+    }
+    release(startTime, classifier, null);
+    return result;
+  }
+
+  private void release(long startTime, ExceptionClassifier classifier, Throwable throwable) {
+    limiter.release(clock.monotonicTime() - startTime, throwable != null
+        && classifier.classify(throwable) != ExceptionClassification.NON_RETRYABLE);
+  }
+}
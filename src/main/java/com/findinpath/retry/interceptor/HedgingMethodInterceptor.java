@@ -0,0 +1,260 @@
+package com.findinpath.retry.interceptor;
+
+import com.findinpath.micrometer.core.aop.MethodLatencyPercentile;
+import com.findinpath.retry.deadline.RetryDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+
+/**
+ * Method interceptor which hedges the slow invocations : when an invocation of the rest of the
+ * advisor chain hasn't completed after the hedge delay, another concurrent invocation is fired. The
+ * outcome of the first successful invocation is returned and the other invocations are cancelled.
+ * When all the fired invocations fail, the exception of the last failed invocation is thrown.
+ * <p>
+ * The hedge delay is either fixed or, when a {@link MethodLatencyPercentile} is configured, the
+ * live value of a percentile (e.g. : p95) of the latency of the successful calls of the method.
+ * The fixed delay is used as long as the latency of the method is unknown.
+ * <p>
+ * Hedging duplicates the calls towards the service, which is why this interceptor should be
+ * applied only on idempotent methods. The methods returning a {@link CompletionStage} are not
+ * hedged.
+ * <p>
+ * When placed within the retry advisor, the hedged invocations count as a single attempt for the
+ * retry policy and its listeners, while each hedged invocation is timed separately by the timing
+ * advisors placed after this one.
+ * <p>
+ * All the invocations run on the executor while the calling thread waits for the outcome of the
+ * call, so that the call returns as soon as an invocation succeeds, even when the slower
+ * invocations don't react to their cancellation. The time budget set by the caller (see {@link
+ * RetryDeadline#callWithTimeBudget(Duration, RetryDeadline.TimeBudgetedCall)}) is carried over to
+ * the invocations.
+ * <p>
+ * The amount of hedged invocations fired and of hedged invocations which completed first
+ * successfully are exported as the {@code <metricName>_hedges_fired} and {@code
+ * <metricName>_hedges_won} counters.
+ */
+public class HedgingMethodInterceptor implements MethodInterceptor {
+
+  private static final String CLASS_TAG_NAME = "class";
+  private static final String METHOD_TAG_NAME = "method";
+
+  private final int maxAttempts;
+  private final long hedgeDelayNanos;
+  private final ExecutorService executor;
+  private final MeterRegistry meterRegistry;
+  private final String metricName;
+  private final ConcurrentMap<Method, MethodHedging> methodHedgings = new ConcurrentHashMap<>();
+  private volatile MethodLatencyPercentile latencyPercentile;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param maxAttempts   the maximum amount of concurrent invocations made for a call (including
+   *                      the first one)
+   * @param hedgeDelay    the delay after which another invocation is fired
+   * @param executor      the executor on which the invocations are run
+   * @param meterRegistry the monitoring registry
+   * @param metricName    the prefix of the hedging metric names
+   */
+  public HedgingMethodInterceptor(int maxAttempts, Duration hedgeDelay, ExecutorService executor,
+      MeterRegistry meterRegistry, String metricName) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("The maximum amount of attempts must be positive");
+    }
+    this.maxAttempts = maxAttempts;
+    this.hedgeDelayNanos = hedgeDelay.toNanos();
+    this.executor = executor;
+    this.meterRegistry = meterRegistry;
+    this.metricName = metricName;
+  }
+
+  /**
+   * Derives the hedge delay from the latency of the successful calls of the method.
+   *
+   * @param latencyPercentile the percentile of the latency used as hedge delay (e.g. : the p95)
+   */
+  public void setLatencyPercentile(MethodLatencyPercentile latencyPercentile) {
+    this.latencyPercentile = latencyPercentile;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!(invocation instanceof ProxyMethodInvocation)) {
+      throw new IllegalStateException(
+          "MethodInvocation of the wrong type detected - this should not happen with Spring AOP, " +
+              "so please raise an issue if you see this exception");
+    }
+    var method = invocation.getMethod();
+    if (maxAttempts == 1 || CompletionStage.class.isAssignableFrom(method.getReturnType())) {
+      return invocation.proceed();
+    }
+
+    var methodHedging = getMethodHedging(method);
+    var hedgedCall = new HedgedCall(RetryDeadline.getCallTimeBudget());
+    try {
+      hedgedCall.fire((ProxyMethodInvocation) invocation);
+      long hedgeDelay = methodHedging.getHedgeDelay();
+      for (int attempt = 1; attempt < maxAttempts; attempt++) {
+        try {
+          hedgedCall.result.get(hedgeDelay, TimeUnit.NANOSECONDS);
+          break;
+        } catch (TimeoutException e) {
+          if (!hedgedCall.fire((ProxyMethodInvocation) invocation)) {
+            break;
+          }
+          methodHedging.fired.increment();
+        } catch (ExecutionException e) {
+          break;
+        }
+      }
+
+      var result = await(hedgedCall.result);
+      if (hedgedCall.isWonByHedge()) {
+        methodHedging.won.increment();
+      }
+      return result;
+    } finally {
+      hedgedCall.cancel();
+    }
+  }
+
+  private static Object await(CompletableFuture<Object> future) throws Throwable {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+  }
+
+  private MethodHedging getMethodHedging(Method method) {
+    var methodHedging = methodHedgings.get(method);
+    if (methodHedging == null) {
+      methodHedging = methodHedgings.computeIfAbsent(method, MethodHedging::new);
+    }
+    return methodHedging;
+  }
+
+  private Counter registerCounter(Method method, String suffix, String description) {
+    return Counter.builder(metricName + suffix)
+        .description(description)
+        .tag(CLASS_TAG_NAME, method.getDeclaringClass().getSimpleName())
+        .tag(METHOD_TAG_NAME, method.getName())
+        .register(meterRegistry);
+  }
+
+  /**
+   * The meters corresponding to a hedged method.
+   */
+  private class MethodHedging {
+
+    private final Method method;
+    private final Counter fired;
+    private final Counter won;
+
+    MethodHedging(Method method) {
+      this.method = method;
+      this.fired = registerCounter(method, "_hedges_fired",
+          "The amount of hedged invocations fired for the slow calls");
+      this.won = registerCounter(method, "_hedges_won",
+          "The amount of hedged invocations which completed first successfully");
+    }
+
+    /**
+     * @return the hedge delay in nanoseconds
+     */
+    long getHedgeDelay() {
+      var percentile = latencyPercentile;
+      if (percentile == null) {
+        return hedgeDelayNanos;
+      }
+      long latency = percentile.getNanos(method);
+      return latency == MethodLatencyPercentile.UNKNOWN ? hedgeDelayNanos : latency;
+    }
+  }
+
+  /**
+   * The concurrent invocations fired for a call. The call completes with the first successful
+   * invocation, or with the last failed invocation when all the fired invocations fail.
+   */
+  private class HedgedCall {
+
+    private final CompletableFuture<Object> result = new CompletableFuture<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicInteger winner = new AtomicInteger(-1);
+    private final Future<?>[] futures = new Future<?>[maxAttempts];
+    private final Duration callTimeBudget;
+    private int fired;
+
+    HedgedCall(Duration callTimeBudget) {
+      this.callTimeBudget = callTimeBudget;
+    }
+
+    /**
+     * Fires an invocation on the executor.
+     *
+     * @param invocation the intercepted invocation
+     * @return whether the invocation has been accepted by the executor
+     */
+    boolean fire(ProxyMethodInvocation invocation) {
+      int attempt = fired;
+      var clone = invocation.invocableClone();
+      // counted before being submitted so that a concurrently failing invocation doesn't
+      // complete the call while this one is being fired
+      pending.incrementAndGet();
+      try {
+        futures[attempt] = executor.submit(() -> {
+          try {
+            var value = RetryDeadline.callWithTimeBudget(callTimeBudget, clone::proceed);
+            if (winner.compareAndSet(-1, attempt)) {
+              result.complete(value);
+            }
+          } catch (Throwable e) {
+            if (pending.decrementAndGet() == 0) {
+              result.completeExceptionally(e);
+            }
+          }
+        });
+      } catch (RejectedExecutionException e) {
+        pending.decrementAndGet();
+        if (attempt == 0) {
+          throw e;
+        }
+        return false;
+      }
+      fired++;
+      return true;
+    }
+
+    /**
+     * @return whether the call has been completed by a hedged invocation
+     */
+    boolean isWonByHedge() {
+      return winner.get() > 0;
+    }
+
+    void cancel() {
+      for (int i = 0; i < fired; i++) {
+        futures[i].cancel(true);
+      }
+    }
+  }
+}
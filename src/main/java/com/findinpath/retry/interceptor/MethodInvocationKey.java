@@ -0,0 +1,43 @@
+package com.findinpath.retry.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Identifies the invocations of the same method with equal arguments.
+ */
+final class MethodInvocationKey {
+
+  private final Method method;
+  private final Object[] arguments;
+  private final int hashCode;
+
+  MethodInvocationKey(Method method, Object[] arguments) {
+    this.method = method;
+    this.arguments = arguments;
+    this.hashCode = 31 * method.hashCode() + Arrays.deepHashCode(arguments);
+  }
+
+  Method getMethod() {
+    return method;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof MethodInvocationKey)) {
+      return false;
+    }
+    var that = (MethodInvocationKey) o;
+    return hashCode == that.hashCode
+        && method.equals(that.method)
+        && Arrays.deepEquals(arguments, that.arguments);
+  }
+
+  @Override
+  public int hashCode() {
+    return hashCode;
+  }
+}
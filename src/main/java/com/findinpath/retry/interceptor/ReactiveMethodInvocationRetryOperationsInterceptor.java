@@ -0,0 +1,303 @@
+package com.findinpath.retry.interceptor;
+
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.deadline.TimeBudgets;
+import com.findinpath.retry.listener.RetryAttemptTimings;
+import io.micrometer.core.instrument.Clock;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.TerminatedRetryException;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.BackOffPolicy;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking variant of the {@link MethodInvocationRetryOperationsInterceptor} for the methods
+ * returning a {@link Mono} or a {@link Flux}.
+ * <p>
+ * The publisher returned by the method is retried by subscribing again to a fresh invocation of
+ * the method when it signals an error. Instead of sleeping during the backoff (as the {@link
+ * org.springframework.retry.support.RetryTemplate} does), the next subscription is delayed on a
+ * Reactor {@link Scheduler}. The backoff delays are computed by the configured {@link
+ * SleepingBackOffPolicy} which is given a {@link Sleeper} that only records the delay instead of
+ * sleeping.
+ * <p>
+ * Each subscription to the returned publisher gets its own retry context, populated with the
+ * {@link RetryContext#NAME}, the {@link MethodInvocationRetryOperationsInterceptor#METHOD_INVOCATION}
+ * and the {@link RetryMethodMetadata#RETRY_METHOD_METADATA} attributes. The {@link RetryListener}s
+ * are notified the same way as the {@link org.springframework.retry.support.RetryTemplate} does,
+ * so that listeners like the {@link com.findinpath.retry.listener.MicrometerRetryListenerSupport}
+ * produce the same metrics for the reactive method calls. The cancellation of the subscription
+ * closes the retry context as a successful call.
+ * <p>
+ * Optionally, the calls can be given {@link TimeBudgets}, resolved on the thread invoking the
+ * method and starting from each subscription. The {@link RetryDeadline} of the subscription is
+ * added in the {@link RetryContext} for the backoff policy (see {@link
+ * com.findinpath.retry.backoff.DeadlineAwareBackOffPolicy}) and, when the subscription is not
+ * retried anymore because of its deadline, the publisher signals a {@link
+ * RetryDeadlineExceededException}.
+ * <p>
+ * When a {@link Flux} fails after having emitted elements, the elements are emitted again by the
+ * retried subscription.
+ */
+public class ReactiveMethodInvocationRetryOperationsInterceptor implements MethodInterceptor {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(ReactiveMethodInvocationRetryOperationsInterceptor.class);
+
+  private RetryPolicy retryPolicy = new SimpleRetryPolicy();
+
+  private SleepingBackOffPolicy<?> backOffPolicy = new ExponentialBackOffPolicy();
+
+  private RetryListener[] listeners = new RetryListener[0];
+
+  private Scheduler scheduler;
+
+  private Clock clock = Clock.SYSTEM;
+
+  private TimeBudgets timeBudgets;
+
+  private String label;
+
+  private final ConcurrentMap<Method, RetryMethodMetadata> methodMetadataMap =
+      new ConcurrentHashMap<>();
+
+  public void setLabel(String label) {
+    this.label = label;
+    this.methodMetadataMap.clear();
+  }
+
+  public void setRetryPolicy(RetryPolicy retryPolicy) {
+    Assert.notNull(retryPolicy, "'retryPolicy' cannot be null.");
+    this.retryPolicy = retryPolicy;
+  }
+
+  public void setBackOffPolicy(SleepingBackOffPolicy<?> backOffPolicy) {
+    Assert.notNull(backOffPolicy, "'backOffPolicy' cannot be null.");
+    this.backOffPolicy = backOffPolicy;
+  }
+
+  public void setListeners(RetryListener[] listeners) {
+    Assert.notNull(listeners, "'listeners' cannot be null.");
+    this.listeners = listeners.clone();
+  }
+
+  /**
+   * Sets the scheduler on which the retries are delayed. When not set, the {@link
+   * Schedulers#parallel()} scheduler is resolved for each backoff (which allows the virtual time
+   * to be used in tests).
+   *
+   * @param scheduler the scheduler on which the retries are delayed
+   */
+  public void setScheduler(Scheduler scheduler) {
+    Assert.notNull(scheduler, "'scheduler' cannot be null.");
+    this.scheduler = scheduler;
+  }
+
+  public void setClock(Clock clock) {
+    Assert.notNull(clock, "'clock' cannot be null.");
+    this.clock = clock;
+  }
+
+  public void setTimeBudgets(TimeBudgets timeBudgets) {
+    this.timeBudgets = timeBudgets;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!(invocation instanceof ProxyMethodInvocation)) {
+      throw new IllegalStateException(
+          "MethodInvocation of the wrong type detected - this should not happen with Spring AOP, " +
+              "so please raise an issue if you see this exception");
+    }
+    if (!supports(invocation.getMethod())) {
+      throw new IllegalStateException("The method " + invocation.getMethod().toGenericString()
+          + " can't be retried reactively because it doesn't return a Mono or a Flux");
+    }
+    boolean mono = invocation.getMethod().getReturnType() == Mono.class;
+
+    var proxyMethodInvocation = (ProxyMethodInvocation) invocation;
+    var methodMetadata = getMethodMetadata(invocation.getMethod());
+    // the time budget set by the caller is bound to the invoking thread
+    Duration timeBudget = timeBudgets == null ? null
+        : timeBudgets.get(methodMetadata.getMethodName());
+    var retried = Flux.defer(() -> new ReactiveRetryExecution(proxyMethodInvocation,
+        methodMetadata, timeBudget).execute());
+    // the retried invocations of a Mono method emit at most one element
+    return mono ? Mono.fromDirect(retried) : retried;
+  }
+
+  /**
+   * @param method the method
+   * @return whether the calls of the method can be retried by this interceptor : the method returns
+   * a {@link Mono} or a {@link Flux}
+   */
+  public static boolean supports(Method method) {
+    var returnType = method.getReturnType();
+    return returnType == Mono.class || returnType == Flux.class;
+  }
+
+  private RetryMethodMetadata getMethodMetadata(Method method) {
+    var methodMetadata = methodMetadataMap.get(method);
+    if (methodMetadata == null) {
+      methodMetadata = methodMetadataMap.computeIfAbsent(method,
+          key -> new RetryMethodMetadata(
+              StringUtils.hasText(label) ? label : key.toGenericString(), key));
+    }
+    return methodMetadata;
+  }
+
+  private Scheduler getScheduler() {
+    return scheduler == null ? Schedulers.parallel() : scheduler;
+  }
+
+  /**
+   * The state of the retries of a subscription to the publisher returned by a reactive method
+   * call.
+   * <p>
+   * The execution acts as the {@link Sleeper} of its own backoff policy for capturing the delay of
+   * the next attempt.
+   */
+  private class ReactiveRetryExecution implements RetryCallback<Object, Throwable>, Sleeper {
+
+    private final ProxyMethodInvocation invocation;
+    private final RetryMethodMetadata methodMetadata;
+    private final Duration timeBudget;
+    private final RetryDeadline deadline;
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private RetryContext context;
+    private BackOffPolicy sleepingBackOffPolicy;
+    private BackOffContext backOffContext;
+    private long backOffPeriod;
+
+    ReactiveRetryExecution(ProxyMethodInvocation invocation, RetryMethodMetadata methodMetadata,
+        Duration timeBudget) {
+      this.invocation = invocation;
+      this.methodMetadata = methodMetadata;
+      this.timeBudget = timeBudget;
+      this.deadline = timeBudget == null ? null : new RetryDeadline(clock, timeBudget);
+    }
+
+    Flux<Object> execute() {
+      context = retryPolicy.open(null);
+      context.setAttribute(RetryContext.NAME, methodMetadata.getLabel());
+      context.setAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION,
+          invocation);
+      context.setAttribute(RetryMethodMetadata.RETRY_METHOD_METADATA, methodMetadata);
+      if (deadline != null) {
+        context.setAttribute(RetryDeadline.RETRY_DEADLINE, deadline);
+      }
+
+      boolean running = true;
+      for (RetryListener listener : listeners) {
+        running &= listener.open(context, this);
+      }
+      if (!running) {
+        var exception = new TerminatedRetryException(
+            "Retry terminated abnormally by interceptor before first attempt");
+        close(exception);
+        return Flux.error(exception);
+      }
+
+      sleepingBackOffPolicy = backOffPolicy.withSleeper(this);
+      backOffContext = sleepingBackOffPolicy.start(context);
+      return Flux.defer(this::attempt)
+          .retryWhen(errors -> errors.concatMap(this::onError))
+          .doOnComplete(() -> close(null))
+          .doOnCancel(() -> close(null))
+          .doOnError(this::close)
+          .onErrorMap(throwable -> deadline != null && deadline.isExceeded(),
+              throwable -> new RetryDeadlineExceededException("The time budget of "
+                  + timeBudget.toMillis() + " ms for " + methodMetadata.getLabel()
+                  + " does not leave enough time for another attempt", throwable));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object doWithRetry(RetryContext context) throws Throwable {
+      RetryAttemptTimings.attemptStarted(context);
+      var publisher = (Publisher<Object>) invocation.invocableClone().proceed();
+      return publisher == null ? Flux.empty() : publisher;
+    }
+
+    @Override
+    public void sleep(long backOffPeriod) {
+      this.backOffPeriod = backOffPeriod;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Publisher<Object> attempt() {
+      try {
+        return (Publisher<Object>) doWithRetry(context);
+      } catch (Throwable e) {
+        return Flux.error(e);
+      }
+    }
+
+    private Publisher<?> onError(Throwable throwable) {
+      try {
+        retryPolicy.registerThrowable(context, throwable);
+      } catch (Exception e) {
+        return Mono.error(new TerminatedRetryException("Could not register throwable", e));
+      } finally {
+        for (int i = listeners.length; i-- > 0; ) {
+          listeners[i].onError(context, this, throwable);
+        }
+      }
+
+      if (retryPolicy.canRetry(context) && !context.isExhaustedOnly()) {
+        // computes the backoff period through the sleep(long) method of this execution
+        backOffPeriod = 0;
+        sleepingBackOffPolicy.backOff(backOffContext);
+        // the backoff policy may give up on the retries instead of backing off
+        if (!context.isExhaustedOnly()) {
+          return Mono.delay(Duration.ofMillis(backOffPeriod), getScheduler());
+        }
+      }
+      return Mono.error(throwable);
+    }
+
+    private void close(Throwable throwable) {
+      if (!closed.compareAndSet(false, true)) {
+        return;
+      }
+      try {
+        retryPolicy.close(context);
+      } finally {
+        for (int i = listeners.length; i-- > 0; ) {
+          try {
+            listeners[i].close(context, this, throwable);
+          } catch (RuntimeException e) {
+            LOGGER.error("Exception occurred while closing the retry context for the method "
+                + invocation.getMethod().toGenericString(), e);
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package com.findinpath.retry.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.function.Function;
+import org.springframework.retry.RetryContext;
+
+/**
+ * The metadata of a method retried by a retry interceptor : the label of the retries and the class
+ * and method names used for tagging the meters.
+ * <p>
+ * The metadata is resolved once per retry interceptor and method and is placed in the {@link
+ * RetryContext} (under the {@link #RETRY_METHOD_METADATA} attribute), so that the retry listeners
+ * don't need to derive the same information out of the {@link java.lang.reflect.Method} on every
+ * call. The listeners can additionally attach to the metadata the objects (e.g. : the meters)
+ * which they resolved for the method.
+ */
+public final class RetryMethodMetadata {
+
+  /**
+   * The retry context attribute holding the metadata of the retried method.
+   */
+  public static final String RETRY_METHOD_METADATA = "context.retry.method.metadata";
+
+  private static final Object[] NO_ATTACHMENTS = new Object[0];
+
+  private final String label;
+  private final Method method;
+  private final String className;
+  private final String methodName;
+  /**
+   * The attachments stored as (owner, attachment) pairs. There are usually very few owners (e.g. :
+   * one retry listener) which is why the array is scanned instead of using a map.
+   */
+  private volatile Object[] attachments = NO_ATTACHMENTS;
+
+  public RetryMethodMetadata(String label, Method method) {
+    this.label = label;
+    this.method = method;
+    this.className = method.getDeclaringClass().getSimpleName();
+    this.methodName = method.getName();
+  }
+
+  /**
+   * Retrieves the metadata of the retried method from the retry context.
+   *
+   * @param context the retry context
+   * @return the metadata or {@code null} if the retry context doesn't carry any
+   */
+  public static RetryMethodMetadata get(RetryContext context) {
+    var metadata = context.getAttribute(RETRY_METHOD_METADATA);
+    return metadata instanceof RetryMethodMetadata ? (RetryMethodMetadata) metadata : null;
+  }
+
+  public String getLabel() {
+    return label;
+  }
+
+  public Method getMethod() {
+    return method;
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  public String getMethodName() {
+    return methodName;
+  }
+
+  /**
+   * Retrieves the object attached by the specified owner to this metadata, creating it on the
+   * first call.
+   *
+   * @param owner   the owner of the attachment (compared by identity)
+   * @param factory the factory of the attachment
+   * @param <T>     the type of the attachment
+   * @return the attachment
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getAttachment(Object owner, Function<RetryMethodMetadata, T> factory) {
+    var currentAttachments = attachments;
+    for (int i = 0; i < currentAttachments.length; i += 2) {
+      if (currentAttachments[i] == owner) {
+        return (T) currentAttachments[i + 1];
+      }
+    }
+    return addAttachment(owner, factory);
+  }
+
+  @SuppressWarnings("unchecked")
+  private synchronized <T> T addAttachment(Object owner,
+      Function<RetryMethodMetadata, T> factory) {
+    var currentAttachments = attachments;
+    for (int i = 0; i < currentAttachments.length; i += 2) {
+      if (currentAttachments[i] == owner) {
+        return (T) currentAttachments[i + 1];
+      }
+    }
+    var attachment = factory.apply(this);
+    var grownAttachments = Arrays.copyOf(currentAttachments, currentAttachments.length + 2);
+    grownAttachments[currentAttachments.length] = owner;
+    grownAttachments[currentAttachments.length + 1] = attachment;
+    attachments = grownAttachments;
+    return attachment;
+  }
+}
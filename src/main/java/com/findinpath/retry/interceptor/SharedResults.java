@@ -0,0 +1,51 @@
+package com.findinpath.retry.interceptor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletionStage;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Utility methods for the interceptors sharing the result of an invocation between several
+ * callers (e.g. : a cache).
+ */
+final class SharedResults {
+
+  private static final String PUBLISHER_CLASS_NAME = "org.reactivestreams.Publisher";
+  private static final Class<?> PUBLISHER_CLASS = ClassUtils.isPresent(PUBLISHER_CLASS_NAME,
+      SharedResults.class.getClassLoader())
+      ? ClassUtils.resolveClassName(PUBLISHER_CLASS_NAME, SharedResults.class.getClassLoader())
+      : null;
+
+  private SharedResults() {
+  }
+
+  /**
+   * @param method the invoked method
+   * @return whether the results of the method can be shared : the method doesn't return a pending
+   * outcome (a {@link CompletionStage} or a reactive {@code Publisher}), which may still fail or
+   * be cancelled by one of the callers
+   */
+  static boolean isShareable(Method method) {
+    var returnType = method.getReturnType();
+    return !CompletionStage.class.isAssignableFrom(returnType)
+        && (PUBLISHER_CLASS == null || !PUBLISHER_CLASS.isAssignableFrom(returnType));
+  }
+
+  /**
+   * Copies the result handed to a caller when it is an array, so that the callers don't share a
+   * mutable array. The elements of the array are not copied.
+   *
+   * @param result the shared result
+   * @return a copy of the result when it is an array, the result itself otherwise
+   */
+  static Object copy(Object result) {
+    if (result == null || !result.getClass().isArray()) {
+      return result;
+    }
+    int length = Array.getLength(result);
+    var copy = Array.newInstance(result.getClass().getComponentType(), length);
+    System.arraycopy(result, 0, copy, 0, length);
+    return copy;
+  }
+}
@@ -0,0 +1,93 @@
+package com.findinpath.retry.interceptor;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * Method interceptor which collapses the concurrent invocations of the same method with equal
+ * arguments into a single invocation of the rest of the advisor chain (e.g. : a single retry
+ * sequence towards the API).
+ * <p>
+ * The first caller (leader) proceeds with the invocation, while the callers arriving during the
+ * invocation wait for its outcome. The result (or the exception) of the invocation is shared with
+ * all the waiting callers. The invocations completed before the arrival of a caller are not
+ * reused : this interceptor is not a cache.
+ * <p>
+ * The methods returning a {@link java.util.concurrent.CompletionStage} or a reactive {@code
+ * Publisher} are not collapsed. The arrays are copied for each waiting caller, but otherwise the
+ * waiting callers receive the same result instance as the leader, which is why this interceptor
+ * should be applied only on methods returning immutable results (or arrays of immutable
+ * elements).
+ * <p>
+ * The amount of coalesced calls (the calls which did not proceed with the invocation on their own)
+ * is exported as the {@code <metricName>_coalesced} counter.
+ */
+public class SingleFlightMethodInterceptor implements MethodInterceptor {
+
+  private static final String CLASS_TAG_NAME = "class";
+  private static final String METHOD_TAG_NAME = "method";
+
+  private final ConcurrentMap<MethodInvocationKey, CompletableFuture<Object>>
+      inFlightInvocations = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Method, Counter> coalescedCounters = new ConcurrentHashMap<>();
+  private final MeterRegistry meterRegistry;
+  private final String metricName;
+
+  public SingleFlightMethodInterceptor(MeterRegistry meterRegistry, String metricName) {
+    this.meterRegistry = meterRegistry;
+    this.metricName = metricName;
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!SharedResults.isShareable(invocation.getMethod())) {
+      return invocation.proceed();
+    }
+    var key = new MethodInvocationKey(invocation.getMethod(), invocation.getArguments());
+    var future = new CompletableFuture<>();
+    var inFlightFuture = inFlightInvocations.putIfAbsent(key, future);
+    if (inFlightFuture != null) {
+      getCoalescedCounter(invocation.getMethod()).increment();
+      return SharedResults.copy(await(inFlightFuture));
+    }
+
+    try {
+      var result = invocation.proceed();
+      inFlightInvocations.remove(key, future);
+      future.complete(result);
+      return result;
+    } catch (Throwable e) {
+      inFlightInvocations.remove(key, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private static Object await(CompletableFuture<Object> future) throws Throwable {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    }
+  }
+
+  private Counter getCoalescedCounter(Method method) {
+    var counter = coalescedCounters.get(method);
+    if (counter == null) {
+      counter = coalescedCounters.computeIfAbsent(method, key -> Counter
+          .builder(metricName + "_coalesced")
+          .description("The amount of calls sharing the outcome of an identical in-flight call")
+          .tag(CLASS_TAG_NAME, key.getDeclaringClass().getSimpleName())
+          .tag(METHOD_TAG_NAME, key.getName())
+          .register(meterRegistry));
+    }
+    return counter;
+  }
+}
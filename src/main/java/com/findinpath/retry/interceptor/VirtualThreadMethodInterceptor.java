@@ -0,0 +1,184 @@
+package com.findinpath.retry.interceptor;
+
+import com.findinpath.retry.concurrency.ConcurrencyLimitExceededException;
+import com.findinpath.retry.deadline.RetryDeadline;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Method interceptor which runs the rest of the advisor chain (e.g. : the retries including their
+ * backoff and the timing of the attempts) on a virtual thread, with a bound on the amount of
+ * concurrently running invocations.
+ * <p>
+ * The calling platform threads wait for the outcome of the invocation run on a virtual thread,
+ * exactly as they would wait for the outcome of an invocation run on themselves. The invocations
+ * made from a virtual thread proceed on the calling thread. The time budget set by the caller
+ * through {@link RetryDeadline#callWithTimeBudget(Duration, RetryDeadline.TimeBudgetedCall)} is
+ * carried over to the virtual thread.
+ * <p>
+ * The invocations of the methods returning a {@link CompletionStage} release the calling thread
+ * right away : their result is a {@link CompletableFuture} completed with the outcome of the
+ * invocation run on a virtual thread.
+ * <p>
+ * The invocations exceeding the concurrency limit wait for a permit for at most the configured
+ * time and are then rejected with a {@link ConcurrencyLimitExceededException}.
+ * <p>
+ * When the running JDK doesn't support virtual threads, the invocations are run on daemon platform
+ * threads.
+ *
+ * @see VirtualThreads
+ */
+public class VirtualThreadMethodInterceptor implements MethodInterceptor, DisposableBean {
+
+  private static final Logger LOGGER = LoggerFactory
+      .getLogger(VirtualThreadMethodInterceptor.class);
+
+  private final ExecutorService executor;
+  private final Semaphore concurrencyLimit;
+  private final int maxConcurrency;
+  private final long maxWaitNanos;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param maxConcurrency   the maximum amount of concurrently running invocations
+   * @param maxWait          the maximum time an invocation waits for a permit
+   * @param threadNamePrefix the name prefix for the platform threads used when the JDK doesn't
+   *                         support virtual threads
+   */
+  public VirtualThreadMethodInterceptor(int maxConcurrency, Duration maxWait,
+      String threadNamePrefix) {
+    if (!VirtualThreads.isSupported()) {
+      LOGGER.warn("Virtual threads are not supported by the running JDK. "
+          + "Platform threads will be used instead.");
+    }
+    this.executor = VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix);
+    this.concurrencyLimit = new Semaphore(maxConcurrency);
+    this.maxConcurrency = maxConcurrency;
+    this.maxWaitNanos = maxWait.toNanos();
+  }
+
+  @Override
+  public Object invoke(MethodInvocation invocation) throws Throwable {
+    if (!(invocation instanceof ProxyMethodInvocation)) {
+      throw new IllegalStateException(
+          "MethodInvocation of the wrong type detected - this should not happen with Spring AOP, " +
+              "so please raise an issue if you see this exception");
+    }
+
+    if (isAsynchronous(invocation.getMethod())) {
+      return proceedOnVirtualThread((ProxyMethodInvocation) invocation);
+    }
+    acquire(invocation);
+    try {
+      if (VirtualThreads.isCurrentThreadVirtual()) {
+        return invocation.proceed();
+      }
+      return proceedOnVirtualThreadAndWait((ProxyMethodInvocation) invocation);
+    } finally {
+      concurrencyLimit.release();
+    }
+  }
+
+  private Object proceedOnVirtualThreadAndWait(ProxyMethodInvocation invocation)
+      throws Throwable {
+    var clone = invocation.invocableClone();
+    // the time budget set by the caller is bound to the calling thread
+    var callTimeBudget = RetryDeadline.getCallTimeBudget();
+    var result = new CompletableFuture<>();
+    Future<?> task = executor.submit(() -> {
+      try {
+        result.complete(RetryDeadline.callWithTimeBudget(callTimeBudget, clone::proceed));
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+      }
+    });
+    try {
+      return result.get();
+    } catch (ExecutionException e) {
+      throw e.getCause();
+    } catch (InterruptedException e) {
+      // the retries of the invocation are interrupted along with the caller
+      task.cancel(true);
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+  }
+
+  /**
+   * @return whether the method returns a {@link CompletionStage} which can be substituted by a
+   * {@link CompletableFuture}
+   */
+  private static boolean isAsynchronous(Method method) {
+    var returnType = method.getReturnType();
+    return CompletionStage.class.isAssignableFrom(returnType)
+        && returnType.isAssignableFrom(CompletableFuture.class);
+  }
+
+  private void acquire(MethodInvocation invocation) throws InterruptedException {
+    if (!concurrencyLimit.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+      throw new ConcurrencyLimitExceededException("The concurrency limit of "
+          + maxConcurrency + " calls is reached for the method "
+          + invocation.getMethod().toGenericString());
+    }
+  }
+
+  private CompletableFuture<Object> proceedOnVirtualThread(ProxyMethodInvocation invocation) {
+    var clone = invocation.invocableClone();
+    // the time budget set by the caller is bound to the calling thread
+    var callTimeBudget = RetryDeadline.getCallTimeBudget();
+    var result = new CompletableFuture<>();
+    executor.execute(() -> {
+      try {
+        acquire(clone);
+      } catch (Throwable e) {
+        result.completeExceptionally(e);
+        return;
+      }
+      CompletionStage<?> stage;
+      try {
+        stage = (CompletionStage<?>) RetryDeadline
+            .callWithTimeBudget(callTimeBudget, clone::proceed);
+      } catch (Throwable e) {
+        concurrencyLimit.release();
+        result.completeExceptionally(e);
+        return;
+      }
+      if (stage == null) {
+        concurrencyLimit.release();
+        result.complete(null);
+        return;
+      }
+      // the permit is held until the outcome of the invocation is known
+      stage.whenComplete((value, throwable) -> {
+        concurrencyLimit.release();
+        if (throwable == null) {
+          result.complete(value);
+        } else {
+          result.completeExceptionally(throwable instanceof CompletionException
+              && throwable.getCause() != null ? throwable.getCause() : throwable);
+        }
+      });
+    });
+    return result;
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+}
@@ -0,0 +1,82 @@
+package com.findinpath.retry.interceptor;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Utility class giving access to the virtual threads when the project runs on a JDK which supports
+ * them (JDK 21 or newer).
+ * <p>
+ * The project is compiled for Java 11 and therefore the virtual thread API is looked up
+ * reflectively. On older JDKs the executors fall back to daemon platform threads.
+ */
+public final class VirtualThreads {
+
+  private static final MethodHandle NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR;
+  private static final MethodHandle IS_VIRTUAL;
+
+  static {
+    var lookup = MethodHandles.publicLookup();
+    MethodHandle newExecutor;
+    MethodHandle isVirtual;
+    try {
+      newExecutor = lookup.findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+          MethodType.methodType(ExecutorService.class));
+      isVirtual = lookup.findVirtual(Thread.class, "isVirtual",
+          MethodType.methodType(boolean.class));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      newExecutor = null;
+      isVirtual = null;
+    }
+    NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = newExecutor;
+    IS_VIRTUAL = isVirtual;
+  }
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * @return whether the running JDK supports virtual threads
+   */
+  public static boolean isSupported() {
+    return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+  }
+
+  /**
+   * @return whether the current thread is a virtual thread
+   */
+  public static boolean isCurrentThreadVirtual() {
+    if (IS_VIRTUAL == null) {
+      return false;
+    }
+    try {
+      return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+    } catch (Throwable e) {
+      throw new IllegalStateException("Could not check whether the current thread is virtual", e);
+    }
+  }
+
+  /**
+   * Creates an executor which starts a new virtual thread for each task or, when the running JDK
+   * doesn't support virtual threads, an executor which uses daemon platform threads.
+   *
+   * @param threadNamePrefix the name prefix for the platform threads of the fallback executor
+   * @return the executor
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+    if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+      try {
+        return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invokeExact();
+      } catch (Throwable e) {
+        throw new IllegalStateException("Could not create the virtual thread executor", e);
+      }
+    }
+    var threadFactory = new CustomizableThreadFactory(threadNamePrefix);
+    threadFactory.setDaemon(true);
+    return Executors.newCachedThreadPool(threadFactory);
+  }
+}
@@ -1,11 +1,22 @@
 package com.findinpath.retry.listener;
 
 
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import com.findinpath.retry.policy.ExceptionClassification;
+import io.micrometer.core.instrument.Clock;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
-import java.util.Objects;
+import io.micrometer.core.instrument.Timer;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.RetryContext;
@@ -16,31 +27,72 @@ import org.springframework.retry.listener.RetryListenerSupport;
  * Implementation of a spring-retry {@link RetryListenerSupport} used for monitoring purposes of how
  * the retry policy is applied on the service method calls.
  * <p>
- * Instances of this retry listener class will issue two kind of metrics:
+ * Instances of this retry listener class will issue the following metrics:
  * <pre>
  *     <ul>
  *         <li>metricName_retries : counts the amount of retries made for completing a specific method call</li>
  *         <li>metricName_failures: counts the amount of failures made when failing (even with retries) a specific method call</li>
+ *         <li>metricName_attempt : times each attempt made for completing a specific method call</li>
+ *         <li>metricName_backoff : times the total backoff between the attempts of a retried method call</li>
  *     </ul>
  * </pre>
+ * <p>
+ * The counters are resolved once per retried method, retry count and exception class so that
+ * closing a retry context doesn't allocate anything in the steady state. When the retry context
+ * carries the {@link RetryMethodMetadata} of the retried method, the counters of the method are
+ * attached to the metadata and no lookup is needed for finding them. The timers are registered
+ * along with the counters of the method and publish a percentile histogram, optionally with
+ * additional SLA boundaries. The start of the attempts is stamped in the {@link
+ * RetryAttemptTimings} of the retry context by the retry operations.
+ * <p>
+ * The calls which are not retried anymore because of their {@link RetryDeadline} are counted in
+ * the failures counter tagged with the {@link RetryDeadlineExceededException} exception.
+ * <p>
+ * The failures counter is tagged as well with the {@link ExceptionClassification} of the last
+ * exception of the call (e.g. : {@code non_retryable} for the calls which were not retried because
+ * of their exception), or with {@code none} when the exception hasn't been classified.
+ * <p>
+ * The values of the name, retry and exception tags are limited by a {@link TagCardinalityLimiter}.
+ * The values exceeding the limit are folded into the {@link TagCardinalityLimiter#OTHER} value and
+ * don't get cached individually, so that neither the registry nor the caches of this listener grow
+ * without bound.
  */
 public class MicrometerRetryListenerSupport extends RetryListenerSupport {
 
-  private static final String NAME_TAG_NAME = "name";
   private static final String UNKNOWN_NAME = "unknown";
   private static final String NONE = "none";
+  public static final String NAME_TAG_NAME = "name";
   public static final String CLASS_TAG_NAME = "class";
   public static final String METHOD_TAG_NAME = "method";
   public static final String RETRY_TAG_NAME = "retry";
   public static final String EXCEPTION_TAG_NAME = "exception";
+  public static final String CLASSIFICATION_TAG_NAME = "classification";
 
 
   private final MeterRegistry meterRegistry;
+  private final Clock clock;
   private final String retriesMetricName;
   private final String failuresMetricName;
+  private final String attemptMetricName;
+  private final String backOffMetricName;
+  private final Duration[] slaBoundaries;
+  private final TagCardinalityLimiter cardinalityLimiter;
 
-  private final ConcurrentMap<CounterKey, Counter> retriesCounterMap = new ConcurrentHashMap<>();
-  private final ConcurrentMap<CounterKey, Counter> failuresCounterMap = new ConcurrentHashMap<>();
+  /**
+   * Counters of the contexts carrying a {@link MethodInvocation}, indexed by the invoked method.
+   */
+  private final ConcurrentMap<Method, MethodCounters> methodCountersMap =
+      new ConcurrentHashMap<>();
+  /**
+   * Counters of the contexts without a {@link MethodInvocation}, indexed by the context name.
+   */
+  private final ConcurrentMap<String, MethodCounters> namedCountersMap = new ConcurrentHashMap<>();
+  /**
+   * Counters of the contexts whose name differs from the one registered for the invoked method in
+   * the {@link #methodCountersMap}.
+   */
+  private final ConcurrentMap<CounterKey, MethodCounters> relabelledCountersMap =
+      new ConcurrentHashMap<>();
 
 
   /**
@@ -50,88 +102,193 @@ public class MicrometerRetryListenerSupport extends RetryListenerSupport {
    * @param metricName    the name prefix for the metric
    */
   public MicrometerRetryListenerSupport(MeterRegistry meterRegistry, String metricName) {
+    this(meterRegistry, metricName, new Duration[0]);
+  }
+
+  /**
+   * The constructor for the class.
+   *
+   * @param meterRegistry the monitoring registry
+   * @param metricName    the name prefix for the metric
+   * @param slaBoundaries the SLA boundaries published by the attempt and backoff timers
+   */
+  public MicrometerRetryListenerSupport(MeterRegistry meterRegistry, String metricName,
+      Duration... slaBoundaries) {
+    this(meterRegistry, metricName,
+        new TagCardinalityLimiter(TagCardinalityLimiter.DEFAULT_MAX_TAG_VALUES, meterRegistry,
+            metricName + TagCardinalityLimiter.DROPPED_TAG_VALUES_METRIC_SUFFIX),
+        slaBoundaries);
+  }
+
+  /**
+   * The constructor for the class.
+   *
+   * @param meterRegistry      the monitoring registry
+   * @param metricName         the name prefix for the metric
+   * @param cardinalityLimiter the limiter of the distinct values of the tags
+   * @param slaBoundaries      the SLA boundaries published by the attempt and backoff timers
+   */
+  public MicrometerRetryListenerSupport(MeterRegistry meterRegistry, String metricName,
+      TagCardinalityLimiter cardinalityLimiter, Duration... slaBoundaries) {
+    this.cardinalityLimiter = cardinalityLimiter;
     this.meterRegistry = meterRegistry;
+    this.clock = meterRegistry.config().clock();
     this.retriesMetricName = metricName + "_retries";
     this.failuresMetricName = metricName + "_failures";
+    this.attemptMetricName = metricName + "_attempt";
+    this.backOffMetricName = metricName + "_backoff";
+    this.slaBoundaries = slaBoundaries.clone();
+  }
+
+  @Override
+  public <T, E extends Throwable> boolean open(RetryContext context,
+      RetryCallback<T, E> callback) {
+    context.setAttribute(RetryAttemptTimings.RETRY_ATTEMPT_TIMINGS,
+        new RetryAttemptTimings(clock));
+    return true;
+  }
+
+  @Override
+  public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+      Throwable throwable) {
+    var timings = getRetryAttemptTimings(context);
+    if (timings != null) {
+      getMethodCounters(context).attemptTimer
+          .record(timings.onAttemptEnd(), TimeUnit.NANOSECONDS);
+    }
   }
 
   @Override
   public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
       Throwable throwable) {
-    if (throwable != null) {
-      var failuresCounter = failuresCounterMap.computeIfAbsent(
-          new CounterKey(getContextName(context), context.getRetryCount(), throwable),
-          MicrometerRetryListenerSupport.this::getFailuresCounter);
+    var methodCounters = getMethodCounters(context);
+    var timings = getRetryAttemptTimings(context);
+    if (timings != null) {
+      if (timings.isAttemptInProgress() || (!timings.isBackOffTimeKnown() && throwable == null)) {
+        // the last attempt didn't end with an error
+        methodCounters.attemptTimer.record(timings.onAttemptEnd(), TimeUnit.NANOSECONDS);
+      }
+      if (timings.isBackOffTimeKnown() && context.getRetryCount() > 0) {
+        methodCounters.backOffTimer.record(timings.getBackOffTime(), TimeUnit.NANOSECONDS);
+      }
+    }
 
-      failuresCounter.increment();
+    if (throwable != null) {
+      var deadline = RetryDeadline.get(context);
+      // the calls not retried anymore because of their deadline fail with a distinct exception
+      methodCounters.getFailuresCounters(ExceptionClassification.get(context))
+          .getCounter(deadline != null && deadline.isExceeded()
+              ? RetryDeadlineExceededException.class : throwable.getClass())
+          .increment();
     } else {
-      var retriesCounter = retriesCounterMap.computeIfAbsent(
-          new CounterKey(getContextName(context), context.getRetryCount(),
-              context.getLastThrowable()),
-          MicrometerRetryListenerSupport.this::getRetriesCounter);
-
-      retriesCounter.increment();
+      var lastThrowable = context.getLastThrowable();
+      methodCounters.getRetriesCounters(context.getRetryCount())
+          .getCounter(lastThrowable == null ? null : lastThrowable.getClass())
+          .increment();
     }
   }
 
 
-  private ContextMetadata getContextName(RetryContext retryContext) {
+  private static RetryAttemptTimings getRetryAttemptTimings(RetryContext context) {
+    var timings = context.getAttribute(RetryAttemptTimings.RETRY_ATTEMPT_TIMINGS);
+    return timings instanceof RetryAttemptTimings ? (RetryAttemptTimings) timings : null;
+  }
+
+  private MethodCounters getMethodCounters(RetryContext retryContext) {
+    var methodMetadata = RetryMethodMetadata.get(retryContext);
+    if (methodMetadata != null) {
+      return methodMetadata.getAttachment(this,
+          metadata -> getMethodCounters(metadata.getLabel(), metadata.getMethod()));
+    }
+
     var nameAttribute = retryContext.getAttribute(RetryContext.NAME);
     var name = nameAttribute == null ? UNKNOWN_NAME : nameAttribute.toString();
     var methodInvocation = retryContext
         .getAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION);
+    return getMethodCounters(name,
+        methodInvocation == null ? null : ((MethodInvocation) methodInvocation).getMethod());
+  }
 
-    if (methodInvocation == null) {
-      return new ContextMetadata(name);
+  private MethodCounters getMethodCounters(String name, Method method) {
+    if (method == null) {
+      var methodCounters = namedCountersMap.get(name);
+      if (methodCounters == null) {
+        methodCounters = namedCountersMap.computeIfAbsent(limitName(name),
+            key -> new MethodCounters(key, null));
+      }
+      return methodCounters;
     }
 
-    var method = ((MethodInvocation) methodInvocation).getMethod();
-
-    var methodName = method.getName();
-    var className = method.getDeclaringClass().getSimpleName();
+    var methodCounters = methodCountersMap.get(method);
+    if (methodCounters == null) {
+      methodCounters = methodCountersMap.computeIfAbsent(method,
+          key -> new MethodCounters(limitName(name), key));
+    }
+    if (!methodCounters.name.equals(name)) {
+      // the same method is retried under a different label (e.g. : by another interceptor)
+      var relabelledCounters = relabelledCountersMap.get(new CounterKey(name, method));
+      if (relabelledCounters == null) {
+        relabelledCounters = relabelledCountersMap.computeIfAbsent(
+            new CounterKey(limitName(name), method),
+            key -> new MethodCounters(key.name, key.method));
+      }
+      methodCounters = relabelledCounters;
+    }
+    return methodCounters;
+  }
 
-    return new ContextMetadata(name, className, methodName);
+  private String limitName(String name) {
+    return cardinalityLimiter.limit(retriesMetricName, NAME_TAG_NAME, name);
   }
 
 
-  private Counter getRetriesCounter(CounterKey key) {
+  private Counter createRetriesCounter(MethodCounters methodCounters, String retryCount,
+      String lastThrowableClassName) {
     return Counter.builder(retriesMetricName)
         .description("Counts the calls made to a service method with the retry policy")
-        .tag(NAME_TAG_NAME, key.name)
-        .tag(CLASS_TAG_NAME, key.className)
-        .tag(METHOD_TAG_NAME, key.methodName)
-        .tag(RETRY_TAG_NAME, Integer.toString(key.retryCount))
-        .tag(EXCEPTION_TAG_NAME, key.lastThrowableClassName)
+        .tag(NAME_TAG_NAME, methodCounters.name)
+        .tag(CLASS_TAG_NAME, methodCounters.className)
+        .tag(METHOD_TAG_NAME, methodCounters.methodName)
+        .tag(RETRY_TAG_NAME, retryCount)
+        .tag(EXCEPTION_TAG_NAME, lastThrowableClassName)
         .register(meterRegistry);
   }
 
-  private Counter getFailuresCounter(CounterKey key) {
+  private Counter createFailuresCounter(MethodCounters methodCounters, String classification,
+      String lastThrowableClassName) {
     return Counter.builder(failuresMetricName)
         .description("Counts the failed calls made to a service method")
-        .tag(NAME_TAG_NAME, key.name)
-        .tag(CLASS_TAG_NAME, key.className)
-        .tag(METHOD_TAG_NAME, key.methodName)
-        .tag(EXCEPTION_TAG_NAME, key.lastThrowableClassName)
+        .tag(NAME_TAG_NAME, methodCounters.name)
+        .tag(CLASS_TAG_NAME, methodCounters.className)
+        .tag(METHOD_TAG_NAME, methodCounters.methodName)
+        .tag(EXCEPTION_TAG_NAME, lastThrowableClassName)
+        .tag(CLASSIFICATION_TAG_NAME, classification)
+        .register(meterRegistry);
+  }
+
+  private Timer createTimer(MethodCounters methodCounters, String metricName,
+      String description) {
+    return Timer.builder(metricName)
+        .description(description)
+        .tag(NAME_TAG_NAME, methodCounters.name)
+        .tag(CLASS_TAG_NAME, methodCounters.className)
+        .tag(METHOD_TAG_NAME, methodCounters.methodName)
+        .publishPercentileHistogram()
+        .sla(slaBoundaries)
         .register(meterRegistry);
   }
 
   /**
-   * Key class used in the mappings for the counters.
+   * Key class used in the mapping for the counters of the methods retried under several names.
    */
   private static class CounterKey {
 
-    private String name;
-    private String methodName;
-    private String className;
-    private int retryCount;
-    private String lastThrowableClassName;
+    private final String name;
+    private final Method method;
 
-    CounterKey(ContextMetadata contextMetadata, int retryCount, Throwable e) {
-      this.name = contextMetadata.name;
-      this.methodName = contextMetadata.methodName;
-      this.className = contextMetadata.className;
-      this.retryCount = retryCount;
-      this.lastThrowableClassName = e == null ? NONE : e.getClass().getSimpleName();
+    CounterKey(String name, Method method) {
+      this.name = name;
+      this.method = method;
     }
 
     @Override
@@ -143,33 +300,148 @@ public class MicrometerRetryListenerSupport extends RetryListenerSupport {
         return false;
       }
       CounterKey that = (CounterKey) o;
-      return retryCount == that.retryCount &&
-          Objects.equals(name, that.name) &&
-          Objects.equals(lastThrowableClassName, that.lastThrowableClassName);
+      return name.equals(that.name) &&
+          method.equals(that.method);
     }
 
     @Override
     public int hashCode() {
-      return Objects.hash(name, retryCount, lastThrowableClassName);
+      return 31 * name.hashCode() + method.hashCode();
     }
   }
 
-  private static class ContextMetadata {
+  /**
+   * The counters of a retried method (or of a retry context name when the retry context doesn't
+   * carry any method invocation).
+   * <p>
+   * The retries counters are indexed by the retry count in an array which grows on demand (the
+   * retry counts whose tag value isn't admitted by the cardinality limiter sharing the counters
+   * tagged with the {@link TagCardinalityLimiter#OTHER} retry) and then by the class of the last
+   * exception which caused a retry.
+   */
+  private class MethodCounters {
 
-    private String name;
-    private String className;
-    private String methodName;
+    private final String name;
+    private final String className;
+    private final String methodName;
+    /**
+     * The failures counters indexed by the ordinal of the classification of the last exception
+     * plus one (the first counters are the ones of the unclassified exceptions).
+     */
+    private final ExceptionCounters[] failuresCounters;
+    private final Timer attemptTimer;
+    private final Timer backOffTimer;
+    private volatile ExceptionCounters[] retriesCounters = new ExceptionCounters[0];
+    private ExceptionCounters otherRetriesCounters;
 
-    public ContextMetadata(String name) {
+    MethodCounters(String name, Method method) {
       this.name = name;
-      this.className = NONE;
-      this.methodName = NONE;
+      this.className = method == null ? NONE : method.getDeclaringClass().getSimpleName();
+      this.methodName = method == null ? NONE : method.getName();
+      var classifications = ExceptionClassification.values();
+      this.failuresCounters = new ExceptionCounters[classifications.length + 1];
+      for (int i = 0; i < failuresCounters.length; i++) {
+        var classificationTag = i == 0 ? NONE : classifications[i - 1].getTagValue();
+        failuresCounters[i] = new ExceptionCounters(failuresMetricName,
+            exceptionClassName -> createFailuresCounter(this, classificationTag,
+                exceptionClassName));
+      }
+      this.attemptTimer = createTimer(this, attemptMetricName,
+          "The time taken by each attempt made for completing a service method call");
+      this.backOffTimer = createTimer(this, backOffMetricName,
+          "The time spent in backoff between the attempts made for a service method call");
     }
 
-    public ContextMetadata(String name, String className, String methodName) {
-      this.name = name;
-      this.className = className;
-      this.methodName = methodName;
+    ExceptionCounters getFailuresCounters(ExceptionClassification classification) {
+      return failuresCounters[classification == null ? 0 : classification.ordinal() + 1];
+    }
+
+    ExceptionCounters getRetriesCounters(int retryCount) {
+      var counters = retriesCounters;
+      if (retryCount < counters.length) {
+        return counters[retryCount];
+      }
+      return growRetriesCounters(retryCount);
+    }
+
+    private synchronized ExceptionCounters growRetriesCounters(int retryCount) {
+      var counters = retriesCounters;
+      if (retryCount < counters.length) {
+        return counters[retryCount];
+      }
+
+      var grownCounters = Arrays.copyOf(counters, retryCount + 1);
+      for (int i = counters.length; i < grownCounters.length; i++) {
+        var retryTag = cardinalityLimiter
+            .limit(retriesMetricName, RETRY_TAG_NAME, Integer.toString(i));
+        if (TagCardinalityLimiter.OTHER.equals(retryTag)) {
+          if (otherRetriesCounters == null) {
+            otherRetriesCounters = createRetriesCounters(TagCardinalityLimiter.OTHER);
+          }
+          grownCounters[i] = otherRetriesCounters;
+        } else {
+          grownCounters[i] = createRetriesCounters(retryTag);
+        }
+      }
+      retriesCounters = grownCounters;
+      return grownCounters[retryCount];
+    }
+
+    private ExceptionCounters createRetriesCounters(String retryTag) {
+      return new ExceptionCounters(retriesMetricName,
+          exceptionClassName -> createRetriesCounter(this, retryTag, exceptionClassName));
+    }
+  }
+
+  /**
+   * Counters indexed by the class of the (last) exception of a retry context.
+   * <p>
+   * The exception classes whose name is not admitted by the cardinality limiter share the counter
+   * tagged with the {@link TagCardinalityLimiter#OTHER} exception.
+   */
+  private class ExceptionCounters {
+
+    private final String metricName;
+    private final Function<String, Counter> counterFactory;
+    private final ConcurrentMap<Class<?>, Counter> exceptionCounters = new ConcurrentHashMap<>();
+    private volatile Counter noExceptionCounter;
+    private volatile Counter otherExceptionCounter;
+
+    ExceptionCounters(String metricName, Function<String, Counter> counterFactory) {
+      this.metricName = metricName;
+      this.counterFactory = counterFactory;
+    }
+
+    Counter getCounter(Class<?> exceptionClass) {
+      if (exceptionClass == null) {
+        var counter = noExceptionCounter;
+        if (counter == null) {
+          // registering the same counter concurrently is harmless: the registry returns the same meter
+          counter = counterFactory.apply(NONE);
+          noExceptionCounter = counter;
+        }
+        return counter;
+      }
+
+      var counter = exceptionCounters.get(exceptionClass);
+      if (counter == null) {
+        var exceptionTag = cardinalityLimiter
+            .limit(metricName, EXCEPTION_TAG_NAME, exceptionClass.getSimpleName());
+        counter = exceptionCounters.computeIfAbsent(exceptionClass,
+            key -> TagCardinalityLimiter.OTHER.equals(exceptionTag)
+                ? getOtherExceptionCounter()
+                : counterFactory.apply(exceptionTag));
+      }
+      return counter;
+    }
+
+    private Counter getOtherExceptionCounter() {
+      var counter = otherExceptionCounter;
+      if (counter == null) {
+        counter = counterFactory.apply(TagCardinalityLimiter.OTHER);
+        otherExceptionCounter = counter;
+      }
+      return counter;
     }
   }
 }
@@ -0,0 +1,98 @@
+package com.findinpath.retry.listener;
+
+import io.micrometer.core.instrument.Clock;
+import org.springframework.retry.RetryContext;
+
+/**
+ * Keeps track (in the {@link RetryContext}) of the timing of the attempts made for completing a
+ * call with the retry policy, in order to tell apart the time spent in the attempts from the time
+ * spent in the backoff between them.
+ * <p>
+ * The timings are placed in the retry context by the {@link MicrometerRetryListenerSupport} when
+ * the retry context is opened. The retry operations stamp the start of each attempt through the
+ * {@link #attemptStarted(RetryContext)} method, while the end of the attempts is known by the
+ * listener ({@code onError} and {@code close}).
+ * <p>
+ * When the start of the attempts is not stamped (e.g. : a plain {@code RetryTemplate} is used),
+ * each attempt is considered to start right after the end of the previous one and the backoff time
+ * is unknown.
+ */
+public final class RetryAttemptTimings {
+
+  /**
+   * The retry context attribute holding the timings.
+   */
+  public static final String RETRY_ATTEMPT_TIMINGS = "context.retry.attempt.timings";
+
+  private final Clock clock;
+  private long lastEventTime;
+  private long lastAttemptEndTime = -1;
+  private long attemptStartTime;
+  private boolean attemptStarted;
+  private boolean stamped;
+  private long backOffTime;
+
+  RetryAttemptTimings(Clock clock) {
+    this.clock = clock;
+    this.lastEventTime = clock.monotonicTime();
+  }
+
+  /**
+   * Stamps the start of an attempt made for completing the call corresponding to the retry
+   * context.
+   *
+   * @param context the retry context
+   */
+  public static void attemptStarted(RetryContext context) {
+    var timings = context.getAttribute(RETRY_ATTEMPT_TIMINGS);
+    if (timings instanceof RetryAttemptTimings) {
+      ((RetryAttemptTimings) timings).onAttemptStart();
+    }
+  }
+
+  private void onAttemptStart() {
+    long now = clock.monotonicTime();
+    if (lastAttemptEndTime >= 0) {
+      backOffTime += now - lastAttemptEndTime;
+    }
+    attemptStartTime = now;
+    attemptStarted = true;
+    stamped = true;
+  }
+
+  /**
+   * Marks the end of the current attempt.
+   *
+   * @return the duration in nanoseconds of the attempt
+   */
+  long onAttemptEnd() {
+    long now = clock.monotonicTime();
+    long attemptDuration = now - (attemptStarted ? attemptStartTime : lastEventTime);
+    attemptStarted = false;
+    lastAttemptEndTime = now;
+    lastEventTime = now;
+    return attemptDuration;
+  }
+
+  /**
+   * @return whether an attempt has been started and not ended yet
+   */
+  boolean isAttemptInProgress() {
+    return attemptStarted;
+  }
+
+  /**
+   * @return whether the start of the attempts has been stamped and therefore the backoff time is
+   * known
+   */
+  boolean isBackOffTimeKnown() {
+    return stamped;
+  }
+
+  /**
+   * @return the total time in nanoseconds spent in the backoff between the attempts
+   */
+  long getBackOffTime() {
+    return backOffTime;
+  }
+}
@@ -0,0 +1,59 @@
+package com.findinpath.retry.policy;
+
+import org.springframework.retry.RetryContext;
+
+/**
+ * The decision made by an {@link ExceptionClassifier} about the failed attempts of a call.
+ * <p>
+ * The classification of the last exception of a call is placed in its {@link RetryContext} (under
+ * the {@link #EXCEPTION_CLASSIFICATION} attribute) by the {@link ExceptionClassifierRetryPolicy},
+ * so that the backoff policies and the retry listeners can take it into account.
+ */
+public enum ExceptionClassification {
+
+  /**
+   * The call is retried according to the retry policy.
+   */
+  RETRYABLE("retryable"),
+  /**
+   * The call is not retried, because the exception would occur again on the next attempts (e.g. :
+   * the call is rejected because of its arguments).
+   */
+  NON_RETRYABLE("non_retryable"),
+  /**
+   * The call is retried according to the retry policy, but with a longer backoff (e.g. : the called
+   * service is overloaded).
+   */
+  LONG_BACKOFF("long_backoff");
+
+  /**
+   * The retry context attribute holding the classification of the last exception of the call.
+   */
+  public static final String EXCEPTION_CLASSIFICATION = "context.retry.exception.classification";
+
+  private final String tagValue;
+
+  ExceptionClassification(String tagValue) {
+    this.tagValue = tagValue;
+  }
+
+  /**
+   * Retrieves the classification of the last exception of the call from the retry context.
+   *
+   * @param context the retry context
+   * @return the classification or {@code null} if the last exception of the call hasn't been
+   * classified
+   */
+  public static ExceptionClassification get(RetryContext context) {
+    var classification = context.getAttribute(EXCEPTION_CLASSIFICATION);
+    return classification instanceof ExceptionClassification
+        ? (ExceptionClassification) classification : null;
+  }
+
+  /**
+   * @return the value of the tags of the meters related to this classification
+   */
+  public String getTagValue() {
+    return tagValue;
+  }
+}
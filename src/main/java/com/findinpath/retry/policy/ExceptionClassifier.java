@@ -0,0 +1,95 @@
+package com.findinpath.retry.policy;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Classifies the exceptions of the failed attempts as {@link ExceptionClassification#RETRYABLE},
+ * {@link ExceptionClassification#NON_RETRYABLE} or {@link ExceptionClassification#LONG_BACKOFF}.
+ * <p>
+ * The exception classes are classified according to their closest superclass (or themselves)
+ * having a configured classification. The cause chain of an exception is walked until one of the
+ * exceptions gets classified, otherwise the default classification applies. The walk stops after
+ * {@link #MAX_CAUSE_DEPTH} exceptions, so that a cyclic cause chain doesn't loop forever.
+ * <p>
+ * The classification of each exception class is resolved only once and is cached in a {@link
+ * ClassValue}, so that classifying an exception whose class is classified is a single lookup.
+ */
+public class ExceptionClassifier {
+
+  /**
+   * The maximum number of exceptions walked in a cause chain (including the exception itself).
+   */
+  public static final int MAX_CAUSE_DEPTH = 32;
+
+  private final Map<Class<? extends Throwable>, ExceptionClassification> classifications;
+  private final ExceptionClassification defaultClassification;
+  private final ClassValue<ExceptionClassification> resolvedClassifications =
+      new ClassValue<>() {
+        @Override
+        protected ExceptionClassification computeValue(Class<?> exceptionClass) {
+          return resolveClassification(exceptionClass);
+        }
+      };
+
+  /**
+   * The constructor for the class.
+   *
+   * @param classifications       the classifications of the exception classes (and of their
+   *                              subclasses)
+   * @param defaultClassification the classification of the exceptions without any classified
+   *                              class in their cause chain
+   */
+  public ExceptionClassifier(
+      Map<Class<? extends Throwable>, ExceptionClassification> classifications,
+      ExceptionClassification defaultClassification) {
+    this.classifications = new LinkedHashMap<>(classifications);
+    this.defaultClassification = defaultClassification;
+  }
+
+  /**
+   * Creates a classifier with the classifications of this classifier, overridden by the specified
+   * classifications.
+   *
+   * @param classifications the classifications overriding the ones of this classifier
+   * @return the new classifier
+   */
+  public ExceptionClassifier withClassifications(
+      Map<Class<? extends Throwable>, ExceptionClassification> classifications) {
+    var mergedClassifications = new LinkedHashMap<>(this.classifications);
+    mergedClassifications.putAll(classifications);
+    return new ExceptionClassifier(mergedClassifications, defaultClassification);
+  }
+
+  /**
+   * Classifies the specified exception.
+   *
+   * @param throwable the exception of a failed attempt
+   * @return the classification of the exception
+   */
+  public ExceptionClassification classify(Throwable throwable) {
+    var cause = throwable;
+    for (int depth = 0; cause != null && depth < MAX_CAUSE_DEPTH; depth++) {
+      var classification = resolvedClassifications.get(cause.getClass());
+      if (classification != null) {
+        return classification;
+      }
+      cause = cause.getCause();
+    }
+    return defaultClassification;
+  }
+
+  /**
+   * @return the classification of the exception class or {@code null} if neither the class nor its
+   * superclasses are classified
+   */
+  private ExceptionClassification resolveClassification(Class<?> exceptionClass) {
+    for (var type = exceptionClass; type != null; type = type.getSuperclass()) {
+      var classification = classifications.get(type);
+      if (classification != null) {
+        return classification;
+      }
+    }
+    return null;
+  }
+}
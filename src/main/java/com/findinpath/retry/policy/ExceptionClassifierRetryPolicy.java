@@ -0,0 +1,121 @@
+package com.findinpath.retry.policy;
+
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+
+/**
+ * {@link RetryPolicy} which classifies the exception of each failed attempt with the {@link
+ * ExceptionClassifier} of the retried method and doesn't allow the retries of its delegate policy
+ * once an exception is classified as {@link ExceptionClassification#NON_RETRYABLE}.
+ * <p>
+ * The classification of the last exception is placed in the retry context (see {@link
+ * ExceptionClassification#get(RetryContext)}) for the backoff policies and the retry listeners.
+ * <p>
+ * The methods without a classifier of their own are classified by the default classifier. The
+ * classifier of a method is resolved once and attached to the {@link RetryMethodMetadata} of the
+ * method when the retry context carries it.
+ */
+public class ExceptionClassifierRetryPolicy implements RetryPolicy {
+
+  private final RetryPolicy delegate;
+  private final ExceptionClassifier defaultClassifier;
+  private final ConcurrentMap<Method, ExceptionClassifier> methodClassifiers;
+  private final Function<RetryMethodMetadata, ExceptionClassifier> methodClassifierFactory;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param delegate          the retry policy deciding on the retries of the retryable exceptions
+   * @param defaultClassifier the classifier of the methods without a classifier of their own
+   */
+  public ExceptionClassifierRetryPolicy(RetryPolicy delegate,
+      ExceptionClassifier defaultClassifier) {
+    this(delegate, defaultClassifier, new ConcurrentHashMap<>());
+  }
+
+  private ExceptionClassifierRetryPolicy(RetryPolicy delegate,
+      ExceptionClassifier defaultClassifier,
+      ConcurrentMap<Method, ExceptionClassifier> methodClassifiers) {
+    this.delegate = delegate;
+    this.defaultClassifier = defaultClassifier;
+    this.methodClassifiers = methodClassifiers;
+    this.methodClassifierFactory = metadata -> getClassifier(metadata.getMethod());
+  }
+
+  /**
+   * Creates a retry policy sharing the classifiers of this policy, but delegating the retries of
+   * the retryable exceptions to a different retry policy.
+   *
+   * @param delegate the retry policy deciding on the retries of the retryable exceptions
+   * @return the new retry policy
+   */
+  public ExceptionClassifierRetryPolicy withDelegate(RetryPolicy delegate) {
+    return new ExceptionClassifierRetryPolicy(delegate, defaultClassifier, methodClassifiers);
+  }
+
+  /**
+   * @return the classifier of the methods without a classifier of their own
+   */
+  public ExceptionClassifier getDefaultClassifier() {
+    return defaultClassifier;
+  }
+
+  /**
+   * Sets the classifier of the exceptions of the specified method. The classifiers are expected
+   * to be set before the method is called for the first time.
+   */
+  public void setMethodClassifier(Method method, ExceptionClassifier classifier) {
+    this.methodClassifiers.put(method, classifier);
+  }
+
+  @Override
+  public boolean canRetry(RetryContext context) {
+    return ExceptionClassification.get(context) != ExceptionClassification.NON_RETRYABLE
+        && delegate.canRetry(context);
+  }
+
+  @Override
+  public RetryContext open(RetryContext parent) {
+    return delegate.open(parent);
+  }
+
+  @Override
+  public void close(RetryContext context) {
+    delegate.close(context);
+  }
+
+  @Override
+  public void registerThrowable(RetryContext context, Throwable throwable) {
+    delegate.registerThrowable(context, throwable);
+    if (throwable != null) {
+      context.setAttribute(ExceptionClassification.EXCEPTION_CLASSIFICATION,
+          getClassifier(context).classify(throwable));
+    }
+  }
+
+  private ExceptionClassifier getClassifier(RetryContext context) {
+    var methodMetadata = RetryMethodMetadata.get(context);
+    if (methodMetadata != null) {
+      return methodMetadata.getAttachment(methodClassifiers, methodClassifierFactory);
+    }
+    var methodInvocation = context
+        .getAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION);
+    return methodInvocation == null ? defaultClassifier
+        : getClassifier(((MethodInvocation) methodInvocation).getMethod());
+  }
+
+  /**
+   * @param method the retried method
+   * @return the classifier of the exceptions of the method
+   */
+  public ExceptionClassifier getClassifier(Method method) {
+    return methodClassifiers.getOrDefault(method, defaultClassifier);
+  }
+}
@@ -0,0 +1,110 @@
+package com.findinpath.retry.policy;
+
+import com.findinpath.retry.stats.SlidingWindowCounter;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Client side retry budget shared by all the calls made through a retry policy.
+ * <p>
+ * Over a sliding time window, the retries may amount to at most a configured ratio of the first
+ * attempts (plus a minimal amount of retries per second, which allows retrying when there is
+ * little traffic). This prevents the retries from multiplying the load on an already degraded
+ * service.
+ * <p>
+ * The budget is kept in striped counters and the check for a retry isn't atomic: under high
+ * concurrency the budget can be exceeded by at most the amount of concurrently retrying callers.
+ */
+public class RetryBudget {
+
+  private static final int FIRST_ATTEMPTS = 0;
+  private static final int RETRIES = 1;
+  private static final int WINDOW_BUCKETS = 10;
+
+  private final double retryRatio;
+  private final double minRetries;
+  private final SlidingWindowCounter window;
+  private final LongAdder deniedRetries = new LongAdder();
+
+  /**
+   * The constructor for the class.
+   *
+   * @param retryRatio          the maximum ratio of retries to first attempts (e.g. : 0.2)
+   * @param minRetriesPerSecond the amount of retries per second allowed regardless of the ratio
+   * @param windowDuration      the duration of the sliding window
+   * @param clock               the clock used for measuring the time
+   */
+  public RetryBudget(double retryRatio, int minRetriesPerSecond, Duration windowDuration,
+      Clock clock) {
+    if (retryRatio < 0 || minRetriesPerSecond < 0) {
+      throw new IllegalArgumentException(
+          "The retry ratio and the minimum retries per second can't be negative");
+    }
+    this.retryRatio = retryRatio;
+    this.window = new SlidingWindowCounter(2, WINDOW_BUCKETS, windowDuration, clock);
+    this.minRetries =
+        minRetriesPerSecond * (double) window.getWindowDuration().toMillis() / 1000;
+  }
+
+  /**
+   * Records a first attempt (call) which deposits {@code retryRatio} retries in the budget.
+   */
+  public void recordFirstAttempt() {
+    window.increment(FIRST_ATTEMPTS);
+  }
+
+  /**
+   * Withdraws a retry from the budget.
+   *
+   * @return whether the retry is allowed by the budget
+   */
+  public boolean tryAcquireRetry() {
+    if (getRemaining() >= 1) {
+      window.increment(RETRIES);
+      return true;
+    }
+    deniedRetries.increment();
+    return false;
+  }
+
+  /**
+   * @return the amount of retries remaining in the budget for the current window
+   */
+  public double getRemaining() {
+    return Math.max(0,
+        minRetries + retryRatio * window.sum(FIRST_ATTEMPTS) - window.sum(RETRIES));
+  }
+
+  /**
+   * @return the total amount of retries denied by the budget
+   */
+  public long getDeniedRetries() {
+    return deniedRetries.sum();
+  }
+
+  /**
+   * Exports the budget metrics:
+   * <pre>
+   *     <ul>
+   *         <li>metricName_retry_budget_remaining : the amount of retries remaining in the budget</li>
+   *         <li>metricName_retry_budget_denied : counts the retries denied by the budget</li>
+   *     </ul>
+   * </pre>
+   *
+   * @param registry   the monitoring registry
+   * @param metricName the name prefix for the metrics
+   */
+  public void bindTo(MeterRegistry registry, String metricName) {
+    Gauge.builder(metricName + "_retry_budget_remaining", this, RetryBudget::getRemaining)
+        .description("The amount of retries remaining in the retry budget")
+        .register(registry);
+    FunctionCounter.builder(metricName + "_retry_budget_denied", this,
+        RetryBudget::getDeniedRetries)
+        .description("Counts the retries denied by the retry budget")
+        .register(registry);
+  }
+}
@@ -0,0 +1,62 @@
+package com.findinpath.retry.policy;
+
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryPolicy;
+
+/**
+ * {@link RetryPolicy} which allows the retries of its delegate policy only as long as they fit in
+ * a shared {@link RetryBudget}.
+ * <p>
+ * The first attempt of every call is recorded in the budget when the retry context is opened.
+ * The retry policy may be asked several times whether a retry can be made (the {@link
+ * org.springframework.retry.support.RetryTemplate} does it before the backoff and before the next
+ * attempt), so the decision of the budget for a retry is kept in the retry context.
+ */
+public class RetryBudgetRetryPolicy implements RetryPolicy {
+
+  private static final String BUDGET_DECISION = "context.retry.budget.decision";
+
+  private final RetryPolicy delegate;
+  private final RetryBudget retryBudget;
+
+  public RetryBudgetRetryPolicy(RetryPolicy delegate, RetryBudget retryBudget) {
+    this.delegate = delegate;
+    this.retryBudget = retryBudget;
+  }
+
+  @Override
+  public boolean canRetry(RetryContext context) {
+    if (!delegate.canRetry(context)) {
+      return false;
+    }
+    int retryCount = context.getRetryCount();
+    if (retryCount == 0) {
+      return true;
+    }
+
+    // the decision is stored as the retry count (granted) or its negated value (denied)
+    var decision = context.getAttribute(BUDGET_DECISION);
+    if (decision != null && Math.abs((Integer) decision) == retryCount) {
+      return (Integer) decision > 0;
+    }
+    boolean granted = retryBudget.tryAcquireRetry();
+    context.setAttribute(BUDGET_DECISION, granted ? retryCount : -retryCount);
+    return granted;
+  }
+
+  @Override
+  public RetryContext open(RetryContext parent) {
+    retryBudget.recordFirstAttempt();
+    return delegate.open(parent);
+  }
+
+  @Override
+  public void close(RetryContext context) {
+    delegate.close(context);
+  }
+
+  @Override
+  public void registerThrowable(RetryContext context, Throwable throwable) {
+    delegate.registerThrowable(context, throwable);
+  }
+}
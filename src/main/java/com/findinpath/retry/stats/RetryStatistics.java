@@ -0,0 +1,284 @@
+package com.findinpath.retry.stats;
+
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.listener.RetryListenerSupport;
+
+/**
+ * In-process statistics of the calls made with a retry policy, fed by the retry listener
+ * notifications.
+ * <p>
+ * For each retried method (or retry context name when the retry context doesn't carry any method
+ * invocation), the calls, the attempts, the retries, the failures and the latency of the calls
+ * (including the retries) are counted over a sliding time window (e.g. : 60 buckets of one second)
+ * by a {@link SlidingWindowCounter}. The statistics of the method are attached to its {@link
+ * RetryMethodMetadata} when the retry context carries it, so that no lookup is needed for finding
+ * them.
+ * <p>
+ * The current retry ratio and error rate of the methods are cheap to read (e.g. : by adaptive
+ * retry policies) and can be published as gauges through {@link #bindTo(MeterRegistry, String)}.
+ */
+public class RetryStatistics extends RetryListenerSupport {
+
+  /**
+   * The retry context attribute holding the start time of the call.
+   */
+  private static final String CALL_START_TIME = "context.retry.statistics.start";
+
+  private static final String UNKNOWN_NAME = "unknown";
+  private static final String NONE = "none";
+  private static final String NAME_TAG_NAME = "name";
+  private static final String CLASS_TAG_NAME = "class";
+  private static final String METHOD_TAG_NAME = "method";
+
+  private static final int CALLS = 0;
+  private static final int ATTEMPTS = 1;
+  private static final int RETRIES = 2;
+  private static final int FAILURES = 3;
+  private static final int LATENCY_NANOS = 4;
+  private static final int CELLS = 5;
+
+  private final int bucketCount;
+  private final Duration windowDuration;
+  private final Clock clock;
+
+  /**
+   * Statistics of the contexts carrying a {@link MethodInvocation}, indexed by the invoked method.
+   */
+  private final ConcurrentMap<Method, MethodStatistics> methodStatisticsMap =
+      new ConcurrentHashMap<>();
+  /**
+   * Statistics of the contexts without a {@link MethodInvocation}, indexed by the context name.
+   */
+  private final ConcurrentMap<String, MethodStatistics> namedStatisticsMap =
+      new ConcurrentHashMap<>();
+
+  private volatile MeterRegistry registry;
+  private volatile String metricName;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param bucketCount    the amount of buckets the window is split into
+   * @param windowDuration the duration of the sliding window
+   * @param clock          the clock used for measuring the time
+   */
+  public RetryStatistics(int bucketCount, Duration windowDuration, Clock clock) {
+    this.bucketCount = bucketCount;
+    this.windowDuration = windowDuration;
+    this.clock = clock;
+  }
+
+  @Override
+  public <T, E extends Throwable> boolean open(RetryContext context,
+      RetryCallback<T, E> callback) {
+    context.setAttribute(CALL_START_TIME, clock.monotonicTime());
+    return true;
+  }
+
+  @Override
+  public <T, E extends Throwable> void onError(RetryContext context, RetryCallback<T, E> callback,
+      Throwable throwable) {
+    getStatistics(context).window.increment(ATTEMPTS);
+  }
+
+  @Override
+  public <T, E extends Throwable> void close(RetryContext context, RetryCallback<T, E> callback,
+      Throwable throwable) {
+    var window = getStatistics(context).window;
+    window.increment(CALLS);
+    // the failed attempts are counted as they happen, the retries once the call is complete
+    int failedAttempts = context.getRetryCount();
+    if (throwable == null) {
+      window.increment(ATTEMPTS);
+      window.add(RETRIES, failedAttempts);
+    } else {
+      window.increment(FAILURES);
+      window.add(RETRIES, Math.max(0, failedAttempts - 1));
+    }
+    var startTime = context.getAttribute(CALL_START_TIME);
+    if (startTime instanceof Long) {
+      window.add(LATENCY_NANOS, clock.monotonicTime() - (Long) startTime);
+    }
+  }
+
+  /**
+   * Retrieves the statistics of the method (or of the name) of the specified retry context.
+   *
+   * @param context the retry context
+   * @return the statistics
+   */
+  public MethodStatistics getStatistics(RetryContext context) {
+    var methodMetadata = RetryMethodMetadata.get(context);
+    if (methodMetadata != null) {
+      return methodMetadata.getAttachment(this,
+          metadata -> getStatistics(metadata.getLabel(), metadata.getMethod()));
+    }
+
+    var nameAttribute = context.getAttribute(RetryContext.NAME);
+    var name = nameAttribute == null ? UNKNOWN_NAME : nameAttribute.toString();
+    var methodInvocation = context
+        .getAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION);
+    return getStatistics(name,
+        methodInvocation == null ? null : ((MethodInvocation) methodInvocation).getMethod());
+  }
+
+  /**
+   * Retrieves the statistics of the specified method.
+   *
+   * @param method the retried method
+   * @return the statistics or {@code null} if the method wasn't retried yet
+   */
+  public MethodStatistics getStatistics(Method method) {
+    return methodStatisticsMap.get(method);
+  }
+
+  /**
+   * Publishes the statistics of each method (including the ones retried after this call) as the
+   * following gauges, tagged with the name, the class and the method of the retried call:
+   * <pre>
+   *     <ul>
+   *         <li>metricName_retry_ratio : the share of the attempts which are retries</li>
+   *         <li>metricName_error_rate : the share of the calls failed (even with retries)</li>
+   *     </ul>
+   * </pre>
+   *
+   * @param registry   the monitoring registry
+   * @param metricName the name prefix for the metrics
+   */
+  public void bindTo(MeterRegistry registry, String metricName) {
+    this.metricName = metricName;
+    this.registry = registry;
+    methodStatisticsMap.values().forEach(this::registerGauges);
+    namedStatisticsMap.values().forEach(this::registerGauges);
+  }
+
+  private MethodStatistics getStatistics(String name, Method method) {
+    if (method == null) {
+      var statistics = namedStatisticsMap.get(name);
+      if (statistics == null) {
+        statistics = namedStatisticsMap.computeIfAbsent(name,
+            key -> createStatistics(key, null));
+      }
+      return statistics;
+    }
+
+    // the method keeps the name under which it was retried first
+    var statistics = methodStatisticsMap.get(method);
+    if (statistics == null) {
+      statistics = methodStatisticsMap.computeIfAbsent(method,
+          key -> createStatistics(name, key));
+    }
+    return statistics;
+  }
+
+  private MethodStatistics createStatistics(String name, Method method) {
+    var statistics = new MethodStatistics(name, method,
+        new SlidingWindowCounter(CELLS, bucketCount, windowDuration, clock));
+    registerGauges(statistics);
+    return statistics;
+  }
+
+  private void registerGauges(MethodStatistics statistics) {
+    var currentRegistry = registry;
+    if (currentRegistry == null) {
+      return;
+    }
+    // registering the same gauges concurrently is harmless: the registry returns the same meter
+    Gauge.builder(metricName + "_retry_ratio", statistics, MethodStatistics::getRetryRatio)
+        .description("The share of the attempts which are retries over the sliding window")
+        .tag(NAME_TAG_NAME, statistics.name)
+        .tag(CLASS_TAG_NAME, statistics.className)
+        .tag(METHOD_TAG_NAME, statistics.methodName)
+        .register(currentRegistry);
+    Gauge.builder(metricName + "_error_rate", statistics, MethodStatistics::getErrorRate)
+        .description("The share of the calls failed (even with retries) over the sliding window")
+        .tag(NAME_TAG_NAME, statistics.name)
+        .tag(CLASS_TAG_NAME, statistics.className)
+        .tag(METHOD_TAG_NAME, statistics.methodName)
+        .register(currentRegistry);
+  }
+
+  /**
+   * The statistics of a retried method (or of a retry context name when the retry context doesn't
+   * carry any method invocation) over the sliding window.
+   */
+  public static final class MethodStatistics {
+
+    private final String name;
+    private final String className;
+    private final String methodName;
+    private final SlidingWindowCounter window;
+
+    MethodStatistics(String name, Method method, SlidingWindowCounter window) {
+      this.name = name;
+      this.className = method == null ? NONE : method.getDeclaringClass().getSimpleName();
+      this.methodName = method == null ? NONE : method.getName();
+      this.window = window;
+    }
+
+    /**
+     * @return the amount of completed calls
+     */
+    public long getCalls() {
+      return window.sum(CALLS);
+    }
+
+    /**
+     * @return the amount of attempts made for the calls
+     */
+    public long getAttempts() {
+      return window.sum(ATTEMPTS);
+    }
+
+    /**
+     * @return the amount of retries made for the completed calls
+     */
+    public long getRetries() {
+      return window.sum(RETRIES);
+    }
+
+    /**
+     * @return the amount of calls failed (even with retries)
+     */
+    public long getFailures() {
+      return window.sum(FAILURES);
+    }
+
+    /**
+     * @return the share of the attempts which are retries or {@code 0} when there are no attempts
+     */
+    public double getRetryRatio() {
+      long attempts = window.sum(ATTEMPTS);
+      return attempts == 0 ? 0 : Math.min(1, (double) window.sum(RETRIES) / attempts);
+    }
+
+    /**
+     * @return the share of the calls failed (even with retries) or {@code 0} when there are no
+     * calls
+     */
+    public double getErrorRate() {
+      long calls = window.sum(CALLS);
+      return calls == 0 ? 0 : (double) window.sum(FAILURES) / calls;
+    }
+
+    /**
+     * @return the mean latency of the calls (including the retries) in nanoseconds or {@code 0}
+     * when there are no calls
+     */
+    public double getMeanLatencyNanos() {
+      long calls = window.sum(CALLS);
+      return calls == 0 ? 0 : (double) window.sum(LATENCY_NANOS) / calls;
+    }
+  }
+}
@@ -0,0 +1,162 @@
+package com.findinpath.retry.stats;
+
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free set of counters over a sliding time window.
+ * <p>
+ * The window is split into a ring of buckets. Every bucket holds a striped {@link LongAdder} for
+ * each of the counters (cells) of the window, so that concurrent updates don't contend on the same
+ * memory location. A bucket is recycled (reset) by the first thread which touches it after its
+ * time slot has expired.
+ * <p>
+ * The sums over the completed buckets of the window are rolled up once per bucket time slot, so
+ * that reading a sum only adds the current bucket to the rollup instead of going through the whole
+ * ring. The reads are wait-free.
+ * <p>
+ * The sums are eventually consistent : updates made concurrently with the recycling of a bucket
+ * may get lost and the updates landing in a bucket right after its time slot has expired are
+ * taken into account only by the rollup of the next time slot. This is acceptable for the rate
+ * based decisions this class is meant for.
+ */
+public class SlidingWindowCounter {
+
+  private final Clock clock;
+  private final long bucketDurationNanos;
+  private final Bucket[] buckets;
+  private final int cellCount;
+  private volatile Rollup rollup;
+
+  /**
+   * The constructor for the class.
+   *
+   * @param cells          the amount of counters kept in the window
+   * @param bucketCount    the amount of buckets the window is split into
+   * @param windowDuration the duration of the window
+   * @param clock          the clock used for measuring the time
+   */
+  public SlidingWindowCounter(int cells, int bucketCount, Duration windowDuration, Clock clock) {
+    if (cells < 1 || bucketCount < 1) {
+      throw new IllegalArgumentException("At least one cell and one bucket must be configured");
+    }
+    this.clock = clock;
+    this.bucketDurationNanos = Math.max(1, windowDuration.toNanos() / bucketCount);
+    this.cellCount = cells;
+    this.rollup = new Rollup(Long.MIN_VALUE, new long[cells]);
+    this.buckets = new Bucket[bucketCount];
+    for (int i = 0; i < bucketCount; i++) {
+      buckets[i] = new Bucket(cells);
+    }
+  }
+
+  /**
+   * @return the duration of the window
+   */
+  public Duration getWindowDuration() {
+    return Duration.ofNanos(bucketDurationNanos * buckets.length);
+  }
+
+  public void increment(int cell) {
+    currentBucket().cells[cell].increment();
+  }
+
+  public void add(int cell, long value) {
+    currentBucket().cells[cell].add(value);
+  }
+
+  /**
+   * Sums the values of the specified cell in the buckets of the current window.
+   *
+   * @param cell the cell index
+   * @return the sum of the cell values
+   */
+  public long sum(int cell) {
+    long currentEpoch = currentEpoch();
+    var currentRollup = rollup;
+    if (currentRollup.epoch != currentEpoch) {
+      currentRollup = rollUp(currentEpoch);
+    }
+    var bucket = buckets[bucketIndex(currentEpoch)];
+    if (bucket.epoch.get() == currentEpoch) {
+      return currentRollup.sums[cell] + bucket.cells[cell].sum();
+    }
+    return currentRollup.sums[cell];
+  }
+
+  /**
+   * Sums the cells of the completed buckets of the current window. Concurrent rollups of the same
+   * time slot are harmless : they compute the same sums.
+   */
+  private Rollup rollUp(long currentEpoch) {
+    var sums = new long[cellCount];
+    for (Bucket bucket : buckets) {
+      long bucketEpoch = bucket.epoch.get();
+      if (bucketEpoch != currentEpoch && isInWindow(bucketEpoch, currentEpoch)) {
+        for (int cell = 0; cell < cellCount; cell++) {
+          sums[cell] += bucket.cells[cell].sum();
+        }
+      }
+    }
+    var currentRollup = new Rollup(currentEpoch, sums);
+    rollup = currentRollup;
+    return currentRollup;
+  }
+
+  private boolean isInWindow(long bucketEpoch, long currentEpoch) {
+    return bucketEpoch > currentEpoch - buckets.length && bucketEpoch <= currentEpoch;
+  }
+
+  private long currentEpoch() {
+    return Math.floorDiv(clock.monotonicTime(), bucketDurationNanos);
+  }
+
+  private int bucketIndex(long epoch) {
+    return (int) Math.floorMod(epoch, (long) buckets.length);
+  }
+
+  private Bucket currentBucket() {
+    long currentEpoch = currentEpoch();
+    var bucket = buckets[bucketIndex(currentEpoch)];
+    long bucketEpoch = bucket.epoch.get();
+    if (bucketEpoch < currentEpoch && bucket.epoch.compareAndSet(bucketEpoch, currentEpoch)) {
+      bucket.reset();
+    }
+    return bucket;
+  }
+
+  private static class Bucket {
+
+    private final AtomicLong epoch = new AtomicLong(Long.MIN_VALUE);
+    private final LongAdder[] cells;
+
+    Bucket(int cellCount) {
+      cells = new LongAdder[cellCount];
+      for (int i = 0; i < cellCount; i++) {
+        cells[i] = new LongAdder();
+      }
+    }
+
+    void reset() {
+      for (LongAdder cell : cells) {
+        cell.reset();
+      }
+    }
+  }
+
+  /**
+   * The sums of the cells over the completed buckets of the window of a time slot.
+   */
+  private static class Rollup {
+
+    private final long epoch;
+    private final long[] sums;
+
+    Rollup(long epoch, long[] sums) {
+      this.epoch = epoch;
+      this.sums = sums;
+    }
+  }
+}
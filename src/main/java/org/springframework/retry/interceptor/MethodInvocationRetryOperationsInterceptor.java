@@ -1,7 +1,25 @@
 package org.springframework.retry.interceptor;
 
 
+import com.findinpath.micrometer.core.aop.MethodTimerCache;
+import com.findinpath.retry.circuitbreaker.CircuitBreaker;
+import com.findinpath.retry.circuitbreaker.CircuitBreakerOpenException;
+import com.findinpath.retry.circuitbreaker.CircuitBreakerRegistry;
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.deadline.TimeBudgets;
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import com.findinpath.retry.listener.RetryAttemptTimings;
+import com.findinpath.retry.policy.ExceptionClassification;
+import com.findinpath.retry.policy.ExceptionClassifierRetryPolicy;
+import io.micrometer.core.instrument.Clock;
+import java.lang.reflect.Method;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 import org.springframework.aop.ProxyMethodInvocation;
@@ -25,6 +43,34 @@ import org.springframework.util.StringUtils;
  * <pre>
  * context.setAttribute(METHOD_INVOCATION, invocation);
  * </pre>
+ * <p>
+ * The label of the retries is resolved once per method along with the other {@link
+ * RetryMethodMetadata} of the method, which is added as well in the {@link RetryContext}.
+ * <p>
+ * Optionally, the attempts can be guarded by the {@link CircuitBreaker} of the invoked method. When
+ * the circuit breaker doesn't permit an attempt, the retry context is marked as exhausted and a
+ * {@link CircuitBreakerOpenException} is thrown, so that the call fails fast instead of going
+ * through the whole backoff schedule. The attempts failing with an exception classified as {@link
+ * ExceptionClassification#NON_RETRYABLE} by the {@link ExceptionClassifierRetryPolicy} (when
+ * present) are recorded as successful, because the called service did answer.
+ * <p>
+ * The start of each attempt is stamped in the {@link RetryAttemptTimings} of the retry context
+ * (when present) in order to tell apart the duration of the attempts from the backoff time.
+ * <p>
+ * Optionally, the calls can be given a time budget (per call, per method or by default, see {@link
+ * TimeBudgets}). The {@link RetryDeadline} of the call is added in the {@link RetryContext} for the
+ * backoff policy (see {@link com.findinpath.retry.backoff.DeadlineAwareBackOffPolicy}) and, when
+ * the call is not retried anymore because of its deadline, a {@link RetryDeadlineExceededException}
+ * is thrown.
+ * <p>
+ * Optionally, the calls (including the retries) and each of their attempts can be timed through
+ * {@link MethodTimerCache} instances, so that a single interceptor composes the timing of the call,
+ * the retries and the timing of the attempts instead of a chain of three interceptors.
+ * <p>
+ * The state of a call shared by its attempts is held by a single retry callback object, which
+ * clones the method invocation once per attempt. The call and its attempts are timed out of the
+ * monotonic time of the clock instead of {@link io.micrometer.core.instrument.Timer.Sample}
+ * instances.
  *
  * @see RetryOperationsInterceptor
  */
@@ -41,8 +87,26 @@ public class MethodInvocationRetryOperationsInterceptor implements MethodInterce
 
   private String label;
 
+  private CircuitBreakerRegistry circuitBreakerRegistry;
+
+  private Function<RetryMethodMetadata, CircuitBreaker> circuitBreakerFactory;
+
+  private ExceptionClassifierRetryPolicy exceptionClassifierRetryPolicy;
+
+  private Clock clock = Clock.SYSTEM;
+
+  private TimeBudgets timeBudgets;
+
+  private MethodTimerCache callTimers;
+
+  private MethodTimerCache attemptTimers;
+
+  private final ConcurrentMap<Method, RetryMethodMetadata> methodMetadataMap =
+      new ConcurrentHashMap<>();
+
   public void setLabel(String label) {
     this.label = label;
+    this.methodMetadataMap.clear();
   }
 
   public void setRetryOperations(RetryOperations retryTemplate) {
@@ -54,55 +118,122 @@ public class MethodInvocationRetryOperationsInterceptor implements MethodInterce
     this.recoverer = recoverer;
   }
 
+  public void setCircuitBreakerRegistry(CircuitBreakerRegistry circuitBreakerRegistry) {
+    this.circuitBreakerRegistry = circuitBreakerRegistry;
+    this.circuitBreakerFactory = circuitBreakerRegistry == null ? null
+        : metadata -> circuitBreakerRegistry.getCircuitBreaker(metadata.getLabel(),
+            metadata.getMethod());
+  }
+
+  public void setExceptionClassifierRetryPolicy(
+      ExceptionClassifierRetryPolicy exceptionClassifierRetryPolicy) {
+    this.exceptionClassifierRetryPolicy = exceptionClassifierRetryPolicy;
+  }
+
+  public void setClock(Clock clock) {
+    Assert.notNull(clock, "'clock' cannot be null.");
+    this.clock = clock;
+  }
+
+  public void setTimeBudgets(TimeBudgets timeBudgets) {
+    this.timeBudgets = timeBudgets;
+  }
+
+  public void setCallTimers(MethodTimerCache callTimers) {
+    this.callTimers = callTimers;
+  }
+
+  public void setAttemptTimers(MethodTimerCache attemptTimers) {
+    this.attemptTimers = attemptTimers;
+  }
+
   public Object invoke(final MethodInvocation invocation) throws Throwable {
 
-    String name;
-    if (StringUtils.hasText(label)) {
-      name = label;
-    } else {
-      name = invocation.getMethod().toGenericString();
+    /**
+     *  BEGINNING OF TIMING ENHANCEMENT
+     */
+    final MethodTimerCache callTimers = this.callTimers;
+    if (callTimers == null) {
+      return invokeWithRetries(invocation);
     }
-    final String label = name;
-
-    RetryCallback<Object, Throwable> retryCallback = new RetryCallback<Object, Throwable>() {
-
-      public Object doWithRetry(RetryContext context) throws Exception {
-
-        context.setAttribute(RetryContext.NAME, label);
-
-        /**
-         *  BEGINNING OF CONTEXT ENHANCEMENT
-         */
-        context.setAttribute(METHOD_INVOCATION, invocation);
-        /**
-         *  END OF CONTEXT ENHANCEMENT
-         */
-
-        /*
-         * If we don't copy the invocation carefully it won't keep a reference to
-         * the other interceptors in the chain. We don't have a choice here but to
-         * specialise to ReflectiveMethodInvocation (but how often would another
-         * implementation come along?).
-         */
-        if (invocation instanceof ProxyMethodInvocation) {
-          try {
-            return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
-          } catch (Exception e) {
-            throw e;
-          } catch (Error e) {
-            throw e;
-          } catch (Throwable e) {
-            throw new IllegalStateException(e);
-          }
-        } else {
-          throw new IllegalStateException(
-              "MethodInvocation of the wrong type detected - this should not happen with Spring AOP, "
-                  +
-                  "so please raise an issue if you see this exception");
-        }
+    final long startTime = clock.monotonicTime();
+    Class<? extends Exception> exceptionClass = null;
+    try {
+      return invokeWithRetries(invocation);
+    } catch (Exception e) {
+      exceptionClass = e.getClass();
+      throw e;
+    } finally {
+      callTimers.getTimer(invocation.getMethod(), exceptionClass)
+          .record(clock.monotonicTime() - startTime, TimeUnit.NANOSECONDS);
+    }
+    /**
+     *  END OF TIMING ENHANCEMENT
+     */
+  }
+
+  private Object invokeWithRetries(final MethodInvocation invocation) throws Throwable {
+
+    /**
+     *  BEGINNING OF METHOD METADATA ENHANCEMENT
+     */
+    final RetryMethodMetadata methodMetadata = getMethodMetadata(invocation.getMethod());
+    final String label = methodMetadata.getLabel();
+    /**
+     *  END OF METHOD METADATA ENHANCEMENT
+     */
+
+    /**
+     *  BEGINNING OF DEADLINE ENHANCEMENT
+     */
+    final TimeBudgets timeBudgets = this.timeBudgets;
+    final Duration callTimeBudget = timeBudgets == null ? null
+        : timeBudgets.get(methodMetadata.getMethodName());
+    final RetryDeadline deadline = callTimeBudget == null ? null
+        : new RetryDeadline(clock, callTimeBudget);
+    /**
+     *  END OF DEADLINE ENHANCEMENT
+     */
+
+    /**
+     *  BEGINNING OF CIRCUIT BREAKER ENHANCEMENT
+     */
+    final CircuitBreakerRegistry circuitBreakerRegistry = this.circuitBreakerRegistry;
+    final CircuitBreaker circuitBreaker = circuitBreakerRegistry == null ? null
+        : methodMetadata.getAttachment(circuitBreakerRegistry, circuitBreakerFactory);
+    /**
+     *  END OF CIRCUIT BREAKER ENHANCEMENT
+     */
+
+    /**
+     *  BEGINNING OF FUSED CALLBACK ENHANCEMENT
+     */
+    final MethodInvocationRetryCallback retryCallback = new MethodInvocationRetryCallback(
+        invocation, methodMetadata, deadline, circuitBreaker, exceptionClassifierRetryPolicy,
+        attemptTimers, clock);
+    /**
+     *  END OF FUSED CALLBACK ENHANCEMENT
+     */
+
+    /**
+     *  BEGINNING OF DEADLINE ENHANCEMENT
+     */
+    try {
+      return execute(invocation, retryCallback);
+    } catch (Throwable e) {
+      if (deadline != null && deadline.isExceeded()) {
+        throw new RetryDeadlineExceededException("The time budget of " + callTimeBudget.toMillis()
+            + " ms for " + label + " does not leave enough time for another attempt", e);
       }
+      throw e;
+    }
+    /**
+     *  END OF DEADLINE ENHANCEMENT
+     */
+  }
 
-    };
+  private Object execute(final MethodInvocation invocation,
+      final RetryCallback<Object, Throwable> retryCallback) throws Throwable {
 
     if (recoverer != null) {
       ItemRecovererCallback recoveryCallback = new ItemRecovererCallback(
@@ -111,10 +242,158 @@ public class MethodInvocationRetryOperationsInterceptor implements MethodInterce
     }
 
     return this.retryOperations.execute(retryCallback);
+  }
 
+  private RetryMethodMetadata getMethodMetadata(Method method) {
+    RetryMethodMetadata methodMetadata = methodMetadataMap.get(method);
+    if (methodMetadata == null) {
+      methodMetadata = methodMetadataMap.computeIfAbsent(method,
+          key -> new RetryMethodMetadata(
+              StringUtils.hasText(label) ? label : key.toGenericString(), key));
+    }
+    return methodMetadata;
   }
 
 
+  /**
+   * The retry callback of a single call of the advised method. It holds all the state of the call
+   * which is shared by its attempts (instead of an anonymous callback capturing it), so that the
+   * callback is the only object allocated by this interceptor for a call without time budget.
+   */
+  private static final class MethodInvocationRetryCallback implements
+      RetryCallback<Object, Throwable> {
+
+    private final MethodInvocation invocation;
+    private final RetryMethodMetadata methodMetadata;
+    private final RetryDeadline deadline;
+    private final CircuitBreaker circuitBreaker;
+    private final ExceptionClassifierRetryPolicy exceptionClassifierRetryPolicy;
+    private final MethodTimerCache attemptTimers;
+    private final Clock clock;
+
+    private MethodInvocationRetryCallback(MethodInvocation invocation,
+        RetryMethodMetadata methodMetadata, RetryDeadline deadline, CircuitBreaker circuitBreaker,
+        ExceptionClassifierRetryPolicy exceptionClassifierRetryPolicy,
+        MethodTimerCache attemptTimers, Clock clock) {
+      this.invocation = invocation;
+      this.methodMetadata = methodMetadata;
+      this.deadline = deadline;
+      this.circuitBreaker = circuitBreaker;
+      this.exceptionClassifierRetryPolicy = exceptionClassifierRetryPolicy;
+      this.attemptTimers = attemptTimers;
+      this.clock = clock;
+    }
+
+    public Object doWithRetry(RetryContext context) throws Exception {
+
+      context.setAttribute(RetryContext.NAME, methodMetadata.getLabel());
+
+      /**
+       *  BEGINNING OF CONTEXT ENHANCEMENT
+       */
+      context.setAttribute(METHOD_INVOCATION, invocation);
+      context.setAttribute(RetryMethodMetadata.RETRY_METHOD_METADATA, methodMetadata);
+      if (deadline != null) {
+        context.setAttribute(RetryDeadline.RETRY_DEADLINE, deadline);
+      }
+      /**
+       *  END OF CONTEXT ENHANCEMENT
+       */
+
+      /**
+       *  BEGINNING OF ATTEMPT TIMING ENHANCEMENT
+       */
+      RetryAttemptTimings.attemptStarted(context);
+      /**
+       *  END OF ATTEMPT TIMING ENHANCEMENT
+       */
+
+      /**
+       *  BEGINNING OF CIRCUIT BREAKER ENHANCEMENT
+       */
+      if (circuitBreaker != null) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+          context.setExhaustedOnly();
+          throw new CircuitBreakerOpenException("The circuit breaker for "
+              + methodMetadata.getLabel() + " does not permit further calls");
+        }
+        try {
+          Object result = proceed();
+          circuitBreaker.onSuccess();
+          return result;
+        } catch (Exception | Error e) {
+          if (isNonRetryable(e)) {
+            // the service did answer, the call itself is wrong
+            circuitBreaker.onSuccess();
+          } else {
+            circuitBreaker.onError();
+          }
+          throw e;
+        }
+      }
+      /**
+       *  END OF CIRCUIT BREAKER ENHANCEMENT
+       */
+
+      return proceed();
+    }
+
+    private boolean isNonRetryable(Throwable throwable) {
+      return exceptionClassifierRetryPolicy != null && exceptionClassifierRetryPolicy
+          .getClassifier(methodMetadata.getMethod())
+          .classify(throwable) == ExceptionClassification.NON_RETRYABLE;
+    }
+
+    private Object proceed() throws Exception {
+
+      /*
+       * If we don't copy the invocation carefully it won't keep a reference to
+       * the other interceptors in the chain. We don't have a choice here but to
+       * specialise to ReflectiveMethodInvocation (but how often would another
+       * implementation come along?).
+       */
+      if (invocation instanceof ProxyMethodInvocation) {
+        try {
+          /**
+           *  BEGINNING OF TIMING ENHANCEMENT
+           */
+          if (attemptTimers != null) {
+            return proceedTimed((ProxyMethodInvocation) invocation);
+          }
+          /**
+           *  END OF TIMING ENHANCEMENT
+           */
+          return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+        } catch (Exception e) {
+          throw e;
+        } catch (Error e) {
+          throw e;
+        } catch (Throwable e) {
+          throw new IllegalStateException(e);
+        }
+      } else {
+        throw new IllegalStateException(
+            "MethodInvocation of the wrong type detected - this should not happen with Spring AOP, "
+                +
+                "so please raise an issue if you see this exception");
+      }
+    }
+
+    private Object proceedTimed(ProxyMethodInvocation invocation) throws Throwable {
+      final long startTime = clock.monotonicTime();
+      Class<? extends Exception> exceptionClass = null;
+      try {
+        return invocation.invocableClone().proceed();
+      } catch (Exception e) {
+        exceptionClass = e.getClass();
+        throw e;
+      } finally {
+        attemptTimers.getTimer(invocation.getMethod(), exceptionClass)
+            .record(clock.monotonicTime() - startTime, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
   /**
    * @author Dave Syer
    */
@@ -0,0 +1,225 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.circuitbreaker.CircuitBreakerOpenException;
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+public class GithubApiCircuitBreakerTest {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String BLOG_REPOSITORY_NAME = "blog";
+  private static final long OPEN_DURATION_MILLIS = 5000;
+
+  private AnnotationConfigApplicationContext context;
+  private MockClock clock;
+  private MeterRegistry meterRegistry;
+  private OutageSimulatingRestClient restClient;
+  private GithubApi githubApi;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        GithubApiCircuitBreakerTest.TestConfiguration.class);
+    clock = context.getBean(MockClock.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    restClient = context.getBean(OutageSimulatingRestClient.class);
+    githubApi = context.getBean(GithubApi.class);
+  }
+
+  @AfterEach
+  public void after() {
+    context.close();
+  }
+
+  @Test
+  public void circuitBreakerFailsFastDuringOutageAndClosesAfterRecovery() {
+    restClient.outage = true;
+
+    // the first call goes through all its attempts without reaching the minimum calls
+    assertThrows(IllegalStateException.class, this::getBlogRepository);
+    // the first attempt of the second call opens the circuit breaker
+    assertThrows(CircuitBreakerOpenException.class, this::getBlogRepository);
+    // the third call fails fast
+    assertThrows(CircuitBreakerOpenException.class, this::getBlogRepository);
+    assertThat(restClient.calls.get(), equalTo(4));
+    assertThat(getStateGauge("open").value(), equalTo(1.0));
+    assertThat(getRejectedCounter().count(), equalTo(2.0));
+
+    var circuitBreakerOpenFailures = getExactlyOneMeter(meterRegistry.getMeters(),
+        API_METRIC_NAME + "_failures",
+        Counter.class,
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"),
+        Tag.of(MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME, "CircuitBreakerOpenException"));
+    assertThat(circuitBreakerOpenFailures.count(), equalTo(2.0));
+
+    // the service recovers and the circuit breaker probes it after the open duration
+    restClient.outage = false;
+    clock.add(OPEN_DURATION_MILLIS + 1, TimeUnit.MILLISECONDS);
+    for (int i = 0; i < TestConfiguration.HALF_OPEN_CALLS; i++) {
+      assertThat(getBlogRepository().getName(), equalTo(BLOG_REPOSITORY_NAME));
+    }
+
+    assertThat(getStateGauge("closed").value(), equalTo(1.0));
+    assertThat(getStateGauge("open").value(), equalTo(0.0));
+    assertThat(getTransitionsCounter("closed", "open").count(), equalTo(1.0));
+    assertThat(getTransitionsCounter("open", "half_open").count(), equalTo(1.0));
+    assertThat(getTransitionsCounter("half_open", "closed").count(), equalTo(1.0));
+  }
+
+  @Test
+  public void failedProbeReopensTheCircuitBreaker() {
+    restClient.outage = true;
+    assertThrows(IllegalStateException.class, this::getBlogRepository);
+    assertThrows(CircuitBreakerOpenException.class, this::getBlogRepository);
+
+    clock.add(OPEN_DURATION_MILLIS + 1, TimeUnit.MILLISECONDS);
+
+    // the probe fails and the retry of the probe is rejected
+    assertThrows(CircuitBreakerOpenException.class, this::getBlogRepository);
+    assertThat(restClient.calls.get(), equalTo(5));
+    assertThat(getStateGauge("open").value(), equalTo(1.0));
+    assertThat(getTransitionsCounter("half_open", "open").count(), equalTo(1.0));
+  }
+
+  @Test
+  public void nonRetryableFailuresDoNotOpenTheCircuitBreaker() {
+    restClient.notFound = true;
+
+    for (int i = 0; i < 6; i++) {
+      assertThrows(ClientErrorException.class, this::getBlogRepository);
+    }
+    // the calls rejected because of the request itself are not retried
+    assertThat(restClient.calls.get(), equalTo(6));
+    assertThat(getStateGauge("closed").value(), equalTo(1.0));
+    assertThat(getRejectedCounter().count(), equalTo(0.0));
+  }
+
+  private GithubRepository getBlogRepository() {
+    return githubApi.getOrganisationRepository(ORGANISATION_NAME, BLOG_REPOSITORY_NAME);
+  }
+
+  private Gauge getStateGauge(String state) {
+    return getExactlyOneMeter(meterRegistry.getMeters(),
+        API_METRIC_NAME + "_circuit_breaker_state",
+        Gauge.class,
+        Tag.of(MicrometerRetryListenerSupport.CLASS_TAG_NAME, "GithubApi"),
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"),
+        Tag.of("state", state));
+  }
+
+  private FunctionCounter getRejectedCounter() {
+    return getExactlyOneMeter(meterRegistry.getMeters(),
+        API_METRIC_NAME + "_circuit_breaker_rejected",
+        FunctionCounter.class,
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"));
+  }
+
+  private Counter getTransitionsCounter(String from, String to) {
+    return getExactlyOneMeter(meterRegistry.getMeters(),
+        API_METRIC_NAME + "_circuit_breaker_transitions",
+        Counter.class,
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"),
+        Tag.of("from", from),
+        Tag.of("to", to));
+  }
+
+  /**
+   * {@link RestClient} stub which fails all the calls while an outage is simulated and rejects
+   * them while the repository is missing.
+   */
+  static class OutageSimulatingRestClient implements RestClient {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile boolean outage;
+    private volatile boolean notFound;
+
+    @Override
+    public <T> T getForEntity(String url, Class<T> responseType) {
+      calls.incrementAndGet();
+      if (outage) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      if (notFound) {
+        throw new ClientErrorException("Not Found", 404);
+      }
+      try {
+        return responseType.cast(new GithubRepository(BLOG_REPOSITORY_NAME,
+            new URL("https://github.com/findinpath/blog"),
+            false));
+      } catch (MalformedURLException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    static final int HALF_OPEN_CALLS = 3;
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", "3");
+      properties.setProperty("github.api.retry.initialBackoffTime", "1");
+      properties.setProperty("github.api.retry.circuitBreaker.enabled", "true");
+      properties.setProperty("github.api.retry.circuitBreaker.failureRateThreshold", "0.5");
+      properties.setProperty("github.api.retry.circuitBreaker.minimumCalls", "4");
+      properties.setProperty("github.api.retry.circuitBreaker.openDurationMillis",
+          Long.toString(OPEN_DURATION_MILLIS));
+      properties.setProperty("github.api.retry.circuitBreaker.halfOpenCalls",
+          Integer.toString(HALF_OPEN_CALLS));
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MockClock clock() {
+      return new MockClock();
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry(MockClock clock) {
+      return new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    }
+
+    @Bean
+    public OutageSimulatingRestClient restClient() {
+      return new OutageSimulatingRestClient();
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+  }
+}
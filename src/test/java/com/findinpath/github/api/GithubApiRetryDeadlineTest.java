@@ -0,0 +1,180 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+public class GithubApiRetryDeadlineTest {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String BLOG_REPOSITORY_NAME = "blog";
+  private static final long METHOD_TIME_BUDGET_MILLIS = 1000;
+  private static final long FAILED_CALL_MILLIS = 400;
+  private static final long SUCCESSFUL_CALL_MILLIS = 300;
+
+  private AnnotationConfigApplicationContext context;
+  private MeterRegistry meterRegistry;
+  private SlowRestClient restClient;
+  private GithubApi githubApi;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        GithubApiRetryDeadlineTest.TestConfiguration.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    restClient = context.getBean(SlowRestClient.class);
+    githubApi = context.getBean(GithubApi.class);
+  }
+
+  @AfterEach
+  public void after() {
+    context.close();
+  }
+
+  @Test
+  public void retriesStopWhenTheNextAttemptWouldExceedTheMethodTimeBudget() {
+    restClient.outage = true;
+
+    var exception = assertThrows(RetryDeadlineExceededException.class, this::getBlogRepository);
+
+    // the third attempt ends after the time budget : there's no time left for a fourth attempt
+    assertThat(restClient.calls.get(), equalTo(3));
+    assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+    assertThat(getDeadlineExceededFailures().count(), equalTo(1.0));
+  }
+
+  @Test
+  public void timeBudgetOfTheCallOverridesTheMethodTimeBudget() {
+    restClient.outage = true;
+
+    assertThrows(RetryDeadlineExceededException.class,
+        () -> RetryDeadline.callWithTimeBudget(Duration.ofMillis(500), this::getBlogRepository));
+
+    assertThat(restClient.calls.get(), equalTo(2));
+    assertThat(getDeadlineExceededFailures().count(), equalTo(1.0));
+  }
+
+  @Test
+  public void expectedLatencyOfTheAttemptsIsTakenIntoAccount() {
+    for (int i = 0; i < 10; i++) {
+      assertThat(getBlogRepository().getName(), equalTo(BLOG_REPOSITORY_NAME));
+    }
+    restClient.calls.set(0);
+    restClient.outage = true;
+
+    assertThrows(RetryDeadlineExceededException.class, this::getBlogRepository);
+
+    // the time remaining after the second attempt is shorter than the expected latency
+    assertThat(restClient.calls.get(), equalTo(2));
+  }
+
+  private GithubRepository getBlogRepository() {
+    return githubApi.getOrganisationRepository(ORGANISATION_NAME, BLOG_REPOSITORY_NAME);
+  }
+
+  private Counter getDeadlineExceededFailures() {
+    return getExactlyOneMeter(meterRegistry.getMeters(),
+        API_METRIC_NAME + "_failures",
+        Counter.class,
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"),
+        Tag.of(MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME,
+            "RetryDeadlineExceededException"));
+  }
+
+  /**
+   * {@link RestClient} stub whose calls advance the mock clock, failing while an outage is
+   * simulated.
+   */
+  static class SlowRestClient implements RestClient {
+
+    private final MockClock clock;
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile boolean outage;
+
+    SlowRestClient(MockClock clock) {
+      this.clock = clock;
+    }
+
+    @Override
+    public <T> T getForEntity(String url, Class<T> responseType) {
+      calls.incrementAndGet();
+      if (outage) {
+        clock.add(FAILED_CALL_MILLIS, TimeUnit.MILLISECONDS);
+        throw new IllegalStateException("Service unavailable");
+      }
+      clock.add(SUCCESSFUL_CALL_MILLIS, TimeUnit.MILLISECONDS);
+      try {
+        return responseType.cast(new GithubRepository(BLOG_REPOSITORY_NAME,
+            new URL("https://github.com/findinpath/blog"),
+            false));
+      } catch (MalformedURLException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", "5");
+      properties.setProperty("github.api.retry.initialBackoffTime", "1");
+      properties.setProperty("github.api.retry.deadline.methodTimeBudgetMillis",
+          "getOrganisationRepository=" + METHOD_TIME_BUDGET_MILLIS);
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MockClock clock() {
+      return new MockClock();
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry(MockClock clock) {
+      return new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    }
+
+    @Bean
+    public SlowRestClient restClient(MockClock clock) {
+      return new SlowRestClient(clock);
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+  }
+}
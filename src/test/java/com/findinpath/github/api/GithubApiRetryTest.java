@@ -166,6 +166,18 @@ public class GithubApiRetryTest {
         Tag.of(MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME, "IllegalStateException"));
     assertThat(githubApiRetriesCounter.count(), equalTo((double) 1));
 
+    var githubApiAttemptTimer = getExactlyOneMeter(meters, API_METRIC_NAME + "_attempt",
+        Timer.class,
+        Tag.of(MicrometerRetryListenerSupport.CLASS_TAG_NAME, "GithubApi"),
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"));
+    var githubApiBackOffTimer = getExactlyOneMeter(meters, API_METRIC_NAME + "_backoff",
+        Timer.class,
+        Tag.of(MicrometerRetryListenerSupport.CLASS_TAG_NAME, "GithubApi"),
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"));
+    assertThat(githubApiAttemptTimer.count(), equalTo(2L));
+    assertThat(githubApiBackOffTimer.count(), equalTo(1L));
+    assertThat(githubApiBackOffTimer.max(TimeUnit.MILLISECONDS),
+        greaterThan((double) GithubApiRetryTest.TestConfiguration.INITIAL_BACKOFF_TIME));
   }
 
 
@@ -0,0 +1,180 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.github.api.GithubApi.API_URL;
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+public class GithubApiSingleFlightTest {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String BLOG_REPOSITORY_NAME = "blog";
+  private static final String BLOG_REPOSITORY_URL =
+      API_URL + "orgs/" + ORGANISATION_NAME + "/repos/" + BLOG_REPOSITORY_NAME;
+  private static final int CALLERS = 8;
+
+  private AnnotationConfigApplicationContext context;
+  private MeterRegistry meterRegistry;
+  private RestClient restClient;
+  private GithubApi githubApi;
+  private ExecutorService executor;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        GithubApiSingleFlightTest.TestConfiguration.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    restClient = context.getBean(RestClient.class);
+    githubApi = context.getBean(GithubApi.class);
+    executor = Executors.newFixedThreadPool(CALLERS);
+  }
+
+  @AfterEach
+  public void after() {
+    executor.shutdownNow();
+    context.close();
+  }
+
+  @Test
+  public void concurrentIdenticalCallsShareTheResultOfASingleApiCall() throws Exception {
+    var blogRepository = new GithubRepository(BLOG_REPOSITORY_NAME,
+        new URL("https://github.com/findinpath/blog"),
+        false);
+    var apiCallRelease = new CountDownLatch(1);
+    when(restClient.getForEntity(eq(BLOG_REPOSITORY_URL), eq(GithubRepository.class)))
+        .thenAnswer(invocationOnMock -> {
+          apiCallRelease.await();
+          return blogRepository;
+        });
+
+    var results = callConcurrently();
+    awaitCoalescedCalls(CALLERS - 1);
+    apiCallRelease.countDown();
+
+    for (var result : results) {
+      assertThat(result.get(5, TimeUnit.SECONDS), equalTo(blogRepository));
+    }
+    verify(restClient, times(1))
+        .getForEntity(eq(BLOG_REPOSITORY_URL), eq(GithubRepository.class));
+  }
+
+  @Test
+  public void concurrentIdenticalCallsShareTheFailureOfASingleRetrySequence() throws Exception {
+    var apiCallRelease = new CountDownLatch(1);
+    when(restClient.getForEntity(eq(BLOG_REPOSITORY_URL), eq(GithubRepository.class)))
+        .thenAnswer(invocationOnMock -> {
+          apiCallRelease.await();
+          throw new IllegalStateException("Internal server error");
+        });
+
+    var results = callConcurrently();
+    awaitCoalescedCalls(CALLERS - 1);
+    apiCallRelease.countDown();
+
+    for (var result : results) {
+      var exception = assertThrows(ExecutionException.class,
+          () -> result.get(5, TimeUnit.SECONDS));
+      assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+    }
+    verify(restClient, times(TestConfiguration.MAX_ATTEMPTS))
+        .getForEntity(eq(BLOG_REPOSITORY_URL), eq(GithubRepository.class));
+  }
+
+  private List<Future<GithubRepository>> callConcurrently() {
+    var results = new ArrayList<Future<GithubRepository>>();
+    for (int i = 0; i < CALLERS; i++) {
+      results.add(executor.submit(
+          () -> githubApi.getOrganisationRepository(ORGANISATION_NAME, BLOG_REPOSITORY_NAME)));
+    }
+    return results;
+  }
+
+  private void awaitCoalescedCalls(int expectedCoalescedCalls) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (getCoalescedCalls() < expectedCoalescedCalls) {
+      if (System.nanoTime() > deadline) {
+        throw new AssertionError("The concurrent calls have not been coalesced");
+      }
+      Thread.sleep(5);
+    }
+  }
+
+  private double getCoalescedCalls() {
+    try {
+      return getExactlyOneMeter(meterRegistry.getMeters(), API_METRIC_NAME + "_coalesced",
+          Counter.class,
+          Tag.of(MicrometerRetryListenerSupport.CLASS_TAG_NAME, "GithubApi"),
+          Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"))
+          .count();
+    } catch (IllegalArgumentException e) {
+      // the counter is registered on the first coalesced call
+      return 0;
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    static final int MAX_ATTEMPTS = 3;
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", Integer.toString(MAX_ATTEMPTS));
+      properties.setProperty("github.api.retry.initialBackoffTime", "1");
+      properties.setProperty("github.api.retry.singleFlight.enabled", "true");
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public RestClient restClient() {
+      return mock(RestClient.class);
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+  }
+}
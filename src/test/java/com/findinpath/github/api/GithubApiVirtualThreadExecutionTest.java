@@ -0,0 +1,158 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.github.api.GithubApi.API_URL;
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_RETRY_METRIC_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+public class GithubApiVirtualThreadExecutionTest {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String BLOG_REPOSITORY_NAME = "blog";
+
+  private AnnotationConfigApplicationContext context;
+  private MeterRegistry meterRegistry;
+  private RestClient restClient;
+  private GithubApi githubApi;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        GithubApiVirtualThreadExecutionTest.TestConfiguration.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    restClient = context.getBean(RestClient.class);
+    githubApi = context.getBean(GithubApi.class);
+  }
+
+  @AfterEach
+  public void after() {
+    context.close();
+  }
+
+  @Test
+  public void retriedApiCallRunsOutsideOfTheCallingThread() throws Exception {
+    var blogRepository = new GithubRepository(BLOG_REPOSITORY_NAME,
+        new URL("https://github.com/findinpath/blog"),
+        false);
+    var apiCallThread = new AtomicReference<Thread>();
+    when(restClient.getForEntity(
+        eq(API_URL + "orgs/" + ORGANISATION_NAME + "/repos/" + BLOG_REPOSITORY_NAME),
+        eq(GithubRepository.class))
+    ).thenThrow(new IllegalStateException("Internal server error"))
+        .thenAnswer(invocationOnMock -> {
+          apiCallThread.set(Thread.currentThread());
+          return blogRepository;
+        });
+
+    var repository = githubApi.getOrganisationRepository(ORGANISATION_NAME, BLOG_REPOSITORY_NAME);
+    assertThat(repository, equalTo(blogRepository));
+    assertThat(apiCallThread.get(), not(sameInstance(Thread.currentThread())));
+
+    var meters = meterRegistry.getMeters();
+    var githubApiTimer = getExactlyOneMeter(meters, API_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "none"),
+        Tag.of("class", "GithubApi"),
+        Tag.of("method", "getOrganisationRepository"));
+    var githubApiExceptionTimer = getExactlyOneMeter(meters, API_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "GithubApi"),
+        Tag.of("method", "getOrganisationRepository"));
+    var githubApiRetryTimer = getExactlyOneMeter(meters, API_RETRY_METRIC_NAME,
+        Timer.class,
+        Tag.of("class", "GithubApi"),
+        Tag.of("method", "getOrganisationRepository"));
+    assertThat(githubApiTimer.count(), equalTo(1L));
+    assertThat(githubApiExceptionTimer.count(), equalTo(1L));
+    assertThat(githubApiRetryTimer.count(), equalTo(1L));
+
+    var githubApiRetriesCounter = getExactlyOneMeter(meters, API_METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(MicrometerRetryListenerSupport.CLASS_TAG_NAME, "GithubApi"),
+        Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME, "getOrganisationRepository"),
+        Tag.of(MicrometerRetryListenerSupport.RETRY_TAG_NAME, "1"),
+        Tag.of(MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME, "IllegalStateException"));
+    assertThat(githubApiRetriesCounter.count(), equalTo((double) 1));
+  }
+
+  @Test
+  public void apiCallRunsWithTheTimeBudgetOfTheCaller() throws Exception {
+    var blogRepository = new GithubRepository(BLOG_REPOSITORY_NAME,
+        new URL("https://github.com/findinpath/blog"),
+        false);
+    var apiCallTimeBudget = new AtomicReference<Duration>();
+    when(restClient.getForEntity(
+        eq(API_URL + "orgs/" + ORGANISATION_NAME + "/repos/" + BLOG_REPOSITORY_NAME),
+        eq(GithubRepository.class))
+    ).thenAnswer(invocationOnMock -> {
+      apiCallTimeBudget.set(RetryDeadline.getCallTimeBudget());
+      return blogRepository;
+    });
+
+    var repository = RetryDeadline.callWithTimeBudget(Duration.ofSeconds(3),
+        () -> githubApi.getOrganisationRepository(ORGANISATION_NAME, BLOG_REPOSITORY_NAME));
+    assertThat(repository, equalTo(blogRepository));
+    assertThat(apiCallTimeBudget.get(), equalTo(Duration.ofSeconds(3)));
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", "3");
+      properties.setProperty("github.api.retry.initialBackoffTime", "30");
+      properties.setProperty("github.api.retry.virtualThreads.enabled", "true");
+      properties.setProperty("github.api.retry.virtualThreads.maxConcurrency", "10");
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public RestClient restClient() {
+      return mock(RestClient.class);
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.EXPORTED_PERCENTILES;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import com.findinpath.retry.deadline.RetryDeadline;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+public class GithubBatchApiTest {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final String BLOG_REPOSITORY_NAME = "blog";
+  private static final String FLAKY_REPOSITORY_NAME = "flaky";
+  private static final String MISSING_REPOSITORY_NAME = "missing";
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long CALL_MILLIS = 100;
+
+  private AnnotationConfigApplicationContext context;
+  private MeterRegistry meterRegistry;
+  private FlakyRestClient restClient;
+  private GithubBatchApi githubBatchApi;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        GithubBatchApiTest.TestConfiguration.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    restClient = context.getBean(FlakyRestClient.class);
+    githubBatchApi = context.getBean(GithubBatchApi.class);
+  }
+
+  @AfterEach
+  public void after() {
+    context.close();
+  }
+
+  @Test
+  public void onlyTheFailedItemsAreRetriedAndTheirErrorsAreReported() {
+    var batchResult = githubBatchApi.getOrganisationRepositories(ORGANISATION_NAME,
+        List.of(BLOG_REPOSITORY_NAME, FLAKY_REPOSITORY_NAME, MISSING_REPOSITORY_NAME,
+            BLOG_REPOSITORY_NAME));
+
+    assertThat(batchResult.isComplete(), equalTo(false));
+    assertThat(batchResult.getResults().keySet(),
+        contains(BLOG_REPOSITORY_NAME, FLAKY_REPOSITORY_NAME));
+    assertThat(batchResult.getResults().get(FLAKY_REPOSITORY_NAME).getName(),
+        equalTo(FLAKY_REPOSITORY_NAME));
+    assertThat(batchResult.getErrors().keySet(), contains(MISSING_REPOSITORY_NAME));
+    assertThat(batchResult.getErrors().get(MISSING_REPOSITORY_NAME),
+        instanceOf(IllegalStateException.class));
+
+    assertThat(restClient.getCalls(BLOG_REPOSITORY_NAME), equalTo(1));
+    assertThat(restClient.getCalls(FLAKY_REPOSITORY_NAME), equalTo(2));
+    assertThat(restClient.getCalls(MISSING_REPOSITORY_NAME), equalTo(MAX_ATTEMPTS));
+
+    var meters = meterRegistry.getMeters();
+    var batchMethodTag = Tag.of(MicrometerRetryListenerSupport.METHOD_TAG_NAME,
+        "getOrganisationRepositories");
+    var batchSize = getExactlyOneMeter(meters, API_METRIC_NAME + "_batch_size",
+        DistributionSummary.class, batchMethodTag);
+    assertThat(batchSize.count(), equalTo(1L));
+    assertThat(batchSize.totalAmount(), equalTo(3.0));
+    var batchTimer = getExactlyOneMeter(meters, API_METRIC_NAME + "_batch",
+        Timer.class, batchMethodTag);
+    assertThat(batchTimer.count(), equalTo(1L));
+    var failedItems = getExactlyOneMeter(meters, API_METRIC_NAME + "_batch_failed_items",
+        Counter.class, batchMethodTag);
+    assertThat(failedItems.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void itemsGetTheTimeRemainingFromTheTimeBudgetOfTheBatch() {
+    var clock = new MockClock();
+    restClient.clock = clock;
+    // the items are called one after the other on the calling thread
+    var sequentialBatchApi = new GithubBatchApi(context.getBean(GithubApi.class), Runnable::run,
+        new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock), API_METRIC_NAME,
+        EXPORTED_PERCENTILES);
+
+    var batchResult = RetryDeadline.callWithTimeBudget(Duration.ofMillis(250),
+        () -> sequentialBatchApi.getOrganisationRepositories(ORGANISATION_NAME,
+            List.of("first", "second", "third", "fourth")));
+
+    assertThat(batchResult.getResults().keySet(), contains("first", "second", "third"));
+    assertThat(restClient.getTimeBudget("first"), equalTo(Duration.ofMillis(250)));
+    assertThat(restClient.getTimeBudget("second"), equalTo(Duration.ofMillis(150)));
+    assertThat(restClient.getTimeBudget("third"), equalTo(Duration.ofMillis(50)));
+    // the time budget of the batch is spent before the last item starts
+    assertThat(batchResult.getErrors().get("fourth"),
+        instanceOf(RetryDeadlineExceededException.class));
+    assertThat(restClient.getCalls("fourth"), equalTo(0));
+  }
+
+  /**
+   * {@link RestClient} stub which fails the first call of the flaky repository and all the calls
+   * of the missing repository. When given a clock, each call takes {@value #CALL_MILLIS} ms.
+   */
+  static class FlakyRestClient implements RestClient {
+
+    private final ConcurrentMap<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Duration> timeBudgets = new ConcurrentHashMap<>();
+    private volatile MockClock clock;
+
+    @Override
+    public <T> T getForEntity(String url, Class<T> responseType) {
+      var repositoryName = url.substring(url.lastIndexOf('/') + 1);
+      int call = calls.computeIfAbsent(repositoryName, key -> new AtomicInteger())
+          .incrementAndGet();
+      var timeBudget = RetryDeadline.getCallTimeBudget();
+      if (timeBudget != null) {
+        timeBudgets.put(repositoryName, timeBudget);
+      }
+      if (clock != null) {
+        clock.add(CALL_MILLIS, TimeUnit.MILLISECONDS);
+      }
+      if (MISSING_REPOSITORY_NAME.equals(repositoryName)
+          || (FLAKY_REPOSITORY_NAME.equals(repositoryName) && call == 1)) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      try {
+        return responseType.cast(new GithubRepository(repositoryName,
+            new URL("https://github.com/findinpath/" + repositoryName),
+            false));
+      } catch (MalformedURLException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+
+    int getCalls(String repositoryName) {
+      var repositoryCalls = calls.get(repositoryName);
+      return repositoryCalls == null ? 0 : repositoryCalls.get();
+    }
+
+    Duration getTimeBudget(String repositoryName) {
+      return timeBudgets.get(repositoryName);
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", Integer.toString(MAX_ATTEMPTS));
+      properties.setProperty("github.api.retry.initialBackoffTime", "1");
+      properties.setProperty("github.api.retry.batch.parallelism", "2");
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public FlakyRestClient restClient() {
+      return new FlakyRestClient();
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+
+    @Bean
+    public GithubBatchApi githubBatchApi(GithubApi githubApi,
+        @Qualifier("githubApiBatchExecutor") ExecutorService batchExecutor,
+        MeterRegistry meterRegistry) {
+      return new GithubBatchApi(githubApi, batchExecutor, meterRegistry, API_METRIC_NAME,
+          EXPORTED_PERCENTILES);
+    }
+  }
+}
@@ -0,0 +1,218 @@
+package com.findinpath.github.api;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+
+public class GithubPagedApiTest {
+
+  private static final String ORGANISATION_NAME = "findinpath";
+  private static final int PAGE_SIZE = 2;
+  private static final int REPOSITORIES = 5;
+  private static final int FLAKY_PAGE = 2;
+
+  private AnnotationConfigApplicationContext context;
+  private MeterRegistry meterRegistry;
+  private PagedRestClient restClient;
+  private GithubApi githubApi;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        GithubPagedApiTest.TestConfiguration.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    restClient = context.getBean(PagedRestClient.class);
+    githubApi = context.getBean(GithubApi.class);
+  }
+
+  @AfterEach
+  public void after() {
+    context.close();
+  }
+
+  @Test
+  public void onlyTheFailedPageIsRetried() {
+    var githubPagedApi = new GithubPagedApi(githubApi, PAGE_SIZE, null);
+
+    try (var repositories = githubPagedApi.streamOrganisationRepositories(ORGANISATION_NAME)) {
+      assertThat(repositories.map(GithubRepository::getName).collect(Collectors.toList()),
+          contains("repository-1", "repository-2", "repository-3", "repository-4",
+              "repository-5"));
+    }
+
+    assertThat(restClient.getCalls(1), equalTo(1));
+    assertThat(restClient.getCalls(FLAKY_PAGE), equalTo(2));
+    assertThat(restClient.getCalls(3), equalTo(1));
+
+    var githubApiTimer = getExactlyOneMeter(meterRegistry.getMeters(), API_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "none"),
+        Tag.of("class", "GithubApi"),
+        Tag.of("method", "listOrganisationRepositoriesPage"));
+    assertThat(githubApiTimer.count(), equalTo(3L));
+  }
+
+  @Test
+  public void thePagesAreFetchedOnDemand() {
+    var githubPagedApi = new GithubPagedApi(githubApi, PAGE_SIZE, null);
+
+    try (var repositories = githubPagedApi.streamOrganisationRepositories(ORGANISATION_NAME)) {
+      assertThat(repositories.findFirst().get().getName(), equalTo("repository-1"));
+    }
+
+    assertThat(restClient.getCalls(1), equalTo(1));
+    assertThat(restClient.getCalls(FLAKY_PAGE), equalTo(0));
+  }
+
+  @Test
+  public void theNextPageIsPrefetched() {
+    var prefetchExecutor = context.getBean("githubApiBatchExecutor", ExecutorService.class);
+    var githubPagedApi = new GithubPagedApi(githubApi, PAGE_SIZE, prefetchExecutor);
+
+    try (var repositories = githubPagedApi.iterateOrganisationRepositories(ORGANISATION_NAME)) {
+      var names = new StringBuilder();
+      repositories.forEachRemaining(repository -> names.append(repository.getName()).append(','));
+      assertThat(names.toString(),
+          equalTo("repository-1,repository-2,repository-3,repository-4,repository-5,"));
+    }
+
+    assertThat(restClient.getCalls(1), equalTo(1));
+    assertThat(restClient.getCalls(FLAKY_PAGE), equalTo(2));
+    assertThat(restClient.getCalls(3), equalTo(1));
+    assertThat(restClient.getCalls(4), equalTo(0));
+  }
+
+  @Test
+  public void theFailedPageIsFetchedAgainByTheNextCall() {
+    assertFailedPageIsFetchedAgain(new GithubPagedApi(githubApi, PAGE_SIZE, null));
+  }
+
+  @Test
+  public void theFailedPrefetchedPageIsFetchedAgainByTheNextCall() {
+    var prefetchExecutor = context.getBean("githubApiBatchExecutor", ExecutorService.class);
+    assertFailedPageIsFetchedAgain(new GithubPagedApi(githubApi, PAGE_SIZE, prefetchExecutor));
+  }
+
+  private void assertFailedPageIsFetchedAgain(GithubPagedApi githubPagedApi) {
+    // the last page is unavailable for all the attempts of its first fetch
+    restClient.failNextCalls(3, 3);
+
+    try (var repositories = githubPagedApi.iterateOrganisationRepositories(ORGANISATION_NAME)) {
+      for (int i = 1; i <= 4; i++) {
+        assertThat(repositories.next().getName(), equalTo("repository-" + i));
+      }
+      assertThrows(IllegalStateException.class, repositories::hasNext);
+
+      assertThat(repositories.hasNext(), equalTo(true));
+      assertThat(repositories.next().getName(), equalTo("repository-5"));
+      assertThat(repositories.hasNext(), equalTo(false));
+    }
+
+    assertThat(restClient.getCalls(3), equalTo(4));
+    assertThat(restClient.getCalls(4), equalTo(0));
+  }
+
+  /**
+   * {@link RestClient} stub serving the repositories of the organisation page by page, which fails
+   * the first call of the flaky page.
+   */
+  static class PagedRestClient implements RestClient {
+
+    private final ConcurrentMap<Integer, AtomicInteger> calls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, AtomicInteger> failingCalls = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> T getForEntity(String url, Class<T> responseType) {
+      int page = Integer.parseInt(url.replaceAll(".*[?&]page=(\\d+).*", "$1"));
+      int call = calls.computeIfAbsent(page, key -> new AtomicInteger()).incrementAndGet();
+      var pageFailingCalls = failingCalls.get(page);
+      if ((page == FLAKY_PAGE && call == 1)
+          || (pageFailingCalls != null && pageFailingCalls.getAndDecrement() > 0)) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      return responseType.cast(IntStream
+          .rangeClosed((page - 1) * PAGE_SIZE + 1, Math.min(page * PAGE_SIZE, REPOSITORIES))
+          .mapToObj(PagedRestClient::createRepository)
+          .toArray(GithubRepository[]::new));
+    }
+
+    /**
+     * Fails the next calls of the specified page.
+     */
+    void failNextCalls(int page, int failedCalls) {
+      failingCalls.put(page, new AtomicInteger(failedCalls));
+    }
+
+    int getCalls(int page) {
+      var pageCalls = calls.get(page);
+      return pageCalls == null ? 0 : pageCalls.get();
+    }
+
+    private static GithubRepository createRepository(int index) {
+      var repositoryName = "repository-" + index;
+      try {
+        return new GithubRepository(repositoryName,
+            new URL("https://github.com/findinpath/" + repositoryName),
+            false);
+      } catch (MalformedURLException e) {
+        throw new IllegalArgumentException(e);
+      }
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", "3");
+      properties.setProperty("github.api.retry.initialBackoffTime", "1");
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public PagedRestClient restClient() {
+      return new PagedRestClient();
+    }
+
+    @Bean
+    public GithubApi githubApi(RestClient restClient) {
+      return new GithubApi(restClient);
+    }
+  }
+}
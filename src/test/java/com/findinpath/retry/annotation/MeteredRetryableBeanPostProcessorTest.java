@@ -0,0 +1,271 @@
+package com.findinpath.retry.annotation;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_METRIC_NAME;
+import static com.findinpath.retry.config.GithubApiRetryConfiguration.API_RETRY_METRIC_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.config.GithubApiRetryConfiguration;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.PointcutAdvisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.Ordered;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class MeteredRetryableBeanPostProcessorTest {
+
+  private AnnotationConfigApplicationContext context;
+  private MeterRegistry meterRegistry;
+  private Service service;
+  private AtomicInteger attempts;
+
+  @BeforeEach
+  public void setup() {
+    context = new AnnotationConfigApplicationContext(
+        MeteredRetryableBeanPostProcessorTest.FusedStagesConfiguration.class);
+    meterRegistry = context.getBean(MeterRegistry.class);
+    service = context.getBean(Service.class);
+    attempts = context.getBean(AtomicInteger.class);
+  }
+
+  @AfterEach
+  public void after() {
+    context.close();
+  }
+
+  @Test
+  public void classAnnotationsApplyTheDefaultRetryPolicyAndTimers() {
+    assertThrows(IllegalStateException.class, () -> service.call());
+
+    assertThat(attempts.get(), equalTo(TestConfiguration.MAX_ATTEMPTS));
+
+    var meters = meterRegistry.getMeters();
+    var attemptsTimer = getExactlyOneMeter(meters, API_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "Service"),
+        Tag.of("method", "call"));
+    assertThat(attemptsTimer.count(), equalTo((long) TestConfiguration.MAX_ATTEMPTS));
+    var retriesIncludedTimer = getExactlyOneMeter(meters, API_RETRY_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "Service"),
+        Tag.of("method", "call"));
+    assertThat(retriesIncludedTimer.count(), equalTo(1L));
+  }
+
+  @Test
+  public void methodAnnotationOverridesTheClassAnnotation() {
+    assertThrows(IllegalStateException.class, () -> service.callWithMoreAttempts());
+
+    assertThat(attempts.get(), equalTo(5));
+
+    var meters = meterRegistry.getMeters();
+    var attemptsTimer = getExactlyOneMeter(meters, API_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "Service"),
+        Tag.of("method", "callWithMoreAttempts"));
+    assertThat(attemptsTimer.count(), equalTo(5L));
+    var retriesIncludedTimer = getExactlyOneMeter(meters, "service_retry",
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "Service"),
+        Tag.of("method", "callWithMoreAttempts"));
+    assertThat(retriesIncludedTimer.count(), equalTo(1L));
+  }
+
+  @Test
+  public void reactiveMethodIsRetriedAndTimedFromTheSubscription() {
+    var result = service.callReactively();
+    assertThat(attempts.get(), equalTo(0));
+
+    StepVerifier.create(result).verifyError(IllegalStateException.class);
+
+    assertThat(attempts.get(), equalTo(TestConfiguration.MAX_ATTEMPTS));
+    var meters = meterRegistry.getMeters();
+    var attemptsTimer = getExactlyOneMeter(meters, API_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "Service"),
+        Tag.of("method", "callReactively"));
+    assertThat(attemptsTimer.count(), equalTo((long) TestConfiguration.MAX_ATTEMPTS));
+    var retriesIncludedTimer = getExactlyOneMeter(meters, API_RETRY_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "Service"),
+        Tag.of("method", "callReactively"));
+    assertThat(retriesIncludedTimer.count(), equalTo(1L));
+  }
+
+  @Test
+  public void fusedStagesRegisterTheUntaggedTimers() {
+    assertUntaggedTimersRegistered(meterRegistry);
+  }
+
+  @Test
+  public void splitStagesKeepTheTimersAroundTheOptionalAdvisors() throws NoSuchMethodException {
+    try (var splitContext = new AnnotationConfigApplicationContext(
+        MeteredRetryableBeanPostProcessorTest.SplitStagesConfiguration.class)) {
+      var splitRegistry = splitContext.getBean(MeterRegistry.class);
+      var splitService = splitContext.getBean(Service.class);
+
+      // call timer, single-flight, retries, hedging, attempt timer
+      assertThat(getAdvisorOrders(splitService, Service.class.getMethod("call")), contains(
+          GithubApiRetryConfiguration.METERED_CALL_TIMER_ADVISOR_ORDER,
+          GithubApiRetryConfiguration.SINGLE_FLIGHT_ADVISOR_ORDER,
+          GithubApiRetryConfiguration.METERED_RETRY_ADVISOR_ORDER,
+          GithubApiRetryConfiguration.HEDGING_ADVISOR_ORDER,
+          GithubApiRetryConfiguration.METERED_ATTEMPT_TIMER_ADVISOR_ORDER));
+
+      assertThrows(IllegalStateException.class, () -> splitService.call());
+
+      var meters = splitRegistry.getMeters();
+      var attemptsTimer = getExactlyOneMeter(meters, API_METRIC_NAME,
+          Timer.class,
+          Tag.of("exception", "IllegalStateException"),
+          Tag.of("class", "Service"),
+          Tag.of("method", "call"));
+      assertThat(attemptsTimer.count(), equalTo((long) TestConfiguration.MAX_ATTEMPTS));
+      var retriesIncludedTimer = getExactlyOneMeter(meters, API_RETRY_METRIC_NAME,
+          Timer.class,
+          Tag.of("exception", "IllegalStateException"),
+          Tag.of("class", "Service"),
+          Tag.of("method", "call"));
+      assertThat(retriesIncludedTimer.count(), equalTo(1L));
+      assertUntaggedTimersRegistered(splitRegistry);
+    }
+  }
+
+  private static void assertUntaggedTimersRegistered(MeterRegistry registry) {
+    for (var metricName : new String[]{API_METRIC_NAME, API_RETRY_METRIC_NAME}) {
+      assertThat(metricName, registry.find(metricName).timers().stream()
+          .filter(timer -> timer.getId().getTags().isEmpty())
+          .count(), equalTo(1L));
+    }
+  }
+
+  /**
+   * Retrieves the orders of the advisors applied on the method, from the outermost one.
+   */
+  private static List<Integer> getAdvisorOrders(Object proxy, Method method) {
+    return Arrays.stream(((Advised) proxy).getAdvisors())
+        .filter(advisor -> advisor instanceof PointcutAdvisor
+            && ((PointcutAdvisor) advisor).getPointcut().getMethodMatcher()
+            .matches(method, Service.class))
+        .map(advisor -> ((Ordered) advisor).getOrder())
+        // the advisor exposing the invocation added by the auto-proxy creator
+        .filter(order -> order != Ordered.HIGHEST_PRECEDENCE + 1)
+        .collect(Collectors.toList());
+  }
+
+  @MeteredRetryable
+  @MeteredTimed
+  public static class Service {
+
+    private final AtomicInteger attempts;
+
+    public Service(AtomicInteger attempts) {
+      this.attempts = attempts;
+    }
+
+    public String call() {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("Internal server error");
+    }
+
+    @MeteredRetryable(maxAttempts = 5, initialBackoffMillis = 1, metricName = "service_retry")
+    public String callWithMoreAttempts() {
+      return call();
+    }
+
+    public Mono<String> callReactively() {
+      return Mono.fromCallable(this::call);
+    }
+  }
+
+  @Configuration
+  @Import(GithubApiRetryConfiguration.class)
+  protected static class TestConfiguration {
+
+    static final int MAX_ATTEMPTS = 3;
+    static final int INITIAL_BACKOFF_TIME = 1;
+
+    static PropertySourcesPlaceholderConfigurer createPropertySourcesPlaceholderConfigurer(
+        Properties additionalProperties) {
+      PropertySourcesPlaceholderConfigurer pspc = new PropertySourcesPlaceholderConfigurer();
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.maxAttempts", Integer.toString(MAX_ATTEMPTS));
+      properties.setProperty("github.api.retry.initialBackoffTime",
+          Integer.toString(INITIAL_BACKOFF_TIME));
+      properties.putAll(additionalProperties);
+      pspc.setProperties(properties);
+      return pspc;
+    }
+
+    @Bean
+    public MeterRegistry meterRegistry() {
+      return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    public AtomicInteger attempts() {
+      return new AtomicInteger();
+    }
+
+    @Bean
+    public Service service(AtomicInteger attempts) {
+      return new Service(attempts);
+    }
+  }
+
+  /**
+   * The stages of the annotated methods are composed by a single interceptor.
+   */
+  @Configuration
+  @Import(TestConfiguration.class)
+  protected static class FusedStagesConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      return TestConfiguration.createPropertySourcesPlaceholderConfigurer(new Properties());
+    }
+  }
+
+  /**
+   * The single-flight and the hedging advisors run between the stages of the annotated methods.
+   */
+  @Configuration
+  @Import(TestConfiguration.class)
+  protected static class SplitStagesConfiguration {
+
+    @Bean
+    public static PropertySourcesPlaceholderConfigurer propertySourcesPlaceholderConfigurer() {
+      Properties properties = new Properties();
+      properties.setProperty("github.api.retry.singleFlight.enabled", "true");
+      properties.setProperty("github.api.retry.hedging.enabled", "true");
+      return TestConfiguration.createPropertySourcesPlaceholderConfigurer(properties);
+    }
+  }
+}
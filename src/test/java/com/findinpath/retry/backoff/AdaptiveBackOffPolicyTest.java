@@ -0,0 +1,231 @@
+package com.findinpath.retry.backoff;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.backoff.AdaptiveBackOffPolicy.AdaptiveBackOffConfig;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+public class AdaptiveBackOffPolicyTest {
+
+  private static final String METRIC_NAME = "service";
+  private static final long DEFAULT_INITIAL_INTERVAL = 100;
+  private static final long MAX_INITIAL_INTERVAL = 1000;
+  private static final double DEFAULT_MULTIPLIER = 2;
+  private static final double MAX_MULTIPLIER = 4;
+  private static final int MAX_ATTEMPTS = 6;
+
+  private MockClock clock;
+  private MeterRegistry meterRegistry;
+  private List<Long> sleeps;
+  private AdaptiveBackOffPolicy adaptiveBackOffPolicy;
+  private Service service;
+  private Method callMethod;
+
+  @BeforeEach
+  public void setup() throws NoSuchMethodException {
+    clock = new MockClock();
+    meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    sleeps = new ArrayList<>();
+
+    adaptiveBackOffPolicy = new AdaptiveBackOffPolicy(new AdaptiveBackOffConfig(
+        Duration.ofMillis(DEFAULT_INITIAL_INTERVAL), Duration.ofMillis(10),
+        Duration.ofMillis(MAX_INITIAL_INTERVAL), DEFAULT_MULTIPLIER, 1.5, MAX_MULTIPLIER,
+        Duration.ofSeconds(30), 0.5), clock);
+    adaptiveBackOffPolicy.bindTo(meterRegistry, METRIC_NAME);
+
+    var retryTemplate = new RetryTemplate();
+    retryTemplate.setRetryPolicy(new SimpleRetryPolicy(MAX_ATTEMPTS));
+    // the backoff is simulated by advancing the clock measuring the recovery time of the calls
+    retryTemplate.setBackOffPolicy(adaptiveBackOffPolicy.withSleeper(backOffPeriod -> {
+      sleeps.add(backOffPeriod);
+      clock.add(backOffPeriod, TimeUnit.MILLISECONDS);
+    }));
+    // the retry listener tells apart the time spent in the backoff
+    retryTemplate.setListeners(new RetryListener[]{
+        new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME), adaptiveBackOffPolicy});
+
+    var interceptor = new MethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryOperations(retryTemplate);
+    interceptor.setClock(clock);
+
+    ProxyFactory proxyFactory = new ProxyFactory(new FlakyService());
+    proxyFactory.addInterface(Service.class);
+    proxyFactory.addAdvice(interceptor);
+    service = (Service) proxyFactory.getProxy();
+    callMethod = Service.class.getMethod("call", int.class, long.class);
+  }
+
+  @Test
+  public void defaultParametersAreUsedUntilTheFirstRecovery() {
+    assertThat(adaptiveBackOffPolicy.getInitialInterval(callMethod),
+        equalTo(DEFAULT_INITIAL_INTERVAL));
+    assertThat(adaptiveBackOffPolicy.getMultiplier(callMethod), equalTo(DEFAULT_MULTIPLIER));
+
+    assertThat(service.call(2, 0), equalTo("OK"));
+
+    assertThat(sleeps, hasSize(2));
+    assertThat(sleeps.get(0), allOf(greaterThanOrEqualTo(DEFAULT_INITIAL_INTERVAL),
+        lessThanOrEqualTo((long) (DEFAULT_INITIAL_INTERVAL * DEFAULT_MULTIPLIER))));
+  }
+
+  @Test
+  public void backoffsOfTheUsualRetriesSpanTheRecoveryTime() {
+    // the second failed attempt takes 300 ms
+    assertThat(service.call(2, 300), equalTo("OK"));
+
+    // the service recovered within 300 ms and the two backoffs after the first failed attempt
+    long recoveryMillis = 300 + sleeps.get(0) + sleeps.get(1);
+    // the two backoffs of the initial interval i with the multiplier 2 last i + 2 * i, stretched
+    // by the jitter of 1.5 on average
+    assertThat(adaptiveBackOffPolicy.getMultiplier(callMethod), equalTo(2.0));
+    assertThat(adaptiveBackOffPolicy.getInitialInterval(callMethod),
+        equalTo(Math.round(recoveryMillis / 4.5)));
+
+    var initialInterval = adaptiveBackOffPolicy.getInitialInterval(callMethod);
+    sleeps.clear();
+    assertThat(service.call(1, 0), equalTo("OK"));
+    assertThat(sleeps.get(0), allOf(greaterThanOrEqualTo(initialInterval),
+        lessThanOrEqualTo(initialInterval * 2)));
+  }
+
+  @Test
+  public void learntIntervalIsStableAcrossRepeatedOutagesOfTheSameLength() {
+    assertThat(service.callDuringOutage(1000), equalTo("OK"));
+    var learntInterval = adaptiveBackOffPolicy.getInitialInterval(callMethod);
+
+    for (int i = 0; i < 20; i++) {
+      assertThat(service.callDuringOutage(1000), equalTo("OK"));
+
+      // the recoveries within the backoff window don't drive the interval towards its bounds
+      assertThat(adaptiveBackOffPolicy.getInitialInterval(callMethod), allOf(
+          greaterThanOrEqualTo(learntInterval * 2 / 3),
+          lessThanOrEqualTo(learntInterval * 3 / 2)));
+    }
+  }
+
+  @Test
+  public void recoveriesAfterARequestedDelayAreNotLearnt() {
+    assertThat(service.callRateLimited(2), equalTo("OK"));
+
+    assertThat(sleeps, hasSize(2));
+    assertThat(adaptiveBackOffPolicy.getInitialInterval(callMethod),
+        equalTo(DEFAULT_INITIAL_INTERVAL));
+    assertThat(adaptiveBackOffPolicy.getMultiplier(callMethod), equalTo(DEFAULT_MULTIPLIER));
+  }
+
+  @Test
+  public void learntParametersAreBounded() {
+    // each failed attempt of the call takes 100 seconds
+    assertThat(service.call(MAX_ATTEMPTS - 1, 100_000), equalTo("OK"));
+
+    assertThat(adaptiveBackOffPolicy.getMultiplier(callMethod), equalTo(MAX_MULTIPLIER));
+    assertThat(adaptiveBackOffPolicy.getInitialInterval(callMethod),
+        equalTo(MAX_INITIAL_INTERVAL));
+  }
+
+  @Test
+  public void failedCallsDoNotChangeTheParameters() {
+    assertThrows(IllegalStateException.class, () -> service.call(MAX_ATTEMPTS, 10_000));
+
+    assertThat(adaptiveBackOffPolicy.getInitialInterval(callMethod),
+        equalTo(DEFAULT_INITIAL_INTERVAL));
+    assertThat(adaptiveBackOffPolicy.getMultiplier(callMethod), equalTo(DEFAULT_MULTIPLIER));
+    assertThat(sleeps, everyItem(lessThanOrEqualTo(30_000L)));
+  }
+
+  @Test
+  public void learntParametersArePublishedAsGauges() {
+    assertThat(service.call(MAX_ATTEMPTS - 1, 100_000), equalTo("OK"));
+
+    var initialIntervalGauge = getExactlyOneMeter(meterRegistry.getMeters(),
+        METRIC_NAME + "_backoff_initial_interval", Gauge.class,
+        Tag.of("class", "Service"), Tag.of("method", "call"));
+    var multiplierGauge = getExactlyOneMeter(meterRegistry.getMeters(),
+        METRIC_NAME + "_backoff_multiplier", Gauge.class,
+        Tag.of("class", "Service"), Tag.of("method", "call"));
+    assertThat(initialIntervalGauge.value(), equalTo((double) MAX_INITIAL_INTERVAL));
+    assertThat(multiplierGauge.value(), equalTo(MAX_MULTIPLIER));
+  }
+
+  public interface Service {
+
+    String call(int failures, long failureMillis);
+
+    String callRateLimited(int failures);
+
+    String callDuringOutage(long outageMillis);
+  }
+
+  private class FlakyService implements Service {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+    private long outageEndTime = -1;
+
+    @Override
+    public String call(int failures, long failureMillis) {
+      if (attempts.incrementAndGet() <= failures) {
+        clock.add(failureMillis, TimeUnit.MILLISECONDS);
+        throw new IllegalStateException("Service unavailable");
+      }
+      attempts.set(0);
+      return "OK";
+    }
+
+    @Override
+    public String callRateLimited(int failures) {
+      if (attempts.incrementAndGet() <= failures) {
+        throw new RateLimitedException();
+      }
+      attempts.set(0);
+      return "OK";
+    }
+
+    @Override
+    public String callDuringOutage(long outageMillis) {
+      long now = clock.monotonicTime();
+      if (outageEndTime < 0) {
+        outageEndTime = now + TimeUnit.MILLISECONDS.toNanos(outageMillis);
+      }
+      if (now < outageEndTime) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      outageEndTime = -1;
+      return "OK";
+    }
+  }
+
+  private static class RateLimitedException extends RuntimeException implements RetryAfterAware {
+
+    @Override
+    public Duration getRetryAfter() {
+      return Duration.ofSeconds(1);
+    }
+  }
+}
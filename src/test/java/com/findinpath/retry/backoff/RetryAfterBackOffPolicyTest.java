@@ -0,0 +1,182 @@
+package com.findinpath.retry.backoff;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.github.api.RateLimitExceededException;
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+public class RetryAfterBackOffPolicyTest {
+
+  private static final String METRIC_NAME = "service";
+  private static final long BACKOFF_PERIOD = 100L;
+  private static final Duration MAX_RETRY_AFTER = Duration.ofSeconds(10);
+  private static final double JITTER_FACTOR = 0.1;
+
+  private MeterRegistry meterRegistry;
+  private List<Long> sleeps;
+  private RetryTemplate retryTemplate;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    sleeps = new ArrayList<>();
+
+    var exponentialBackOffPolicy = new FixedBackOffPolicy();
+    exponentialBackOffPolicy.setBackOffPeriod(BACKOFF_PERIOD);
+    var backOffPolicy = new RetryAfterBackOffPolicy(exponentialBackOffPolicy, MAX_RETRY_AFTER,
+        JITTER_FACTOR, meterRegistry, METRIC_NAME)
+        .withSleeper(sleeps::add);
+
+    var retryPolicy = new SimpleRetryPolicy();
+    retryPolicy.setMaxAttempts(2);
+    retryTemplate = new RetryTemplate();
+    retryTemplate.setRetryPolicy(retryPolicy);
+    retryTemplate.setBackOffPolicy(backOffPolicy);
+  }
+
+  @Test
+  public void requestedRetryDelayIsHonouredWithJitter() {
+    var retryAfter = Duration.ofSeconds(2);
+
+    var result = executeFailingOnce(new RateLimitExceededException("Rate limit", retryAfter));
+
+    assertThat(result, equalTo("done"));
+    assertThat(sleeps.size(), equalTo(1));
+    assertThat(sleeps.get(0), allOf(greaterThanOrEqualTo(retryAfter.toMillis()),
+        lessThanOrEqualTo((long) (retryAfter.toMillis() * (1 + JITTER_FACTOR)))));
+    var summary = getBackOffDelaySummary("RateLimitExceededException", "retry_after");
+    assertThat(summary.count(), equalTo(1L));
+    assertThat(summary.totalAmount(), equalTo((double) sleeps.get(0)));
+  }
+
+  @Test
+  public void requestedRetryDelayIsFoundInTheExceptionCauses() {
+    var retryAfter = Duration.ofSeconds(1);
+
+    executeFailingOnce(new IllegalStateException(
+        new RateLimitExceededException("Rate limit", retryAfter)));
+
+    assertThat(sleeps.get(0), greaterThanOrEqualTo(retryAfter.toMillis()));
+    assertThat(getBackOffDelaySummary("IllegalStateException", "retry_after").count(),
+        equalTo(1L));
+  }
+
+  @Test
+  public void backOffIsDelegatedWhenNoRetryDelayIsRequested() {
+    executeFailingOnce(new IllegalStateException("Internal server error"));
+
+    assertThat(sleeps, contains(BACKOFF_PERIOD));
+    assertThat(getBackOffDelaySummary("IllegalStateException", "backoff_policy").count(),
+        equalTo(1L));
+  }
+
+  @Test
+  public void backOffIsDelegatedWhenTheExceptionCausesAreCyclic() {
+    var exception = new IllegalStateException("Internal server error");
+    exception.initCause(new IllegalArgumentException("Internal server error", exception));
+
+    executeFailingOnce(exception);
+
+    assertThat(sleeps, contains(BACKOFF_PERIOD));
+  }
+
+  @Test
+  public void exceptionTagValuesExceedingTheLimitAreFoldedIntoOther() {
+    var fixedBackOffPolicy = new FixedBackOffPolicy();
+    fixedBackOffPolicy.setBackOffPeriod(BACKOFF_PERIOD);
+    retryTemplate.setBackOffPolicy(new RetryAfterBackOffPolicy(fixedBackOffPolicy,
+        MAX_RETRY_AFTER, JITTER_FACTOR, meterRegistry, METRIC_NAME,
+        new TagCardinalityLimiter(1, meterRegistry, METRIC_NAME + "_dropped"))
+        .withSleeper(sleeps::add));
+
+    executeFailingOnce(new IllegalStateException("Internal server error"));
+    executeFailingOnce(new IllegalArgumentException("Bad request"));
+
+    assertThat(getBackOffDelaySummary("IllegalStateException", "backoff_policy").count(),
+        equalTo(1L));
+    assertThat(getBackOffDelaySummary("other", "backoff_policy").count(), equalTo(1L));
+  }
+
+  @Test
+  public void summaryIsResolvedThroughTheRetryMethodMetadata() throws Exception {
+    var methodMetadata = new RetryMethodMetadata("label",
+        RetryAfterBackOffPolicyTest.class.getDeclaredMethod("executeFailingOnce",
+            RuntimeException.class));
+
+    for (int i = 0; i < 2; i++) {
+      retryTemplate.execute(context -> {
+        context.setAttribute(RetryContext.NAME, methodMetadata.getLabel());
+        context.setAttribute(RetryMethodMetadata.RETRY_METHOD_METADATA, methodMetadata);
+        if (context.getRetryCount() == 0) {
+          throw new IllegalStateException("Internal server error");
+        }
+        return "done";
+      });
+    }
+
+    var summary = getExactlyOneMeter(meterRegistry.getMeters(), METRIC_NAME + "_backoff_delay",
+        DistributionSummary.class,
+        Tag.of("name", "label"),
+        Tag.of("class", "RetryAfterBackOffPolicyTest"),
+        Tag.of("method", "executeFailingOnce"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"),
+        Tag.of("source", "backoff_policy"));
+    assertThat(summary.count(), equalTo(2L));
+  }
+
+  @Test
+  public void callIsNotRetriedWhenTheRequestedRetryDelayExceedsTheMaximum() {
+    var exception = new RateLimitExceededException("Rate limit", MAX_RETRY_AFTER.plusMillis(1));
+    var attempts = new AtomicInteger();
+
+    var thrown = assertThrows(RateLimitExceededException.class,
+        () -> retryTemplate.execute(context -> {
+          attempts.incrementAndGet();
+          throw exception;
+        }));
+
+    assertThat(thrown, equalTo(exception));
+    assertThat(attempts.get(), equalTo(1));
+    assertThat(sleeps, empty());
+  }
+
+  private String executeFailingOnce(RuntimeException exception) {
+    return retryTemplate.execute(context -> {
+      if (context.getRetryCount() == 0) {
+        throw exception;
+      }
+      return "done";
+    });
+  }
+
+  private DistributionSummary getBackOffDelaySummary(String exceptionClassName, String source) {
+    return getExactlyOneMeter(meterRegistry.getMeters(), METRIC_NAME + "_backoff_delay",
+        DistributionSummary.class,
+        Tag.of(EXCEPTION_TAG_NAME, exceptionClassName),
+        Tag.of("source", source));
+  }
+}
@@ -0,0 +1,115 @@
+package com.findinpath.retry.concurrency;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+  private static final long FAST_CALL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW_CALL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  private MeterRegistry meterRegistry;
+  private AdaptiveConcurrencyLimiter limiter;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    limiter = new AdaptiveConcurrencyLimiter(4, 1, 6, 0.5, Duration.ofSeconds(1));
+    limiter.bindTo(meterRegistry, "service");
+  }
+
+  @Test
+  public void callsExceedingTheLimitAreRejected() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(limiter.acquire(0));
+    }
+    assertFalse(limiter.acquire(0));
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getExactlyOneMeter(meters, "service_concurrency_limit", Gauge.class).value(),
+        equalTo(4.0));
+    assertThat(getExactlyOneMeter(meters, "service_concurrency_in_flight", Gauge.class).value(),
+        equalTo(4.0));
+    assertThat(getExactlyOneMeter(meters, "service_concurrency_rejected", FunctionCounter.class)
+        .count(), equalTo(1.0));
+  }
+
+  @Test
+  public void limitDecreasesOnDropsAndIncreasesOnSuccessfulCalls() throws Exception {
+    assertTrue(limiter.acquire(0));
+    limiter.release(FAST_CALL_NANOS, true);
+    assertThat(limiter.getLimit(), equalTo(2));
+
+    assertTrue(limiter.acquire(0));
+    limiter.release(SLOW_CALL_NANOS, false);
+    assertThat(limiter.getLimit(), equalTo(1));
+
+    // the limit doesn't go below the minimum limit
+    assertTrue(limiter.acquire(0));
+    limiter.release(FAST_CALL_NANOS, true);
+    assertThat(limiter.getLimit(), equalTo(1));
+
+    for (int i = 0; i < 10; i++) {
+      assertTrue(limiter.acquire(0));
+      limiter.release(FAST_CALL_NANOS, false);
+    }
+    // the limit increases only while at least half of it is in use : up to 3 with a single call
+    assertThat(limiter.getLimit(), equalTo(3));
+
+    assertTrue(limiter.acquire(0));
+    assertTrue(limiter.acquire(0));
+    limiter.release(FAST_CALL_NANOS, false);
+    limiter.release(FAST_CALL_NANOS, false);
+    assertThat(limiter.getLimit(), equalTo(4));
+  }
+
+  @Test
+  public void dropsOfTheCallsInFlightDecreaseTheLimitOnce() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(limiter.acquire(0));
+    }
+    for (int i = 0; i < 4; i++) {
+      limiter.release(FAST_CALL_NANOS, true);
+    }
+    // the calls were admitted before the limit got decreased
+    assertThat(limiter.getLimit(), equalTo(2));
+
+    // the drop of a call admitted after the decrease decreases the limit again
+    assertTrue(limiter.acquire(0));
+    limiter.release(SLOW_CALL_NANOS, false);
+    assertThat(limiter.getLimit(), equalTo(1));
+  }
+
+  @Test
+  public void waitingCallAcquiresTheReleasedPermit() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(limiter.acquire(0));
+    }
+
+    var waitingCall = CompletableFuture.supplyAsync(() -> {
+      try {
+        return limiter.acquire(TimeUnit.SECONDS.toNanos(5));
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    limiter.release(FAST_CALL_NANOS, false);
+
+    assertTrue(waitingCall.get(5, TimeUnit.SECONDS));
+    assertThat(limiter.getInFlight(), equalTo(4));
+    assertThat(limiter.getRejections(), equalTo(0L));
+  }
+}
@@ -0,0 +1,250 @@
+package com.findinpath.retry.interceptor;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.CLASS_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.METHOD_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.RETRY_TAG_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.backoff.DeadlineAwareBackOffPolicy;
+import com.findinpath.retry.deadline.RetryDeadlineExceededException;
+import com.findinpath.retry.deadline.TimeBudgets;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.TerminatedRetryException;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.listener.RetryListenerSupport;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+
+public class AsyncMethodInvocationRetryOperationsInterceptorTest {
+
+  private static final String METRIC_NAME = "async_service";
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long BACKOFF_PERIOD = 200L;
+
+  private MeterRegistry meterRegistry;
+  private ScheduledExecutorService scheduler;
+  private ExecutorService executor;
+  private AsyncServiceStub target;
+  private AsyncMethodInvocationRetryOperationsInterceptor interceptor;
+  private AsyncService service;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    executor = Executors.newCachedThreadPool();
+    target = new AsyncServiceStub();
+
+    var retryPolicy = new SimpleRetryPolicy();
+    retryPolicy.setMaxAttempts(MAX_ATTEMPTS);
+    var backOffPolicy = new FixedBackOffPolicy();
+    backOffPolicy.setBackOffPeriod(BACKOFF_PERIOD);
+
+    interceptor = new AsyncMethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryPolicy(retryPolicy);
+    interceptor.setBackOffPolicy(backOffPolicy);
+    interceptor.setListeners(new RetryListener[]{
+        new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME)
+    });
+    interceptor.setScheduler(scheduler);
+    interceptor.setExecutor(executor);
+
+    var proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(AsyncService.class);
+    proxyFactory.addAdvice(interceptor);
+    service = (AsyncService) proxyFactory.getProxy();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    scheduler.shutdownNow();
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void transientFailureIsRetriedWithoutBlockingTheCaller() throws Exception {
+    target.failures.set(1);
+
+    var start = System.nanoTime();
+    var result = service.call();
+    var invocationDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertThat(invocationDuration < BACKOFF_PERIOD, is(true));
+    assertThat(result.get(5, TimeUnit.SECONDS), equalTo("result"));
+    assertThat(target.attempts.get(), equalTo(2));
+
+    var retriesCounter = getExactlyOneMeter(meterRegistry.getMeters(), METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(CLASS_TAG_NAME, "AsyncService"),
+        Tag.of(METHOD_TAG_NAME, "call"),
+        Tag.of(RETRY_TAG_NAME, "1"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"));
+    assertThat(retriesCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void exhaustedRetriesCompleteTheResultExceptionally() {
+    target.failures.set(Integer.MAX_VALUE);
+
+    var result = service.call();
+
+    var exception = assertThrows(ExecutionException.class,
+        () -> result.get(5, TimeUnit.SECONDS));
+    assertThat(exception.getCause(), instanceOf(IllegalStateException.class));
+    assertThat(target.attempts.get(), equalTo(MAX_ATTEMPTS));
+
+    var failuresCounter = getExactlyOneMeter(meterRegistry.getMeters(),
+        METRIC_NAME + "_failures",
+        Counter.class,
+        Tag.of(CLASS_TAG_NAME, "AsyncService"),
+        Tag.of(METHOD_TAG_NAME, "call"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"));
+    assertThat(failuresCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void synchronouslyThrownExceptionIsRetried() throws Exception {
+    target.failures.set(1);
+    target.throwSynchronously = true;
+
+    var result = service.call();
+
+    assertThat(result.get(5, TimeUnit.SECONDS), equalTo("result"));
+    assertThat(target.attempts.get(), equalTo(2));
+  }
+
+  @Test
+  public void retriesRunOnTheExecutorInsteadOfTheScheduler() throws Exception {
+    target.failures.set(1);
+    var schedulerThread = scheduler.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+    var result = service.call();
+
+    assertThat(result.get(5, TimeUnit.SECONDS), equalTo("result"));
+    assertThat(target.attemptThreads.get(0), sameInstance(Thread.currentThread()));
+    assertThat(target.attemptThreads.get(1), not(sameInstance(schedulerThread)));
+  }
+
+  @Test
+  public void listenersAreNotifiedOfTheErrorBeforeTheRetryIsClosed() {
+    target.failures.set(1);
+    var events = Collections.synchronizedList(new ArrayList<String>());
+    interceptor.setRetryPolicy(new SimpleRetryPolicy() {
+      @Override
+      public void registerThrowable(RetryContext context, Throwable throwable) {
+        throw new IllegalArgumentException("Could not register");
+      }
+    });
+    interceptor.setListeners(new RetryListener[]{new RetryListenerSupport() {
+      @Override
+      public <T, E extends Throwable> void onError(RetryContext context,
+          RetryCallback<T, E> callback, Throwable throwable) {
+        events.add("onError");
+      }
+
+      @Override
+      public <T, E extends Throwable> void close(RetryContext context,
+          RetryCallback<T, E> callback, Throwable throwable) {
+        events.add("close");
+      }
+    }});
+
+    var result = service.call();
+
+    var exception = assertThrows(ExecutionException.class,
+        () -> result.get(5, TimeUnit.SECONDS));
+    assertThat(exception.getCause(), instanceOf(TerminatedRetryException.class));
+    assertThat(events, equalTo(List.of("onError", "close")));
+  }
+
+  @Test
+  public void retriesNotFittingInTheTimeBudgetAreNotAttempted() {
+    target.failures.set(Integer.MAX_VALUE);
+    var backOffPolicy = new FixedBackOffPolicy();
+    backOffPolicy.setBackOffPeriod(BACKOFF_PERIOD);
+    interceptor.setBackOffPolicy(new DeadlineAwareBackOffPolicy(backOffPolicy, null));
+    interceptor.setTimeBudgets(new TimeBudgets(Duration.ofMillis(BACKOFF_PERIOD / 2), Map.of()));
+
+    var result = service.call();
+
+    var exception = assertThrows(ExecutionException.class,
+        () -> result.get(5, TimeUnit.SECONDS));
+    assertThat(exception.getCause(), instanceOf(RetryDeadlineExceededException.class));
+    assertThat(exception.getCause().getCause(), instanceOf(IllegalStateException.class));
+    assertThat(target.attempts.get(), equalTo(1));
+  }
+
+  @Test
+  public void cancellingTheResultCancelsTheAttemptInFlightAndStopsTheRetries() throws Exception {
+    var attempt = new CompletableFuture<String>();
+    target.pendingAttempt = attempt;
+
+    var result = service.call();
+    result.cancel(false);
+
+    assertThat(attempt.isCancelled(), is(true));
+    Thread.sleep(BACKOFF_PERIOD * 2);
+    assertThat(target.attempts.get(), equalTo(1));
+  }
+
+  public interface AsyncService {
+
+    CompletableFuture<String> call();
+  }
+
+  static class AsyncServiceStub implements AsyncService {
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final List<Thread> attemptThreads = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean throwSynchronously;
+    private volatile CompletableFuture<String> pendingAttempt;
+
+    @Override
+    public CompletableFuture<String> call() {
+      attempts.incrementAndGet();
+      attemptThreads.add(Thread.currentThread());
+      if (pendingAttempt != null) {
+        return pendingAttempt;
+      }
+      if (failures.getAndDecrement() > 0) {
+        var exception = new IllegalStateException("Internal server error");
+        if (throwSynchronously) {
+          throw exception;
+        }
+        return CompletableFuture.failedFuture(exception);
+      }
+      return CompletableFuture.completedFuture("result");
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package com.findinpath.retry.interceptor;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.METHOD_TAG_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+public class CachingMethodInterceptorTest {
+
+  private static final String METRIC_NAME = "cached_service";
+  private static final Duration TIME_TO_LIVE = Duration.ofSeconds(10);
+  private static final Duration SHORT_TIME_TO_LIVE = Duration.ofSeconds(1);
+
+  private MockClock clock;
+  private MeterRegistry meterRegistry;
+  private ServiceStub target;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MockClock();
+    meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    target = new ServiceStub();
+  }
+
+  @Test
+  public void resultsAreCachedUntilTheirTimeToLiveExpires() {
+    var interceptor = new CachingMethodInterceptor(100, TIME_TO_LIVE, meterRegistry, METRIC_NAME);
+    interceptor.setMethodTimeToLive("shortLived", SHORT_TIME_TO_LIVE);
+    var service = createProxy(interceptor);
+
+    assertThat(service.get("a"), equalTo("a1"));
+    assertThat(service.get("a"), equalTo("a1"));
+    assertThat(service.get("b"), equalTo("b2"));
+    assertThat(service.shortLived("a"), equalTo("a3"));
+
+    clock.add(SHORT_TIME_TO_LIVE);
+    assertThat(service.get("a"), equalTo("a1"));
+    assertThat(service.shortLived("a"), equalTo("a4"));
+
+    clock.add(TIME_TO_LIVE);
+    assertThat(service.get("a"), equalTo("a5"));
+
+    assertThat(getCounter("_cache_hits", "get").count(), equalTo(2.0));
+    assertThat(getCounter("_cache_misses", "get").count(), equalTo(3.0));
+    assertThat(getCounter("_cache_hits", "shortLived").count(), equalTo(0.0));
+    assertThat(getCounter("_cache_misses", "shortLived").count(), equalTo(2.0));
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvictedWhenTheCacheIsFull() {
+    var interceptor = new CachingMethodInterceptor(1, TIME_TO_LIVE, meterRegistry, METRIC_NAME);
+    var service = createProxy(interceptor);
+
+    assertThat(service.get("a"), equalTo("a1"));
+    assertThat(service.get("b"), equalTo("b2"));
+    assertThat(service.get("a"), equalTo("a3"));
+
+    assertThat(getCounter("_cache_evictions", "get").count(), equalTo(2.0));
+    assertThat(getCounter("_cache_misses", "get").count(), equalTo(3.0));
+  }
+
+  @Test
+  public void exceptionsAreNotCached() {
+    var interceptor = new CachingMethodInterceptor(100, TIME_TO_LIVE, meterRegistry, METRIC_NAME);
+    var service = createProxy(interceptor);
+
+    target.failures.set(1);
+    assertThrows(IllegalStateException.class, () -> service.get("a"));
+    assertThat(service.get("a"), equalTo("a2"));
+    assertThat(service.get("a"), equalTo("a2"));
+  }
+
+  @Test
+  public void staleEntryIsServedWhileRefreshingAndWhenTheRefreshFails() {
+    var interceptor = new CachingMethodInterceptor(100, TIME_TO_LIVE, meterRegistry, METRIC_NAME);
+    // the refresh is run synchronously on the calling thread for the sake of the test
+    interceptor.setStaleWhileRevalidate(TIME_TO_LIVE, Runnable::run);
+    var service = createProxy(interceptor);
+
+    assertThat(service.get("a"), equalTo("a1"));
+
+    clock.add(TIME_TO_LIVE);
+    target.failures.set(1);
+    // the refresh fails : the stale entry is served
+    assertThat(service.get("a"), equalTo("a1"));
+    // the refresh succeeds : the stale entry is still served to the current caller
+    assertThat(service.get("a"), equalTo("a1"));
+    assertThat(service.get("a"), equalTo("a3"));
+
+    clock.add(TIME_TO_LIVE.multipliedBy(2));
+    assertThat(service.get("a"), equalTo("a4"));
+
+    assertThat(getCounter("_cache_hits", "get").count(), equalTo(3.0));
+    assertThat(getCounter("_cache_misses", "get").count(), equalTo(2.0));
+  }
+
+  @Test
+  public void cachedArraysAreCopiedForEachCaller() {
+    var interceptor = new CachingMethodInterceptor(100, TIME_TO_LIVE, meterRegistry, METRIC_NAME);
+    var service = createProxy(interceptor);
+
+    var array = service.getArray("a");
+    array[0] = "changed";
+
+    assertThat(service.getArray("a"), arrayContaining("a1"));
+    assertThat(getCounter("_cache_hits", "getArray").count(), equalTo(1.0));
+  }
+
+  @Test
+  public void futuresAreNotCached() throws Exception {
+    var interceptor = new CachingMethodInterceptor(100, TIME_TO_LIVE, meterRegistry, METRIC_NAME);
+    var service = createProxy(interceptor);
+
+    target.failures.set(1);
+    var failedFuture = service.getAsync("a");
+    assertThrows(ExecutionException.class, failedFuture::get);
+
+    assertThat(service.getAsync("a").get(), equalTo("a2"));
+    assertThat(service.getAsync("a").get(), equalTo("a3"));
+  }
+
+  private Service createProxy(CachingMethodInterceptor interceptor) {
+    var proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(Service.class);
+    proxyFactory.addAdvice(interceptor);
+    return (Service) proxyFactory.getProxy();
+  }
+
+  private Counter getCounter(String suffix, String methodName) {
+    return getExactlyOneMeter(meterRegistry.getMeters(), METRIC_NAME + suffix,
+        Counter.class,
+        Tag.of(METHOD_TAG_NAME, methodName));
+  }
+
+  public interface Service {
+
+    String get(String key);
+
+    String shortLived(String key);
+
+    String[] getArray(String key);
+
+    CompletableFuture<String> getAsync(String key);
+  }
+
+  private static class ServiceStub implements Service {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    public String get(String key) {
+      int call = calls.incrementAndGet();
+      if (failures.getAndDecrement() > 0) {
+        throw new IllegalStateException("Service unavailable");
+      }
+      return key + call;
+    }
+
+    @Override
+    public String shortLived(String key) {
+      return get(key);
+    }
+
+    @Override
+    public String[] getArray(String key) {
+      return new String[]{get(key)};
+    }
+
+    @Override
+    public CompletableFuture<String> getAsync(String key) {
+      try {
+        return CompletableFuture.completedFuture(get(key));
+      } catch (IllegalStateException e) {
+        return CompletableFuture.failedFuture(e);
+      }
+    }
+  }
+}
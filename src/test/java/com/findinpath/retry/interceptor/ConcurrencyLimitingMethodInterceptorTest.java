@@ -0,0 +1,87 @@
+package com.findinpath.retry.interceptor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.github.api.ClientErrorException;
+import com.findinpath.retry.concurrency.AdaptiveConcurrencyLimiter;
+import com.findinpath.retry.concurrency.ConcurrencyLimitExceededException;
+import com.findinpath.retry.policy.ExceptionClassification;
+import com.findinpath.retry.policy.ExceptionClassifier;
+import com.findinpath.retry.policy.ExceptionClassifierRetryPolicy;
+import io.micrometer.core.instrument.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+
+public class ConcurrencyLimitingMethodInterceptorTest {
+
+  private AdaptiveConcurrencyLimiter limiter;
+  private Service service;
+
+  @BeforeEach
+  public void setup() {
+    limiter = new AdaptiveConcurrencyLimiter(4, 1, 6, 0.5, Duration.ofSeconds(1));
+    var classifier = new ExceptionClassifier(
+        Map.of(ClientErrorException.class, ExceptionClassification.NON_RETRYABLE),
+        ExceptionClassification.RETRYABLE);
+    var retryPolicy = new ExceptionClassifierRetryPolicy(new SimpleRetryPolicy(), classifier);
+    var interceptor = new ConcurrencyLimitingMethodInterceptor(limiter, retryPolicy,
+        Duration.ZERO, Clock.SYSTEM);
+    var proxyFactory = new ProxyFactory(new ServiceStub());
+    proxyFactory.addInterface(Service.class);
+    proxyFactory.addAdvice(interceptor);
+    service = (Service) proxyFactory.getProxy();
+  }
+
+  @Test
+  public void onlyTheFailuresOfTheServiceDecreaseTheLimit() {
+    assertThrows(ClientErrorException.class,
+        () -> service.call(new ClientErrorException("Not found", 404)));
+    assertThat(limiter.getLimit(), equalTo(4));
+
+    assertThrows(IllegalStateException.class,
+        () -> service.call(new IllegalStateException("Internal server error")));
+    assertThat(limiter.getLimit(), equalTo(2));
+    assertThat(limiter.getInFlight(), equalTo(0));
+  }
+
+  @Test
+  public void asynchronousCallsHoldTheirPermitUntilTheirCompletion() throws Exception {
+    var pendingCalls = new CompletableFuture[4];
+    for (int i = 0; i < pendingCalls.length; i++) {
+      pendingCalls[i] = service.callAsync();
+    }
+    assertThat(limiter.getInFlight(), equalTo(4));
+    assertThrows(ConcurrencyLimitExceededException.class, () -> service.callAsync());
+
+    pendingCalls[0].completeExceptionally(new IllegalStateException("Internal server error"));
+    assertThat(limiter.getInFlight(), equalTo(3));
+    assertThat(limiter.getLimit(), equalTo(2));
+  }
+
+  public interface Service {
+
+    String call(RuntimeException failure);
+
+    CompletableFuture<String> callAsync();
+  }
+
+  private static class ServiceStub implements Service {
+
+    @Override
+    public String call(RuntimeException failure) {
+      throw failure;
+    }
+
+    @Override
+    public CompletableFuture<String> callAsync() {
+      return new CompletableFuture<>();
+    }
+  }
+}
@@ -0,0 +1,167 @@
+package com.findinpath.retry.interceptor;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.METHOD_TAG_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.findinpath.micrometer.core.aop.MethodLatencyPercentile;
+import com.findinpath.retry.deadline.RetryDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+public class HedgingMethodInterceptorTest {
+
+  private static final String METRIC_NAME = "hedged_service";
+  private static final Duration SHORT_HEDGE_DELAY = Duration.ofMillis(50);
+  private static final Duration LONG_HEDGE_DELAY = Duration.ofMinutes(1);
+
+  private MeterRegistry meterRegistry;
+  private ExecutorService executor;
+  private ServiceStub target;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, new MockClock());
+    executor = Executors.newCachedThreadPool();
+    target = new ServiceStub();
+  }
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void slowInvocationIsHedgedAndCancelledWhenTheHedgeWins() throws Exception {
+    var service = createProxy(
+        new HedgingMethodInterceptor(2, SHORT_HEDGE_DELAY, executor, meterRegistry, METRIC_NAME));
+    target.slowCalls.set(1);
+
+    assertThat(service.get("a"), equalTo("a2"));
+
+    assertTrue(target.slowCallInterrupted.await(5, TimeUnit.SECONDS));
+    assertThat(getCounter("_hedges_fired").count(), equalTo(1.0));
+    assertThat(getCounter("_hedges_won").count(), equalTo(1.0));
+  }
+
+  @Test
+  public void invocationsRunOnTheExecutorWithTheTimeBudgetOfTheCaller() {
+    var service = createProxy(
+        new HedgingMethodInterceptor(2, SHORT_HEDGE_DELAY, executor, meterRegistry, METRIC_NAME));
+    target.slowCalls.set(1);
+    var timeBudget = Duration.ofSeconds(2);
+
+    assertThat(RetryDeadline.callWithTimeBudget(timeBudget, () -> service.get("a")),
+        equalTo("a2"));
+
+    assertThat(target.invocationThreads, everyItem(not(sameInstance(Thread.currentThread()))));
+    assertThat(target.invocationTimeBudgets, contains(timeBudget, timeBudget));
+  }
+
+  @Test
+  public void fastInvocationIsNotHedged() {
+    var service = createProxy(
+        new HedgingMethodInterceptor(2, LONG_HEDGE_DELAY, executor, meterRegistry, METRIC_NAME));
+
+    assertThat(service.get("a"), equalTo("a1"));
+    assertThat(service.get("b"), equalTo("b2"));
+
+    assertThat(getCounter("_hedges_fired").count(), equalTo(0.0));
+    assertThat(getCounter("_hedges_won").count(), equalTo(0.0));
+  }
+
+  @Test
+  public void hedgeDelayFollowsTheLatencyPercentile() {
+    var latencyTimer = Timer.builder("service_latency")
+        .tag("class", "Service")
+        .tag(METHOD_TAG_NAME, "get")
+        .tag("exception", "none")
+        .publishPercentiles(0.95)
+        .register(meterRegistry);
+    for (int i = 0; i < 100; i++) {
+      latencyTimer.record(SHORT_HEDGE_DELAY);
+    }
+    var interceptor = new HedgingMethodInterceptor(2, LONG_HEDGE_DELAY, executor, meterRegistry,
+        METRIC_NAME);
+    interceptor.setLatencyPercentile(
+        new MethodLatencyPercentile(meterRegistry, "service_latency", 0.95));
+    var service = createProxy(interceptor);
+    target.slowCalls.set(1);
+
+    // the fixed hedge delay would make the call last for a minute
+    var result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> service.get("a"));
+
+    assertThat(result, equalTo("a2"));
+    assertThat(getCounter("_hedges_won").count(), equalTo(1.0));
+  }
+
+  private Service createProxy(HedgingMethodInterceptor interceptor) {
+    var proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(Service.class);
+    proxyFactory.addAdvice(interceptor);
+    return (Service) proxyFactory.getProxy();
+  }
+
+  private Counter getCounter(String suffix) {
+    return getExactlyOneMeter(meterRegistry.getMeters(), METRIC_NAME + suffix,
+        Counter.class,
+        Tag.of(METHOD_TAG_NAME, "get"));
+  }
+
+  public interface Service {
+
+    String get(String key);
+  }
+
+  private static class ServiceStub implements Service {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger slowCalls = new AtomicInteger();
+    private final CountDownLatch slowCallInterrupted = new CountDownLatch(1);
+    private final List<Thread> invocationThreads = Collections.synchronizedList(new ArrayList<>());
+    private final List<Duration> invocationTimeBudgets =
+        Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public String get(String key) {
+      int call = calls.incrementAndGet();
+      invocationThreads.add(Thread.currentThread());
+      invocationTimeBudgets.add(RetryDeadline.getCallTimeBudget());
+      if (slowCalls.getAndDecrement() > 0) {
+        try {
+          // blocks until the call is cancelled
+          new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+          slowCallInterrupted.countDown();
+          throw new IllegalStateException("Call cancelled", e);
+        }
+      }
+      return key + call;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+package com.findinpath.retry.interceptor;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.CLASS_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.METHOD_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.RETRY_TAG_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.findinpath.micrometer.core.aop.TimedMethodInterceptor;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.backoff.BackOffContext;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.backoff.Sleeper;
+import org.springframework.retry.backoff.SleepingBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+public class ReactiveMethodInvocationRetryOperationsInterceptorTest {
+
+  private static final String METRIC_NAME = "reactive_service";
+  private static final String RETRY_METRIC_NAME = "reactive_service_retry";
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long INITIAL_BACKOFF_PERIOD = 1000L;
+
+  private MeterRegistry meterRegistry;
+  private ReactiveMethodInvocationRetryOperationsInterceptor interceptor;
+  private ReactiveServiceStub target;
+  private ReactiveService service;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    target = new ReactiveServiceStub();
+
+    var retryPolicy = new SimpleRetryPolicy();
+    retryPolicy.setMaxAttempts(MAX_ATTEMPTS);
+    var backOffPolicy = new ExponentialRandomBackOffPolicy();
+    backOffPolicy.setInitialInterval(INITIAL_BACKOFF_PERIOD);
+    backOffPolicy.setMultiplier(2);
+
+    interceptor = new ReactiveMethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryPolicy(retryPolicy);
+    interceptor.setBackOffPolicy(backOffPolicy);
+    interceptor.setListeners(new RetryListener[]{
+        new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME)
+    });
+
+    var proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(ReactiveService.class);
+    proxyFactory.addAdvice(new TimedMethodInterceptor(RETRY_METRIC_NAME,
+        "Timer for the calls including the retries", new double[0], meterRegistry));
+    proxyFactory.addAdvice(interceptor);
+    proxyFactory.addAdvice(new TimedMethodInterceptor(METRIC_NAME,
+        "Timer for the calls", new double[0], meterRegistry));
+    service = (ReactiveService) proxyFactory.getProxy();
+  }
+
+  @Test
+  public void transientFailuresAreRetriedAfterTheBackoffWithoutBlocking() {
+    target.failures.set(2);
+
+    StepVerifier.withVirtualTime(() -> service.call())
+        .expectSubscription()
+        .expectNoEvent(Duration.ofMillis(INITIAL_BACKOFF_PERIOD - 1))
+        .thenAwait(Duration.ofSeconds(10))
+        .expectNext("result")
+        .verifyComplete();
+
+    assertThat(target.attempts.get(), equalTo(3));
+
+    var meters = meterRegistry.getMeters();
+    var retriesCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(CLASS_TAG_NAME, "ReactiveService"),
+        Tag.of(METHOD_TAG_NAME, "call"),
+        Tag.of(RETRY_TAG_NAME, "2"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"));
+    assertThat(retriesCounter.count(), equalTo(1.0));
+
+    var successfulAttemptsTimer = getExactlyOneMeter(meters, METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "none"),
+        Tag.of("class", "ReactiveService"),
+        Tag.of("method", "call"));
+    assertThat(successfulAttemptsTimer.count(), equalTo(1L));
+    var failedAttemptsTimer = getExactlyOneMeter(meters, METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "IllegalStateException"),
+        Tag.of("class", "ReactiveService"),
+        Tag.of("method", "call"));
+    assertThat(failedAttemptsTimer.count(), equalTo(2L));
+    var retriesIncludedTimer = getExactlyOneMeter(meters, RETRY_METRIC_NAME,
+        Timer.class,
+        Tag.of("exception", "none"),
+        Tag.of("class", "ReactiveService"),
+        Tag.of("method", "call"));
+    assertThat(retriesIncludedTimer.count(), equalTo(1L));
+  }
+
+  @Test
+  public void exhaustedRetriesTerminateTheFluxWithTheLastError() {
+    target.failures.set(Integer.MAX_VALUE);
+
+    StepVerifier.withVirtualTime(() -> service.stream())
+        .expectSubscription()
+        .thenAwait(Duration.ofSeconds(10))
+        .verifyError(IllegalStateException.class);
+
+    assertThat(target.attempts.get(), equalTo(MAX_ATTEMPTS));
+
+    var failuresCounter = getExactlyOneMeter(meterRegistry.getMeters(),
+        METRIC_NAME + "_failures",
+        Counter.class,
+        Tag.of(CLASS_TAG_NAME, "ReactiveService"),
+        Tag.of(METHOD_TAG_NAME, "stream"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"));
+    assertThat(failuresCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void eachSubscriptionIsRetriedIndependently() {
+    var call = service.call();
+
+    StepVerifier.create(call).expectNext("result").verifyComplete();
+    target.failures.set(1);
+    StepVerifier.withVirtualTime(() -> call)
+        .expectSubscription()
+        .thenAwait(Duration.ofSeconds(10))
+        .expectNext("result")
+        .verifyComplete();
+
+    assertThat(target.attempts.get(), equalTo(3));
+  }
+
+  @Test
+  public void retriesGivenUpByTheBackoffPolicyTerminateWithTheLastError() {
+    interceptor.setBackOffPolicy(new GivingUpBackOffPolicy());
+    target.failures.set(Integer.MAX_VALUE);
+
+    StepVerifier.withVirtualTime(() -> service.call())
+        .expectSubscription()
+        .thenAwait(Duration.ofSeconds(10))
+        .verifyError(IllegalStateException.class);
+
+    assertThat(target.attempts.get(), equalTo(1));
+  }
+
+  public interface ReactiveService {
+
+    Mono<String> call();
+
+    Flux<String> stream();
+  }
+
+  static class ReactiveServiceStub implements ReactiveService {
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Override
+    public Mono<String> call() {
+      return Mono.defer(() -> {
+        attempts.incrementAndGet();
+        if (failures.getAndDecrement() > 0) {
+          return Mono.error(new IllegalStateException("Internal server error"));
+        }
+        return Mono.just("result");
+      });
+    }
+
+    @Override
+    public Flux<String> stream() {
+      return call().flux();
+    }
+  }
+
+  /**
+   * Backoff policy giving up on the retries instead of backing off (e.g. : because the deadline of
+   * the call would be exceeded).
+   */
+  static class GivingUpBackOffPolicy implements SleepingBackOffPolicy<GivingUpBackOffPolicy> {
+
+    @Override
+    public GivingUpBackOffPolicy withSleeper(Sleeper sleeper) {
+      return this;
+    }
+
+    @Override
+    public BackOffContext start(RetryContext context) {
+      return new GivingUpBackOffContext(context);
+    }
+
+    @Override
+    public void backOff(BackOffContext backOffContext) {
+      ((GivingUpBackOffContext) backOffContext).retryContext.setExhaustedOnly();
+    }
+  }
+
+  static class GivingUpBackOffContext implements BackOffContext {
+
+    private final RetryContext retryContext;
+
+    GivingUpBackOffContext(RetryContext retryContext) {
+      this.retryContext = retryContext;
+    }
+  }
+}
@@ -0,0 +1,302 @@
+package com.findinpath.retry.listener;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static com.findinpath.github.api.MeterUtils.getMeters;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.CLASS_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.EXCEPTION_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.METHOD_TAG_NAME;
+import static com.findinpath.retry.listener.MicrometerRetryListenerSupport.RETRY_TAG_NAME;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.findinpath.micrometer.core.instrument.TagCardinalityLimiter;
+import com.findinpath.retry.interceptor.RetryMethodMetadata;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.context.RetryContextSupport;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+
+public class MicrometerRetryListenerSupportTest {
+
+  private static final String METRIC_NAME = "service";
+  private static final String SHARED_LABEL = "shared";
+
+  private MeterRegistry meterRegistry;
+  private MicrometerRetryListenerSupport listener;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    listener = new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME);
+  }
+
+  @Test
+  public void retriesOfMethodsSharingTheSameLabelAreCountedSeparately() throws Exception {
+    var firstMethod = Service.class.getDeclaredMethod("first");
+    var secondMethod = Service.class.getDeclaredMethod("second");
+
+    listener.close(createRetryContext(SHARED_LABEL, firstMethod), null, null);
+    listener.close(createRetryContext(SHARED_LABEL, secondMethod), null, null);
+    listener.close(createRetryContext(SHARED_LABEL, secondMethod), null, null);
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getMeters(meters, METRIC_NAME + "_retries", Counter.class), hasSize(2));
+    var firstMethodCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(CLASS_TAG_NAME, "Service"),
+        Tag.of(METHOD_TAG_NAME, "first"),
+        Tag.of(RETRY_TAG_NAME, "0"),
+        Tag.of(EXCEPTION_TAG_NAME, "none"));
+    var secondMethodCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(CLASS_TAG_NAME, "Service"),
+        Tag.of(METHOD_TAG_NAME, "second"),
+        Tag.of(RETRY_TAG_NAME, "0"),
+        Tag.of(EXCEPTION_TAG_NAME, "none"));
+    assertThat(firstMethodCounter.count(), equalTo(1.0));
+    assertThat(secondMethodCounter.count(), equalTo(2.0));
+  }
+
+  @Test
+  public void failuresOfMethodsSharingTheSameLabelAreCountedSeparately() throws Exception {
+    var firstMethod = Service.class.getDeclaredMethod("first");
+    var secondMethod = Service.class.getDeclaredMethod("second");
+    var exception = new IllegalStateException("Internal server error");
+
+    listener.close(createRetryContext(SHARED_LABEL, firstMethod, exception), null, exception);
+    listener.close(createRetryContext(SHARED_LABEL, secondMethod, exception), null, exception);
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getMeters(meters, METRIC_NAME + "_failures", Counter.class), hasSize(2));
+    var firstMethodCounter = getExactlyOneMeter(meters, METRIC_NAME + "_failures",
+        Counter.class,
+        Tag.of(METHOD_TAG_NAME, "first"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"));
+    var secondMethodCounter = getExactlyOneMeter(meters, METRIC_NAME + "_failures",
+        Counter.class,
+        Tag.of(METHOD_TAG_NAME, "second"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalStateException"));
+    assertThat(firstMethodCounter.count(), equalTo(1.0));
+    assertThat(secondMethodCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void retriesAreCountedByRetryCountAndLastException() throws Exception {
+    var method = Service.class.getDeclaredMethod("first");
+
+    listener.close(createRetryContext(SHARED_LABEL, method), null, null);
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException("Internal server error")), null, null);
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException("Internal server error"),
+        new IllegalArgumentException("Bad request")), null, null);
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException("Internal server error"),
+        new IllegalStateException("Internal server error")), null, null);
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getMeters(meters, METRIC_NAME + "_retries", Counter.class), hasSize(4));
+    var retriedTwiceCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(RETRY_TAG_NAME, "2"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalArgumentException"));
+    assertThat(retriedTwiceCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void methodRetriedUnderDifferentLabelsIsCountedSeparately() throws Exception {
+    var method = Service.class.getDeclaredMethod("first");
+
+    listener.close(createRetryContext("label1", method), null, null);
+    listener.close(createRetryContext("label2", method), null, null);
+    listener.close(new RetryContextSupport(null), null, null);
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getMeters(meters, METRIC_NAME + "_retries", Counter.class), hasSize(3));
+    var unknownCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of("name", "unknown"),
+        Tag.of(CLASS_TAG_NAME, "none"),
+        Tag.of(METHOD_TAG_NAME, "none"));
+    assertThat(unknownCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void methodMetadataOfTheRetryContextIsUsedForTaggingTheCounters() throws Exception {
+    var methodMetadata = new RetryMethodMetadata(SHARED_LABEL,
+        Service.class.getDeclaredMethod("first"));
+
+    for (int i = 0; i < 3; i++) {
+      var context = new RetryContextSupport(null);
+      context.setAttribute(RetryContext.NAME, SHARED_LABEL);
+      context.setAttribute(RetryMethodMetadata.RETRY_METHOD_METADATA, methodMetadata);
+      listener.close(context, null, null);
+    }
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getMeters(meters, METRIC_NAME + "_retries", Counter.class), hasSize(1));
+    var counter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of("name", SHARED_LABEL),
+        Tag.of(CLASS_TAG_NAME, "Service"),
+        Tag.of(METHOD_TAG_NAME, "first"),
+        Tag.of(RETRY_TAG_NAME, "0"));
+    assertThat(counter.count(), equalTo(3.0));
+  }
+
+  @Test
+  public void attemptsAndBackOffAreTimedSeparately() throws Exception {
+    var clock = new MockClock();
+    var meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    var listener = new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME,
+        Duration.ofMillis(100));
+    var context = createRetryContext(SHARED_LABEL, Service.class.getDeclaredMethod("first"));
+
+    listener.open(context, null);
+    clock.add(5, TimeUnit.MILLISECONDS);
+    RetryAttemptTimings.attemptStarted(context);
+    clock.add(30, TimeUnit.MILLISECONDS);
+    var exception = new IllegalStateException("Internal server error");
+    ((RetryContextSupport) context).registerThrowable(exception);
+    listener.onError(context, null, exception);
+    clock.add(200, TimeUnit.MILLISECONDS);
+    RetryAttemptTimings.attemptStarted(context);
+    clock.add(40, TimeUnit.MILLISECONDS);
+    listener.close(context, null, null);
+
+    var meters = meterRegistry.getMeters();
+    var attemptTimer = getExactlyOneMeter(meters, METRIC_NAME + "_attempt", Timer.class,
+        Tag.of(METHOD_TAG_NAME, "first"));
+    var backOffTimer = getExactlyOneMeter(meters, METRIC_NAME + "_backoff", Timer.class,
+        Tag.of(METHOD_TAG_NAME, "first"));
+    assertThat(attemptTimer.count(), equalTo(2L));
+    assertThat(attemptTimer.totalTime(TimeUnit.MILLISECONDS), equalTo(70.0));
+    assertThat(attemptTimer.max(TimeUnit.MILLISECONDS), equalTo(40.0));
+    assertThat(backOffTimer.count(), equalTo(1L));
+    assertThat(backOffTimer.totalTime(TimeUnit.MILLISECONDS), equalTo(200.0));
+
+    var slaBucket = Arrays.stream(attemptTimer.takeSnapshot().histogramCounts())
+        .filter(bucket -> bucket.bucket(TimeUnit.MILLISECONDS) == 100.0)
+        .findFirst()
+        .orElseThrow();
+    assertThat(slaBucket.count(), equalTo(2.0));
+  }
+
+  @Test
+  public void attemptsWithoutStampedStartAreTimedFromThePreviousAttempt() throws Exception {
+    var clock = new MockClock();
+    var meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    var listener = new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME);
+    var context = createRetryContext(SHARED_LABEL, Service.class.getDeclaredMethod("first"));
+
+    listener.open(context, null);
+    clock.add(30, TimeUnit.MILLISECONDS);
+    var exception = new IllegalStateException("Internal server error");
+    ((RetryContextSupport) context).registerThrowable(exception);
+    listener.onError(context, null, exception);
+    clock.add(200, TimeUnit.MILLISECONDS);
+    listener.close(context, null, null);
+
+    var meters = meterRegistry.getMeters();
+    var attemptTimer = getExactlyOneMeter(meters, METRIC_NAME + "_attempt", Timer.class,
+        Tag.of(METHOD_TAG_NAME, "first"));
+    var backOffTimer = getExactlyOneMeter(meters, METRIC_NAME + "_backoff", Timer.class,
+        Tag.of(METHOD_TAG_NAME, "first"));
+    assertThat(attemptTimer.count(), equalTo(2L));
+    assertThat(attemptTimer.totalTime(TimeUnit.MILLISECONDS), equalTo(230.0));
+    // the backoff time can't be told apart from the attempt time
+    assertThat(backOffTimer.count(), equalTo(0L));
+  }
+
+  @Test
+  public void tagValuesExceedingTheLimitAreFoldedIntoOther() throws Exception {
+    var limiter = new TagCardinalityLimiter(2, meterRegistry, METRIC_NAME + "_dropped");
+    var listener = new MicrometerRetryListenerSupport(meterRegistry, METRIC_NAME, limiter);
+    var method = Service.class.getDeclaredMethod("first");
+
+    // admits the "0" and "1" retry tag values as well as the IllegalStateException tag value
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException()), null, null);
+    // folds the "2" retry tag value and admits the IllegalArgumentException tag value
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException(), new IllegalArgumentException()), null, null);
+    // folds the UnsupportedOperationException tag value
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new UnsupportedOperationException()), null, null);
+    // folds the "3" retry tag value and the ArithmeticException tag value
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException(), new IllegalStateException(),
+        new ArithmeticException()), null, null);
+    // the folded values are counted once
+    listener.close(createRetryContext(SHARED_LABEL, method,
+        new IllegalStateException(), new IllegalStateException(),
+        new UnsupportedOperationException()), null, null);
+
+    var meters = meterRegistry.getMeters();
+    assertThat(getMeters(meters, METRIC_NAME + "_retries", Counter.class), hasSize(4));
+    var otherRetryCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(RETRY_TAG_NAME, "other"),
+        Tag.of(EXCEPTION_TAG_NAME, "IllegalArgumentException"));
+    var otherExceptionCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(RETRY_TAG_NAME, "1"),
+        Tag.of(EXCEPTION_TAG_NAME, "other"));
+    var otherRetryAndExceptionCounter = getExactlyOneMeter(meters, METRIC_NAME + "_retries",
+        Counter.class,
+        Tag.of(RETRY_TAG_NAME, "other"),
+        Tag.of(EXCEPTION_TAG_NAME, "other"));
+    assertThat(otherRetryCounter.count(), equalTo(1.0));
+    assertThat(otherExceptionCounter.count(), equalTo(1.0));
+    assertThat(otherRetryAndExceptionCounter.count(), equalTo(2.0));
+
+    var droppedRetryTagValues = getExactlyOneMeter(meters, METRIC_NAME + "_dropped",
+        Counter.class,
+        Tag.of("meter", METRIC_NAME + "_retries"),
+        Tag.of("tag", RETRY_TAG_NAME));
+    var droppedExceptionTagValues = getExactlyOneMeter(meters, METRIC_NAME + "_dropped",
+        Counter.class,
+        Tag.of("meter", METRIC_NAME + "_retries"),
+        Tag.of("tag", EXCEPTION_TAG_NAME));
+    assertThat(droppedRetryTagValues.count(), equalTo(2.0));
+    assertThat(droppedExceptionTagValues.count(), equalTo(2.0));
+  }
+
+  private static RetryContext createRetryContext(String label, Method method,
+      Throwable... throwables) {
+    var methodInvocation = mock(MethodInvocation.class);
+    when(methodInvocation.getMethod()).thenReturn(method);
+
+    var context = new RetryContextSupport(null);
+    context.setAttribute(RetryContext.NAME, label);
+    context.setAttribute(MethodInvocationRetryOperationsInterceptor.METHOD_INVOCATION,
+        methodInvocation);
+    for (Throwable throwable : throwables) {
+      context.registerThrowable(throwable);
+    }
+    return context;
+  }
+
+  interface Service {
+
+    void first();
+
+    void second();
+  }
+}
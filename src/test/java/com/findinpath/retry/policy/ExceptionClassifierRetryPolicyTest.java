@@ -0,0 +1,123 @@
+package com.findinpath.retry.policy;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.retry.backoff.ExceptionClassificationBackOffPolicy;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.backoff.FixedBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+public class ExceptionClassifierRetryPolicyTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final long BACKOFF_PERIOD = 10;
+  private static final long LONG_BACKOFF_PERIOD = 1000;
+
+  private MeterRegistry meterRegistry;
+  private List<Long> backOffPeriods;
+  private RetryTemplate retryTemplate;
+
+  @BeforeEach
+  public void setup() {
+    meterRegistry = new SimpleMeterRegistry();
+    backOffPeriods = new ArrayList<>();
+
+    var classifier = new ExceptionClassifier(Map.of(
+        IllegalArgumentException.class, ExceptionClassification.NON_RETRYABLE,
+        IllegalStateException.class, ExceptionClassification.LONG_BACKOFF),
+        ExceptionClassification.RETRYABLE);
+    retryTemplate = new RetryTemplate();
+    retryTemplate.setBackOffPolicy(new ExceptionClassificationBackOffPolicy(
+        createBackOffPolicy(BACKOFF_PERIOD), createBackOffPolicy(LONG_BACKOFF_PERIOD)));
+    retryTemplate.setRetryPolicy(
+        new ExceptionClassifierRetryPolicy(new SimpleRetryPolicy(MAX_ATTEMPTS), classifier));
+    retryTemplate.setListeners(new RetryListener[]{
+        new MicrometerRetryListenerSupport(meterRegistry, "service")});
+  }
+
+  @Test
+  public void nonRetryableExceptionsAreNotRetried() {
+    assertThat(callFailingService(() -> new IllegalArgumentException("Not found")), equalTo(1));
+
+    assertThat(getFailuresCounter("IllegalArgumentException", "non_retryable").count(),
+        equalTo(1.0));
+  }
+
+  @Test
+  public void exceptionsAreClassifiedThroughTheirSuperclassesAndCauses() {
+    assertThat(callFailingService(
+        () -> new RuntimeException(new NumberFormatException("Invalid repository name"))),
+        equalTo(1));
+
+    assertThat(getFailuresCounter("RuntimeException", "non_retryable").count(), equalTo(1.0));
+  }
+
+  @Test
+  public void unclassifiedExceptionsAreRetried() {
+    assertThat(callFailingService(() -> new UnsupportedOperationException("Internal error")),
+        equalTo(MAX_ATTEMPTS));
+
+    assertThat(backOffPeriods, contains(BACKOFF_PERIOD, BACKOFF_PERIOD));
+    assertThat(getFailuresCounter("UnsupportedOperationException", "retryable").count(),
+        equalTo(1.0));
+  }
+
+  @Test
+  public void exceptionsWithCyclicCausesGetTheDefaultClassification() {
+    assertThat(callFailingService(() -> {
+      var exception = new RuntimeException("Internal error");
+      exception.initCause(new UnsupportedOperationException("Internal error", exception));
+      return exception;
+    }), equalTo(MAX_ATTEMPTS));
+
+    assertThat(getFailuresCounter("RuntimeException", "retryable").count(), equalTo(1.0));
+  }
+
+  @Test
+  public void longBackoffExceptionsAreRetriedWithTheLongBackoff() {
+    assertThat(callFailingService(() -> new IllegalStateException("Service unavailable")),
+        equalTo(MAX_ATTEMPTS));
+
+    assertThat(backOffPeriods, contains(LONG_BACKOFF_PERIOD, LONG_BACKOFF_PERIOD));
+    assertThat(getFailuresCounter("IllegalStateException", "long_backoff").count(),
+        equalTo(1.0));
+  }
+
+  private FixedBackOffPolicy createBackOffPolicy(long backOffPeriod) {
+    var backOffPolicy = new FixedBackOffPolicy();
+    backOffPolicy.setBackOffPeriod(backOffPeriod);
+    return backOffPolicy.withSleeper(backOffPeriods::add);
+  }
+
+  private Counter getFailuresCounter(String exception, String classification) {
+    return getExactlyOneMeter(meterRegistry.getMeters(), "service_failures", Counter.class,
+        Tag.of("exception", exception),
+        Tag.of("classification", classification));
+  }
+
+  private int callFailingService(Supplier<RuntimeException> exceptionSupplier) {
+    var attempts = new AtomicInteger();
+    assertThrows(RuntimeException.class, () -> retryTemplate.execute(context -> {
+      attempts.incrementAndGet();
+      throw exceptionSupplier.get();
+    }));
+    return attempts.get();
+  }
+}
@@ -0,0 +1,103 @@
+package com.findinpath.retry.policy;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+public class RetryBudgetRetryPolicyTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final Duration WINDOW = Duration.ofSeconds(10);
+
+  private MockClock clock;
+  private MeterRegistry meterRegistry;
+  private RetryBudget retryBudget;
+  private RetryTemplate retryTemplate;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MockClock();
+    meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    retryBudget = new RetryBudget(0.5, 0, WINDOW, clock);
+    retryBudget.bindTo(meterRegistry, "service");
+
+    var simpleRetryPolicy = new SimpleRetryPolicy();
+    simpleRetryPolicy.setMaxAttempts(MAX_ATTEMPTS);
+    retryTemplate = new RetryTemplate();
+    retryTemplate.setBackOffPolicy(new NoBackOffPolicy());
+    retryTemplate.setRetryPolicy(new RetryBudgetRetryPolicy(simpleRetryPolicy, retryBudget));
+  }
+
+  @Test
+  public void retriesAreLimitedToTheRatioOfFirstAttempts() {
+    // a single call deposits only half a retry in the budget
+    assertThat(callFailingService(), equalTo(1));
+    assertThat(retryBudget.getDeniedRetries(), equalTo(1L));
+
+    for (int i = 0; i < 4; i++) {
+      retryTemplate.execute(context -> "success");
+    }
+
+    // 6 first attempts deposit 3 retries
+    assertThat(callFailingService(), equalTo(MAX_ATTEMPTS));
+    assertThat(retryBudget.getRemaining(), equalTo(1.0));
+    assertThat(retryBudget.getDeniedRetries(), equalTo(1L));
+
+    var remainingGauge = getExactlyOneMeter(meterRegistry.getMeters(),
+        "service_retry_budget_remaining", Gauge.class);
+    var deniedCounter = getExactlyOneMeter(meterRegistry.getMeters(),
+        "service_retry_budget_denied", FunctionCounter.class);
+    assertThat(remainingGauge.value(), equalTo(1.0));
+    assertThat(deniedCounter.count(), equalTo(1.0));
+  }
+
+  @Test
+  public void budgetIsReplenishedWhenTheWindowSlides() {
+    for (int i = 0; i < 10; i++) {
+      retryTemplate.execute(context -> "success");
+    }
+    assertThat(retryBudget.getRemaining(), equalTo(5.0));
+
+    clock.add(WINDOW.toMillis() + 1, TimeUnit.MILLISECONDS);
+
+    assertThat(retryBudget.getRemaining(), equalTo(0.0));
+    assertThat(callFailingService(), equalTo(1));
+  }
+
+  @Test
+  public void minimumRetriesPerSecondAreAllowedWithoutTraffic() {
+    retryBudget = new RetryBudget(0, 1, WINDOW, clock);
+    var simpleRetryPolicy = new SimpleRetryPolicy();
+    simpleRetryPolicy.setMaxAttempts(MAX_ATTEMPTS);
+    retryTemplate.setRetryPolicy(new RetryBudgetRetryPolicy(simpleRetryPolicy, retryBudget));
+
+    assertThat(retryBudget.getRemaining(), equalTo(10.0));
+    assertThat(callFailingService(), equalTo(MAX_ATTEMPTS));
+    assertThat(retryBudget.getRemaining(), equalTo(8.0));
+  }
+
+  private int callFailingService() {
+    var attempts = new AtomicInteger();
+    assertThrows(IllegalStateException.class, () -> retryTemplate.execute(context -> {
+      attempts.incrementAndGet();
+      throw new IllegalStateException("Internal server error");
+    }));
+    return attempts.get();
+  }
+}
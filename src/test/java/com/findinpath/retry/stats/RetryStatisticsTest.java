@@ -0,0 +1,129 @@
+package com.findinpath.retry.stats;
+
+import static com.findinpath.github.api.MeterUtils.getExactlyOneMeter;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+import org.springframework.retry.interceptor.MethodInvocationRetryOperationsInterceptor;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+public class RetryStatisticsTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+  private static final Duration WINDOW = Duration.ofSeconds(60);
+  private static final int BUCKETS = 60;
+
+  private MockClock clock;
+  private MeterRegistry meterRegistry;
+  private RetryStatistics retryStatistics;
+  private ServiceStub target;
+  private Service service;
+
+  @BeforeEach
+  public void setup() {
+    clock = new MockClock();
+    meterRegistry = new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock);
+    retryStatistics = new RetryStatistics(BUCKETS, WINDOW, clock);
+    retryStatistics.bindTo(meterRegistry, "service");
+
+    var retryPolicy = new SimpleRetryPolicy();
+    retryPolicy.setMaxAttempts(MAX_ATTEMPTS);
+    var retryTemplate = new RetryTemplate();
+    retryTemplate.setBackOffPolicy(new NoBackOffPolicy());
+    retryTemplate.setRetryPolicy(retryPolicy);
+    retryTemplate.setListeners(new RetryListener[]{retryStatistics});
+    var interceptor = new MethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryOperations(retryTemplate);
+    interceptor.setLabel("service");
+
+    target = new ServiceStub();
+    var proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(Service.class);
+    proxyFactory.addAdvice(interceptor);
+    service = (Service) proxyFactory.getProxy();
+  }
+
+  @Test
+  public void retryRatioAndErrorRateAreComputedOverTheWindow() throws Exception {
+    service.call();
+    service.call();
+    target.failures.set(1);
+    service.call();
+    target.failures.set(Integer.MAX_VALUE);
+    assertThrows(IllegalStateException.class, () -> service.call());
+
+    var statistics = retryStatistics.getStatistics(Service.class.getMethod("call"));
+    assertThat(statistics.getCalls(), equalTo(4L));
+    // 1 + 1 + 2 + 3 attempts, out of which 0 + 0 + 1 + 2 retries
+    assertThat(statistics.getAttempts(), equalTo(7L));
+    assertThat(statistics.getRetries(), equalTo(3L));
+    assertThat(statistics.getFailures(), equalTo(1L));
+    assertThat(statistics.getRetryRatio(), equalTo(3.0 / 7));
+    assertThat(statistics.getErrorRate(), equalTo(0.25));
+
+    var meters = meterRegistry.getMeters();
+    var retryRatioGauge = getExactlyOneMeter(meters, "service_retry_ratio", Gauge.class,
+        Tag.of("name", "service"), Tag.of("class", "Service"), Tag.of("method", "call"));
+    assertThat(retryRatioGauge.value(), equalTo(3.0 / 7));
+    var errorRateGauge = getExactlyOneMeter(meters, "service_error_rate", Gauge.class,
+        Tag.of("name", "service"), Tag.of("class", "Service"), Tag.of("method", "call"));
+    assertThat(errorRateGauge.value(), equalTo(0.25));
+
+    clock.add(WINDOW);
+    assertThat(retryRatioGauge.value(), equalTo(0.0));
+    assertThat(errorRateGauge.value(), equalTo(0.0));
+  }
+
+  @Test
+  public void theCallsLeaveTheWindowBucketByBucket() throws Exception {
+    target.failures.set(Integer.MAX_VALUE);
+    assertThrows(IllegalStateException.class, () -> service.call());
+    clock.add(30, TimeUnit.SECONDS);
+    target.failures.set(0);
+    service.call();
+
+    var statistics = retryStatistics.getStatistics(Service.class.getMethod("call"));
+    assertThat(statistics.getCalls(), equalTo(2L));
+    assertThat(statistics.getErrorRate(), equalTo(0.5));
+
+    clock.add(30, TimeUnit.SECONDS);
+    assertThat(statistics.getCalls(), equalTo(1L));
+    assertThat(statistics.getAttempts(), equalTo(1L));
+    assertThat(statistics.getErrorRate(), equalTo(0.0));
+    assertThat(statistics.getRetryRatio(), equalTo(0.0));
+  }
+
+  public interface Service {
+
+    String call();
+  }
+
+  static class ServiceStub implements Service {
+
+    private final AtomicInteger failures = new AtomicInteger();
+
+    @Override
+    public String call() {
+      if (failures.getAndDecrement() > 0) {
+        throw new IllegalStateException("Internal server error");
+      }
+      return "result";
+    }
+  }
+}
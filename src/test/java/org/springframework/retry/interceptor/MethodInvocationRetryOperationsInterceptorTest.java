@@ -0,0 +1,120 @@
+package org.springframework.retry.interceptor;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.findinpath.micrometer.core.aop.MethodTimerCache;
+import com.findinpath.micrometer.core.aop.TimedMethodInterceptor;
+import com.findinpath.retry.listener.MicrometerRetryListenerSupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.backoff.NoBackOffPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+public class MethodInvocationRetryOperationsInterceptorTest {
+
+  private static final String METRIC_NAME = "service";
+  private static final String RETRY_METRIC_NAME = "service_retry";
+  private static final String METRIC_DESCRIPTION = "Service timer";
+  private static final double[] EXPORTED_PERCENTILES = {0.5, 0.95};
+  private static final int MAX_ATTEMPTS = 3;
+
+  @Test
+  public void timedRetriesPublishTheSameMetersAsTheChainOfInterceptors() {
+    MeterRegistry chainRegistry = new SimpleMeterRegistry();
+    var chainService = createProxy(new FlakyService(),
+        new TimedMethodInterceptor(RETRY_METRIC_NAME, METRIC_DESCRIPTION, EXPORTED_PERCENTILES,
+            chainRegistry),
+        createRetryInterceptor(chainRegistry),
+        new TimedMethodInterceptor(METRIC_NAME, METRIC_DESCRIPTION, EXPORTED_PERCENTILES,
+            chainRegistry));
+
+    MeterRegistry fusedRegistry = new SimpleMeterRegistry();
+    var fusedInterceptor = createRetryInterceptor(fusedRegistry);
+    fusedInterceptor.setCallTimers(createMethodTimers(RETRY_METRIC_NAME, fusedRegistry));
+    fusedInterceptor.setAttemptTimers(createMethodTimers(METRIC_NAME, fusedRegistry));
+    var fusedService = createProxy(new FlakyService(), fusedInterceptor);
+
+    for (var service : new Service[]{chainService, fusedService}) {
+      // the first call fails on its two first attempts, the second one exhausts the retries
+      assertThat(service.call(2), equalTo("OK"));
+      assertThrows(IllegalStateException.class, () -> service.call(MAX_ATTEMPTS));
+    }
+
+    assertThat(getMeterCounts(fusedRegistry), equalTo(getMeterCounts(chainRegistry)));
+  }
+
+  private static Map<String, Long> getMeterCounts(MeterRegistry registry) {
+    var meterCounts = new TreeMap<String, Long>();
+    registry.getMeters().forEach(meter -> {
+      long count = -1;
+      if (meter instanceof Timer) {
+        count = ((Timer) meter).count();
+      } else if (meter instanceof Counter) {
+        count = (long) ((Counter) meter).count();
+      }
+      meterCounts.put(meter.getId().toString(), count);
+    });
+    return meterCounts;
+  }
+
+  private static MethodInvocationRetryOperationsInterceptor createRetryInterceptor(
+      MeterRegistry registry) {
+    var retryTemplate = new RetryTemplate();
+    retryTemplate.setBackOffPolicy(new NoBackOffPolicy());
+    retryTemplate.setRetryPolicy(new SimpleRetryPolicy(MAX_ATTEMPTS));
+    retryTemplate.setListeners(new RetryListener[]{
+        new MicrometerRetryListenerSupport(registry, METRIC_NAME)});
+
+    var interceptor = new MethodInvocationRetryOperationsInterceptor();
+    interceptor.setRetryOperations(retryTemplate);
+    interceptor.setClock(registry.config().clock());
+    return interceptor;
+  }
+
+  private static MethodTimerCache createMethodTimers(String metricName, MeterRegistry registry) {
+    var methodTimers = new MethodTimerCache(metricName, METRIC_DESCRIPTION, EXPORTED_PERCENTILES,
+        registry);
+    methodTimers.registerUntaggedTimer();
+    return methodTimers;
+  }
+
+  private static Service createProxy(Service target, MethodInterceptor... interceptors) {
+    ProxyFactory proxyFactory = new ProxyFactory(target);
+    proxyFactory.addInterface(Service.class);
+    for (MethodInterceptor interceptor : interceptors) {
+      proxyFactory.addAdvice(interceptor);
+    }
+    return (Service) proxyFactory.getProxy();
+  }
+
+  public interface Service {
+
+    String call(int failures);
+  }
+
+  static class FlakyService implements Service {
+
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Override
+    public String call(int failures) {
+      if (attempts.incrementAndGet() <= failures) {
+        throw new IllegalStateException("Internal server error");
+      }
+      attempts.set(0);
+      return "OK";
+    }
+  }
+}